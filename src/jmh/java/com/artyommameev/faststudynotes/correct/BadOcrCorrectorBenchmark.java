@@ -0,0 +1,62 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the dictionary correction of {@link BadOcrCorrector}.
+ * <p>
+ * Run with the GC profiler to see the allocation rate:
+ * <pre>mvnw -P benchmarks test-compile exec:exec</pre>
+ *
+ * @author Artyom Mameev
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BadOcrCorrectorBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    private int dictionarySize;
+
+    @Param({"SENTENCE", "PARAGRAPH", "CHAPTER"})
+    private InputSize inputSize;
+
+    @Param({"TEXT", "CODE"})
+    private Correction.TYPE type;
+
+    private List<Correction> corrections;
+    private CompiledCorrections compiledCorrections;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        corrections = BenchmarkData.createCorrections(dictionarySize);
+        compiledCorrections = new CompiledCorrections(corrections, 0);
+        text = BenchmarkData.createText(inputSize.getLength(), type,
+                corrections);
+    }
+
+    @Benchmark
+    public String correctWithCompiledCorrections() {
+        return BadOcrCorrector.correct(text, type, compiledCorrections);
+    }
+
+    @Benchmark
+    public String correctInParallel() {
+        return BadOcrCorrector.correctInParallel(text, type,
+                compiledCorrections);
+    }
+
+    // includes the compilation of the dictionary on every call
+    @Benchmark
+    public String correctWithCorrectionsList() {
+        return BadOcrCorrector.correct(text, type, corrections);
+    }
+}
@@ -0,0 +1,103 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A generator of reproducible synthetic dictionaries and texts for the
+ * benchmarks.
+ *
+ * @author Artyom Mameev
+ */
+class BenchmarkData {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates a dictionary of random {@link Correction}s.
+     *
+     * @param size the number of the {@link Correction}s of each type.
+     * @return the list of the {@link Correction}s of both types.
+     */
+    static List<Correction> createCorrections(int size) {
+        val random = new Random(size);
+
+        List<Correction> corrections = new ArrayList<>();
+
+        for (val type : Correction.TYPE.values()) {
+            for (int i = 0; i < size; i++) {
+                corrections.add(new Correction(createWord(random, 3, 8),
+                        createWord(random, 3, 8), type));
+            }
+        }
+
+        return corrections;
+    }
+
+    /**
+     * Creates a random text that contains some of the expressions of the
+     * dictionary, line breaks and hyphenated line breaks.
+     *
+     * @param length      the approximate length of the text.
+     * @param type        the type of the text.
+     * @param corrections the dictionary to take the expressions from.
+     * @return the random text of the given type.
+     */
+    static String createText(int length, Correction.TYPE type,
+                             List<Correction> corrections) {
+        val random = new Random(length);
+        val text = new StringBuilder(length + 16);
+
+        int lineLength = 0;
+
+        while (text.length() < length) {
+            // every tenth word is a mistake from the dictionary
+            if (random.nextInt(10) == 0) {
+                text.append(corrections.get(random.nextInt(
+                        corrections.size())).getExpression());
+            } else {
+                text.append(createWord(random, 1, 10));
+            }
+
+            lineLength = text.length() - text.lastIndexOf("\n");
+
+            if (lineLength < 60) {
+                text.append(' ');
+
+                continue;
+            }
+
+            if (type.equals(Correction.TYPE.TEXT) && random.nextBoolean()) {
+                text.append('-');
+            }
+
+            text.append('\n');
+
+            if (type.equals(Correction.TYPE.CODE)) {
+                text.append("    ");
+            }
+        }
+
+        return text.toString();
+    }
+
+    private static String createWord(Random random, int minLength,
+                                     int maxLength) {
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+
+        val word = new StringBuilder(length);
+
+        for (int i = 0; i < length; i++) {
+            word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+
+        return word.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package com.artyommameev.faststudynotes.correct;
+
+import lombok.val;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the rebuilding of the indentation of code listings.
+ *
+ * @author Artyom Mameev
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodeIndentationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int linesCount;
+
+    private String code;
+
+    @Setup
+    public void setUp() {
+        val random = new Random(linesCount);
+        val code = new StringBuilder();
+
+        int depth = 0;
+
+        // a listing that lost its indentation, as OCRed code usually does
+        for (int i = 0; i < linesCount; i++) {
+            int kind = random.nextInt(6);
+
+            if (kind == 0 || depth == 0) {
+                code.append("if (value").append(i).append(" > 0) {\n");
+
+                depth++;
+            } else if (kind == 1) {
+                code.append("}\n");
+
+                depth--;
+            } else if (kind == 2) {
+                code.append("// \"comment\" {\n");
+            } else {
+                code.append("value = call(\"text{\", value").append(i)
+                        .append(");\n");
+            }
+        }
+
+        this.code = code.toString();
+    }
+
+    @Benchmark
+    public String indentCode() {
+        return BadOcrCorrector.indentCode(code);
+    }
+}
@@ -0,0 +1,57 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the full correction of an added fragment by a
+ * {@link CorrectionPipeline}, compared with the chain of the
+ * {@link BadOcrCorrector} methods.
+ *
+ * @author Artyom Mameev
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CorrectionPipelineBenchmark {
+
+    @Param({"SENTENCE", "PARAGRAPH", "PAGE"})
+    private InputSize inputSize;
+
+    private CompiledCorrections compiledCorrections;
+    private CorrectionPipeline pipeline;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        compiledCorrections = new CompiledCorrections(
+                BenchmarkData.createCorrections(1000), 0);
+
+        pipeline = new CorrectionPipeline.Builder()
+                .normalize(Correction.TYPE.TEXT)
+                .correct(compiledCorrections, Correction.TYPE.TEXT)
+                .capitalize()
+                .addPeriodAtTheEnd()
+                .build();
+
+        text = BenchmarkData.createText(inputSize.getLength(),
+                Correction.TYPE.TEXT, BenchmarkData.createCorrections(1000));
+    }
+
+    @Benchmark
+    public String chainedMethods() {
+        return BadOcrCorrector.addPeriodAtTheEnd(BadOcrCorrector.capitalize(
+                BadOcrCorrector.correct(text, Correction.TYPE.TEXT,
+                        compiledCorrections)));
+    }
+
+    @Benchmark
+    public String pipeline() {
+        return pipeline.apply(text);
+    }
+}
@@ -0,0 +1,23 @@
+package com.artyommameev.faststudynotes.correct;
+
+import lombok.Getter;
+
+/**
+ * Typical sizes of the fragments that are added to a document.
+ *
+ * @author Artyom Mameev
+ */
+public enum InputSize {
+
+    SENTENCE(100),
+    PARAGRAPH(1_000),
+    PAGE(4_000),
+    CHAPTER(100_000);
+
+    @Getter
+    private final int length;
+
+    InputSize(int length) {
+        this.length = length;
+    }
+}
@@ -0,0 +1,49 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the formatting utilities of {@link BadOcrCorrector}.
+ *
+ * @author Artyom Mameev
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextFormattingBenchmark {
+
+    @Param({"SENTENCE", "PARAGRAPH", "CHAPTER"})
+    private InputSize inputSize;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = BenchmarkData.createText(inputSize.getLength(),
+                Correction.TYPE.TEXT, BenchmarkData.createCorrections(10));
+    }
+
+    @Benchmark
+    public String capitalize() {
+        return BadOcrCorrector.capitalize(text);
+    }
+
+    @Benchmark
+    public String addPeriodAtTheEnd() {
+        return BadOcrCorrector.addPeriodAtTheEnd(text);
+    }
+
+    // the basic normalization without dictionary corrections
+    @Benchmark
+    public String correctWithEmptyDictionary() {
+        return BadOcrCorrector.correct(text, Correction.TYPE.TEXT,
+                Collections.emptyList());
+    }
+}
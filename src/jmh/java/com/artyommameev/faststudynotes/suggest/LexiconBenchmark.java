@@ -0,0 +1,77 @@
+package com.artyommameev.faststudynotes.suggest;
+
+import com.artyommameev.faststudynotes.correct.InputSize;
+import lombok.val;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of finding the unknown tokens of a text with {@link Lexicon}.
+ *
+ * @author Artyom Mameev
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LexiconBenchmark {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    @Param({"100000", "1000000"})
+    private int lexiconSize;
+
+    @Param({"PARAGRAPH", "PAGE"})
+    private InputSize inputSize;
+
+    private Lexicon lexicon;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        val random = new Random(lexiconSize);
+
+        List<String> words = new ArrayList<>(lexiconSize);
+
+        for (int i = 0; i < lexiconSize; i++) {
+            words.add(createWord(random));
+        }
+
+        lexicon = new Lexicon(words);
+
+        val textBuilder = new StringBuilder();
+
+        while (textBuilder.length() < inputSize.getLength()) {
+            // every tenth word is unknown
+            textBuilder.append(random.nextInt(10) == 0 ?
+                    createWord(random) :
+                    words.get(random.nextInt(words.size())))
+                    .append(' ');
+        }
+
+        text = textBuilder.toString();
+    }
+
+    @Benchmark
+    public int[] findUnknownTokens() {
+        return lexicon.findUnknownTokens(text);
+    }
+
+    private static String createWord(Random random) {
+        int length = 3 + random.nextInt(8);
+
+        val word = new StringBuilder(length);
+
+        for (int i = 0; i < length; i++) {
+            word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+
+        return word.toString();
+    }
+}
@@ -1,5 +1,7 @@
 package com.artyommameev.faststudynotes;
 
+import com.artyommameev.faststudynotes.controller.MainController;
+import com.artyommameev.faststudynotes.database.CorrectionsDatabase;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
@@ -18,6 +20,8 @@ public class Main extends javafx.application.Application {
 
     public final static String APP_NAME = "Fast Study Notes";
 
+    private MainController mainController;
+
     /**
      * The main entry point of the application.
      *
@@ -39,9 +43,13 @@ public class Main extends javafx.application.Application {
         val graphicsDevice = GraphicsEnvironment
                 .getLocalGraphicsEnvironment().getDefaultScreenDevice();
 
-        Parent rootParent = FXMLLoader.load(getClass().getResource(
+        val mainFxmlLoader = new FXMLLoader(getClass().getResource(
                 "/fxml/Main.fxml"));
 
+        Parent rootParent = mainFxmlLoader.load();
+
+        mainController = mainFxmlLoader.getController();
+
         //create a full-screen window depending on the screen resolution
         primaryStage.setScene(new Scene(rootParent,
                 graphicsDevice.getDisplayMode().getWidth(),
@@ -52,4 +60,16 @@ public class Main extends javafx.application.Application {
                         "/icon/icon.png")));
         primaryStage.show();
     }
+
+    /**
+     * JavaFX exit point of the application, which writes the changes of the
+     * dictionary and closes the connection with the
+     * {@link CorrectionsDatabase}.
+     */
+    @Override
+    public void stop() {
+        if (mainController != null) {
+            mainController.stop();
+        }
+    }
 }
@@ -1,14 +1,19 @@
 package com.artyommameev.faststudynotes.controller;
 
 import com.artyommameev.faststudynotes.database.CorrectionsDatabase;
+import com.artyommameev.faststudynotes.database.CorrectionsRepository;
 import com.artyommameev.faststudynotes.domain.Correction;
 import com.artyommameev.faststudynotes.util.SimpleAlertCreator;
 import javafx.fxml.FXML;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
+import lombok.NonNull;
 import lombok.val;
 
+import java.util.regex.PatternSyntaxException;
+
 /**
  * A controller of popup window for adding new {@link Correction}s.
  *
@@ -22,6 +27,36 @@ public class AddCorrectionsController {
     private TextField correctionTextField;
     @FXML
     private CheckBox checkBoxCode;
+    @FXML
+    private CheckBox checkBoxRegex;
+    @FXML
+    private CheckBox checkBoxIgnoreCase;
+    @FXML
+    private ChoiceBox<Correction.CONDITION> conditionChoiceBox;
+
+    private CorrectionsRepository correctionsRepository;
+
+    /**
+     * Necessary actions to initialize the controller.
+     */
+    @FXML
+    public void initialize() {
+        conditionChoiceBox.getItems().setAll(Correction.CONDITION.values());
+        conditionChoiceBox.setValue(Correction.CONDITION.NONE);
+    }
+
+    /**
+     * Sets a {@link CorrectionsRepository} to which the {@link Correction}
+     * is added.
+     *
+     * @param correctionsRepository the {@link CorrectionsRepository}.
+     * @throws NullPointerException if the {@link CorrectionsRepository} is
+     *                              null.
+     */
+    public void setCorrectionsRepository(
+            @NonNull CorrectionsRepository correctionsRepository) {
+        this.correctionsRepository = correctionsRepository;
+    }
 
     @FXML
     private void onAddButtonAction() {
@@ -33,11 +68,26 @@ public class AddCorrectionsController {
         val correctionType = checkBoxCode.isSelected() ?
                 Correction.TYPE.CODE : Correction.TYPE.TEXT;
 
-        val correction = new Correction(expressionTextField.getText(),
-                correctionTextField.getText(), correctionType);
+        val correctionKind = checkBoxRegex.isSelected() ?
+                Correction.KIND.REGEX : Correction.KIND.LITERAL;
+
+        Correction correction;
+
+        try {
+            correction = new Correction(expressionTextField.getText(),
+                    correctionTextField.getText(), correctionType,
+                    correctionKind, conditionChoiceBox.getValue(),
+                    checkBoxIgnoreCase.isSelected());
+        } catch (PatternSyntaxException e) {
+            SimpleAlertCreator.createErrorAlert("Add Correction",
+                    "Invalid Regular Expression!")
+                    .show();
+
+            return;
+        }
 
         try {
-            CorrectionsDatabase.insert(correction);
+            correctionsRepository.insert(correction);
         } catch (CorrectionsDatabase.CorrectionsDatabaseException e) {
             e.printStackTrace();
 
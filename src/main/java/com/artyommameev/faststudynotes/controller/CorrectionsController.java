@@ -2,32 +2,68 @@ package com.artyommameev.faststudynotes.controller;
 
 import com.artyommameev.faststudynotes.Main;
 import com.artyommameev.faststudynotes.database.CorrectionsDatabase;
+import com.artyommameev.faststudynotes.database.CorrectionsPage;
+import com.artyommameev.faststudynotes.database.CorrectionsQuery;
+import com.artyommameev.faststudynotes.database.CorrectionsRepository;
 import com.artyommameev.faststudynotes.domain.Correction;
+import com.artyommameev.faststudynotes.suggest.CorrectionMiner;
+import com.artyommameev.faststudynotes.suggest.Suggestion;
 import com.artyommameev.faststudynotes.util.SimpleAlertCreator;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.ButtonBar;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.image.Image;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import lombok.NonNull;
 import lombok.val;
 
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A controller of window for viewing and editing {@link Correction}s.
+ * <p>
+ * The window shows one page of the {@link Correction}s at a time, which is
+ * queried from the database with the search, the type filter and the
+ * sorting of the window, so a large dictionary is never loaded into the
+ * table at once.
  *
  * @author Artyom Mameev
  */
 public class CorrectionsController {
 
+    private static final int PAGE_SIZE = 100;
+    private static final String ALL_TYPES = "All types";
+
     private static Correction selectedCorrection;
     private static TableView.TableViewSelectionModel<Correction> selectionModel;
 
@@ -40,10 +76,54 @@ public class CorrectionsController {
     @FXML
     private TableColumn<Correction, String> typeColumn;
     @FXML
+    private TableColumn<Correction, String> kindColumn;
+    @FXML
+    private TableColumn<Correction, String> conditionColumn;
+    @FXML
+    private TableColumn<Correction, Boolean> caseInsensitiveColumn;
+    @FXML
+    private TableColumn<Correction, Long> hitsColumn;
+    @FXML
+    private TableColumn<Correction, Long> matchingTimeColumn;
+    @FXML
     private TableView<Correction> correctionsTableView;
+    @FXML
+    private Label importLabel;
+    @FXML
+    private ProgressBar importProgressBar;
+    @FXML
+    private Button importButton;
+    @FXML
+    private Button addButton;
+    @FXML
+    private TextField searchTextField;
+    @FXML
+    private CheckBox fullTextCheckBox;
+    @FXML
+    private ChoiceBox<String> typeChoiceBox;
+    @FXML
+    private Button previousPageButton;
+    @FXML
+    private Label pageLabel;
+    @FXML
+    private Button nextPageButton;
 
     private ArrayList<Correction> selectedCorrections;
-    private ObservableList<Correction> correctionsList;
+    // the Corrections of the shown page
+    private final ObservableList<Correction> corrections =
+            FXCollections.observableArrayList();
+    private final Map<TableColumn<Correction, ?>, CorrectionsQuery.SORT_COLUMN>
+            sortColumns = new HashMap<>();
+    private long pageOffset;
+    // the query of the last queried page
+    private CorrectionsQuery query;
+    private boolean isQueryRunning;
+    private boolean isQueryNeeded;
+    private final CorrectionsRepository.Listener correctionsListener =
+            new CorrectionsListener();
+    private CorrectionsRepository correctionsRepository;
+    // null if no corrections are mined
+    private CorrectionMiner correctionMiner;
 
     /**
      * Returns a {@link Correction} that was selected by the user.
@@ -66,23 +146,84 @@ public class CorrectionsController {
      */
     @FXML
     public void initialize() {
-        updateCorrections();
+        correctionsTableView.setItems(corrections);
+
+        sortColumns.put(expressionColumn,
+                CorrectionsQuery.SORT_COLUMN.EXPRESSION);
+        sortColumns.put(correctionColumn,
+                CorrectionsQuery.SORT_COLUMN.CORRECTION);
+        sortColumns.put(typeColumn, CorrectionsQuery.SORT_COLUMN.TYPE);
+        sortColumns.put(kindColumn, CorrectionsQuery.SORT_COLUMN.KIND);
+        sortColumns.put(conditionColumn,
+                CorrectionsQuery.SORT_COLUMN.CONDITION);
+        sortColumns.put(caseInsensitiveColumn,
+                CorrectionsQuery.SORT_COLUMN.CASE_INSENSITIVE);
+        sortColumns.put(hitsColumn, CorrectionsQuery.SORT_COLUMN.HITS);
+        sortColumns.put(matchingTimeColumn,
+                CorrectionsQuery.SORT_COLUMN.MATCHING_TIME);
+
+        // the Corrections are sorted by the database, not by the table view
+        correctionsTableView.setSortPolicy(tableView -> {
+            if (query != null && isSortChanged()) {
+                showFirstPage();
+            }
+
+            return true;
+        });
+
+        typeChoiceBox.getItems().add(ALL_TYPES);
+
+        for (val type : Correction.TYPE.values()) {
+            typeChoiceBox.getItems().add(type.toString());
+        }
+
+        typeChoiceBox.setValue(ALL_TYPES);
+
+        searchTextField.textProperty().addListener((observable, oldText,
+                                                    newText) ->
+                showFirstPage());
+        fullTextCheckBox.selectedProperty().addListener((observable,
+                                                         oldValue,
+                                                         newValue) ->
+                showFirstPage());
+        typeChoiceBox.valueProperty().addListener((observable, oldType,
+                                                   newType) ->
+                showFirstPage());
 
         correctionsScrollPane.setFitToHeight(true);
         correctionsScrollPane.setFitToWidth(true);
 
         expressionColumn.prefWidthProperty()
-                .bind(correctionsTableView.widthProperty().divide(3));
+                .bind(correctionsTableView.widthProperty().divide(5));
         correctionColumn.prefWidthProperty()
-                .bind(correctionsTableView.widthProperty().divide(3));
+                .bind(correctionsTableView.widthProperty().divide(5));
         typeColumn.prefWidthProperty()
-                .bind(correctionsTableView.widthProperty().divide(3));
+                .bind(correctionsTableView.widthProperty().divide(10));
+        kindColumn.prefWidthProperty()
+                .bind(correctionsTableView.widthProperty().divide(10));
+        conditionColumn.prefWidthProperty()
+                .bind(correctionsTableView.widthProperty().divide(10));
+        caseInsensitiveColumn.prefWidthProperty()
+                .bind(correctionsTableView.widthProperty().divide(10));
+        hitsColumn.prefWidthProperty()
+                .bind(correctionsTableView.widthProperty().divide(10));
+        matchingTimeColumn.prefWidthProperty()
+                .bind(correctionsTableView.widthProperty().divide(10));
 
         expressionColumn.setCellValueFactory(
                 new PropertyValueFactory<>("expression"));
         correctionColumn.setCellValueFactory(
                 new PropertyValueFactory<>("correction"));
         typeColumn.setCellValueFactory(new PropertyValueFactory<>("type"));
+        kindColumn.setCellValueFactory(new PropertyValueFactory<>("kind"));
+        conditionColumn.setCellValueFactory(
+                new PropertyValueFactory<>("condition"));
+        caseInsensitiveColumn.setCellValueFactory(
+                new PropertyValueFactory<>("caseInsensitive"));
+        hitsColumn.setCellValueFactory(new PropertyValueFactory<>("hits"));
+        matchingTimeColumn.setCellValueFactory(cellData ->
+                new ReadOnlyObjectWrapper<>(TimeUnit.NANOSECONDS.toMillis(
+                        cellData.getValue().getMatchingTime())));
 
         selectionModel = correctionsTableView.getSelectionModel();
 
@@ -93,6 +234,20 @@ public class CorrectionsController {
                         selectedCorrections.add(0, newVal));
     }
 
+    @FXML
+    private void onPreviousPageButtonAction() {
+        pageOffset = Math.max(pageOffset - PAGE_SIZE, 0);
+
+        queryPage();
+    }
+
+    @FXML
+    private void onNextPageButtonAction() {
+        pageOffset += PAGE_SIZE;
+
+        queryPage();
+    }
+
     @FXML
     private void onAddCorrectionsButtonAction() {
         val addPopupFxmlLoader = new FXMLLoader(getClass().getResource(
@@ -106,14 +261,252 @@ public class CorrectionsController {
             throw new RuntimeException(e);
         }
 
+        addPopupFxmlLoader.<AddCorrectionsController>getController()
+                .setCorrectionsRepository(correctionsRepository);
+
         createNewPopup("Add Correction", parent)
                 .showAndWait();
+    }
+
+    @FXML
+    private void onImportButtonAction() {
+        val fileChooser = new FileChooser();
+
+        fileChooser.setTitle("Import Corrections");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(
+                "CSV and TSV files (*.csv, *.tsv, *.txt)", "*.csv", "*.tsv",
+                "*.txt"));
+
+        val file = fileChooser.showOpenDialog(importButton.getScene()
+                .getWindow());
+
+        if (file == null) {
+            return;
+        }
+
+        val replaceButton = new ButtonType("Replace");
+        val skipButton = new ButtonType("Skip");
+
+        val alert = new Alert(Alert.AlertType.CONFIRMATION,
+                "Should the imported corrections replace the existing " +
+                        "corrections with the same expressions and types?",
+                replaceButton, skipButton, new ButtonType("Cancel",
+                ButtonBar.ButtonData.CANCEL_CLOSE));
+
+        alert.setTitle("Import Corrections");
+        alert.setHeaderText("Import " + file.getName());
+
+        val answer = alert.showAndWait();
+
+        if (!answer.isPresent() || (answer.get() != replaceButton &&
+                answer.get() != skipButton)) {
+            return;
+        }
+
+        boolean isReplacingExisting = answer.get() == replaceButton;
+
+        // the file is imported in the background, since it may be large
+        val importTask = new Task<Long>() {
+            @Override
+            protected Long call() throws Exception {
+                long startTime = System.nanoTime();
+
+                try (val inputStream = new FileInputStream(file);
+                     val reader = new InputStreamReader(inputStream,
+                             StandardCharsets.UTF_8)) {
+                    val channel = inputStream.getChannel();
 
-        updateCorrections();
+                    long size = Math.max(channel.size(), 1);
+
+                    return correctionsRepository.importCorrections(reader,
+                            isReplacingExisting, (readCount, importedCount) -> {
+                                long elapsedTime = Math.max(
+                                        System.nanoTime() - startTime, 1);
+
+                                /*the position of the file is ahead of the
+                                read corrections by a buffer at most*/
+                                try {
+                                    updateProgress(Math.min(
+                                            channel.position(), size), size);
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+
+                                updateMessage(readCount + " read, " +
+                                        importedCount + " imported, " +
+                                        readCount * TimeUnit.SECONDS
+                                                .toNanos(1) / elapsedTime +
+                                        " per second");
+
+                                return !isCancelled();
+                            });
+                } catch (CorrectionsDatabase.CorrectionsDatabaseException e) {
+                    // the exception is not an Exception to be rethrown
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+
+        importLabel.textProperty().bind(importTask.messageProperty());
+        importProgressBar.progressProperty().bind(
+                importTask.progressProperty());
+
+        setImportRunning(true);
+
+        importTask.setOnSucceeded(event -> {
+            setImportRunning(false);
+
+            val informationAlert = new Alert(Alert.AlertType.INFORMATION);
+
+            informationAlert.setTitle("Import Corrections");
+            informationAlert.setHeaderText("The Corrections Are Imported!");
+            informationAlert.setContentText(importTask.getValue() +
+                    " corrections are added or replaced.");
+
+            informationAlert.show();
+        });
+
+        // the batches that were imported before an error are kept
+        importTask.setOnFailed(event -> {
+            setImportRunning(false);
+
+            val exception = importTask.getException();
+
+            exception.printStackTrace();
+
+            if (exception.getCause() instanceof
+                    CorrectionsDatabase.CorrectionsDatabaseException) {
+                SimpleAlertCreator.createDatabaseErrorAlert()
+                        .show();
+
+                return;
+            }
+
+            val errorAlert = SimpleAlertCreator.createErrorAlert(
+                    "Import Corrections", "The File Cannot Be Imported!");
+
+            errorAlert.setContentText(exception.getMessage());
+
+            errorAlert.show();
+        });
+
+        val importThread = new Thread(importTask, "Corrections import");
+
+        importThread.setDaemon(true);
+        importThread.start();
+    }
+
+    private void setImportRunning(boolean isRunning) {
+        importLabel.setVisible(isRunning);
+        importProgressBar.setVisible(isRunning);
+
+        // the imported batches are shown while the import is running
+        importButton.setDisable(isRunning);
+        addButton.setDisable(isRunning);
+        correctionsTableView.setDisable(isRunning);
+
+        if (!isRunning) {
+            importLabel.textProperty().unbind();
+            importProgressBar.progressProperty().unbind();
+        }
+    }
+
+    /**
+     * Sets a {@link CorrectionMiner} whose candidates are proposed as new
+     * {@link Correction}s.
+     *
+     * @param correctionMiner the {@link CorrectionMiner}.
+     * @throws NullPointerException if the {@link CorrectionMiner} is null.
+     */
+    public void setCorrectionMiner(@NonNull CorrectionMiner correctionMiner) {
+        this.correctionMiner = correctionMiner;
+    }
+
+    /**
+     * Sets a {@link CorrectionsRepository} whose {@link Correction}s are
+     * shown and edited, shows the first page of them and starts following
+     * their changes.
+     *
+     * @param correctionsRepository the {@link CorrectionsRepository}.
+     * @throws NullPointerException if the {@link CorrectionsRepository} is
+     *                              null.
+     */
+    public void setCorrectionsRepository(
+            @NonNull CorrectionsRepository correctionsRepository) {
+        this.correctionsRepository = correctionsRepository;
+
+        correctionsRepository.addListener(correctionsListener);
+
+        showFirstPage();
+    }
+
+    /**
+     * Stops following the changes of the {@link CorrectionsRepository}.
+     * Should be called after the window is closed.
+     */
+    public void close() {
+        if (correctionsRepository != null) {
+            correctionsRepository.removeListener(correctionsListener);
+        }
+    }
+
+    @FXML
+    private void onProposedCorrectionsButtonAction() {
+        val candidates = correctionMiner == null ?
+                Collections.<Suggestion>emptyList() :
+                correctionMiner.getCandidates();
+
+        if (candidates.isEmpty()) {
+            val alert = new Alert(Alert.AlertType.INFORMATION);
+
+            alert.setTitle("Proposed Corrections");
+            alert.setHeaderText("No Corrections Are Proposed Yet!");
+            alert.setContentText("The words that are corrected by hand " +
+                    "the same way at least " + (correctionMiner == null ?
+                    CorrectionMiner.DEFAULT_THRESHOLD :
+                    correctionMiner.getThreshold()) + " times are proposed.");
+
+            alert.show();
+
+            return;
+        }
+
+        val suggestionsFxmlLoader = new FXMLLoader(getClass().getResource(
+                "/fxml/Suggestions.fxml"));
+
+        Parent parent;
+
+        try {
+            parent = suggestionsFxmlLoader.load();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        val suggestionsController = suggestionsFxmlLoader
+                .<SuggestionsController>getController();
+
+        suggestionsController.setSuggestions(candidates);
+        suggestionsController.setCorrectionsRepository(correctionsRepository);
+        suggestionsController.setOnSuggestionAdded(
+                correctionMiner::dismiss);
+
+        val suggestionsStage = new Stage();
+
+        suggestionsStage.setTitle("Proposed Corrections");
+        suggestionsStage.setScene(new Scene(parent));
+        suggestionsStage.getIcons().add(new Image(
+                Main.class.getResourceAsStream(
+                        "/icon/icon.png")));
+        suggestionsStage.setAlwaysOnTop(true);
+        suggestionsStage.showAndWait();
     }
 
     @FXML
     private void onEditContextAction() {
+        if (!isCorrectionSelected()) {
+            return;
+        }
+
         selectedCorrection = selectedCorrections.get(0);
 
         val editPopupFxmlLoader = new FXMLLoader(getClass().getResource(
@@ -127,30 +520,29 @@ public class CorrectionsController {
             throw new RuntimeException(e);
         }
 
+        editPopupFxmlLoader.<EditCorrectionsController>getController()
+                .setCorrectionsRepository(correctionsRepository);
+
         createNewPopup("Edit Correction", parent)
                 .showAndWait();
-
-        updateCorrections();
     }
 
     @FXML
     private void onRemoveContextAction() {
-        selectedCorrection = selectedCorrections.get(0);
+        if (!isCorrectionSelected()) {
+            return;
+        }
 
-        correctionsList.remove(selectedCorrection);
+        selectedCorrection = selectedCorrections.get(0);
 
         try {
-            CorrectionsDatabase.remove(selectedCorrection);
+            correctionsRepository.remove(selectedCorrection);
         } catch (CorrectionsDatabase.CorrectionsDatabaseException e) {
             e.printStackTrace();
 
             SimpleAlertCreator.createDatabaseErrorAlert()
                     .show();
-
-            return;
         }
-
-        updateCorrections();
     }
 
     @FXML
@@ -160,21 +552,131 @@ public class CorrectionsController {
         currentStage.close();
     }
 
-    private void updateCorrections() {
-        correctionsList = FXCollections.observableArrayList();
+    // the selection is cleared when a page is shown
+    private boolean isCorrectionSelected() {
+        return !selectedCorrections.isEmpty() &&
+                selectedCorrections.get(0) != null;
+    }
 
-        try {
-            correctionsList.addAll(CorrectionsDatabase.getAll());
-        } catch (CorrectionsDatabase.CorrectionsDatabaseException e) {
-            e.printStackTrace();
+    private void showFirstPage() {
+        if (correctionsRepository == null) {
+            return;
+        }
 
-            SimpleAlertCreator.createDatabaseErrorAlert()
-                    .show();
+        pageOffset = 0;
+
+        queryPage();
+    }
+
+    // a burst of changes or keystrokes is shown by one more query
+    private void queryPage() {
+        if (isQueryRunning) {
+            isQueryNeeded = true;
+
+            return;
+        }
+
+        isQueryRunning = true;
+
+        query = createQuery();
+
+        correctionsRepository.query(query, pageOffset, PAGE_SIZE)
+                .whenComplete((page, throwable) -> Platform.runLater(() -> {
+                    isQueryRunning = false;
+
+                    // the page is outdated already
+                    if (isQueryNeeded) {
+                        isQueryNeeded = false;
+
+                        queryPage();
+
+                        return;
+                    }
+
+                    if (throwable != null) {
+                        throwable.printStackTrace();
+
+                        SimpleAlertCreator.createDatabaseErrorAlert()
+                                .show();
+
+                        return;
+                    }
+
+                    showPage(page);
+                }));
+    }
+
+    private CorrectionsQuery createQuery() {
+        val builder = new CorrectionsQuery.Builder()
+                .search(searchTextField.getText(),
+                        fullTextCheckBox.isSelected() ?
+                                CorrectionsQuery.SEARCH_MODE.FULL_TEXT :
+                                CorrectionsQuery.SEARCH_MODE.SUBSTRING);
+
+        if (!ALL_TYPES.equals(typeChoiceBox.getValue())) {
+            builder.type(Correction.TYPE.valueOf(typeChoiceBox.getValue()));
+        }
+
+        val sortOrder = correctionsTableView.getSortOrder();
+
+        // the database sorts by the first column of the sort order only
+        if (!sortOrder.isEmpty()) {
+            val column = sortOrder.get(0);
+
+            builder.sort(sortColumns.get(column), column.getSortType() ==
+                    TableColumn.SortType.DESCENDING);
+        }
+
+        return builder.build();
+    }
+
+    // the sort policy is also called when the items are changed
+    private boolean isSortChanged() {
+        val newQuery = createQuery();
+
+        return newQuery.getSortColumn() != query.getSortColumn() ||
+                newQuery.isDescending() != query.isDescending();
+    }
+
+    private void showPage(CorrectionsPage page) {
+        // the last page can become empty after the Corrections are removed
+        if (page.getCorrections().isEmpty() && page.getOffset() > 0) {
+            pageOffset = Math.max(page.getTotalCount() - 1, 0) / PAGE_SIZE *
+                    PAGE_SIZE;
+
+            queryPage();
 
             return;
         }
 
-        correctionsTableView.setItems(correctionsList);
+        val selectedItem = selectionModel.getSelectedItem();
+
+        corrections.setAll(page.getCorrections());
+
+        // the shown Corrections are new objects read from the database
+        if (selectedItem != null) {
+            for (int i = 0; i < corrections.size(); i++) {
+                if (corrections.get(i).getType() == selectedItem.getType() &&
+                        corrections.get(i).getExpression().equals(
+                                selectedItem.getExpression())) {
+                    selectionModel.select(i);
+
+                    break;
+                }
+            }
+        }
+
+        if (page.getTotalCount() == 0) {
+            pageLabel.setText("No corrections");
+        } else {
+            pageLabel.setText((page.getOffset() + 1) + "-" +
+                    (page.getOffset() + page.getCorrections().size()) +
+                    " of " + page.getTotalCount());
+        }
+
+        previousPageButton.setDisable(page.getOffset() == 0);
+        nextPageButton.setDisable(page.getOffset() + PAGE_SIZE >=
+                page.getTotalCount());
     }
 
     private Stage createNewPopup(String title, Parent parent) {
@@ -189,4 +691,38 @@ public class CorrectionsController {
 
         return newPopupStage;
     }
+
+    /*the changes are reported on the thread that made them, and the shown
+    page is queried again after them*/
+    private class CorrectionsListener
+            implements CorrectionsRepository.Listener {
+
+        @Override
+        public void onAdded(List<Correction> addedCorrections) {
+            Platform.runLater(CorrectionsController.this::queryPage);
+        }
+
+        @Override
+        public void onUpdated(List<Correction> oldCorrections,
+                              List<Correction> newCorrections) {
+            Platform.runLater(CorrectionsController.this::queryPage);
+        }
+
+        @Override
+        public void onRemoved(List<Correction> removedCorrections) {
+            Platform.runLater(CorrectionsController.this::queryPage);
+        }
+
+        @Override
+        public void onWriteFailed(
+                CorrectionsDatabase.CorrectionsDatabaseException exception) {
+            // the repository is read from the database again
+            Platform.runLater(CorrectionsController.this::queryPage);
+        }
+
+        @Override
+        public void onImportFinished() {
+            // the page is queried after each batch of the import already
+        }
+    }
 }
@@ -1,14 +1,19 @@
 package com.artyommameev.faststudynotes.controller;
 
 import com.artyommameev.faststudynotes.database.CorrectionsDatabase;
+import com.artyommameev.faststudynotes.database.CorrectionsRepository;
 import com.artyommameev.faststudynotes.domain.Correction;
 import com.artyommameev.faststudynotes.util.SimpleAlertCreator;
 import javafx.fxml.FXML;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
+import lombok.NonNull;
 import lombok.val;
 
+import java.util.regex.PatternSyntaxException;
+
 /**
  * A controller of window popup for editing {@link Correction}s.
  *
@@ -22,8 +27,15 @@ public class EditCorrectionsController {
     private TextField correctionTextField;
     @FXML
     private CheckBox checkBoxCode;
+    @FXML
+    private CheckBox checkBoxRegex;
+    @FXML
+    private CheckBox checkBoxIgnoreCase;
+    @FXML
+    private ChoiceBox<Correction.CONDITION> conditionChoiceBox;
 
     private Correction selectedCorrection;
+    private CorrectionsRepository correctionsRepository;
 
     /**
      * Necessary actions to initialize the controller.
@@ -38,6 +50,28 @@ public class EditCorrectionsController {
         if (selectedCorrection.getType().equals(Correction.TYPE.CODE)) {
             checkBoxCode.setSelected(true);
         }
+
+        if (selectedCorrection.getKind().equals(Correction.KIND.REGEX)) {
+            checkBoxRegex.setSelected(true);
+        }
+
+        checkBoxIgnoreCase.setSelected(selectedCorrection.isCaseInsensitive());
+
+        conditionChoiceBox.getItems().setAll(Correction.CONDITION.values());
+        conditionChoiceBox.setValue(selectedCorrection.getCondition());
+    }
+
+    /**
+     * Sets a {@link CorrectionsRepository} in which the {@link Correction}
+     * is updated.
+     *
+     * @param correctionsRepository the {@link CorrectionsRepository}.
+     * @throws NullPointerException if the {@link CorrectionsRepository} is
+     *                              null.
+     */
+    public void setCorrectionsRepository(
+            @NonNull CorrectionsRepository correctionsRepository) {
+        this.correctionsRepository = correctionsRepository;
     }
 
     @FXML
@@ -50,17 +84,39 @@ public class EditCorrectionsController {
         val updatedCorrectionType = checkBoxCode.isSelected() ?
                 Correction.TYPE.CODE : Correction.TYPE.TEXT;
 
-        val updatedCorrection = new Correction(expressionTextField.getText(),
-                correctionTextField.getText(), updatedCorrectionType);
+        val updatedCorrectionKind = checkBoxRegex.isSelected() ?
+                Correction.KIND.REGEX : Correction.KIND.LITERAL;
+
+        Correction updatedCorrection;
 
         try {
-            CorrectionsDatabase.update(selectedCorrection, updatedCorrection);
+            updatedCorrection = new Correction(expressionTextField.getText(),
+                    correctionTextField.getText(), updatedCorrectionType,
+                    updatedCorrectionKind, conditionChoiceBox.getValue(),
+                    checkBoxIgnoreCase.isSelected());
+        } catch (PatternSyntaxException e) {
+            SimpleAlertCreator.createErrorAlert("Edit Correction",
+                    "Invalid Regular Expression!")
+                    .show();
+
+            return;
+        }
+
+        try {
+            correctionsRepository.update(selectedCorrection,
+                    updatedCorrection);
         } catch (CorrectionsDatabase.CorrectionsDatabaseException e) {
             e.printStackTrace();
 
             SimpleAlertCreator.createDatabaseErrorAlert()
                     .show();
 
+            return;
+        } catch (CorrectionsDatabase.CorrectionAlreadyExistsException e) {
+            SimpleAlertCreator.createErrorAlert("Edit Correction",
+                    "The Correction Already Exists!")
+                    .show();
+
             return;
         }
 
@@ -1,21 +1,29 @@
 package com.artyommameev.faststudynotes.controller;
 
-import com.artyommameev.faststudynotes.correct.BadOcrCorrector;
+import com.artyommameev.faststudynotes.correct.CompiledCorrections;
+import com.artyommameev.faststudynotes.correct.CorrectionCache;
+import com.artyommameev.faststudynotes.correct.CorrectionPipeline;
+import com.artyommameev.faststudynotes.correct.CorrectionStatistics;
+import com.artyommameev.faststudynotes.correct.WordFingerprints;
 import com.artyommameev.faststudynotes.database.CorrectionsDatabase;
+import com.artyommameev.faststudynotes.database.CorrectionsRepository;
+import com.artyommameev.faststudynotes.database.CorrectionsSnapshot;
 import com.artyommameev.faststudynotes.domain.Correction;
+import com.artyommameev.faststudynotes.suggest.CorrectionMiner;
+import com.artyommameev.faststudynotes.suggest.Lexicon;
+import com.artyommameev.faststudynotes.suggest.SuggestionIndex;
 import com.artyommameev.faststudynotes.util.SimpleAlertCreator;
 import com.artyommameev.faststudynotes.writer.DocWriter;
 import com.artyommameev.faststudynotes.writer.MultiWriter;
 import com.artyommameev.faststudynotes.writer.TextFlowWriter;
 import javafx.application.Platform;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextArea;
@@ -34,6 +42,23 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 /**
  * A controller of the main application window.
@@ -42,6 +67,10 @@ import java.io.IOException;
  */
 public class MainController {
 
+    private static final String LEXICON_FILE_NAME = "lexicon.txt";
+    private static final String SNAPSHOT_NAME = "corrections";
+    private static final int MAX_SHOWN_UNKNOWN_WORDS = 5;
+
     @FXML
     private TextArea textArea;
     @FXML
@@ -58,8 +87,56 @@ public class MainController {
     private CheckBox uppercaseAtTheBeginningCheckBox;
     @FXML
     private CheckBox periodAtTheEndCheckBox;
-
-    private ObservableList<Correction> correctionsList;
+    @FXML
+    private Label unknownWordsLabel;
+
+    // the dictionary of the whole application, which is kept off-heap
+    private final CorrectionsRepository correctionsRepository =
+            new CorrectionsRepository(true);
+    private final AtomicBoolean isCorrectionsUpdateScheduled =
+            new AtomicBoolean();
+    /*reads and compiles the corrections off the FX thread, one dictionary
+    after another, so the FX thread gets them and the snapshot is written in
+    the order of the dictionaries*/
+    private final ExecutorService correctionsCompiler = Executors
+            .newSingleThreadExecutor(runnable -> {
+                val thread = new Thread(runnable, "corrections-compiler");
+
+                thread.setDaemon(true);
+
+                return thread;
+            });
+    // the corrections that are read or compiled at the start
+    private CompletableFuture<CompiledCorrections> loadedCorrections;
+    // the last corrections of the compiler thread, which only it uses
+    private CompiledCorrections latestCorrections;
+    // null until the loaded corrections are used
+    private CompiledCorrections compiledCorrections;
+    // lets the corrections be used before the database is read
+    private final CorrectionsSnapshot correctionsSnapshot =
+            new CorrectionsSnapshot(Paths.get(System.getProperty("user.dir")),
+                    SNAPSHOT_NAME);
+    // null if the statistics are not collected
+    private CorrectionStatistics correctionStatistics;
+    private final Set<Correction> reportedDisabledCorrections =
+            new HashSet<>();
+    private final CorrectionCache correctionCache =
+            new CorrectionCache(CorrectionCache.DEFAULT_CAPACITY);
+    // rebuilt each time the corrections or the settings are changed
+    private CorrectionPipeline textPipeline;
+    private CorrectionPipeline codePipeline;
+
+    // null until a lexicon is loaded
+    private Lexicon lexicon;
+    // decides which hyphenated line breaks are joined; null until loaded
+    private WordFingerprints knownWords;
+    private SuggestionIndex suggestionIndex;
+
+    private final CorrectionMiner correctionMiner = new CorrectionMiner(
+            CorrectionMiner.DEFAULT_THRESHOLD);
+    /*the last pasted text, with which the added texts are compared to mine
+    the corrections that the user makes by hand*/
+    private String pastedText = "";
 
     private MultiWriter multiWriter;
 
@@ -67,19 +144,28 @@ public class MainController {
 
     private boolean isTextShouldStartWithUppercase;
     private boolean isTextShouldEndWithPeriod;
+    private boolean isHomoglyphsShouldBeNormalized;
+    private boolean isCodeShouldBeIndented;
 
     /**
      * Necessary actions to initialize the controller.
      */
     public void initialize() {
-        try {
-            CorrectionsDatabase.init();
-        } catch (CorrectionsDatabase.CorrectionsDatabaseException e) {
-            SimpleAlertCreator.createDatabaseErrorAlert()
-                    .show();
-        }
+        correctionsRepository.addListener(new CorrectionsListener());
 
-        updateCorrections();
+        // the window is shown while the corrections are loaded
+        loadedCorrections = CompletableFuture.supplyAsync(
+                this::loadCorrections, correctionsCompiler);
+
+        loadedCorrections.thenRun(() ->
+                Platform.runLater(this::awaitCorrections));
+
+        val lexiconFile = new File(System.getProperty("user.dir"),
+                LEXICON_FILE_NAME);
+
+        if (lexiconFile.exists()) {
+            loadLexicon(lexiconFile);
+        }
 
         val docWriter = new DocWriter();
         val textFlowWriter = new TextFlowWriter(textFlow);
@@ -90,14 +176,335 @@ public class MainController {
         scrollPane.vvalueProperty().bind(textFlow.heightProperty());
 
         lastSavedFileMenuItem.setDisable(true);
+
+        // the probable OCR errors are shown before the text is added
+        textArea.selectedTextProperty().addListener((observable, oldText,
+                                                     newText) ->
+                showUnknownWords(newText));
+    }
+
+    /**
+     * Saves the collected statistics of the corrections, stops the
+     * background work, writes the changes of the dictionary to the database
+     * and closes the connection with it. Should be called when the
+     * application exits.
+     */
+    public void stop() {
+        saveStatistics();
+
+        correctionMiner.shutdown();
+
+        // the last dictionary should be read at the next start
+        correctionsCompiler.shutdown();
+
+        try {
+            correctionsCompiler.awaitTermination(Long.MAX_VALUE,
+                    TimeUnit.NANOSECONDS);
+
+            correctionsRepository.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (CorrectionsDatabase.CorrectionsDatabaseException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // the dictionary can be changed by any thread
+    private void scheduleCorrectionsUpdate() {
+        // an import is compiled once it is finished, and a stop compiles none
+        if (correctionsRepository.isImporting() ||
+                correctionsCompiler.isShutdown()) {
+            return;
+        }
+
+        if (isCorrectionsUpdateScheduled.compareAndSet(false, true)) {
+            correctionsCompiler.execute(() -> {
+                isCorrectionsUpdateScheduled.set(false);
+
+                updateCorrections();
+            });
+        }
     }
 
+    // runs on the compiler thread, after the corrections are loaded
     private void updateCorrections() {
-        correctionsList = FXCollections.observableArrayList();
+        long version = correctionsRepository.getVersion();
+
+        // the dictionary has not been changed since the last compilation
+        if (latestCorrections.getVersion() == version) {
+            return;
+        }
+
+        try {
+            publishCorrections(new CompiledCorrections(
+                    correctionsRepository.getAllCompact(), version));
+        } catch (CorrectionsDatabase.CorrectionsDatabaseException e) {
+            e.printStackTrace();
+
+            Platform.runLater(() -> SimpleAlertCreator
+                    .createDatabaseErrorAlert()
+                    .show());
+        }
+    }
+
+    // the corrections are used in the order they are published in
+    private void publishCorrections(CompiledCorrections corrections) {
+        latestCorrections = corrections;
+
+        writeSnapshot(corrections);
+
+        Platform.runLater(() -> useCorrections(corrections));
+    }
+
+    /*the loaded corrections are used as soon as they are ready, or earlier
+    if they are needed, in which case the FX thread waits for them*/
+    private void awaitCorrections() {
+        if (compiledCorrections == null) {
+            useCorrections(loadedCorrections.join());
+        }
+    }
+
+    private void useCorrections(CompiledCorrections corrections) {
+        // the statistics are collected for the old corrections
+        saveStatistics();
+
+        compiledCorrections = corrections;
+
+        reportedDisabledCorrections.clear();
+
+        // the texts corrected with the old corrections are never hit
+        correctionCache.clear();
+
+        if (correctionStatistics != null) {
+            correctionStatistics = new CorrectionStatistics(
+                    compiledCorrections);
+        }
+
+        updatePipelines();
+    }
+
+    // runs on the compiler thread, and the snapshot is read if it is valid
+    private CompiledCorrections loadCorrections() {
+        // the repository has not been changed since the start yet
+        long version = correctionsRepository.getVersion();
+
+        val snapshotCorrections = readSnapshot(version);
+
+        if (snapshotCorrections != null) {
+            correctionsCompiler.execute(() ->
+                    checkSnapshot(snapshotCorrections));
+
+            latestCorrections = snapshotCorrections;
+
+            return snapshotCorrections;
+        }
 
         try {
-            correctionsList.addAll(CorrectionsDatabase.getAll());
+            latestCorrections = new CompiledCorrections(
+                    correctionsRepository.getAllCompact(), version);
+
+            writeSnapshot(latestCorrections);
+        } catch (CorrectionsDatabase.CorrectionsDatabaseException e) {
+            Platform.runLater(() -> SimpleAlertCreator
+                    .createDatabaseErrorAlert()
+                    .show());
+
+            latestCorrections = new CompiledCorrections(
+                    Collections.emptyList(), version);
+        }
+
+        return latestCorrections;
+    }
+
+    // returns null if there is no valid snapshot
+    private CompiledCorrections readSnapshot(long version) {
+        try {
+            return correctionsSnapshot.read(version);
+        } catch (IOException e) {
+            e.printStackTrace();
+
+            return null;
+        }
+    }
+
+    private void writeSnapshot(CompiledCorrections corrections) {
+        try {
+            correctionsSnapshot.write(corrections);
+        } catch (IOException e) {
+            // the snapshot is only a cache of the database
+            e.printStackTrace();
+        }
+    }
+
+    /*the database stays the source of truth, so it is read on the compiler
+    thread after the snapshot is loaded, and the snapshot is replaced if it
+    is outdated*/
+    private void checkSnapshot(CompiledCorrections snapshotCorrections) {
+        try {
+            correctionsRepository.load();
+
+            long version = correctionsRepository.getVersion();
+            val corrections = correctionsRepository.getAllCompact();
+
+            if (snapshotCorrections.hasSameCorrections(corrections)) {
+                return;
+            }
+
+            // the later changes are compiled after the check
+            publishCorrections(new CompiledCorrections(corrections,
+                    version));
         } catch (CorrectionsDatabase.CorrectionsDatabaseException e) {
+            e.printStackTrace();
+
+            Platform.runLater(() -> SimpleAlertCreator
+                    .createDatabaseErrorAlert()
+                    .show());
+        }
+    }
+
+    private void updatePipelines() {
+        // the pipelines are built when the corrections are loaded
+        if (compiledCorrections == null) {
+            return;
+        }
+
+        textPipeline = createPipeline(Correction.TYPE.TEXT);
+        codePipeline = createPipeline(Correction.TYPE.CODE);
+    }
+
+    private CorrectionPipeline createPipeline(Correction.TYPE type) {
+        val builder = new CorrectionPipeline.Builder();
+
+        // the dictionary expects the words in their majority scripts
+        if (type.equals(Correction.TYPE.TEXT) &&
+                isHomoglyphsShouldBeNormalized) {
+            builder.normalizeHomoglyphs();
+        }
+
+        val knownWords = this.knownWords;
+
+        /*the cached texts would not be counted in the statistics; the cache
+        is keyed by the strings, so this stage creates one of the text*/
+        if (correctionStatistics == null) {
+            builder.add((text, output) -> {
+                output.append(knownWords == null ?
+                        correctionCache.correct(text.toString(), type,
+                                compiledCorrections) :
+                        correctionCache.correct(text.toString(), type,
+                                compiledCorrections, knownWords));
+
+                return true;
+            });
+        } else {
+            if (knownWords == null) {
+                builder.normalize(type);
+            } else {
+                builder.normalize(type, knownWords);
+            }
+
+            builder.correct(compiledCorrections, type, correctionStatistics);
+        }
+
+        if (type.equals(Correction.TYPE.TEXT)) {
+            if (isTextShouldStartWithUppercase) {
+                builder.capitalize();
+            }
+
+            if (isTextShouldEndWithPeriod) {
+                builder.addPeriodAtTheEnd();
+            }
+        }
+
+        // the corrections may fix the misrecognized brackets first
+        if (type.equals(Correction.TYPE.CODE) && isCodeShouldBeIndented) {
+            builder.indentCode();
+        }
+
+        return builder.build();
+    }
+
+    // the lexicon is indexed in the background, since it may be large
+    private void loadLexicon(File lexiconFile) {
+        CompletableFuture.runAsync(() -> {
+            Map<String, Long> frequencies = new LinkedHashMap<>();
+
+            // the word list is read once for all the indexes of its words
+            try (val reader = Files.newBufferedReader(lexiconFile.toPath(),
+                    StandardCharsets.UTF_8)) {
+                Lexicon.readWords(reader, (word, frequency) ->
+                        frequencies.merge(word, frequency, Long::sum));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            val loadedLexicon = new Lexicon(frequencies.keySet());
+            val loadedKnownWords = new WordFingerprints(frequencies.keySet());
+            val loadedSuggestionIndex = new SuggestionIndex(frequencies,
+                    SuggestionIndex.DEFAULT_MAX_EDIT_DISTANCE);
+
+            Platform.runLater(() -> {
+                lexicon = loadedLexicon;
+                knownWords = loadedKnownWords;
+                suggestionIndex = loadedSuggestionIndex;
+
+                // the hyphenated line breaks are joined by the new words
+                updatePipelines();
+
+                showUnknownWords(textArea.getSelectedText());
+            });
+        }).exceptionally(e -> {
+            e.printStackTrace();
+
+            Platform.runLater(() -> SimpleAlertCreator.createErrorAlert(
+                    "Load Lexicon", "The Lexicon Cannot Be Loaded!")
+                    .show());
+
+            return null;
+        });
+    }
+
+    private void showUnknownWords(String text) {
+        if (lexicon == null || text == null || text.trim().isEmpty()) {
+            unknownWordsLabel.setText("");
+
+            return;
+        }
+
+        val offsets = lexicon.findUnknownTokens(text);
+
+        if (offsets.length == 0) {
+            unknownWordsLabel.setText("No unknown words");
+
+            return;
+        }
+
+        Set<String> unknownWords = new LinkedHashSet<>();
+
+        for (int i = 0; i < offsets.length; i += 2) {
+            unknownWords.add(text.substring(offsets[i], offsets[i + 1]));
+        }
+
+        val shownWords = unknownWords.stream()
+                .limit(MAX_SHOWN_UNKNOWN_WORDS)
+                .collect(Collectors.joining(", "));
+
+        unknownWordsLabel.setText("Unknown words: " + shownWords +
+                (unknownWords.size() > MAX_SHOWN_UNKNOWN_WORDS ? "..." : ""));
+    }
+
+    private void saveStatistics() {
+        if (correctionStatistics == null || compiledCorrections == null) {
+            return;
+        }
+
+        try {
+            correctionsRepository.addStatistics(
+                    compiledCorrections.getCorrections(),
+                    correctionStatistics.drainHits(),
+                    correctionStatistics.drainMatchingTimes());
+        } catch (CorrectionsDatabase.CorrectionsDatabaseException e) {
+            e.printStackTrace();
+
             SimpleAlertCreator.createDatabaseErrorAlert()
                     .show();
         }
@@ -173,7 +580,8 @@ public class MainController {
 
     @FXML
     private void closeAction() {
-        System.exit(0);
+        // the application is stopped the same way as by closing the window
+        Platform.exit();
     }
 
     @FXML
@@ -203,6 +611,8 @@ public class MainController {
             return;
         }
 
+        pastedText = clipboardText;
+
         Platform.runLater(() ->
                 textArea.setText(clipboardText));
     }
@@ -249,6 +659,9 @@ public class MainController {
 
     @FXML // show corrections edit window
     private void editCorrectionsAction() {
+        // to show the up-to-date statistics
+        saveStatistics();
+
         FXMLLoader editCorrectionsFxmlLoader = new FXMLLoader(getClass()
                 .getResource("/fxml/Corrections.fxml"));
 
@@ -260,6 +673,12 @@ public class MainController {
             throw new RuntimeException(e);
         }
 
+        val correctionsController = editCorrectionsFxmlLoader
+                .<CorrectionsController>getController();
+
+        correctionsController.setCorrectionMiner(correctionMiner);
+        correctionsController.setCorrectionsRepository(correctionsRepository);
+
         val graphicsDevice = GraphicsEnvironment
                 .getLocalGraphicsEnvironment().getDefaultScreenDevice();
 
@@ -276,7 +695,7 @@ public class MainController {
         editCorrectionsStage.setAlwaysOnTop(true);
         editCorrectionsStage.showAndWait();
 
-        updateCorrections();
+        correctionsController.close();
     }
 
     @FXML
@@ -287,6 +706,8 @@ public class MainController {
         isTextShouldStartWithUppercase = isSelected;
 
         uppercaseAtTheBeginningCheckBox.setSelected(isSelected);
+
+        updatePipelines();
     }
 
     @FXML
@@ -297,6 +718,58 @@ public class MainController {
         isTextShouldEndWithPeriod = isSelected;
 
         periodAtTheEndCheckBox.setSelected(isSelected);
+
+        updatePipelines();
+    }
+
+    @FXML
+    private void normalizeHomoglyphsAction(ActionEvent actionEvent) {
+        isHomoglyphsShouldBeNormalized = ((CheckMenuItem) actionEvent
+                .getSource()).isSelected();
+
+        updatePipelines();
+    }
+
+    @FXML
+    private void indentCodeAction(ActionEvent actionEvent) {
+        isCodeShouldBeIndented = ((CheckMenuItem) actionEvent.getSource())
+                .isSelected();
+
+        updatePipelines();
+    }
+
+    @FXML
+    private void loadLexiconAction() {
+        val fileChooser = new FileChooser();
+
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(
+                "Text files (*.txt)", "*.txt"));
+
+        val lexiconFile = fileChooser.showOpenDialog(saveButton.getScene()
+                .getWindow());
+
+        if (lexiconFile != null) {
+            loadLexicon(lexiconFile);
+        }
+    }
+
+    @FXML
+    private void collectStatisticsAction(ActionEvent actionEvent) {
+        boolean isSelected = ((CheckMenuItem) actionEvent.getSource())
+                .isSelected();
+
+        if (isSelected) {
+            awaitCorrections();
+
+            correctionStatistics = new CorrectionStatistics(
+                    compiledCorrections);
+        } else {
+            saveStatistics();
+
+            correctionStatistics = null;
+        }
+
+        updatePipelines();
     }
 
     @FXML
@@ -315,6 +788,8 @@ public class MainController {
 
         multiWriter.addHeadline(correctedText);
 
+        correctionMiner.submit(pastedText, textArea.getSelectedText());
+
         configureButtonsAfterChange();
     }
 
@@ -334,6 +809,8 @@ public class MainController {
 
         multiWriter.addText(correctedText);
 
+        correctionMiner.submit(pastedText, textArea.getSelectedText());
+
         configureButtonsAfterChange();
     }
 
@@ -353,6 +830,8 @@ public class MainController {
 
         multiWriter.addText(correctedText);
 
+        correctionMiner.submit(pastedText, textArea.getSelectedText());
+
         configureButtonsAfterChange();
     }
 
@@ -371,6 +850,8 @@ public class MainController {
 
         multiWriter.addText(plainText);
 
+        correctionMiner.submit(pastedText, textArea.getSelectedText());
+
         configureButtonsAfterChange();
     }
 
@@ -390,9 +871,72 @@ public class MainController {
 
         multiWriter.addCode(correctedText);
 
+        correctionMiner.submit(pastedText, textArea.getSelectedText());
+
         configureButtonsAfterChange();
     }
 
+    @FXML
+    private void onSuggestCorrectionsContextAction() {
+        if (textArea.getSelectedText() == null ||
+                textArea.getSelectedText().trim().isEmpty()) {
+            return;
+        }
+
+        if (suggestionIndex == null) {
+            SimpleAlertCreator.createErrorAlert("Suggest Corrections",
+                    "No Lexicon Is Loaded!")
+                    .show();
+
+            return;
+        }
+
+        awaitCorrections();
+
+        // the errors that are already corrected need no suggestions
+        val suggestions = suggestionIndex.suggest(correctionCache.correct(
+                textArea.getSelectedText().trim(), Correction.TYPE.TEXT,
+                compiledCorrections));
+
+        if (suggestions.isEmpty()) {
+            val alert = new Alert(Alert.AlertType.INFORMATION);
+
+            alert.setTitle("Suggest Corrections");
+            alert.setHeaderText("All Words Are Known!");
+
+            alert.show();
+
+            return;
+        }
+
+        val suggestionsFxmlLoader = new FXMLLoader(getClass().getResource(
+                "/fxml/Suggestions.fxml"));
+
+        Parent suggestionsParent;
+
+        try {
+            suggestionsParent = suggestionsFxmlLoader.load();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        val suggestionsController = suggestionsFxmlLoader
+                .<SuggestionsController>getController();
+
+        suggestionsController.setSuggestions(suggestions);
+        suggestionsController.setCorrectionsRepository(correctionsRepository);
+
+        val suggestionsStage = new Stage();
+
+        suggestionsStage.setTitle("Suggested Corrections");
+        suggestionsStage.setScene(new Scene(suggestionsParent));
+        suggestionsStage.getIcons().add(new Image(
+                MainController.class.getResourceAsStream(
+                        "/icon/icon.png")));
+        suggestionsStage.setAlwaysOnTop(true);
+        suggestionsStage.showAndWait();
+    }
+
     @FXML
     private void onCopyContextAction() {
         val stringSelection = new StringSelection(textArea.getSelectedText());
@@ -426,6 +970,8 @@ public class MainController {
             return;
         }
 
+        pastedText = clipboardText;
+
         int caretPosition = textArea.getCaretPosition();
 
         val preCaretPositionText = textArea.getText().substring(
@@ -479,21 +1025,36 @@ public class MainController {
     }
 
     private String correctText(String text, Correction.TYPE type) {
-        text = BadOcrCorrector.correct(text, type, correctionsList);
+        awaitCorrections();
 
-        if (type.equals(Correction.TYPE.TEXT)) {
-            if (isTextShouldStartWithUppercase) {
-                text = BadOcrCorrector.capitalize(text);
-            }
+        text = (type.equals(Correction.TYPE.TEXT) ? textPipeline :
+                codePipeline).apply(text);
 
-            if (isTextShouldEndWithPeriod) {
-                text = BadOcrCorrector.addPeriodAtTheEnd(text);
-            }
-        }
+        reportDisabledCorrections();
 
         return text;
     }
 
+    private void reportDisabledCorrections() {
+        val newlyDisabledCorrections = compiledCorrections
+                .getDisabledCorrections().stream()
+                .filter(reportedDisabledCorrections::add)
+                .map(Correction::toString)
+                .collect(Collectors.joining("\n"));
+
+        if (newlyDisabledCorrections.isEmpty()) {
+            return;
+        }
+
+        val alert = SimpleAlertCreator.createErrorAlert("Correct Text",
+                "The Regular Expressions Take Too Long To Match " +
+                        "And Were Disabled!");
+
+        alert.setContentText(newlyDisabledCorrections);
+
+        alert.show();
+    }
+
     private void saveFile(File savedFile) {
         val documentsToSave = multiWriter.save();
 
@@ -520,4 +1081,43 @@ public class MainController {
         saveButton.setDisable(false);
         saveMenuItem.setDisable(false);
     }
-}
\ No newline at end of file
+
+    // the compiled corrections follow the changes of the dictionary
+    private class CorrectionsListener
+            implements CorrectionsRepository.Listener {
+
+        @Override
+        public void onAdded(List<Correction> corrections) {
+            scheduleCorrectionsUpdate();
+        }
+
+        @Override
+        public void onUpdated(List<Correction> oldCorrections,
+                              List<Correction> newCorrections) {
+            // does nothing if only the statistics are updated
+            scheduleCorrectionsUpdate();
+        }
+
+        @Override
+        public void onRemoved(List<Correction> corrections) {
+            scheduleCorrectionsUpdate();
+        }
+
+        @Override
+        public void onWriteFailed(
+                CorrectionsDatabase.CorrectionsDatabaseException exception) {
+            exception.printStackTrace();
+
+            Platform.runLater(() -> SimpleAlertCreator
+                    .createDatabaseErrorAlert()
+                    .show());
+
+            scheduleCorrectionsUpdate();
+        }
+
+        @Override
+        public void onImportFinished() {
+            scheduleCorrectionsUpdate();
+        }
+    }
+}
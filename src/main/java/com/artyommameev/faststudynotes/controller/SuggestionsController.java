@@ -0,0 +1,126 @@
+package com.artyommameev.faststudynotes.controller;
+
+import com.artyommameev.faststudynotes.database.CorrectionsDatabase;
+import com.artyommameev.faststudynotes.database.CorrectionsRepository;
+import com.artyommameev.faststudynotes.domain.Correction;
+import com.artyommameev.faststudynotes.suggest.Suggestion;
+import com.artyommameev.faststudynotes.util.SimpleAlertCreator;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.scene.control.ListView;
+import javafx.scene.input.MouseButton;
+import javafx.stage.Stage;
+import lombok.NonNull;
+import lombok.val;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A controller of window for turning {@link Suggestion}s into new
+ * {@link Correction}s.
+ *
+ * @author Artyom Mameev
+ */
+public class SuggestionsController {
+
+    @FXML
+    private ListView<Suggestion> suggestionsListView;
+
+    private Consumer<Suggestion> onSuggestionAdded = suggestion -> {
+    };
+    private CorrectionsRepository correctionsRepository;
+
+    /**
+     * Necessary actions to initialize the controller.
+     */
+    @FXML
+    public void initialize() {
+        suggestionsListView.setOnMouseClicked(mouseEvent -> {
+            if (mouseEvent.getButton().equals(MouseButton.PRIMARY) &&
+                    mouseEvent.getClickCount() == 2) {
+                onAddButtonAction();
+            }
+        });
+    }
+
+    /**
+     * Sets the {@link Suggestion}s to display.
+     *
+     * @param suggestions the list of the {@link Suggestion}s.
+     * @throws NullPointerException if the list is null.
+     */
+    public void setSuggestions(@NonNull List<Suggestion> suggestions) {
+        suggestionsListView.setItems(FXCollections.observableArrayList(
+                suggestions));
+
+        suggestionsListView.getSelectionModel().selectFirst();
+    }
+
+    /**
+     * Sets an action that is performed after a {@link Suggestion} is added as
+     * a new {@link Correction}.
+     *
+     * @param onSuggestionAdded the consumer of the added {@link Suggestion}s.
+     * @throws NullPointerException if the consumer is null.
+     */
+    public void setOnSuggestionAdded(
+            @NonNull Consumer<Suggestion> onSuggestionAdded) {
+        this.onSuggestionAdded = onSuggestionAdded;
+    }
+
+    /**
+     * Sets a {@link CorrectionsRepository} to which the new
+     * {@link Correction}s are added.
+     *
+     * @param correctionsRepository the {@link CorrectionsRepository}.
+     * @throws NullPointerException if the {@link CorrectionsRepository} is
+     *                              null.
+     */
+    public void setCorrectionsRepository(
+            @NonNull CorrectionsRepository correctionsRepository) {
+        this.correctionsRepository = correctionsRepository;
+    }
+
+    @FXML
+    private void onAddButtonAction() {
+        val suggestion = suggestionsListView.getSelectionModel()
+                .getSelectedItem();
+
+        if (suggestion == null) {
+            return;
+        }
+
+        try {
+            correctionsRepository.insert(suggestion.toCorrection());
+        } catch (CorrectionsDatabase.CorrectionsDatabaseException e) {
+            e.printStackTrace();
+
+            SimpleAlertCreator.createDatabaseErrorAlert()
+                    .show();
+
+            return;
+        } catch (CorrectionsDatabase.CorrectionAlreadyExistsException e) {
+            SimpleAlertCreator.createErrorAlert("Add Correction",
+                    "The Correction Already Exists!")
+                    .show();
+
+            return;
+        }
+
+        onSuggestionAdded.accept(suggestion);
+
+        suggestionsListView.getItems().remove(suggestion);
+
+        if (suggestionsListView.getItems().isEmpty()) {
+            closePopup();
+        }
+    }
+
+    @FXML
+    private void closePopup() {
+        val currentStage = (Stage) suggestionsListView.getScene().getWindow();
+
+        currentStage.close();
+    }
+}
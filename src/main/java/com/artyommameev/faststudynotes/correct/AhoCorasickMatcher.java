@@ -0,0 +1,755 @@
+package com.artyommameev.faststudynotes.correct;
+
+import lombok.NonNull;
+import lombok.val;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A multi-pattern string matcher based on the Aho-Corasick automaton, which
+ * finds the occurrences of all its patterns in one linear pass over a text.
+ * <p>
+ * The matches are reported with the <i>leftmost-longest</i> semantics: the
+ * scan reports the match that starts at the leftmost position of the text,
+ * and if several patterns start at this position, the longest of them is
+ * chosen. Then the scan continues from the end of the reported match, so the
+ * reported matches never overlap each other. A {@link MatchFilter} can reject
+ * some of the matches, e.g. the ones that are not whole words, in the same
+ * pass, and then the leftmost-longest of the accepted matches is reported.
+ * <p>
+ * A case-insensitive matcher folds the case of the patterns and of the
+ * chars of the text as it follows the transitions of the automaton, so all
+ * the case variants of a pattern are matched by the same states.
+ * <p>
+ * The automaton is stored in flat primitive arrays (a trie in the compressed
+ * sparse row format with failure and output links), so it is compact and does
+ * not create any objects while matching. The arrays can be written to a
+ * buffer and read back (see {@link #writeTo(ByteBuffer)}), so a large
+ * automaton is not built again.
+ *
+ * @author Artyom Mameev
+ */
+public class AhoCorasickMatcher {
+
+    private static final int ROOT = 0;
+    private static final int NO_PATTERN = -1;
+    private static final int NO_NODE = -1;
+
+    private final int patternsCount;
+    private final boolean caseInsensitive;
+
+    // the children of the node n are stored in the range
+    // [edgeOffsets[n], edgeOffsets[n + 1]) and are sorted by their chars
+    private final int[] edgeOffsets;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+
+    private final int[] failureLinks;
+    // the nearest node on the failure chain which completes a pattern
+    private final int[] outputLinks;
+    private final int[] depths;
+    private final int[] patterns;
+    // the next pattern that is equal to the pattern, or NO_PATTERN
+    private final int[] nextEqualPatterns;
+
+    /**
+     * Instantiates a new Aho-Corasick Matcher.
+     * <p>
+     * The patterns are identified by their indexes in the given list. If the
+     * list contains the same pattern several times, only the first of them
+     * is reported by the matcher, or, if a {@link MatchFilter} is used, the
+     * first of them that the filter accepts.
+     *
+     * @param patterns the list of the patterns to search for.
+     * @throws NullPointerException     if the list or any pattern is null.
+     * @throws IllegalArgumentException if any pattern is empty.
+     */
+    public AhoCorasickMatcher(@NonNull List<String> patterns) {
+        this(patterns, false);
+    }
+
+    /**
+     * Instantiates a new Aho-Corasick Matcher that can ignore the case of
+     * the patterns.
+     * <p>
+     * The patterns that differ only in case are treated by a
+     * case-insensitive matcher as the same pattern, so a
+     * {@link MatchFilter} can check the exact case of a match if needed.
+     *
+     * @param patterns        the list of the patterns to search for.
+     * @param caseInsensitive whether the patterns match regardless of their
+     *                        case.
+     * @throws NullPointerException     if the list or any pattern is null.
+     * @throws IllegalArgumentException if any pattern is empty.
+     * @see #AhoCorasickMatcher(List)
+     */
+    public AhoCorasickMatcher(@NonNull List<String> patterns,
+                              boolean caseInsensitive) {
+        patternsCount = patterns.size();
+        this.caseInsensitive = caseInsensitive;
+
+        val trie = new TrieBuilder();
+
+        for (int i = 0; i < patterns.size(); i++) {
+            val pattern = patterns.get(i);
+
+            trie.add(caseInsensitive && pattern != null ?
+                    CaseFolding.fold(pattern) : pattern, i);
+        }
+
+        int nodesCount = trie.nodesCount;
+
+        edgeOffsets = new int[nodesCount + 1];
+        edgeChars = new char[trie.edges.size()];
+        edgeTargets = new int[trie.edges.size()];
+        failureLinks = new int[nodesCount];
+        outputLinks = new int[nodesCount];
+        depths = trie.depths.toArray();
+        this.patterns = trie.patterns.toArray();
+        nextEqualPatterns = trie.nextEqualPatterns.toArray();
+
+        packEdges(trie.edges);
+        linkFailures();
+    }
+
+    private AhoCorasickMatcher(int patternsCount, boolean caseInsensitive,
+                               int[] edgeOffsets, char[] edgeChars,
+                               int[] edgeTargets, int[] failureLinks,
+                               int[] outputLinks, int[] depths,
+                               int[] patterns, int[] nextEqualPatterns) {
+        this.patternsCount = patternsCount;
+        this.caseInsensitive = caseInsensitive;
+        this.edgeOffsets = edgeOffsets;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.failureLinks = failureLinks;
+        this.outputLinks = outputLinks;
+        this.depths = depths;
+        this.patterns = patterns;
+        this.nextEqualPatterns = nextEqualPatterns;
+    }
+
+    /**
+     * Reads the matcher written by {@link #writeTo(ByteBuffer)} from the
+     * current position of a buffer, and moves the position to the end of
+     * the matcher.
+     * <p>
+     * The links of the read automaton are checked, so malformed data can
+     * never make the matcher read out of its arrays or loop forever.
+     *
+     * @param buffer the buffer to read the matcher from.
+     * @return the read matcher.
+     * @throws IllegalArgumentException if the data of the buffer is not a
+     *                                  valid matcher.
+     */
+    static AhoCorasickMatcher readFrom(ByteBuffer buffer) {
+        int patternsCount = CompiledData.getCount(buffer);
+        boolean caseInsensitive = CompiledData.getByte(buffer) != 0;
+        int nodesCount = CompiledData.getCount(buffer);
+        int edgesCount = CompiledData.getCount(buffer);
+
+        if (nodesCount == 0) {
+            throw CompiledData.createMalformedDataException("the automaton " +
+                    "has no root");
+        }
+
+        val matcher = new AhoCorasickMatcher(patternsCount, caseInsensitive,
+                CompiledData.getInts(buffer, nodesCount + 1),
+                CompiledData.getChars(buffer, edgesCount),
+                CompiledData.getInts(buffer, edgesCount),
+                CompiledData.getInts(buffer, nodesCount),
+                CompiledData.getInts(buffer, nodesCount),
+                CompiledData.getInts(buffer, nodesCount),
+                CompiledData.getInts(buffer, nodesCount),
+                CompiledData.getInts(buffer, patternsCount));
+
+        matcher.checkLinks();
+
+        return matcher;
+    }
+
+    /**
+     * Returns the number of bytes that the matcher takes when it is written
+     * by {@link #writeTo(ByteBuffer)}.
+     *
+     * @return the size of the written matcher in bytes.
+     */
+    long getSerializedSize() {
+        // the counts, the case flag and the arrays
+        return 3 * Integer.BYTES + 1 + (long) Integer.BYTES *
+                (edgeOffsets.length + edgeTargets.length +
+                        4 * depths.length + nextEqualPatterns.length) +
+                (long) Character.BYTES * edgeChars.length;
+    }
+
+    /**
+     * Writes the arrays of the automaton to a buffer, starting at its
+     * current position, and moves the position to the end of the matcher.
+     *
+     * @param buffer the buffer to write the matcher to, which has at least
+     *               {@link #getSerializedSize()} bytes remaining.
+     */
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(patternsCount);
+        buffer.put((byte) (caseInsensitive ? 1 : 0));
+        buffer.putInt(depths.length);
+        buffer.putInt(edgeChars.length);
+
+        CompiledData.putInts(buffer, edgeOffsets);
+        CompiledData.putChars(buffer, edgeChars);
+        CompiledData.putInts(buffer, edgeTargets);
+        CompiledData.putInts(buffer, failureLinks);
+        CompiledData.putInts(buffer, outputLinks);
+        CompiledData.putInts(buffer, depths);
+        CompiledData.putInts(buffer, patterns);
+        CompiledData.putInts(buffer, nextEqualPatterns);
+    }
+
+    /**
+     * Returns a number of the patterns of the matcher.
+     *
+     * @return the number of the patterns, including the duplicated ones.
+     */
+    public int getPatternsCount() {
+        return patternsCount;
+    }
+
+    /**
+     * Checks if the matcher ignores the case of the patterns.
+     *
+     * @return true if the patterns match regardless of their case, otherwise
+     * false.
+     */
+    public boolean isCaseInsensitive() {
+        return caseInsensitive;
+    }
+
+    /**
+     * Finds all the matches of the patterns in a text with the
+     * leftmost-longest semantics.
+     *
+     * @param text     the text to search in.
+     * @param listener the listener that receives the found matches in the
+     *                 order of their positions in the text.
+     * @throws NullPointerException if any parameter is null.
+     */
+    public void findAll(@NonNull CharSequence text,
+                        @NonNull MatchListener listener) {
+        findAll(text, 0, text.length(), true, listener);
+    }
+
+    /**
+     * Finds the matches of the patterns in a region of a text with the
+     * leftmost-longest semantics.
+     * <p>
+     * If the region is not the end of the input, the matches that could be
+     * continued by the next input are not reported. In this case, the
+     * returned position shows where the unresolved part of the region begins,
+     * so the caller can carry it over to the next call together with the
+     * further input.
+     *
+     * @param text       the text to search in.
+     * @param from       the start index of the region, inclusive.
+     * @param to         the end index of the region, exclusive.
+     * @param endOfInput whether the region is the end of the input.
+     * @param listener   the listener that receives the found matches in the
+     *                   order of their positions in the text.
+     * @return the index up to which the region is fully resolved; it is equal
+     * to the end of the region if the region is the end of the input.
+     * @throws NullPointerException      if any object parameter is null.
+     * @throws IndexOutOfBoundsException if the region is out of the text
+     *                                   bounds.
+     */
+    public int findAll(@NonNull CharSequence text, int from, int to,
+                       boolean endOfInput, @NonNull MatchListener listener) {
+        return find(text, from, to, endOfInput, null, listener);
+    }
+
+    /**
+     * Works the same as {@link #findAll(CharSequence, int, int, boolean,
+     * MatchListener)}, but reports only the matches that the filter accepts.
+     * <p>
+     * The filter is checked while the text is scanned, so a rejected match
+     * does not hide a shorter or a later accepted match, e.g. a shorter
+     * pattern that ends a word inside a longer pattern.
+     *
+     * @param text       the text to search in.
+     * @param from       the start index of the region, inclusive.
+     * @param to         the end index of the region, exclusive.
+     * @param endOfInput whether the region is the end of the input.
+     * @param filter     the filter of the matches.
+     * @param listener   the listener that receives the accepted matches in
+     *                   the order of their positions in the text.
+     * @return the index up to which the region is fully resolved; it is equal
+     * to the end of the region if the region is the end of the input.
+     * @throws NullPointerException      if any object parameter is null.
+     * @throws IndexOutOfBoundsException if the region is out of the text
+     *                                   bounds.
+     */
+    public int findAll(@NonNull CharSequence text, int from, int to,
+                       boolean endOfInput, @NonNull MatchFilter filter,
+                       @NonNull MatchListener listener) {
+        return find(text, from, to, endOfInput, filter, listener);
+    }
+
+    private int find(CharSequence text, int from, int to, boolean endOfInput,
+                     MatchFilter filter, MatchListener listener) {
+        if (from < 0 || to > text.length() || from > to) {
+            throw new IndexOutOfBoundsException("Invalid region: " + from +
+                    ".." + to);
+        }
+
+        int state = ROOT;
+        int position = from;
+
+        int bestPattern = NO_PATTERN;
+        int bestStart = 0;
+        int bestEnd = 0;
+
+        while (true) {
+            while (position < to) {
+                state = next(state, read(text, position));
+                position++;
+
+                int node = patterns[state] != NO_PATTERN ? state :
+                        outputLinks[state];
+
+                // the first output of the chain is the longest one
+                if (node != NO_NODE && filter == null) {
+                    int start = position - depths[node];
+
+                    if (bestPattern == NO_PATTERN || start < bestStart ||
+                            (start == bestStart && position > bestEnd)) {
+                        bestPattern = patterns[node];
+                        bestStart = start;
+                        bestEnd = position;
+                    }
+                }
+
+                // the first accepted output of the chain is the longest one
+                while (node != NO_NODE && filter != null) {
+                    int start = position - depths[node];
+
+                    // the shorter outputs start even later
+                    if (bestPattern != NO_PATTERN && start > bestStart) {
+                        break;
+                    }
+
+                    int pattern = accept(filter, patterns[node], start,
+                            position);
+
+                    if (pattern != NO_PATTERN) {
+                        bestPattern = pattern;
+                        bestStart = start;
+                        bestEnd = position;
+
+                        break;
+                    }
+
+                    node = outputLinks[node];
+                }
+
+                /*no match that starts at or before the best start can be
+                found anymore, so the best match is final*/
+                if (bestPattern != NO_PATTERN &&
+                        position - depths[state] > bestStart) {
+                    listener.onMatch(bestPattern, bestStart, bestEnd);
+
+                    position = bestEnd;
+                    state = ROOT;
+                    bestPattern = NO_PATTERN;
+                }
+            }
+
+            if (!endOfInput) {
+                return position - depths[state];
+            }
+
+            if (bestPattern == NO_PATTERN) {
+                return to;
+            }
+
+            // the text after the last match may contain other matches
+            listener.onMatch(bestPattern, bestStart, bestEnd);
+
+            position = bestEnd;
+            state = ROOT;
+            bestPattern = NO_PATTERN;
+        }
+    }
+
+    /**
+     * Finds all the occurrences of the patterns in a text, including the
+     * overlapping ones.
+     *
+     * @param text     the text to search in.
+     * @param listener the listener that receives the found occurrences in the
+     *                 order of their end positions in the text.
+     * @throws NullPointerException if any parameter is null.
+     */
+    public void findOccurrences(@NonNull CharSequence text,
+                                @NonNull MatchListener listener) {
+        int state = ROOT;
+
+        for (int position = 0; position < text.length(); position++) {
+            state = next(state, read(text, position));
+
+            int node = patterns[state] != NO_PATTERN ? state :
+                    outputLinks[state];
+
+            while (node != NO_NODE) {
+                listener.onMatch(patterns[node], position + 1 - depths[node],
+                        position + 1);
+
+                node = outputLinks[node];
+            }
+        }
+    }
+
+    /**
+     * Returns a number of the nodes of the automaton, which identify the
+     * distinct prefixes of the patterns.
+     *
+     * @return the number of the nodes, including the root.
+     */
+    int getNodesCount() {
+        return depths.length;
+    }
+
+    /**
+     * Finds the nodes of the prefixes of a text that are also the prefixes
+     * of the patterns.
+     *
+     * @param text the text.
+     * @return the nodes of the prefixes, from the shortest to the longest;
+     * the root, which stands for the empty prefix, is not included.
+     * @throws NullPointerException if the text is null.
+     */
+    int[] findPrefixNodes(@NonNull CharSequence text) {
+        val nodes = new IntList();
+
+        int node = ROOT;
+
+        for (int position = 0; position < text.length(); position++) {
+            node = child(node, read(text, position));
+
+            if (node == NO_NODE) {
+                break;
+            }
+
+            nodes.add(node);
+        }
+
+        return nodes.toArray();
+    }
+
+    /**
+     * Finds the nodes of the suffixes of a text that are the prefixes of the
+     * patterns.
+     *
+     * @param text the text.
+     * @return the nodes of the suffixes, from the longest to the shortest;
+     * the root, which stands for the empty suffix, is not included.
+     * @throws NullPointerException if the text is null.
+     */
+    int[] findSuffixNodes(@NonNull CharSequence text) {
+        val nodes = new IntList();
+
+        int state = ROOT;
+
+        for (int position = 0; position < text.length(); position++) {
+            state = next(state, read(text, position));
+        }
+
+        // the failure chain of a state is all its suffixes in the trie
+        for (int node = state; node != ROOT; node = failureLinks[node]) {
+            nodes.add(node);
+        }
+
+        return nodes.toArray();
+    }
+
+    /*the links of the nodes lead to the shallower nodes and the equal
+    patterns lead to the later ones, so no chain of links is a loop*/
+    private void checkLinks() {
+        int nodesCount = depths.length;
+
+        boolean isValid = depths[ROOT] == 0 &&
+                failureLinks[ROOT] == ROOT &&
+                outputLinks[ROOT] == NO_NODE &&
+                edgeOffsets[0] == 0 &&
+                edgeOffsets[nodesCount] == edgeTargets.length;
+
+        for (int node = 0; node < nodesCount && isValid; node++) {
+            isValid = edgeOffsets[node] <= edgeOffsets[node + 1];
+        }
+
+        for (int node = 0; node < nodesCount && isValid; node++) {
+            isValid = patterns[node] == NO_PATTERN ||
+                    (patterns[node] >= 0 && patterns[node] < patternsCount);
+
+            for (int e = edgeOffsets[node]; e < edgeOffsets[node + 1] &&
+                    isValid; e++) {
+                int child = edgeTargets[e];
+
+                isValid = child > ROOT && child < nodesCount &&
+                        depths[child] == depths[node] + 1;
+            }
+
+            if (node != ROOT && isValid) {
+                int failure = failureLinks[node];
+                int output = outputLinks[node];
+
+                isValid = failure >= 0 && failure < nodesCount &&
+                        depths[failure] < depths[node] &&
+                        (output == NO_NODE || (output > ROOT &&
+                                output < nodesCount &&
+                                depths[output] < depths[node] &&
+                                patterns[output] != NO_PATTERN));
+            }
+        }
+
+        for (int pattern = 0; pattern < patternsCount && isValid;
+             pattern++) {
+            int nextPattern = nextEqualPatterns[pattern];
+
+            isValid = nextPattern == NO_PATTERN || (nextPattern > pattern &&
+                    nextPattern < patternsCount);
+        }
+
+        if (!isValid) {
+            throw CompiledData.createMalformedDataException("the links of " +
+                    "the automaton are invalid");
+        }
+    }
+
+    // the first of the equal patterns that the filter accepts
+    private int accept(MatchFilter filter, int pattern, int start, int end) {
+        while (pattern != NO_PATTERN) {
+            if (filter.accept(pattern, start, end)) {
+                return pattern;
+            }
+
+            pattern = nextEqualPatterns[pattern];
+        }
+
+        return NO_PATTERN;
+    }
+
+    private char read(CharSequence text, int position) {
+        char c = text.charAt(position);
+
+        return caseInsensitive ? CaseFolding.fold(c) : c;
+    }
+
+    private int next(int state, char c) {
+        while (true) {
+            int child = child(state, c);
+
+            if (child != NO_NODE) {
+                return child;
+            }
+
+            if (state == ROOT) {
+                return ROOT;
+            }
+
+            state = failureLinks[state];
+        }
+    }
+
+    private int child(int node, char c) {
+        int low = edgeOffsets[node];
+        int high = edgeOffsets[node + 1] - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char middleChar = edgeChars[middle];
+
+            if (middleChar < c) {
+                low = middle + 1;
+            } else if (middleChar > c) {
+                high = middle - 1;
+            } else {
+                return edgeTargets[middle];
+            }
+        }
+
+        return NO_NODE;
+    }
+
+    private void packEdges(HashMap<Long, Integer> edges) {
+        val keys = new long[edges.size()];
+
+        int i = 0;
+
+        for (val key : edges.keySet()) {
+            keys[i++] = key;
+        }
+
+        // the keys are (node << 16 | char), so they are sorted by node and char
+        Arrays.sort(keys);
+
+        for (i = 0; i < keys.length; i++) {
+            int node = (int) (keys[i] >>> 16);
+
+            edgeChars[i] = (char) keys[i];
+            edgeTargets[i] = edges.get(keys[i]);
+            edgeOffsets[node + 1]++;
+        }
+
+        for (int node = 0; node < edgeOffsets.length - 1; node++) {
+            edgeOffsets[node + 1] += edgeOffsets[node];
+        }
+    }
+
+    private void linkFailures() {
+        val queue = new int[depths.length];
+
+        int head = 0;
+        int tail = 0;
+
+        failureLinks[ROOT] = ROOT;
+        outputLinks[ROOT] = NO_NODE;
+
+        queue[tail++] = ROOT;
+
+        // breadth-first, so the failure targets are always linked earlier
+        while (head < tail) {
+            int node = queue[head++];
+
+            for (int e = edgeOffsets[node]; e < edgeOffsets[node + 1]; e++) {
+                int child = edgeTargets[e];
+
+                int failure = node == ROOT ? ROOT :
+                        next(failureLinks[node], edgeChars[e]);
+
+                failureLinks[child] = failure;
+                outputLinks[child] = patterns[failure] != NO_PATTERN ?
+                        failure : outputLinks[failure];
+
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    /**
+     * A listener of the matches found by the {@link AhoCorasickMatcher}.
+     */
+    public interface MatchListener {
+
+        /**
+         * Receives a found match.
+         *
+         * @param pattern the index of the matched pattern.
+         * @param start   the start index of the match in the text, inclusive.
+         * @param end     the end index of the match in the text, exclusive.
+         */
+        void onMatch(int pattern, int start, int end);
+    }
+
+    /**
+     * A filter of the matches found by the {@link AhoCorasickMatcher}.
+     */
+    @FunctionalInterface
+    public interface MatchFilter {
+
+        /**
+         * Checks if a match should be reported.
+         *
+         * @param pattern the index of the matched pattern.
+         * @param start   the start index of the match in the text, inclusive.
+         * @param end     the end index of the match in the text, exclusive.
+         * @return true if the match can be reported, otherwise false.
+         */
+        boolean accept(int pattern, int start, int end);
+    }
+
+    private static class TrieBuilder {
+
+        private final HashMap<Long, Integer> edges = new HashMap<>();
+        private final IntList depths = new IntList();
+        private final IntList patterns = new IntList();
+        private final IntList nextEqualPatterns = new IntList();
+
+        private int nodesCount;
+
+        private TrieBuilder() {
+            newNode(0);
+        }
+
+        private void add(@NonNull String pattern, int index) {
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Pattern cannot be empty");
+            }
+
+            int node = ROOT;
+
+            for (int i = 0; i < pattern.length(); i++) {
+                long key = ((long) node << 16) | pattern.charAt(i);
+
+                Integer child = edges.get(key);
+
+                if (child == null) {
+                    child = newNode(i + 1);
+
+                    edges.put(key, child);
+                }
+
+                node = child;
+            }
+
+            nextEqualPatterns.add(NO_PATTERN);
+
+            if (patterns.get(node) == NO_PATTERN) {
+                patterns.set(node, index);
+
+                return;
+            }
+
+            int equalPattern = patterns.get(node);
+
+            while (nextEqualPatterns.get(equalPattern) != NO_PATTERN) {
+                equalPattern = nextEqualPatterns.get(equalPattern);
+            }
+
+            nextEqualPatterns.set(equalPattern, index);
+        }
+
+        private int newNode(int depth) {
+            depths.add(depth);
+            patterns.add(NO_PATTERN);
+
+            return nodesCount++;
+        }
+    }
+
+    private static class IntList {
+
+        private int[] values = new int[16];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            values[size++] = value;
+        }
+
+        private int get(int index) {
+            return values[index];
+        }
+
+        private void set(int index, int value) {
+            values[index] = value;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
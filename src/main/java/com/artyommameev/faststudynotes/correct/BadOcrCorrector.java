@@ -5,9 +5,10 @@ import lombok.NonNull;
 import lombok.experimental.UtilityClass;
 import lombok.val;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * A set of utilities for correction of typical errors and inconvenient
@@ -47,6 +48,25 @@ public class BadOcrCorrector {
      * with the specific corrections according to {@link Correction} objects
      * in the given {@link Correction}s list with the {@link Correction.TYPE#CODE}
      * type.
+     * <p>
+     * The expressions of the {@link Correction}s are searched for in one
+     * linear pass over the text using an {@link AhoCorasickMatcher}. If
+     * several expressions match at the same position, the longest of them is
+     * replaced. If the expression of a {@link Correction} can match a text
+     * that contains any part of the correction of a previous
+     * {@link Correction} from the list, as when it occurs in the correction
+     * or starts with its end, it is searched for in a separate pass after the
+     * previous one, so the result of the previous {@link Correction} can be
+     * corrected again.
+     * <p>
+     * The expressions of the {@link Correction}s of the
+     * {@link Correction.KIND#REGEX} kind are regular expressions. They are
+     * searched for after all the other expressions, in one pass over the text
+     * that uses a combined matcher of all of them. If several of them match
+     * at the same position, the first one from the list is replaced. An
+     * expression that takes too long to match (e.g. because of catastrophic
+     * backtracking) is disabled (see
+     * {@link CompiledCorrections#getDisabledCorrections()}).
      *
      * @param text        the text to correct.
      * @param type        the type of the correction.
@@ -54,29 +74,258 @@ public class BadOcrCorrector {
      * @return the text, corrected according to the above rules.
      * @throws NullPointerException     if any parameter is null.
      * @throws IllegalArgumentException if the text is empty.
+     * @see #correct(String, Correction.TYPE, CompiledCorrections)
      */
 
     public static String correct(@NonNull String text, @NonNull Correction.TYPE
             type, @NonNull List<Correction> corrections) {
+        return correctWithPasses(text, type,
+                CompiledCorrections.compile(corrections, type), null);
+    }
+
+    /**
+     * Corrects a text using {@link CompiledCorrections}.
+     * <p>
+     * Works the same as {@link #correct(String, Correction.TYPE, List)}, but
+     * uses the matchers that were already built from the {@link Correction}s,
+     * so it should be preferred when the same {@link Correction}s are applied
+     * to many texts.
+     *
+     * @param text        the text to correct.
+     * @param type        the type of the correction.
+     * @param corrections the {@link CompiledCorrections} to apply.
+     * @return the text, corrected according to the rules described in
+     * {@link #correct(String, Correction.TYPE, List)}.
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the text is empty.
+     */
+    public static String correct(@NonNull String text, @NonNull Correction.TYPE
+            type, @NonNull CompiledCorrections corrections) {
+        return correctWithPasses(text, type, corrections.getPasses(type),
+                null);
+    }
+
+    /**
+     * Corrects a text using {@link CompiledCorrections}, recording how many
+     * times each {@link Correction} was applied and how much time its
+     * expression took to match.
+     * <p>
+     * Works the same as {@link #correct(String, Correction.TYPE,
+     * CompiledCorrections)} and gives the same result, but is slower if the
+     * {@link Correction}s have many expressions of the
+     * {@link Correction.KIND#REGEX} kind, because they are searched for
+     * separately to measure their matching time.
+     *
+     * @param text        the text to correct.
+     * @param type        the type of the correction.
+     * @param corrections the {@link CompiledCorrections} to apply.
+     * @param statistics  the {@link CorrectionStatistics} of the
+     *                    {@link CompiledCorrections} to record.
+     * @return the text, corrected according to the rules described in
+     * {@link #correct(String, Correction.TYPE, List)}.
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the text is empty or if the
+     *                                  statistics were created for other
+     *                                  {@link CompiledCorrections}.
+     */
+    public static String correct(@NonNull String text, @NonNull Correction.TYPE
+            type, @NonNull CompiledCorrections corrections,
+                                 @NonNull CorrectionStatistics statistics) {
+        checkStatistics(corrections, statistics);
+
+        return correctWithPasses(text, type, corrections.getPasses(type),
+                statistics);
+    }
+
+    /**
+     * Corrects a text stream using the data from {@link Correction}s list.
+     * <p>
+     * Works the same as {@link #correct(String, Correction.TYPE, List)}, but
+     * reads the text in chunks and writes the corrected text as soon as it is
+     * known, so the memory usage does not depend on the size of the text.
+     * Expressions, soft hyphens and hyphenated line breaks that span two
+     * chunks are corrected the same way as in a whole text. An empty stream
+     * is allowed and gives an empty result.
+     * <p>
+     * The reader and the writer are not closed by this method.
+     *
+     * @param reader      the reader of the text to correct.
+     * @param writer      the writer to write the corrected text to.
+     * @param type        the type of the correction.
+     * @param corrections the list of the {@link Correction} objects.
+     * @throws NullPointerException if any parameter is null.
+     * @throws IOException          if reading or writing fails.
+     */
+    public static void correct(@NonNull Reader reader, @NonNull Writer writer,
+                               @NonNull Correction.TYPE type,
+                               @NonNull List<Correction> corrections)
+            throws IOException {
+        StreamingCorrector.correct(reader, writer, type,
+                CompiledCorrections.compile(corrections, type),
+                StreamingCorrector.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Corrects a text stream using {@link CompiledCorrections}.
+     * <p>
+     * Works the same as {@link #correct(Reader, Writer, Correction.TYPE,
+     * List)}, but uses the matchers that were already built from the
+     * {@link Correction}s.
+     *
+     * @param reader      the reader of the text to correct.
+     * @param writer      the writer to write the corrected text to.
+     * @param type        the type of the correction.
+     * @param corrections the {@link CompiledCorrections} to apply.
+     * @throws NullPointerException if any parameter is null.
+     * @throws IOException          if reading or writing fails.
+     */
+    public static void correct(@NonNull Reader reader, @NonNull Writer writer,
+                               @NonNull Correction.TYPE type,
+                               @NonNull CompiledCorrections corrections)
+            throws IOException {
+        StreamingCorrector.correct(reader, writer, type,
+                corrections.getPasses(type),
+                StreamingCorrector.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Corrects a text using {@link CompiledCorrections}, correcting the parts
+     * of the text in parallel if the text is large.
+     * <p>
+     * Works the same as {@link #correct(String, Correction.TYPE,
+     * CompiledCorrections)} and gives the same result. If the text is large
+     * enough, it is split after line breaks, punctuation marks or whitespaces
+     * that do not occur in any expression of the {@link Correction}s, so no
+     * expression can span two parts, and the parts are corrected on the common
+     * {@link java.util.concurrent.ForkJoinPool}. Smaller texts, and texts that
+     * cannot be split safely, are corrected sequentially.
+     *
+     * @param text        the text to correct.
+     * @param type        the type of the correction.
+     * @param corrections the {@link CompiledCorrections} to apply.
+     * @return the text, corrected according to the rules described in
+     * {@link #correct(String, Correction.TYPE, List)}.
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the text is empty.
+     */
+    public static String correctInParallel(@NonNull String text,
+                                           @NonNull Correction.TYPE type,
+                                           @NonNull CompiledCorrections
+                                                   corrections) {
+        text = doBasicCorrection(text, type);
+
+        return ParallelCorrector.applyAll(text, corrections.getPasses(type),
+                ParallelCorrector.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Corrects a text using {@link CompiledCorrections}, correcting the parts
+     * of the text in parallel if the text is large, and recording the
+     * {@link CorrectionStatistics}.
+     * <p>
+     * Works the same as {@link #correctInParallel(String, Correction.TYPE,
+     * CompiledCorrections)}, but records the statistics the same way as
+     * {@link #correct(String, Correction.TYPE, CompiledCorrections,
+     * CorrectionStatistics)}.
+     *
+     * @param text        the text to correct.
+     * @param type        the type of the correction.
+     * @param corrections the {@link CompiledCorrections} to apply.
+     * @param statistics  the {@link CorrectionStatistics} of the
+     *                    {@link CompiledCorrections} to record.
+     * @return the text, corrected according to the rules described in
+     * {@link #correct(String, Correction.TYPE, List)}.
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the text is empty or if the
+     *                                  statistics were created for other
+     *                                  {@link CompiledCorrections}.
+     */
+    public static String correctInParallel(@NonNull String text,
+                                           @NonNull Correction.TYPE type,
+                                           @NonNull CompiledCorrections
+                                                   corrections,
+                                           @NonNull CorrectionStatistics
+                                                   statistics) {
+        checkStatistics(corrections, statistics);
+
+        text = doBasicCorrection(text, type);
+
+        return ParallelCorrector.applyAll(text, corrections.getPasses(type),
+                ParallelCorrector.DEFAULT_THRESHOLD, statistics);
+    }
+
+    /**
+     * Corrects a text using {@link CompiledCorrections}, correcting the parts
+     * of the text in parallel if the text is large, and joining the
+     * hyphenated line breaks of a text of the {@link Correction.TYPE#TEXT}
+     * type only where the joined word is known.
+     * <p>
+     * Works the same as {@link #correctInParallel(String, Correction.TYPE,
+     * CompiledCorrections)}, but a hyphen that breaks a line after a word is
+     * removed only if the word joined with the next word is known and the
+     * hyphenated compound of the two words is not; otherwise, only the line
+     * break is removed (e.g. "well- known" becomes "well-known"). The
+     * decisions are made in the same pass as the rest of the basic
+     * correction.
+     *
+     * @param text        the text to correct.
+     * @param type        the type of the correction.
+     * @param corrections the {@link CompiledCorrections} to apply.
+     * @param knownWords  the {@link WordFingerprints} of the known words.
+     * @return the corrected text.
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the text is empty.
+     */
+    public static String correctInParallel(@NonNull String text,
+                                           @NonNull Correction.TYPE type,
+                                           @NonNull CompiledCorrections
+                                                   corrections,
+                                           @NonNull WordFingerprints
+                                                   knownWords) {
+        text = doBasicCorrection(text, type, knownWords);
+
+        return ParallelCorrector.applyAll(text, corrections.getPasses(type),
+                ParallelCorrector.DEFAULT_THRESHOLD);
+    }
+
+    private static void checkStatistics(CompiledCorrections corrections,
+                                        CorrectionStatistics statistics) {
+        if (statistics.getSize() != corrections.getSize()) {
+            throw new IllegalArgumentException("The statistics were " +
+                    "created for other corrections");
+        }
+    }
+
+    private static String correctWithPasses(String text,
+                                            Correction.TYPE type,
+                                            List<CorrectionPass> passes,
+                                            CorrectionStatistics statistics) {
+        text = doBasicCorrection(text, type);
+
+        return CorrectionPass.applyAll(text, passes, statistics);
+    }
+
+    private static String doBasicCorrection(String text,
+                                            Correction.TYPE type) {
+        return doBasicCorrection(text, type, null);
+    }
+
+    private static String doBasicCorrection(String text,
+                                            Correction.TYPE type,
+                                            WordFingerprints knownWords) {
         if (text.isEmpty()) {
             throw new IllegalArgumentException("Text cannot be empty");
         }
 
         if (type.equals(Correction.TYPE.TEXT)) {
-            text = doBasicTextCorrection(text);
+            text = knownWords == null ? doBasicTextCorrection(text) :
+                    TextNormalizer.normalize(text, knownWords);
         }
 
         if (type.equals(Correction.TYPE.CODE)) {
             text = removeEndWhitespaces(text);
         }
 
-        for (val correction : corrections) {
-            if (correction.getType().equals(type)) {
-                text = text.replaceAll(Pattern.quote(correction.getExpression()),
-                        Matcher.quoteReplacement(correction.getCorrection()));
-            }
-        }
-
         return text;
     }
 
@@ -121,47 +370,57 @@ public class BadOcrCorrector {
                     "empty");
         }
 
-        val lastCharacter = toCorrect.substring(toCorrect.length() - 1);
-
-        boolean isNotPunctuationMark = !Pattern.matches("\\p{Punct}",
-                lastCharacter);
-        boolean isBracket = lastCharacter.equals(")");
-        boolean isQuotationMark = lastCharacter.equals("\"");
-        boolean isDoubleAngleQuotationMark = lastCharacter.equals("»");
-
-            /*don't add period if the last character is a punctuation mark
-            (except for bracket and quotation marks)*/
-        if (isNotPunctuationMark |
-                isBracket | isQuotationMark | isDoubleAngleQuotationMark) {
+        /*don't add period if the last character is a punctuation mark
+        (except for bracket and quotation marks)*/
+        if (CorrectionPipeline.isPeriodNeededAfter(toCorrect.charAt(
+                toCorrect.length() - 1))) {
             toCorrect += ".";
         }
 
         return toCorrect;
     }
 
-    private static String doBasicTextCorrection(String toCorrect) {
-        toCorrect = toCorrect
-                // change line breaks into whitespaces
-                .replaceAll("\\r\\n|\\r|\\n", " ")
-                // remove soft hyphen
-                .replaceAll("\u00AD\\s", "")
-                // fix double whitespaces
-                .replaceAll(" {2}", " ");
-
-        // e.g. "t- " in "pat- tern"
-        val pattern = Pattern.compile("\\S-\\s");
-        val matcher = pattern.matcher(toCorrect);
-
-        // remove hyphenated line breaks
-        while (matcher.find()) {
-            int foundStart = matcher.start();
-            int foundEnd = matcher.end();
-
-            toCorrect = toCorrect.substring(0, foundStart + 1) +
-                    toCorrect.substring(foundEnd);
-        }
+    /**
+     * Converts each word of a text that mixes Latin and Cyrillic letters to
+     * the script of the majority of its letters, replacing the letters of the
+     * other script with the look-alike letters of the majority script (e.g.
+     * the Latin "o" in a Cyrillic word with the Cyrillic "о").
+     *
+     * @param toCorrect the string to correct.
+     * @return the string with the words converted to their majority scripts,
+     * or the same string if no word mixes the scripts.
+     * @throws NullPointerException if the string is null.
+     */
+    public static String normalizeHomoglyphs(@NonNull String toCorrect) {
+        val text = new StringBuilder(toCorrect);
 
-        return toCorrect;
+        HomoglyphNormalizer.normalize(text);
+
+        return toCorrect.contentEquals(text) ? toCorrect : text.toString();
+    }
+
+    /**
+     * Rebuilds the indentation of a code whose leading whitespaces were lost
+     * or garbled by OCR, from the brackets of the code and the lines that
+     * open blocks, such as "if x:" or a header of a statement without a
+     * brace. Each level is indented by four spaces, and the whitespaces at
+     * the end of the lines are removed.
+     * <p>
+     * The code is indented in one linear pass without parsing it, so it
+     * works for the most of the brace- and indentation-based languages,
+     * but the indentation of some unusual constructions may differ from the
+     * original.
+     *
+     * @param toCorrect the code to correct.
+     * @return the code with the rebuilt indentation.
+     * @throws NullPointerException if the code is null.
+     */
+    public static String indentCode(@NonNull String toCorrect) {
+        return CodeIndenter.indent(toCorrect);
+    }
+
+    private static String doBasicTextCorrection(String toCorrect) {
+        return TextNormalizer.normalize(toCorrect);
     }
 
     private static String removeEndWhitespaces(String toCorrect) {
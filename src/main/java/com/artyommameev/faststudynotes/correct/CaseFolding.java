@@ -0,0 +1,113 @@
+package com.artyommameev.faststudynotes.correct;
+
+import lombok.val;
+
+/**
+ * The case folding of the chars of the case-insensitive corrections, and the
+ * copying of the case of a matched text to its replacement.
+ * <p>
+ * The chars are folded one by one, the same way as by case-insensitive
+ * regular expressions with Unicode case, so a folded text has the same
+ * length as the original one and the positions of the matches in the folded
+ * text are the positions in the original text. The folded chars are kept in
+ * a lookup table, so folding a char takes a single array access.
+ *
+ * @author Artyom Mameev
+ */
+final class CaseFolding {
+
+    private static final char[] FOLDED_CHARS =
+            new char[Character.MAX_VALUE + 1];
+
+    static {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            FOLDED_CHARS[c] = Character.toLowerCase(Character.toUpperCase(
+                    (char) c));
+        }
+    }
+
+    private CaseFolding() {
+    }
+
+    /**
+     * Folds the case of a char.
+     *
+     * @param c the char to fold.
+     * @return the char that all the case variants of the char are folded to.
+     */
+    static char fold(char c) {
+        return FOLDED_CHARS[c];
+    }
+
+    /**
+     * Folds the case of all the chars of a string.
+     *
+     * @param string the string to fold.
+     * @return the folded string of the same length.
+     */
+    static String fold(String string) {
+        val chars = string.toCharArray();
+
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = FOLDED_CHARS[chars[i]];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Changes the case of a replacement to the case of the text it replaces.
+     * <p>
+     * If all the letters of the matched text are capital and there are at
+     * least two of them, all the letters of the replacement become capital,
+     * e.g. "TEH" is replaced with "THE". If only the first letter of the
+     * matched text is capital, the first letter of the replacement becomes
+     * capital, e.g. "Teh" is replaced with "The". Otherwise, the replacement
+     * is not changed.
+     *
+     * @param text   the text that contains the match.
+     * @param start  the start index of the match, inclusive.
+     * @param end    the end index of the match, exclusive.
+     * @param output the buffer that ends with the replacement.
+     * @param from   the index of the replacement in the buffer.
+     */
+    static void copyCase(CharSequence text, int start, int end,
+                         StringBuilder output, int from) {
+        int upperCaseCount = 0;
+        int lowerCaseCount = 0;
+        boolean isFirstLetterUpperCase = false;
+
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+
+            if (Character.isUpperCase(c)) {
+                isFirstLetterUpperCase |= upperCaseCount + lowerCaseCount ==
+                        0;
+
+                upperCaseCount++;
+            } else if (Character.isLowerCase(c)) {
+                lowerCaseCount++;
+            }
+        }
+
+        boolean isUpperCase = upperCaseCount > 1 && lowerCaseCount == 0;
+
+        if (!isUpperCase && !isFirstLetterUpperCase) {
+            return;
+        }
+
+        for (int i = from; i < output.length(); i++) {
+            char c = output.charAt(i);
+
+            if (!Character.isLetter(c)) {
+                continue;
+            }
+
+            output.setCharAt(i, Character.toUpperCase(c));
+
+            if (!isUpperCase) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.artyommameev.faststudynotes.correct;
+
+/**
+ * A table-driven classification of the chars that are checked by the
+ * corrections of the text, which replaces the regular expressions that check
+ * single chars.
+ * <p>
+ * The classes are the same as the classes of regular expressions, which only
+ * include ASCII chars, so a char is classified by a single lookup in a table
+ * of 128 entries.
+ *
+ * @author Artyom Mameev
+ */
+final class CharClasses {
+
+    private static final byte WHITESPACE = 1;
+    private static final byte PUNCTUATION = 1 << 1;
+
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        // the \s class
+        for (char c : " \t\n\u000B\f\r".toCharArray()) {
+            CLASSES[c] |= WHITESPACE;
+        }
+
+        // the \p{Punct} class
+        for (char c : "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~".toCharArray()) {
+            CLASSES[c] |= PUNCTUATION;
+        }
+    }
+
+    private CharClasses() {
+    }
+
+    /**
+     * Checks if a char is a whitespace in terms of regular expressions.
+     *
+     * @param c the char to check.
+     * @return true if the char belongs to the \s class of regular
+     * expressions, otherwise false.
+     */
+    static boolean isWhitespace(char c) {
+        return c < 128 && (CLASSES[c] & WHITESPACE) != 0;
+    }
+
+    /**
+     * Checks if a char is a punctuation mark in terms of regular expressions.
+     *
+     * @param c the char to check.
+     * @return true if the char belongs to the \p{Punct} class of regular
+     * expressions, otherwise false.
+     */
+    static boolean isPunctuation(char c) {
+        return c < 128 && (CLASSES[c] & PUNCTUATION) != 0;
+    }
+}
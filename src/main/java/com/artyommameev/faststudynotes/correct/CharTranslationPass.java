@@ -0,0 +1,403 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.NonNull;
+import lombok.val;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * A single pass over a text that replaces single chars with other chars
+ * using a lookup table, which is much faster than searching for the chars
+ * with an {@link AhoCorasickMatcher}.
+ * <p>
+ * Only the rules that are independent from all the other replacement rules
+ * are moved to the table by {@link #extract(List, List, List)}: their chars
+ * do not occur in any other expression or replacement, and their
+ * replacement chars do not occur in any other expression. Such rules give
+ * the same result whether they are applied before the other rules or
+ * together with them, so the pass is applied before the other passes. The
+ * rules with a {@link Correction.CONDITION} depend on the chars around them,
+ * and the case-insensitive rules match several chars, so they are never
+ * moved to the table.
+ * <p>
+ * The table can be written to a buffer and read back (see
+ * {@link #writeTo(ByteBuffer)}), so it is not extracted again.
+ *
+ * @author Artyom Mameev
+ */
+class CharTranslationPass implements CorrectionPass {
+
+    // the table is indexed by the chars up to the largest translated one
+    private final char[] table;
+    // the index of the Correction of each translated char, or -1
+    private final int[] corrections;
+
+    private CharTranslationPass(char[] table, int[] corrections) {
+        this.table = table;
+        this.corrections = corrections;
+    }
+
+    /**
+     * Moves the case-sensitive single-char replacement rules without
+     * conditions that are independent from the other rules to a new pass.
+     *
+     * @param expressions  the expressions of the rules, in the order of the
+     *                     rules.
+     * @param replacements the replacements of the rules, in the order of the
+     *                     rules.
+     * @param corrections  the indexes of the
+     *                     {@link com.artyommameev.faststudynotes.domain.Correction}s
+     *                     of the rules in the {@link CorrectionStatistics}, in
+     *                     the order of the rules.
+     * @return the pass of the moved rules, or null if no rule can be moved.
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the lists have different sizes.
+     * @see #extract(List, List, List, List, List)
+     */
+    static CharTranslationPass extract(@NonNull List<String> expressions,
+                                       @NonNull List<String> replacements,
+                                       @NonNull List<Integer> corrections) {
+        return extract(expressions, replacements, new ArrayList<>(
+                Collections.nCopies(expressions.size(),
+                        Correction.CONDITION.NONE)), new ArrayList<>(
+                Collections.nCopies(expressions.size(), false)), corrections);
+    }
+
+    /**
+     * Moves the single-char replacement rules that are independent from the
+     * other rules, have no conditions and are case-sensitive to a new pass.
+     * <p>
+     * The moved rules, and the later rules with the same expressions, which
+     * would never match, are removed from the lists.
+     *
+     * @param expressions       the expressions of the rules, in the order of
+     *                          the rules.
+     * @param replacements      the replacements of the rules, in the order of
+     *                          the rules.
+     * @param conditions        the conditions of the rules, in the order of
+     *                          the rules.
+     * @param caseInsensitivity whether each rule is case-insensitive, in the
+     *                          order of the rules.
+     * @param corrections       the indexes of the
+     *                          {@link com.artyommameev.faststudynotes.domain.Correction}s
+     *                          of the rules in the
+     *                          {@link CorrectionStatistics}, in the order of
+     *                          the rules.
+     * @return the pass of the moved rules, or null if no rule can be moved.
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the lists have different sizes.
+     */
+    static CharTranslationPass extract(
+            @NonNull List<String> expressions,
+            @NonNull List<String> replacements,
+            @NonNull List<Correction.CONDITION> conditions,
+            @NonNull List<Boolean> caseInsensitivity,
+            @NonNull List<Integer> corrections) {
+        if (expressions.size() != replacements.size() ||
+                expressions.size() != conditions.size() ||
+                expressions.size() != caseInsensitivity.size() ||
+                expressions.size() != corrections.size()) {
+            throw new IllegalArgumentException("Each expression must have " +
+                    "a replacement");
+        }
+
+        // the table is never longer than the largest char it can translate
+        int maxTableLength = 0;
+
+        for (int i = 0; i < expressions.size(); i++) {
+            if (isTranslatable(expressions.get(i), replacements.get(i),
+                    conditions.get(i), caseInsensitivity.get(i))) {
+                maxTableLength = Math.max(maxTableLength,
+                        expressions.get(i).charAt(0) + 1);
+            }
+        }
+
+        if (maxTableLength == 0) {
+            return null;
+        }
+
+        /*the numbers of the occurrences of each char, indexed by the chars
+        up to the largest counted one*/
+        int[] expressionCharCounts = new int[0];
+        int[] replacementCharCounts = new int[0];
+        // the folded chars of the case-insensitive expressions
+        int[] foldedExpressionCharCounts = new int[0];
+
+        val seenExpressions = new HashSet<String>();
+
+        for (int i = 0; i < expressions.size(); i++) {
+            // an expression never matches after its rule without a condition
+            if (seenExpressions.contains(expressions.get(i))) {
+                continue;
+            }
+
+            if (conditions.get(i) == Correction.CONDITION.NONE &&
+                    !caseInsensitivity.get(i)) {
+                seenExpressions.add(expressions.get(i));
+            }
+
+            expressionCharCounts = count(expressions.get(i),
+                    expressionCharCounts);
+            replacementCharCounts = count(replacements.get(i),
+                    replacementCharCounts);
+
+            /*a case-insensitive rule matches all the cases of its chars and
+            can produce the capital ones*/
+            if (caseInsensitivity.get(i)) {
+                foldedExpressionCharCounts = count(CaseFolding.fold(
+                        expressions.get(i)), foldedExpressionCharCounts);
+                replacementCharCounts = count(replacements.get(i)
+                        .toUpperCase(), replacementCharCounts);
+            }
+        }
+
+        val table = new char[maxTableLength];
+        val ruleCorrections = new int[maxTableLength];
+
+        Arrays.fill(ruleCorrections, -1);
+
+        int tableLength = 0;
+
+        seenExpressions.clear();
+
+        for (int i = 0; i < expressions.size(); i++) {
+            val expression = expressions.get(i);
+            val replacement = replacements.get(i);
+
+            if (!seenExpressions.add(expression) ||
+                    !isTranslatable(expression, replacement,
+                            conditions.get(i), caseInsensitivity.get(i))) {
+                continue;
+            }
+
+            char c = expression.charAt(0);
+            char translation = replacement.charAt(0);
+
+            boolean isIndependent = getCount(expressionCharCounts, c) == 1 &&
+                    getCount(replacementCharCounts, c) ==
+                            (c == translation ? 1 : 0) &&
+                    (c == translation ||
+                            getCount(expressionCharCounts, translation) == 0) &&
+                    getCount(foldedExpressionCharCounts,
+                            CaseFolding.fold(c)) == 0 &&
+                    getCount(foldedExpressionCharCounts,
+                            CaseFolding.fold(translation)) == 0;
+
+            if (isIndependent) {
+                table[c] = translation;
+                ruleCorrections[c] = corrections.get(i);
+
+                tableLength = Math.max(tableLength, c + 1);
+            }
+        }
+
+        if (tableLength == 0) {
+            return null;
+        }
+
+        for (int i = expressions.size() - 1; i >= 0; i--) {
+            val expression = expressions.get(i);
+
+            if (expression.length() == 1 &&
+                    expression.charAt(0) < maxTableLength &&
+                    ruleCorrections[expression.charAt(0)] != -1) {
+                expressions.remove(i);
+                replacements.remove(i);
+                conditions.remove(i);
+                caseInsensitivity.remove(i);
+                corrections.remove(i);
+            }
+        }
+
+        return new CharTranslationPass(Arrays.copyOf(table, tableLength),
+                Arrays.copyOf(ruleCorrections, tableLength));
+    }
+
+    /**
+     * Reads the pass written by {@link #writeTo(ByteBuffer)} from the
+     * current position of a buffer, and moves the position to the end of
+     * the pass.
+     *
+     * @param buffer           the buffer to read the pass from.
+     * @param correctionsCount the number of the
+     *                         {@link com.artyommameev.faststudynotes.domain.Correction}s
+     *                         the rules of the pass can refer to.
+     * @return the read pass.
+     * @throws IllegalArgumentException if the data of the buffer is not a
+     *                                  valid pass.
+     */
+    static CharTranslationPass readFrom(ByteBuffer buffer,
+                                        int correctionsCount) {
+        int tableLength = CompiledData.getCount(buffer);
+
+        val table = CompiledData.getChars(buffer, tableLength);
+        val corrections = CompiledData.getInts(buffer, tableLength);
+
+        for (val correction : corrections) {
+            if (correction < -1 || correction >= correctionsCount) {
+                throw CompiledData.createMalformedDataException("a " +
+                        "translated char has an unknown correction");
+            }
+        }
+
+        return new CharTranslationPass(table, corrections);
+    }
+
+    /**
+     * Returns the number of bytes that the pass takes when it is written by
+     * {@link #writeTo(ByteBuffer)}.
+     *
+     * @return the size of the written pass in bytes.
+     */
+    long getSerializedSize() {
+        return Integer.BYTES + (long) table.length *
+                (Character.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Writes the table of the pass to a buffer, starting at its current
+     * position, and moves the position to the end of the pass.
+     *
+     * @param buffer the buffer to write the pass to, which has at least
+     *               {@link #getSerializedSize()} bytes remaining.
+     */
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(table.length);
+
+        CompiledData.putChars(buffer, table);
+        CompiledData.putInts(buffer, corrections);
+    }
+
+    /**
+     * Replaces all the translated chars of a text, recording the hits of the
+     * applied rules.
+     *
+     * @param text       the text to correct.
+     * @param statistics the statistics to record, or null if the statistics
+     *                   should not be recorded.
+     * @return the corrected text, or the same string if nothing matches.
+     * @throws NullPointerException if the text is null.
+     */
+    @Override
+    public String apply(@NonNull String text,
+                        CorrectionStatistics statistics) {
+        char[] chars = null;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            if (c >= table.length || corrections[c] == -1) {
+                continue;
+            }
+
+            if (chars == null) {
+                chars = text.toCharArray();
+            }
+
+            chars[i] = table[c];
+
+            if (statistics != null) {
+                statistics.recordHit(corrections[c]);
+            }
+        }
+
+        return chars == null ? text : new String(chars);
+    }
+
+    /**
+     * Replaces the translated chars of a part of a text.
+     * <p>
+     * Since each rule matches a single char, the whole part is always
+     * corrected.
+     *
+     * @param text       the text that contains the part to correct.
+     * @param from       the start index of the part, inclusive.
+     * @param to         the end index of the part, exclusive.
+     * @param endOfInput whether the part is the end of the text.
+     * @param output     the buffer to write the corrected text to.
+     * @param statistics the statistics to record, or null if the statistics
+     *                   should not be recorded.
+     * @return the end index of the part.
+     */
+    @Override
+    public int apply(CharSequence text, int from, int to, boolean endOfInput,
+                     StringBuilder output, CorrectionStatistics statistics) {
+        output.ensureCapacity(output.length() + to - from);
+
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+
+            if (c >= table.length || corrections[c] == -1) {
+                output.append(c);
+
+                continue;
+            }
+
+            output.append(table[c]);
+
+            if (statistics != null) {
+                statistics.recordHit(corrections[c]);
+            }
+        }
+
+        return to;
+    }
+
+    /**
+     * Checks if a char is translated by the pass.
+     *
+     * @param c the char to check.
+     * @return true if the char is replaced by the pass, otherwise false.
+     */
+    @Override
+    public boolean isExpressionChar(char c) {
+        return c < table.length && corrections[c] != -1;
+    }
+
+    /**
+     * Returns the number of the chars of the context the pass needs.
+     *
+     * @return always 0, since the chars are translated regardless of the
+     * chars around them.
+     */
+    @Override
+    public int getContextLength() {
+        return 0;
+    }
+
+    private static boolean isTranslatable(String expression,
+                                          String replacement,
+                                          Correction.CONDITION condition,
+                                          boolean isCaseInsensitive) {
+        return expression.length() == 1 && replacement.length() == 1 &&
+                condition == Correction.CONDITION.NONE && !isCaseInsensitive;
+    }
+
+    /*the counts grow with the largest counted char, so the few rules of the
+    usual corrections do not need a count for each possible char*/
+    private static int[] count(String string, int[] charCounts) {
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+
+            if (c >= charCounts.length) {
+                charCounts = Arrays.copyOf(charCounts, Math.max(c + 1,
+                        Math.min(charCounts.length * 2,
+                                Character.MAX_VALUE + 1)));
+            }
+
+            charCounts[c]++;
+        }
+
+        return charCounts;
+    }
+
+    private static int getCount(int[] charCounts, char c) {
+        return c < charCounts.length ? charCounts[c] : 0;
+    }
+}
@@ -0,0 +1,567 @@
+package com.artyommameev.faststudynotes.correct;
+
+import lombok.NonNull;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single-pass rebuilder of the indentation of bad OCRed code, which
+ * usually loses or garbles the leading whitespaces of the lines.
+ * <p>
+ * The indenter reads the code line by line and replaces the leading
+ * whitespaces of each line with four spaces for each level of the line,
+ * without parsing the code into a syntax tree:
+ * <p>
+ * 1. Each bracket '{', '(' or '[' that is not closed yet adds a level, and a
+ * line that starts with closing brackets is at the level of the line that
+ * opened them;<br>
+ * 2. A line that ends with ':' (e.g. "if x:" or "case 1:") opens a block
+ * of one more level, which is closed by the end of the enclosing brackets,
+ * by a line that is less indented than the first line of the block, or, if
+ * the original indentation of the block is lost, by the next "case",
+ * "default", "elif", "else", "except" or "finally" label;<br>
+ * 3. The single statement after an "if", "for", "while", "else" or "do"
+ * header without a brace is indented by one more level.
+ * <p>
+ * The brackets and the colons in string literals and in comments are
+ * ignored. The lines of a multi-line string literal ("""...""" or
+ * '''...''') are kept as they are, and the lines of a block comment that
+ * start with '*' are aligned by one more space. The whitespaces at the end
+ * of the lines are removed, and the empty lines stay empty.
+ * <p>
+ * The indenter only keeps the current line and a few counters, so the code
+ * is processed in linear time. It can also receive the code in several
+ * parts, which allows to indent a stream of code chunk by chunk.
+ *
+ * @author Artyom Mameev
+ */
+final class CodeIndenter {
+
+    private static final int INDENT_WIDTH = 4;
+    private static final int TAB_WIDTH = 4;
+
+    private static final int UNKNOWN_INDENT = -1;
+    private static final int NO_CHAR = -1;
+
+    private StringBuilder output;
+    private final StringBuilder line = new StringBuilder();
+
+    private boolean isAfterCarriageReturn;
+
+    // the state at the end of the previous line
+    private int depth;
+    private int parenthesesDepth;
+    private boolean isInBlockComment;
+    // the quote char of a multi-line string literal, or 0
+    private char multiLineQuote;
+    private final List<Block> blocks = new ArrayList<>();
+    private int pendingStatements;
+
+    /**
+     * Instantiates a new Code Indenter.
+     *
+     * @param output the buffer to write the indented code to.
+     * @throws NullPointerException if the buffer is null.
+     */
+    CodeIndenter(@NonNull StringBuilder output) {
+        this.output = output;
+    }
+
+    /**
+     * Indents a code.
+     *
+     * @param code the code to indent.
+     * @return the indented code.
+     * @throws NullPointerException if the code is null.
+     */
+    static String indent(@NonNull String code) {
+        val output = new StringBuilder(code.length() + code.length() / 4);
+
+        val indenter = new CodeIndenter(output);
+
+        indenter.append(code, 0, code.length());
+        indenter.finish();
+
+        return output.toString();
+    }
+
+    /**
+     * Indents a whole code, writing it to a buffer that replaces the buffer
+     * of the indenter, so one indenter can be reused for many codes.
+     *
+     * @param code   the code to indent.
+     * @param output the buffer to write the indented code to.
+     * @throws NullPointerException if any parameter is null.
+     */
+    void indent(@NonNull CharSequence code, @NonNull StringBuilder output) {
+        this.output = output;
+
+        append(code, 0, code.length());
+        finish();
+    }
+
+    /**
+     * Indents a part of a code.
+     * <p>
+     * The last line of the part is kept by the indenter until it receives
+     * its end with the next part of the code or until it is finished.
+     *
+     * @param code the code that contains the part to indent.
+     * @param from the start index of the part, inclusive.
+     * @param to   the end index of the part, exclusive.
+     */
+    void append(CharSequence code, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = code.charAt(i);
+
+            if (c == '\n' && isAfterCarriageReturn) {
+                isAfterCarriageReturn = false;
+
+                output.append(c);
+
+                continue;
+            }
+
+            isAfterCarriageReturn = c == '\r';
+
+            if (c == '\r' || c == '\n') {
+                indentLine();
+
+                output.append(c);
+            } else {
+                line.append(c);
+            }
+        }
+    }
+
+    /**
+     * Writes the last line that is kept by the indenter and resets the
+     * indenter, since no more code will be received.
+     */
+    void finish() {
+        indentLine();
+
+        isAfterCarriageReturn = false;
+        depth = 0;
+        parenthesesDepth = 0;
+        isInBlockComment = false;
+        multiLineQuote = 0;
+        blocks.clear();
+        pendingStatements = 0;
+    }
+
+    private void indentLine() {
+        if (multiLineQuote != 0) {
+            // the content of a string literal cannot be changed
+            output.append(line);
+
+            scan(0, line.length());
+
+            line.setLength(0);
+
+            return;
+        }
+
+        int start = 0;
+        int rawIndent = 0;
+
+        while (start < line.length() &&
+                CharClasses.isWhitespace(line.charAt(start))) {
+            rawIndent += line.charAt(start) == '\t' ?
+                    TAB_WIDTH - rawIndent % TAB_WIDTH : 1;
+            start++;
+        }
+
+        int end = line.length();
+
+        while (end > start && CharClasses.isWhitespace(line.charAt(end - 1))) {
+            end--;
+        }
+
+        if (start == end) {
+            line.setLength(0);
+
+            return;
+        }
+
+        if (isInBlockComment) {
+            writeIndent(blocks.size() + depth);
+
+            if (line.charAt(start) == '*') {
+                output.append(' ');
+            }
+
+            output.append(line, start, end);
+
+            scan(start, end);
+
+            line.setLength(0);
+
+            return;
+        }
+
+        int closers = 0;
+
+        while (start + closers < end && isClosingBracket(
+                line.charAt(start + closers))) {
+            closers++;
+        }
+
+        int lineDepth = Math.max(depth - closers, 0);
+
+        int wordStart = start + closers;
+
+        while (wordStart < end && CharClasses.isWhitespace(
+                line.charAt(wordStart))) {
+            wordStart++;
+        }
+
+        int wordEnd = wordStart;
+
+        while (wordEnd < end && Character.isJavaIdentifierPart(
+                line.charAt(wordEnd))) {
+            wordEnd++;
+        }
+
+        val word = line.substring(wordStart, wordEnd);
+
+        int depthBefore = depth;
+        int lastCodeIndex = scan(start, end);
+        int lastCodeChar = lastCodeIndex < 0 ? NO_CHAR :
+                line.charAt(lastCodeIndex);
+
+        // a comment does not open nor close the blocks
+        if (lastCodeIndex < 0) {
+            writeIndent(blocks.size() + depthBefore + pendingStatements);
+
+            output.append(line, start, end);
+
+            line.setLength(0);
+
+            return;
+        }
+
+        closeBlocks(lineDepth, rawIndent, word, lastCodeChar == ':');
+
+        // a brace on its own line belongs to the header
+        boolean isOpeningBrace = closers == 0 && line.charAt(start) == '{';
+
+        writeIndent(blocks.size() + lineDepth +
+                (isOpeningBrace ? 0 : pendingStatements));
+
+        output.append(line, start, end);
+
+        if (isHeaderWithoutBrace(word, wordEnd, lineDepth, lastCodeIndex)) {
+            pendingStatements++;
+        } else if (parenthesesDepth == 0) {
+            pendingStatements = 0;
+        }
+
+        if (lastCodeChar == ':' && parenthesesDepth == 0 &&
+                (lastCodeIndex == 0 ||
+                        line.charAt(lastCodeIndex - 1) != ':')) {
+            blocks.add(new Block(depth, rawIndent, isCaseLabel(word)));
+        }
+
+        line.setLength(0);
+    }
+
+    private void closeBlocks(int lineDepth, int rawIndent, String word,
+                             boolean isEndedWithColon) {
+        // the blocks inside the closed brackets are closed too
+        while (!blocks.isEmpty() && getLastBlock().depth > lineDepth) {
+            removeLastBlock();
+        }
+
+        if (blocks.isEmpty() || getLastBlock().depth != lineDepth) {
+            return;
+        }
+
+        // the next label of a switch, even after an empty one
+        if (isCaseLabel(word) && getLastBlock().isCase &&
+                getLastBlock().bodyIndent == UNKNOWN_INDENT) {
+            removeLastBlock();
+
+            return;
+        }
+
+        if (getLastBlock().bodyIndent == UNKNOWN_INDENT) {
+            // the first line of the block
+            getLastBlock().bodyIndent = rawIndent;
+
+            return;
+        }
+
+        while (!blocks.isEmpty() && getLastBlock().depth == lineDepth &&
+                getLastBlock().isIndentationKept() &&
+                rawIndent < getLastBlock().bodyIndent) {
+            removeLastBlock();
+        }
+
+        if (blocks.isEmpty() || getLastBlock().depth != lineDepth) {
+            return;
+        }
+
+        val lastBlock = getLastBlock();
+
+        if (isCaseLabel(word) && lastBlock.isCase) {
+            removeLastBlock();
+        } else if (isEndedWithColon && isContinuationLabel(word) &&
+                !lastBlock.isCase && !lastBlock.isIndentationKept()) {
+            removeLastBlock();
+        }
+    }
+
+    /*scans the code of a part of the line, updating the brackets and the
+    state of the comments and the string literals; returns the index of the
+    last char of the code that is not a whitespace, or -1 if there is no
+    code*/
+    private int scan(int from, int to) {
+        int lastCodeIndex = -1;
+
+        int i = from;
+
+        while (i < to) {
+            char c = line.charAt(i);
+
+            if (isInBlockComment) {
+                if (c == '*' && isCharAt(i + 1, to, '/')) {
+                    isInBlockComment = false;
+
+                    i += 2;
+                } else {
+                    i++;
+                }
+
+                continue;
+            }
+
+            if (multiLineQuote != 0) {
+                if (c == '\\') {
+                    i += 2;
+                } else if (isTripleQuoteAt(i, to, multiLineQuote)) {
+                    multiLineQuote = 0;
+
+                    i += 3;
+
+                    lastCodeIndex = i - 1;
+                } else {
+                    i++;
+                }
+
+                continue;
+            }
+
+            if (c == '/' && isCharAt(i + 1, to, '/')) {
+                break;
+            }
+
+            if (c == '/' && isCharAt(i + 1, to, '*')) {
+                isInBlockComment = true;
+
+                i += 2;
+
+                continue;
+            }
+
+            if (c == '#' && isLineCommentStart(i, from, to)) {
+                break;
+            }
+
+            if (c == '"' || c == '\'') {
+                if (isTripleQuoteAt(i, to, c)) {
+                    multiLineQuote = c;
+
+                    i += 3;
+
+                    lastCodeIndex = i - 1;
+
+                    continue;
+                }
+
+                int closingQuote = findClosingQuote(i, to, c);
+
+                // an unclosed quote is not a string literal, e.g. "don't"
+                if (closingQuote >= 0) {
+                    i = closingQuote + 1;
+
+                    lastCodeIndex = closingQuote;
+
+                    continue;
+                }
+            }
+
+            if (c == '{' || c == '(' || c == '[') {
+                depth++;
+
+                if (c != '{') {
+                    parenthesesDepth++;
+                }
+            } else if (isClosingBracket(c)) {
+                depth = Math.max(depth - 1, 0);
+
+                if (c != '}') {
+                    parenthesesDepth = Math.max(parenthesesDepth - 1, 0);
+                }
+            }
+
+            if (!CharClasses.isWhitespace(c)) {
+                lastCodeIndex = i;
+            }
+
+            i++;
+        }
+
+        return lastCodeIndex;
+    }
+
+    private boolean isHeaderWithoutBrace(String word, int wordEnd,
+                                         int lineDepth, int lastCodeIndex) {
+        if (parenthesesDepth != 0 || depth != lineDepth) {
+            return false;
+        }
+
+        if (word.equals("else") || word.equals("do")) {
+            if (lastCodeIndex == wordEnd - 1) {
+                return true;
+            }
+
+            if (word.equals("do")) {
+                return false;
+            }
+
+            // "else if (...)"
+            int nextWordStart = skipWhitespaces(wordEnd, lastCodeIndex);
+
+            if (nextWordStart + 2 > lastCodeIndex ||
+                    line.charAt(nextWordStart) != 'i' ||
+                    line.charAt(nextWordStart + 1) != 'f' ||
+                    Character.isJavaIdentifierPart(line.charAt(
+                            nextWordStart + 2))) {
+                return false;
+            }
+
+            wordEnd = nextWordStart + 2;
+        } else if (!word.equals("if") && !word.equals("for") &&
+                !word.equals("while")) {
+            return false;
+        }
+
+        int condition = skipWhitespaces(wordEnd, lastCodeIndex);
+
+        // "if (x) foo()" is not a header, unlike "if (x)"
+        return line.charAt(condition) == '(' &&
+                findClosingParenthesis(condition, lastCodeIndex) ==
+                        lastCodeIndex;
+    }
+
+    private int skipWhitespaces(int from, int to) {
+        int i = from;
+
+        while (i < to && CharClasses.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+
+        return i;
+    }
+
+    // the strings and the comments of the condition are not skipped
+    private int findClosingParenthesis(int openingParenthesis,
+                                       int lastIndex) {
+        int parentheses = 0;
+
+        for (int i = openingParenthesis; i <= lastIndex; i++) {
+            if (line.charAt(i) == '(') {
+                parentheses++;
+            } else if (line.charAt(i) == ')' && --parentheses == 0) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private boolean isLineCommentStart(int index, int from, int to) {
+        // "#include" and "#define" are code, "# comment" is not
+        boolean isAfterWhitespace = index == from ||
+                CharClasses.isWhitespace(line.charAt(index - 1));
+        boolean isBeforeCommentText = index + 1 == to ||
+                CharClasses.isWhitespace(line.charAt(index + 1)) ||
+                line.charAt(index + 1) == '#' ||
+                line.charAt(index + 1) == '!';
+
+        return isAfterWhitespace && isBeforeCommentText;
+    }
+
+    private int findClosingQuote(int openingQuote, int to, char quote) {
+        for (int i = openingQuote + 1; i < to; i++) {
+            char c = line.charAt(i);
+
+            if (c == '\\') {
+                i++;
+            } else if (c == quote) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private boolean isTripleQuoteAt(int index, int to, char quote) {
+        return isCharAt(index, to, quote) && isCharAt(index + 1, to, quote) &&
+                isCharAt(index + 2, to, quote);
+    }
+
+    private boolean isCharAt(int index, int to, char c) {
+        return index < to && line.charAt(index) == c;
+    }
+
+    private void writeIndent(int level) {
+        for (int i = level * INDENT_WIDTH; i > 0; i--) {
+            output.append(' ');
+        }
+    }
+
+    private Block getLastBlock() {
+        return blocks.get(blocks.size() - 1);
+    }
+
+    private void removeLastBlock() {
+        blocks.remove(blocks.size() - 1);
+    }
+
+    private static boolean isClosingBracket(char c) {
+        return c == '}' || c == ')' || c == ']';
+    }
+
+    private static boolean isCaseLabel(String word) {
+        return word.equals("case") || word.equals("default");
+    }
+
+    private static boolean isContinuationLabel(String word) {
+        return word.equals("elif") || word.equals("else") ||
+                word.equals("except") || word.equals("finally");
+    }
+
+    // a block that is opened by a line that ends with ':'
+    private static class Block {
+
+        private final int depth;
+        private final int headerIndent;
+        private final boolean isCase;
+        private int bodyIndent = UNKNOWN_INDENT;
+
+        private Block(int depth, int headerIndent, boolean isCase) {
+            this.depth = depth;
+            this.headerIndent = headerIndent;
+            this.isCase = isCase;
+        }
+
+        // whether the body was indented deeper than the header
+        private boolean isIndentationKept() {
+            return bodyIndent > headerIndent;
+        }
+    }
+}
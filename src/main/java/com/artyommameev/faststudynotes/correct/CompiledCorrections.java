@@ -0,0 +1,463 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.CompactCorrections;
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A list of {@link Correction}s compiled into a form that is ready to be
+ * applied to a text by {@link BadOcrCorrector}.
+ * <p>
+ * The {@link Correction}s are split by their {@link Correction.TYPE}s, and
+ * the matchers of the expressions and the replacement strings of each type
+ * are built once, so the compiled corrections can be reused for any number of
+ * texts. The compiled corrections are immutable and carry the version of the
+ * dictionary they were built from, so they should be rebuilt only if the
+ * version of the dictionary changes. Since they are reused, the matchers of
+ * their literal expressions are generated at runtime where possible (see
+ * {@link GeneratedMatcher}), so they are specialized for the dictionary.
+ * <p>
+ * The compiled corrections can be written to a buffer together with their
+ * {@link Correction}s and read back (see {@link #writeTo(ByteBuffer)}), so a
+ * large dictionary is not compiled again at each start: the automata and the
+ * tables of the passes are read as they are, and only the regular
+ * expressions are compiled again.
+ *
+ * @author Artyom Mameev
+ */
+public class CompiledCorrections {
+
+    // the tags of the written passes
+    private static final byte CHAR_TRANSLATION_PASS = 0;
+    private static final byte REPLACEMENT_PASS = 1;
+    private static final byte REGEX_PASS = 2;
+
+    @Getter
+    private final long version;
+
+    private final Map<Correction.TYPE, List<CorrectionPass>> passes =
+            new EnumMap<>(Correction.TYPE.class);
+
+    private final List<Correction> corrections;
+    /*the Corrections that are not compact, packed when they are first
+    written or compared*/
+    private volatile CompactCorrections packedCorrections;
+    // the only passes that can disable their Corrections
+    private final List<RegexPass> regexPasses = new ArrayList<>();
+
+    @Getter
+    private final int size;
+
+    /**
+     * Instantiates new Compiled Corrections.
+     *
+     * @param corrections the list of the {@link Correction}s to compile.
+     * @param version     the version of the dictionary the {@link Correction}s
+     *                    are taken from.
+     * @throws NullPointerException if the list or any {@link Correction} is
+     *                              null.
+     */
+    public CompiledCorrections(@NonNull List<Correction> corrections,
+                               long version) {
+        this.version = version;
+        this.size = corrections.size();
+        // compact corrections are immutable and much smaller than a copy
+        this.corrections = corrections instanceof CompactCorrections ?
+                corrections : new ArrayList<>(corrections);
+
+        for (val type : Correction.TYPE.values()) {
+            addPasses(type, compile(corrections, type, true));
+        }
+    }
+
+    private CompiledCorrections(CompactCorrections corrections,
+                                long version) {
+        this.version = version;
+        this.size = corrections.size();
+        this.corrections = corrections;
+    }
+
+    /**
+     * Reads the compiled corrections written by {@link #writeTo(ByteBuffer)}
+     * from the current position of a buffer, and moves the position to the
+     * end of the compiled corrections.
+     * <p>
+     * The {@link Correction}s are read as {@link CompactCorrections}, which
+     * keep a view of the buffer as their arena, so the content of the buffer
+     * must not be changed while the compiled corrections are used. The
+     * automata of the passes are read as they are, so they always find the
+     * matches themselves, even if the matchers of the written passes were
+     * generated.
+     *
+     * @param buffer  the buffer to read the compiled corrections from.
+     * @param version the version of the dictionary the {@link Correction}s
+     *                are taken from.
+     * @return the read compiled corrections.
+     * @throws NullPointerException     if the buffer is null.
+     * @throws IllegalArgumentException if the data of the buffer is not
+     *                                  valid compiled corrections.
+     */
+    public static CompiledCorrections readFrom(@NonNull ByteBuffer buffer,
+                                               long version) {
+        val corrections = CompactCorrections.readFrom(buffer);
+        val compiledCorrections = new CompiledCorrections(corrections,
+                version);
+
+        for (val type : Correction.TYPE.values()) {
+            int passesCount = CompiledData.getCount(buffer);
+
+            List<CorrectionPass> passes = new ArrayList<>();
+
+            for (int i = 0; i < passesCount; i++) {
+                passes.add(readPass(buffer, corrections));
+            }
+
+            compiledCorrections.addPasses(type, passes);
+        }
+
+        return compiledCorrections;
+    }
+
+    /**
+     * Compiles the {@link Correction}s of a certain type into a sequence of
+     * passes.
+     * <p>
+     * The {@link Correction}s of the {@link Correction.KIND#LITERAL} kind
+     * are compiled into replacement passes, the independent single-char
+     * {@link Correction}s among them are compiled into a char translation
+     * pass that is applied first, and the {@link Correction}s of
+     * the {@link Correction.KIND#REGEX} kind are compiled into one regular
+     * expression pass that is applied after them. The conditions of the
+     * {@link Correction}s are checked by the passes while they match the
+     * expressions, and the case-insensitive {@link Correction}s are matched
+     * in any case and get the case of their matches.
+     *
+     * @param corrections the list of the {@link Correction}s.
+     * @param type        the type of the {@link Correction}s to compile.
+     * @return the passes that apply the {@link Correction}s of the given type.
+     */
+    static List<CorrectionPass> compile(List<Correction> corrections,
+                                        Correction.TYPE type) {
+        return compile(corrections, type, false);
+    }
+
+    /**
+     * Works the same as {@link #compile(List, Correction.TYPE)}, but can
+     * generate the matchers of the replacement passes at runtime, which is
+     * slower, but pays off for the {@link Correction}s that are applied to
+     * many texts (see {@link GeneratedMatcher}). The matches of the passes
+     * are the same.
+     *
+     * @param corrections        the list of the {@link Correction}s.
+     * @param type               the type of the {@link Correction}s to
+     *                           compile.
+     * @param isMatcherGenerated whether the matchers of the replacement passes
+     *                           should be generated where possible.
+     * @return the passes that apply the {@link Correction}s of the given type.
+     */
+    static List<CorrectionPass> compile(List<Correction> corrections,
+                                        Correction.TYPE type,
+                                        boolean isMatcherGenerated) {
+        List<String> expressions = new ArrayList<>();
+        List<String> replacements = new ArrayList<>();
+        List<Correction.CONDITION> conditions = new ArrayList<>();
+        List<Boolean> caseInsensitivity = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+
+        List<String> regexExpressions = new ArrayList<>();
+        List<String> regexReplacements = new ArrayList<>();
+        List<Boolean> regexCaseInsensitivity = new ArrayList<>();
+        List<Integer> regexIndexes = new ArrayList<>();
+
+        for (int i = 0; i < corrections.size(); i++) {
+            val correction = corrections.get(i);
+
+            if (!correction.getType().equals(type)) {
+                continue;
+            }
+
+            if (correction.getKind().equals(Correction.KIND.REGEX)) {
+                regexExpressions.add(toRegex(correction));
+                regexReplacements.add(correction.getCorrection());
+                regexCaseInsensitivity.add(correction.isCaseInsensitive());
+                regexIndexes.add(i);
+            } else {
+                expressions.add(correction.getExpression());
+                replacements.add(correction.getCorrection());
+                conditions.add(correction.getCondition());
+                caseInsensitivity.add(correction.isCaseInsensitive());
+                indexes.add(i);
+            }
+        }
+
+        List<CorrectionPass> passes = new ArrayList<>();
+
+        val translationPass = CharTranslationPass.extract(expressions,
+                replacements, conditions, caseInsensitivity, indexes);
+
+        if (translationPass != null) {
+            passes.add(translationPass);
+        }
+
+        passes.addAll(ReplacementPass.compile(expressions, replacements,
+                conditions, caseInsensitivity, indexes, isMatcherGenerated));
+
+        if (!regexExpressions.isEmpty()) {
+            passes.add(new RegexPass(regexExpressions, regexReplacements,
+                    regexCaseInsensitivity, regexIndexes));
+        }
+
+        return passes;
+    }
+
+    /**
+     * Returns the number of bytes that the compiled corrections take when
+     * they are written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @return the size of the written compiled corrections in bytes.
+     */
+    public long getSerializedSize() {
+        long size = toCompactCorrections().getSerializedSize();
+
+        for (val typePasses : passes.values()) {
+            size += Integer.BYTES;
+
+            for (val pass : typePasses) {
+                size += 1;
+
+                if (pass instanceof CharTranslationPass) {
+                    size += ((CharTranslationPass) pass).getSerializedSize();
+                } else if (pass instanceof ReplacementPass) {
+                    size += ((ReplacementPass) pass).getSerializedSize();
+                } else {
+                    size += Integer.BYTES + (long) Integer.BYTES *
+                            ((RegexPass) pass).getCorrections().length;
+                }
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Writes the {@link Correction}s and the passes of the compiled
+     * corrections to a buffer, starting at its current position, and moves
+     * the position to the end of the compiled corrections.
+     * <p>
+     * The {@link Correction}s are written as {@link CompactCorrections} (see
+     * {@link CompactCorrections#writeTo(ByteBuffer)}), and are packed once
+     * if they were not passed to the constructor in this form, so
+     * {@link #getSerializedSize()} and the later writes reuse the packed
+     * {@link Correction}s. The passes
+     * refer to the {@link Correction}s by their indexes, and the regular
+     * expression passes are written as these indexes only. The data is
+     * written in the byte order of the buffer, and can be read back by
+     * {@link #readFrom(ByteBuffer, long)} from a buffer of the same order.
+     *
+     * @param buffer the buffer to write the compiled corrections to.
+     * @throws NullPointerException    if the buffer is null.
+     * @throws BufferOverflowException if the buffer has less space remaining
+     *                                 than {@link #getSerializedSize()}.
+     */
+    public void writeTo(@NonNull ByteBuffer buffer) {
+        if (buffer.remaining() < getSerializedSize()) {
+            throw new BufferOverflowException();
+        }
+
+        toCompactCorrections().writeTo(buffer);
+
+        for (val type : Correction.TYPE.values()) {
+            buffer.putInt(passes.get(type).size());
+
+            for (val pass : passes.get(type)) {
+                if (pass instanceof CharTranslationPass) {
+                    buffer.put(CHAR_TRANSLATION_PASS);
+
+                    ((CharTranslationPass) pass).writeTo(buffer);
+                } else if (pass instanceof ReplacementPass) {
+                    buffer.put(REPLACEMENT_PASS);
+
+                    ((ReplacementPass) pass).writeTo(buffer);
+                } else {
+                    val regexCorrections = ((RegexPass) pass)
+                            .getCorrections();
+
+                    buffer.put(REGEX_PASS);
+                    buffer.putInt(regexCorrections.length);
+
+                    CompiledData.putInts(buffer, regexCorrections);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the compiled corrections were compiled from the same
+     * {@link Correction}s as a list of {@link CompactCorrections}, with the
+     * same fields and in the same order.
+     *
+     * @param corrections the list to compare with.
+     * @return true if the compiled {@link Correction}s are the same,
+     * otherwise false.
+     * @throws NullPointerException if the list is null.
+     * @see CompactCorrections#hasSameContents(CompactCorrections)
+     */
+    public boolean hasSameCorrections(@NonNull CompactCorrections corrections) {
+        return toCompactCorrections().hasSameContents(corrections);
+    }
+
+    /**
+     * Checks if the {@link Correction}s are kept off-heap, e.g. in a buffer
+     * mapped from a file they were read from.
+     *
+     * @return true if the {@link Correction}s are {@link CompactCorrections}
+     * that keep their arena off-heap, otherwise false.
+     */
+    public boolean isOffHeap() {
+        return corrections instanceof CompactCorrections &&
+                ((CompactCorrections) corrections).isOffHeap();
+    }
+
+    /**
+     * Returns the {@link Correction}s of the {@link Correction.KIND#REGEX}
+     * kind that were disabled because their expressions took too long to
+     * match (e.g. because of catastrophic backtracking).
+     * <p>
+     * The {@link Correction}s are disabled while the texts are corrected, so
+     * the result may grow after each correction. The passes know the
+     * indexes of their {@link Correction}s, so the call takes only the time
+     * of the disabled {@link Correction}s, and can be made after each
+     * correction.
+     *
+     * @return the list of the disabled {@link Correction}s.
+     */
+    public List<Correction> getDisabledCorrections() {
+        List<Correction> disabledCorrections = new ArrayList<>();
+
+        for (val pass : regexPasses) {
+            for (val index : pass.getDisabledCorrections()) {
+                disabledCorrections.add(corrections.get(index));
+            }
+        }
+
+        return disabledCorrections;
+    }
+
+    /**
+     * Returns the compiled {@link Correction}s in the order they were passed
+     * to the constructor. The index of a {@link Correction} in the list
+     * identifies it in the {@link CorrectionStatistics}.
+     *
+     * @return the unmodifiable list of the compiled {@link Correction}s.
+     */
+    public List<Correction> getCorrections() {
+        return Collections.unmodifiableList(corrections);
+    }
+
+    /**
+     * Returns the passes of a certain type.
+     *
+     * @param type the type of the {@link Correction}s.
+     * @return the passes that apply the {@link Correction}s of the given type.
+     */
+    List<CorrectionPass> getPasses(Correction.TYPE type) {
+        return passes.get(type);
+    }
+
+    private void addPasses(Correction.TYPE type,
+                           List<CorrectionPass> typePasses) {
+        passes.put(type, typePasses);
+
+        for (val pass : typePasses) {
+            if (pass instanceof RegexPass) {
+                regexPasses.add((RegexPass) pass);
+            }
+        }
+    }
+
+    private static CorrectionPass readPass(ByteBuffer buffer,
+                                           CompactCorrections corrections) {
+        switch (CompiledData.getByte(buffer)) {
+            case CHAR_TRANSLATION_PASS:
+                return CharTranslationPass.readFrom(buffer,
+                        corrections.size());
+            case REPLACEMENT_PASS:
+                return ReplacementPass.readFrom(buffer, corrections);
+            case REGEX_PASS:
+                return readRegexPass(buffer, corrections);
+            default:
+                throw CompiledData.createMalformedDataException("an " +
+                        "unknown pass");
+        }
+    }
+
+    // the patterns of the regular expressions cannot be stored
+    private static RegexPass readRegexPass(ByteBuffer buffer,
+                                           CompactCorrections corrections) {
+        int rulesCount = CompiledData.getCount(buffer);
+
+        List<String> expressions = new ArrayList<>();
+        List<String> replacements = new ArrayList<>();
+        List<Boolean> caseInsensitivity = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+
+        for (val index : CompiledData.getInts(buffer, rulesCount)) {
+            if (index < 0 || index >= corrections.size()) {
+                throw CompiledData.createMalformedDataException("a rule " +
+                        "has an unknown correction");
+            }
+
+            val correction = corrections.get(index);
+
+            expressions.add(toRegex(correction));
+            replacements.add(correction.getCorrection());
+            caseInsensitivity.add(correction.isCaseInsensitive());
+            indexes.add(index);
+        }
+
+        return new RegexPass(expressions, replacements, caseInsensitivity,
+                indexes);
+    }
+
+    /*the Corrections that are not compact are packed only once, and two
+    threads that pack them at the same time get equal lists*/
+    private CompactCorrections toCompactCorrections() {
+        if (corrections instanceof CompactCorrections) {
+            return (CompactCorrections) corrections;
+        }
+
+        CompactCorrections packed = packedCorrections;
+
+        if (packed == null) {
+            val builder = new CompactCorrections.Builder();
+
+            for (val correction : corrections) {
+                builder.add(correction);
+            }
+
+            packed = builder.build();
+
+            packedCorrections = packed;
+        }
+
+        return packed;
+    }
+
+    private static String toRegex(Correction correction) {
+        val expression = correction.isCaseInsensitive() ?
+                RegexPass.ignoreCase(correction.getExpression()) :
+                correction.getExpression();
+
+        return RegexPass.addCondition(expression, correction.getCondition());
+    }
+}
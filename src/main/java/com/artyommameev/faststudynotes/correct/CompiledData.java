@@ -0,0 +1,135 @@
+package com.artyommameev.faststudynotes.correct;
+
+import lombok.val;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The reading and the writing of the arrays of the compiled corrections,
+ * which let the automata and the tables of the passes be stored in a buffer
+ * (see {@link CompiledCorrections#writeTo(ByteBuffer)}) instead of being
+ * built again.
+ * <p>
+ * The arrays are written without padding in the byte order of the buffer,
+ * and each read checks that the buffer has enough data, so a truncated
+ * buffer is reported as malformed data instead of an unchecked buffer
+ * exception.
+ *
+ * @author Artyom Mameev
+ */
+final class CompiledData {
+
+    private CompiledData() {
+    }
+
+    /**
+     * Reads a count of the elements of the compiled data.
+     *
+     * @param buffer the buffer to read from.
+     * @return the count.
+     * @throws IllegalArgumentException if the buffer is truncated or if the
+     *                                  count is negative.
+     */
+    static int getCount(ByteBuffer buffer) {
+        checkRemaining(buffer, Integer.BYTES);
+
+        int count = buffer.getInt();
+
+        if (count < 0) {
+            throw createMalformedDataException("a count is negative");
+        }
+
+        return count;
+    }
+
+    /**
+     * Writes an array of ints.
+     *
+     * @param buffer the buffer to write to.
+     * @param values the values to write.
+     */
+    static void putInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+    }
+
+    /**
+     * Reads an array of ints.
+     *
+     * @param buffer the buffer to read from.
+     * @param length the length of the array.
+     * @return the read array.
+     * @throws IllegalArgumentException if the buffer is truncated.
+     */
+    static int[] getInts(ByteBuffer buffer, int length) {
+        checkRemaining(buffer, (long) length * Integer.BYTES);
+
+        val values = new int[length];
+
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+
+        return values;
+    }
+
+    /**
+     * Writes an array of chars.
+     *
+     * @param buffer the buffer to write to.
+     * @param values the values to write.
+     */
+    static void putChars(ByteBuffer buffer, char[] values) {
+        buffer.asCharBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Character.BYTES);
+    }
+
+    /**
+     * Reads an array of chars.
+     *
+     * @param buffer the buffer to read from.
+     * @param length the length of the array.
+     * @return the read array.
+     * @throws IllegalArgumentException if the buffer is truncated.
+     */
+    static char[] getChars(ByteBuffer buffer, int length) {
+        checkRemaining(buffer, (long) length * Character.BYTES);
+
+        val values = new char[length];
+
+        buffer.asCharBuffer().get(values);
+        buffer.position(buffer.position() + length * Character.BYTES);
+
+        return values;
+    }
+
+    /**
+     * Reads a byte.
+     *
+     * @param buffer the buffer to read from.
+     * @return the read byte.
+     * @throws IllegalArgumentException if the buffer is truncated.
+     */
+    static byte getByte(ByteBuffer buffer) {
+        checkRemaining(buffer, 1);
+
+        return buffer.get();
+    }
+
+    /**
+     * Creates an exception that reports malformed compiled data.
+     *
+     * @param reason the reason why the data is malformed.
+     * @return the exception.
+     */
+    static IllegalArgumentException createMalformedDataException(
+            String reason) {
+        return new IllegalArgumentException("Malformed compiled " +
+                "corrections data: " + reason);
+    }
+
+    private static void checkRemaining(ByteBuffer buffer, long length) {
+        if (buffer.remaining() < length) {
+            throw createMalformedDataException("the data is truncated");
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.NonNull;
+import lombok.val;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A bounded cache of the texts corrected by {@link BadOcrCorrector}.
+ * <p>
+ * The corrected texts are kept by their original texts, the types of the
+ * correction and the versions of the {@link CompiledCorrections}, so a text
+ * that is corrected again with the same dictionary is returned from the cache
+ * without any correction work, and a change of the dictionary never gives an
+ * outdated result.
+ * <p>
+ * The size of the cache is the total number of chars of the original and the
+ * corrected texts it keeps. When the size exceeds the capacity, the least
+ * recently used texts are evicted. The cache is thread-safe, and the texts are
+ * corrected outside of its lock, so a long correction does not block other
+ * threads.
+ *
+ * @author Artyom Mameev
+ */
+public class CorrectionCache {
+
+    /**
+     * The default capacity of the cache, in chars.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    private final long capacity;
+
+    // guarded by this
+    private final Map<Key, String> correctedTexts =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Instantiates a new Correction Cache.
+     *
+     * @param capacity the maximum total number of chars of the original and
+     *                 the corrected texts kept in the cache.
+     * @throws IllegalArgumentException if the capacity is negative.
+     */
+    public CorrectionCache(long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative");
+        }
+
+        this.capacity = capacity;
+    }
+
+    /**
+     * Corrects a text using {@link CompiledCorrections}, returning the
+     * cached result if the same text was already corrected with the same
+     * type and version of the {@link CompiledCorrections}.
+     * <p>
+     * The text is corrected by {@link BadOcrCorrector#correctInParallel(String,
+     * Correction.TYPE, CompiledCorrections)}. A text whose original and
+     * corrected versions are larger than the capacity together is not cached.
+     *
+     * @param text        the text to correct.
+     * @param type        the type of the correction.
+     * @param corrections the {@link CompiledCorrections} to apply.
+     * @return the corrected text.
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the text is empty.
+     */
+    public String correct(@NonNull String text, @NonNull Correction.TYPE type,
+                          @NonNull CompiledCorrections corrections) {
+        return correctWithKnownWords(text, type, corrections, null);
+    }
+
+    /**
+     * Corrects a text the same way as {@link #correct(String,
+     * Correction.TYPE, CompiledCorrections)}, but joins the hyphenated line
+     * breaks of the known words only, as described in
+     * {@link BadOcrCorrector#correctInParallel(String, Correction.TYPE,
+     * CompiledCorrections, WordFingerprints)}. The texts are cached
+     * separately for each {@link WordFingerprints} instance.
+     *
+     * @param text        the text to correct.
+     * @param type        the type of the correction.
+     * @param corrections the {@link CompiledCorrections} to apply.
+     * @param knownWords  the {@link WordFingerprints} of the known words.
+     * @return the corrected text.
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the text is empty.
+     */
+    public String correct(@NonNull String text, @NonNull Correction.TYPE type,
+                          @NonNull CompiledCorrections corrections,
+                          @NonNull WordFingerprints knownWords) {
+        return correctWithKnownWords(text, type, corrections, knownWords);
+    }
+
+    // the known words are null if all the line breaks are joined
+    private String correctWithKnownWords(String text, Correction.TYPE type,
+                                         CompiledCorrections corrections,
+                                         WordFingerprints knownWords) {
+        val key = new Key(text, type, corrections.getVersion(), knownWords);
+
+        synchronized (this) {
+            val correctedText = correctedTexts.get(key);
+
+            if (correctedText != null) {
+                hitCount++;
+
+                return correctedText;
+            }
+
+            missCount++;
+        }
+
+        val correctedText = knownWords == null ?
+                BadOcrCorrector.correctInParallel(text, type, corrections) :
+                BadOcrCorrector.correctInParallel(text, type, corrections,
+                        knownWords);
+
+        put(key, correctedText);
+
+        return correctedText;
+    }
+
+    /**
+     * Removes all the texts from the cache. The statistics of the cache are
+     * kept.
+     */
+    public synchronized void clear() {
+        correctedTexts.clear();
+
+        size = 0;
+    }
+
+    /**
+     * Returns the number of the texts that were returned from the cache.
+     *
+     * @return the number of the cache hits.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of the texts that were not found in the cache and
+     * were corrected.
+     *
+     * @return the number of the cache misses.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of the texts that were evicted from the cache to
+     * keep its size within the capacity.
+     *
+     * @return the number of the evicted texts.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the current size of the cache.
+     *
+     * @return the total number of chars of the original and the corrected
+     * texts kept in the cache.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of the texts kept in the cache.
+     *
+     * @return the number of the cached texts.
+     */
+    public synchronized int getCount() {
+        return correctedTexts.size();
+    }
+
+    private synchronized void put(Key key, String correctedText) {
+        long textSize = (long) key.text.length() + correctedText.length();
+
+        if (textSize > capacity) {
+            return;
+        }
+
+        val replacedText = correctedTexts.put(key, correctedText);
+
+        // another thread corrected the same text at the same time
+        if (replacedText != null) {
+            size -= key.text.length() + replacedText.length();
+        }
+
+        size += textSize;
+
+        Iterator<Map.Entry<Key, String>> leastRecentlyUsed =
+                correctedTexts.entrySet().iterator();
+
+        while (size > capacity) {
+            val entry = leastRecentlyUsed.next();
+
+            size -= entry.getKey().text.length() + entry.getValue().length();
+
+            leastRecentlyUsed.remove();
+
+            evictionCount++;
+        }
+    }
+
+    private static class Key {
+
+        private final String text;
+        private final Correction.TYPE type;
+        private final long version;
+        // compared by identity, since the fingerprints are immutable
+        private final WordFingerprints knownWords;
+
+        private Key(String text, Correction.TYPE type, long version,
+                    WordFingerprints knownWords) {
+            this.text = text;
+            this.type = type;
+            this.version = version;
+            this.knownWords = knownWords;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            val key = (Key) o;
+
+            return version == key.version && type == key.type &&
+                    knownWords == key.knownWords && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(text, type, version);
+        }
+    }
+}
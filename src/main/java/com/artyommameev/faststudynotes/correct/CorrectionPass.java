@@ -0,0 +1,141 @@
+package com.artyommameev.faststudynotes.correct;
+
+import lombok.NonNull;
+import lombok.val;
+
+import java.util.List;
+
+/**
+ * A single pass over a text that replaces the matches of a set of
+ * expressions with their replacements.
+ *
+ * @author Artyom Mameev
+ * @see ReplacementPass
+ * @see RegexPass
+ */
+interface CorrectionPass {
+
+    /**
+     * Applies a list of passes to a text one after another.
+     *
+     * @param text   the text to correct.
+     * @param passes the passes to apply.
+     * @return the corrected text.
+     * @throws NullPointerException if any parameter is null.
+     */
+    static String applyAll(@NonNull String text,
+                           @NonNull List<CorrectionPass> passes) {
+        return applyAll(text, passes, null);
+    }
+
+    /**
+     * Applies a list of passes to a text one after another, recording the
+     * statistics of the applied {@link
+     * com.artyommameev.faststudynotes.domain.Correction}s.
+     *
+     * @param text       the text to correct.
+     * @param passes     the passes to apply.
+     * @param statistics the statistics to record, or null if the statistics
+     *                   should not be recorded.
+     * @return the corrected text.
+     * @throws NullPointerException if the text or the passes are null.
+     */
+    static String applyAll(@NonNull String text,
+                           @NonNull List<CorrectionPass> passes,
+                           CorrectionStatistics statistics) {
+        for (val pass : passes) {
+            text = pass.apply(text, statistics);
+        }
+
+        return text;
+    }
+
+    /**
+     * Replaces all the matches of the expressions of the pass in a text.
+     *
+     * @param text the text to correct.
+     * @return the corrected text, or the same string if nothing matches.
+     * @throws NullPointerException if the text is null.
+     */
+    default String apply(String text) {
+        return apply(text, null);
+    }
+
+    /**
+     * Replaces all the matches of the expressions of the pass in a text,
+     * recording the statistics of the applied {@link
+     * com.artyommameev.faststudynotes.domain.Correction}s.
+     *
+     * @param text       the text to correct.
+     * @param statistics the statistics to record, or null if the statistics
+     *                   should not be recorded.
+     * @return the corrected text.
+     * @throws NullPointerException if the text is null.
+     */
+    String apply(String text, CorrectionStatistics statistics);
+
+    /**
+     * Replaces the matches of the expressions of the pass in a part of a
+     * text that is received in several parts.
+     * <p>
+     * If the part is not the end of the text, its last chars that could
+     * belong to a match continued in the next part are neither corrected nor
+     * written to the output, so the caller should carry them over to the next
+     * call together with the next part of the text. The chars before the
+     * start of the part are not corrected, but they can be used as a context
+     * of the matches (see {@link #getContextLength()}).
+     *
+     * @param text       the text that contains the part to correct.
+     * @param from       the start index of the part, inclusive.
+     * @param to         the end index of the part, exclusive.
+     * @param endOfInput whether the part is the end of the text.
+     * @param output     the buffer to write the corrected text to.
+     * @return the index up to which the part was corrected and written to
+     * the output.
+     */
+    default int apply(CharSequence text, int from, int to,
+                      boolean endOfInput, StringBuilder output) {
+        return apply(text, from, to, endOfInput, output, null);
+    }
+
+    /**
+     * Works the same as {@link #apply(CharSequence, int, int, boolean,
+     * StringBuilder)}, but records the statistics of the applied {@link
+     * com.artyommameev.faststudynotes.domain.Correction}s.
+     *
+     * @param text       the text that contains the part to correct.
+     * @param from       the start index of the part, inclusive.
+     * @param to         the end index of the part, exclusive.
+     * @param endOfInput whether the part is the end of the text.
+     * @param output     the buffer to write the corrected text to.
+     * @param statistics the statistics to record, or null if the statistics
+     *                   should not be recorded.
+     * @return the index up to which the part was corrected and written to
+     * the output.
+     */
+    int apply(CharSequence text, int from, int to, boolean endOfInput,
+              StringBuilder output, CorrectionStatistics statistics);
+
+    /**
+     * Checks if a char can be a part of a match of the pass.
+     * <p>
+     * A text can be split after a char that can never be a part of a match,
+     * and its parts can be corrected separately.
+     *
+     * @param c the char to check.
+     * @return true if the char can be a part of a match, otherwise false.
+     */
+    boolean isExpressionChar(char c);
+
+    /**
+     * Returns the number of the already corrected chars that should be kept
+     * before a part of a text passed to
+     * {@link #apply(CharSequence, int, int, boolean, StringBuilder)}, so the
+     * expressions that look behind their matches work the same way as in the
+     * whole text.
+     *
+     * @return the number of the chars of the context, 0 if the pass does not
+     * need any context.
+     */
+    int getContextLength();
+}
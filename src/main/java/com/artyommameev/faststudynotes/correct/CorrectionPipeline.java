@@ -0,0 +1,367 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.NonNull;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An ordered list of the stages of the correction of a text, such as the
+ * normalization, the {@link Correction}s of a dictionary, the capitalization
+ * and the terminal punctuation.
+ * <p>
+ * All the stages work on two char buffers that are reused by every text the
+ * pipeline corrects: a stage either changes the text in its buffer in place
+ * or writes the result to the other buffer. The built-in stages also reuse
+ * their own state, so they do not create any intermediate strings, except
+ * for a large text that is corrected in parallel, and the only string that
+ * is created is the result. A custom stage, such as one that looks the text
+ * up in a {@link CorrectionCache}, can still create its own strings. The
+ * chars are classified by lookup tables instead of regular expressions.
+ * <p>
+ * A pipeline is not thread-safe, since it reuses its buffers.
+ *
+ * @author Artyom Mameev
+ */
+public class CorrectionPipeline {
+
+    private final Stage[] stages;
+
+    private StringBuilder text = new StringBuilder();
+    private StringBuilder output = new StringBuilder();
+
+    private CorrectionPipeline(List<Stage> stages) {
+        this.stages = stages.toArray(new Stage[0]);
+    }
+
+    /**
+     * Corrects a text by applying all the stages of the pipeline one after
+     * another.
+     *
+     * @param text the text to correct.
+     * @return the corrected text.
+     * @throws NullPointerException     if the text is null.
+     * @throws IllegalArgumentException if the text is empty.
+     */
+    public String apply(@NonNull String text) {
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("Text cannot be empty");
+        }
+
+        this.text.setLength(0);
+        this.text.append(text);
+
+        for (val stage : stages) {
+            output.setLength(0);
+
+            if (stage.apply(this.text, output)) {
+                val swappedBuffer = this.text;
+
+                this.text = output;
+                output = swappedBuffer;
+            }
+        }
+
+        return this.text.toString();
+    }
+
+    /**
+     * A stage of a {@link CorrectionPipeline}.
+     */
+    @FunctionalInterface
+    public interface Stage {
+
+        /**
+         * Applies the stage to a text.
+         *
+         * @param text   the buffer that contains the text, which the stage
+         *               can change in place.
+         * @param output an empty buffer which the stage can write the result
+         *               to instead.
+         * @return true if the result was written to the output buffer, false
+         * if the text was changed in place or was not changed.
+         */
+        boolean apply(StringBuilder text, StringBuilder output);
+    }
+
+    /**
+     * A builder of {@link CorrectionPipeline}s, which adds the stages in the
+     * order they are applied.
+     */
+    public static class Builder {
+
+        private final List<Stage> stages = new ArrayList<>();
+
+        /**
+         * Adds a stage that does the basic correction of a text of the given
+         * type, as described in {@link BadOcrCorrector#correct(String,
+         * Correction.TYPE, List)}: a text of the {@link Correction.TYPE#TEXT}
+         * type is normalized by joining its lines, and the whitespaces at the
+         * end of a text of the {@link Correction.TYPE#CODE} type are removed.
+         *
+         * @param type the type of the correction.
+         * @return this builder.
+         * @throws NullPointerException if the type is null.
+         */
+        public Builder normalize(@NonNull Correction.TYPE type) {
+            if (type.equals(Correction.TYPE.TEXT)) {
+                // the buffer is replaced by the one of each text
+                val normalizer = new TextNormalizer(new StringBuilder());
+
+                stages.add((text, output) -> {
+                    normalizer.normalize(text, output);
+
+                    return true;
+                });
+            } else {
+                stages.add((text, output) -> {
+                    int length = text.length();
+
+                    while (length > 0 && CharClasses.isWhitespace(
+                            text.charAt(length - 1))) {
+                        length--;
+                    }
+
+                    text.setLength(length);
+
+                    return false;
+                });
+            }
+
+            return this;
+        }
+
+        /**
+         * Works the same as {@link #normalize(Correction.TYPE)}, but the
+         * hyphenated line breaks of a text of the {@link Correction.TYPE#TEXT}
+         * type are joined only where the joined word is known, as described
+         * in {@link BadOcrCorrector#correctInParallel(String,
+         * Correction.TYPE, CompiledCorrections, WordFingerprints)}.
+         *
+         * @param type       the type of the correction.
+         * @param knownWords the {@link WordFingerprints} of the known words.
+         * @return this builder.
+         * @throws NullPointerException if any parameter is null.
+         */
+        public Builder normalize(@NonNull Correction.TYPE type,
+                                 @NonNull WordFingerprints knownWords) {
+            if (!type.equals(Correction.TYPE.TEXT)) {
+                return normalize(type);
+            }
+
+            val normalizer = new TextNormalizer(new StringBuilder(),
+                    knownWords);
+
+            stages.add((text, output) -> {
+                normalizer.normalize(text, output);
+
+                return true;
+            });
+
+            return this;
+        }
+
+        /**
+         * Adds a stage that applies the {@link Correction}s of the given type
+         * from {@link CompiledCorrections}. A large text is corrected in
+         * parallel, the same way as by {@link
+         * BadOcrCorrector#correctInParallel(String, Correction.TYPE,
+         * CompiledCorrections)}.
+         *
+         * @param corrections the {@link CompiledCorrections} to apply.
+         * @param type        the type of the {@link Correction}s.
+         * @return this builder.
+         * @throws NullPointerException if any parameter is null.
+         */
+        public Builder correct(@NonNull CompiledCorrections corrections,
+                               @NonNull Correction.TYPE type) {
+            stages.add(createCorrectionStage(corrections.getPasses(type),
+                    null));
+
+            return this;
+        }
+
+        /**
+         * Works the same as {@link #correct(CompiledCorrections,
+         * Correction.TYPE)}, but the stage records the
+         * {@link CorrectionStatistics}.
+         *
+         * @param corrections the {@link CompiledCorrections} to apply.
+         * @param type        the type of the {@link Correction}s.
+         * @param statistics  the {@link CorrectionStatistics} of the
+         *                    {@link CompiledCorrections} to record.
+         * @return this builder.
+         * @throws NullPointerException     if any parameter is null.
+         * @throws IllegalArgumentException if the statistics were created for
+         *                                  other {@link CompiledCorrections}.
+         */
+        public Builder correct(@NonNull CompiledCorrections corrections,
+                               @NonNull Correction.TYPE type,
+                               @NonNull CorrectionStatistics statistics) {
+            if (statistics.getSize() != corrections.getSize()) {
+                throw new IllegalArgumentException("The statistics were " +
+                        "created for other corrections");
+            }
+
+            stages.add(createCorrectionStage(corrections.getPasses(type),
+                    statistics));
+
+            return this;
+        }
+
+        /**
+         * Adds a stage that makes a text begin with a capital letter, the
+         * same way as {@link BadOcrCorrector#capitalize(String)}, but
+         * regardless of the default locale.
+         *
+         * @return this builder.
+         */
+        public Builder capitalize() {
+            stages.add((text, output) -> {
+                if (text.length() == 0) {
+                    return false;
+                }
+
+                char first = text.charAt(0);
+                char upperCaseFirst = Character.toUpperCase(first);
+
+                if (upperCaseFirst != first) {
+                    text.setCharAt(0, upperCaseFirst);
+                } else if (Character.isLowerCase(first)) {
+                    // a letter that becomes several letters, e.g. 'ß'
+                    text.replace(0, 1, String.valueOf(first)
+                            .toUpperCase());
+                }
+
+                return false;
+            });
+
+            return this;
+        }
+
+        /**
+         * Adds a stage that adds a period at the end of a text, the same way
+         * as {@link BadOcrCorrector#addPeriodAtTheEnd(String)}.
+         *
+         * @return this builder.
+         */
+        public Builder addPeriodAtTheEnd() {
+            stages.add((text, output) -> {
+                if (text.length() > 0 && isPeriodNeededAfter(
+                        text.charAt(text.length() - 1))) {
+                    text.append('.');
+                }
+
+                return false;
+            });
+
+            return this;
+        }
+
+        /**
+         * Adds a stage that converts the words of a text that mix Latin and
+         * Cyrillic letters to the script of the majority of their letters,
+         * the same way as {@link BadOcrCorrector#normalizeHomoglyphs(String)}.
+         *
+         * @return this builder.
+         */
+        public Builder normalizeHomoglyphs() {
+            stages.add((text, output) -> {
+                HomoglyphNormalizer.normalize(text);
+
+                return false;
+            });
+
+            return this;
+        }
+
+        /**
+         * Adds a stage that rebuilds the indentation of a code, the same way
+         * as {@link BadOcrCorrector#indentCode(String)}.
+         *
+         * @return this builder.
+         */
+        public Builder indentCode() {
+            val indenter = new CodeIndenter(new StringBuilder());
+
+            stages.add((text, output) -> {
+                indenter.indent(text, output);
+
+                return true;
+            });
+
+            return this;
+        }
+
+        /**
+         * Adds a custom stage.
+         *
+         * @param stage the stage to add.
+         * @return this builder.
+         * @throws NullPointerException if the stage is null.
+         */
+        public Builder add(@NonNull Stage stage) {
+            stages.add(stage);
+
+            return this;
+        }
+
+        /**
+         * Creates a {@link CorrectionPipeline} of the added stages.
+         *
+         * @return the new {@link CorrectionPipeline}.
+         */
+        public CorrectionPipeline build() {
+            return new CorrectionPipeline(stages);
+        }
+
+        private static Stage createCorrectionStage(
+                List<CorrectionPass> passes, CorrectionStatistics statistics) {
+            return (text, output) -> {
+                if (passes.isEmpty()) {
+                    return false;
+                }
+
+                if (text.length() >= ParallelCorrector.DEFAULT_THRESHOLD) {
+                    output.append(ParallelCorrector.applyAll(text.toString(),
+                            passes, ParallelCorrector.DEFAULT_THRESHOLD,
+                            statistics));
+
+                    return true;
+                }
+
+                // each pass writes to the buffer that the previous one read
+                StringBuilder source = text;
+                StringBuilder target = output;
+
+                for (val pass : passes) {
+                    target.setLength(0);
+
+                    pass.apply(source, 0, source.length(), true, target,
+                            statistics);
+
+                    val swappedBuffer = source;
+
+                    source = target;
+                    target = swappedBuffer;
+                }
+
+                return source == output;
+            };
+        }
+    }
+
+    /**
+     * Checks if a period should be added after the last char of a text.
+     *
+     * @param c the last char of the text.
+     * @return true if the char is not a punctuation mark, or if it is a
+     * bracket ')' or quotation marks '"' or '»', otherwise false.
+     */
+    static boolean isPeriodNeededAfter(char c) {
+        return !CharClasses.isPunctuation(c) || c == ')' || c == '"' ||
+                c == '»';
+    }
+}
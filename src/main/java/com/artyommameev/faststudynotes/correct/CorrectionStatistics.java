@@ -0,0 +1,151 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Statistics of usage of {@link CompiledCorrections}: how many times each
+ * {@link Correction} was applied and how much time its expression took to
+ * match.
+ * <p>
+ * The statistics are collected by {@link BadOcrCorrector} if they are passed
+ * to it. The {@link Correction}s are identified by their indexes in
+ * {@link CompiledCorrections#getCorrections()}.
+ * <p>
+ * The counters are kept in primitive arrays that are split into stripes, and
+ * each thread adds to the stripe chosen by its id, so the threads that
+ * correct the parts of a text in parallel rarely write to the same counters,
+ * and recording does not allocate any objects.
+ * <p>
+ * The expressions of the {@link Correction.KIND#LITERAL} kind are matched
+ * all together in one linear pass, so their matching time cannot be split
+ * between them and is not recorded. The matching time is recorded only for
+ * the {@link Correction.KIND#REGEX} kind, whose expressions are searched for
+ * separately while the statistics are collected.
+ *
+ * @author Artyom Mameev
+ */
+public class CorrectionStatistics {
+
+    private static final int STRIPES_COUNT = computeStripesCount();
+
+    @Getter
+    private final int size;
+    private final AtomicLongArray hits;
+    private final AtomicLongArray matchingTimes;
+
+    /**
+     * Instantiates new Correction Statistics.
+     *
+     * @param corrections the {@link CompiledCorrections} to collect the
+     *                    statistics of.
+     * @throws NullPointerException if the {@link CompiledCorrections} is
+     *                              null.
+     */
+    public CorrectionStatistics(@NonNull CompiledCorrections corrections) {
+        this.size = corrections.getSize();
+        this.hits = new AtomicLongArray(size * STRIPES_COUNT);
+        this.matchingTimes = new AtomicLongArray(size * STRIPES_COUNT);
+    }
+
+    private static int computeStripesCount() {
+        int processorsCount = Runtime.getRuntime().availableProcessors();
+
+        int stripesCount = 1;
+
+        while (stripesCount < processorsCount && stripesCount < 16) {
+            stripesCount <<= 1;
+        }
+
+        return stripesCount;
+    }
+
+    /**
+     * Returns how many times a {@link Correction} was applied.
+     *
+     * @param correction the index of the {@link Correction}.
+     * @return the number of the replaced matches of the {@link Correction}.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public long getHits(int correction) {
+        return sum(hits, correction);
+    }
+
+    /**
+     * Returns how much time the expression of a {@link Correction} took to
+     * match.
+     *
+     * @param correction the index of the {@link Correction}.
+     * @return the cumulative matching time in nanoseconds.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public long getMatchingTime(int correction) {
+        return sum(matchingTimes, correction);
+    }
+
+    /**
+     * Returns the numbers of times the {@link Correction}s were applied and
+     * resets them, so the hits recorded after this call are returned by the
+     * next one.
+     *
+     * @return the numbers of the replaced matches, indexed by the
+     * {@link Correction}s.
+     */
+    public long[] drainHits() {
+        return drain(hits);
+    }
+
+    /**
+     * Returns the matching times of the {@link Correction}s and resets them,
+     * so the time recorded after this call is returned by the next one.
+     *
+     * @return the cumulative matching times in nanoseconds, indexed by the
+     * {@link Correction}s.
+     */
+    public long[] drainMatchingTimes() {
+        return drain(matchingTimes);
+    }
+
+    void recordHit(int correction) {
+        hits.getAndIncrement(getStripeOffset() + correction);
+    }
+
+    void recordMatchingTime(int correction, long nanos) {
+        matchingTimes.getAndAdd(getStripeOffset() + correction, nanos);
+    }
+
+    private int getStripeOffset() {
+        return (int) (Thread.currentThread().getId() & (STRIPES_COUNT - 1)) *
+                size;
+    }
+
+    private long sum(AtomicLongArray counters, int correction) {
+        if (correction < 0 || correction >= size) {
+            throw new IndexOutOfBoundsException("Index: " + correction);
+        }
+
+        long sum = 0;
+
+        for (int stripe = 0; stripe < STRIPES_COUNT; stripe++) {
+            sum += counters.get(stripe * size + correction);
+        }
+
+        return sum;
+    }
+
+    private long[] drain(AtomicLongArray counters) {
+        long[] sums = new long[size];
+
+        for (int stripe = 0; stripe < STRIPES_COUNT; stripe++) {
+            for (int correction = 0; correction < size; correction++) {
+                sums[correction] += counters.getAndSet(
+                        stripe * size + correction, 0);
+            }
+        }
+
+        return sums;
+    }
+}
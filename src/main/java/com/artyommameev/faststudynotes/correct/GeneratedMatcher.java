@@ -0,0 +1,373 @@
+package com.artyommameev.faststudynotes.correct;
+
+import lombok.NonNull;
+import lombok.val;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * A multi-pattern string matcher that is generated at runtime for a fixed
+ * set of literal patterns, and finds their matches with the same
+ * leftmost-longest semantics as an {@link AhoCorasickMatcher}.
+ * <p>
+ * Instead of interpreting a table-driven automaton, the matcher composes a
+ * tree of method handles that hard-codes the patterns: a binary search over
+ * the first chars of the patterns dispatches to the patterns that start with
+ * the char at the current position, a large group of such patterns is
+ * dispatched further by its next char, and a small group is checked by the
+ * literal comparisons of its patterns, from the longest to the shortest.
+ * The chars and the patterns are constants of the handles, so the JIT
+ * compiler can fold them into the compiled code of the matcher.
+ * <p>
+ * A matcher is immutable and thread-safe, and it should be generated once
+ * for a dictionary that is applied to many texts, since the generation of
+ * the handles is much slower than the construction of an automaton.
+ *
+ * @author Artyom Mameev
+ */
+final class GeneratedMatcher {
+
+    /**
+     * The maximum number of the patterns of a generated matcher; a larger
+     * dictionary would make a tree of handles too large to be compiled well.
+     */
+    static final int MAX_PATTERNS = 4096;
+
+    private static final int NO_PATTERN = -1;
+    private static final int NO_CHAR = -1;
+
+    // the largest group of patterns that is checked by literal comparisons
+    private static final int MAX_COMPARED_PATTERNS = 4;
+
+    private static final MethodHandle CHAR_AT;
+    private static final MethodHandle IS_BELOW;
+    private static final MethodHandle IS_EQUAL;
+    private static final MethodHandle REGION_MATCHES;
+
+    static {
+        val lookup = MethodHandles.lookup();
+
+        try {
+            CHAR_AT = lookup.findStatic(GeneratedMatcher.class, "charAt",
+                    MethodType.methodType(int.class, CharSequence.class,
+                            int.class, int.class, int.class));
+            IS_BELOW = lookup.findStatic(GeneratedMatcher.class, "isBelow",
+                    MethodType.methodType(boolean.class, int.class,
+                            int.class));
+            IS_EQUAL = lookup.findStatic(GeneratedMatcher.class, "isEqual",
+                    MethodType.methodType(boolean.class, int.class,
+                            int.class));
+            REGION_MATCHES = lookup.findStatic(GeneratedMatcher.class,
+                    "regionMatches", MethodType.methodType(boolean.class,
+                            CharSequence.class, int.class, int.class,
+                            String.class, int.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int[] lengths;
+    private final int maxLength;
+    // the chars the patterns start with, up to the largest of them
+    private final boolean[] firstChars;
+    // (CharSequence text, int position, int to) -> int pattern
+    private final MethodHandle matcher;
+
+    /**
+     * Generates a new Generated Matcher.
+     * <p>
+     * If a pattern is repeated, only its first occurrence is matched.
+     *
+     * @param patterns the patterns to find; the index of a pattern in the
+     *                 list identifies it in the reported matches.
+     * @throws NullPointerException     if the patterns list is null.
+     * @throws IllegalArgumentException if any pattern is empty or if there
+     *                                  are more than {@link #MAX_PATTERNS}
+     *                                  patterns.
+     */
+    GeneratedMatcher(@NonNull List<String> patterns) {
+        if (patterns.size() > MAX_PATTERNS) {
+            throw new IllegalArgumentException("Too many patterns");
+        }
+
+        val uniquePatterns = new LinkedHashMap<String, Integer>();
+
+        int maxLength = 0;
+        int maxFirstChar = -1;
+
+        for (int i = 0; i < patterns.size(); i++) {
+            val pattern = patterns.get(i);
+
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Pattern cannot be empty");
+            }
+
+            uniquePatterns.putIfAbsent(pattern, i);
+
+            maxLength = Math.max(maxLength, pattern.length());
+            maxFirstChar = Math.max(maxFirstChar, pattern.charAt(0));
+        }
+
+        this.lengths = patterns.stream()
+                .mapToInt(String::length)
+                .toArray();
+        this.maxLength = maxLength;
+        this.firstChars = new boolean[maxFirstChar + 1];
+
+        List<Pattern> generatedPatterns = new ArrayList<>();
+
+        for (val entry : uniquePatterns.entrySet()) {
+            generatedPatterns.add(new Pattern(entry.getKey(),
+                    entry.getValue()));
+
+            firstChars[entry.getKey().charAt(0)] = true;
+        }
+
+        this.matcher = generatedPatterns.isEmpty() ? noMatch() :
+                generateDispatch(generatedPatterns, 0, noMatch());
+    }
+
+    /**
+     * Returns the number of the patterns of the matcher, including the
+     * repeated ones.
+     *
+     * @return the number of the patterns.
+     */
+    int getPatternsCount() {
+        return lengths.length;
+    }
+
+    /**
+     * Finds the matches of the patterns in a region of a text, the same way
+     * as {@link AhoCorasickMatcher#findAll(CharSequence, int, int, boolean,
+     * AhoCorasickMatcher.MatchListener)}.
+     * <p>
+     * If the region is not the end of the input, the scan stops where the
+     * rest of the region is shorter than the longest pattern, since a match
+     * there could be continued by the next input.
+     *
+     * @param text       the text to search in.
+     * @param from       the start index of the region, inclusive.
+     * @param to         the end index of the region, exclusive.
+     * @param endOfInput whether the region is the end of the input.
+     * @param listener   the listener that receives the found matches in the
+     *                   order of their positions in the text.
+     * @return the index up to which the region is fully resolved; it is equal
+     * to the end of the region if the region is the end of the input.
+     * @throws NullPointerException      if any object parameter is null.
+     * @throws IndexOutOfBoundsException if the region is out of the text
+     *                                   bounds.
+     */
+    int findAll(@NonNull CharSequence text, int from, int to,
+                boolean endOfInput,
+                @NonNull AhoCorasickMatcher.MatchListener listener) {
+        if (from < 0 || to > text.length() || from > to) {
+            throw new IndexOutOfBoundsException("The region is out of the " +
+                    "text bounds");
+        }
+
+        int limit = endOfInput ? to : to - Math.max(maxLength, 1) + 1;
+
+        int position = from;
+
+        while (position < limit) {
+            char c = text.charAt(position);
+
+            if (c >= firstChars.length || !firstChars[c]) {
+                position++;
+
+                continue;
+            }
+
+            int pattern = match(text, position, to);
+
+            if (pattern == NO_PATTERN) {
+                position++;
+
+                continue;
+            }
+
+            int end = position + lengths[pattern];
+
+            listener.onMatch(pattern, position, end);
+
+            position = end;
+        }
+
+        return Math.max(position, Math.min(limit, to));
+    }
+
+    /**
+     * Finds the longest pattern that starts at a position of a text.
+     *
+     * @param text     the text to search in.
+     * @param position the position of the text to match the patterns at.
+     * @param to       the index of the text the matches cannot cross.
+     * @return the index of the longest pattern that matches at the position,
+     * or -1 if no pattern matches.
+     */
+    int match(CharSequence text, int position, int to) {
+        try {
+            return (int) matcher.invokeExact(text, position, to);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*generates a handle that dispatches on the char at the given offset from
+    the position; all the given patterns are longer than the offset and
+    their chars before it are already checked*/
+    private static MethodHandle generateDispatch(List<Pattern> patterns,
+                                                 int offset,
+                                                 MethodHandle fallback) {
+        val groups = new LinkedHashMap<Character, List<Pattern>>();
+
+        patterns.stream()
+                .sorted(Comparator.comparingInt(pattern ->
+                        pattern.string.charAt(offset)))
+                .forEach(pattern -> groups.computeIfAbsent(
+                        pattern.string.charAt(offset),
+                        c -> new ArrayList<>()).add(pattern));
+
+        val chars = new ArrayList<>(groups.keySet());
+
+        List<MethodHandle> branches = new ArrayList<>();
+
+        for (val c : chars) {
+            branches.add(generateGroup(groups.get(c), offset + 1, fallback));
+        }
+
+        // (int c, CharSequence text, int position, int to) -> int pattern
+        val tree = generateSearch(chars, branches, 0, chars.size(),
+                MethodHandles.dropArguments(fallback, 0, int.class));
+
+        return MethodHandles.foldArguments(tree,
+                MethodHandles.insertArguments(CHAR_AT, 3, offset));
+    }
+
+    /*generates a handle that matches the patterns whose chars before the
+    offset are already checked*/
+    private static MethodHandle generateGroup(List<Pattern> patterns,
+                                              int offset,
+                                              MethodHandle fallback) {
+        List<Pattern> longerPatterns = new ArrayList<>();
+
+        MethodHandle groupFallback = fallback;
+
+        for (val pattern : patterns) {
+            if (pattern.string.length() == offset) {
+                // the pattern is the checked prefix itself
+                groupFallback = constant(pattern.index);
+            } else {
+                longerPatterns.add(pattern);
+            }
+        }
+
+        if (longerPatterns.isEmpty()) {
+            return groupFallback;
+        }
+
+        if (longerPatterns.size() > MAX_COMPARED_PATTERNS) {
+            return generateDispatch(longerPatterns, offset, groupFallback);
+        }
+
+        longerPatterns.sort(Comparator.comparingInt(
+                (Pattern pattern) -> pattern.string.length()));
+
+        MethodHandle result = groupFallback;
+
+        // the longest pattern is checked first
+        for (val pattern : longerPatterns) {
+            val test = MethodHandles.insertArguments(REGION_MATCHES, 3,
+                    pattern.string, offset);
+
+            result = MethodHandles.guardWithTest(test,
+                    constant(pattern.index), result);
+        }
+
+        return result;
+    }
+
+    /*generates a binary search for the char among the chars in the range
+    [from, to)*/
+    private static MethodHandle generateSearch(List<Character> chars,
+                                               List<MethodHandle> branches,
+                                               int from, int to,
+                                               MethodHandle fallback) {
+        if (to - from == 1) {
+            val test = MethodHandles.insertArguments(IS_EQUAL, 1,
+                    (int) chars.get(from));
+
+            return MethodHandles.guardWithTest(test,
+                    MethodHandles.dropArguments(branches.get(from), 0,
+                            int.class), fallback);
+        }
+
+        int middle = (from + to) >>> 1;
+
+        val test = MethodHandles.insertArguments(IS_BELOW, 1,
+                (int) chars.get(middle));
+
+        return MethodHandles.guardWithTest(test,
+                generateSearch(chars, branches, from, middle, fallback),
+                generateSearch(chars, branches, middle, to, fallback));
+    }
+
+    private static MethodHandle constant(int pattern) {
+        return MethodHandles.dropArguments(MethodHandles.constant(int.class,
+                pattern), 0, CharSequence.class, int.class, int.class);
+    }
+
+    private static MethodHandle noMatch() {
+        return constant(NO_PATTERN);
+    }
+
+    private static int charAt(CharSequence text, int position, int to,
+                              int offset) {
+        int index = position + offset;
+
+        return index < to ? text.charAt(index) : NO_CHAR;
+    }
+
+    private static boolean isBelow(int c, int bound) {
+        return c < bound;
+    }
+
+    private static boolean isEqual(int c, int expected) {
+        return c == expected;
+    }
+
+    private static boolean regionMatches(CharSequence text, int position,
+                                         int to, String pattern, int offset) {
+        if (to - position < pattern.length()) {
+            return false;
+        }
+
+        for (int i = offset; i < pattern.length(); i++) {
+            if (text.charAt(position + i) != pattern.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static class Pattern {
+
+        private final String string;
+        private final int index;
+
+        private Pattern(String string, int index) {
+            this.string = string;
+            this.index = index;
+        }
+    }
+}
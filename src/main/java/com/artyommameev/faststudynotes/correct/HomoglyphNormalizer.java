@@ -0,0 +1,112 @@
+package com.artyommameev.faststudynotes.correct;
+
+/**
+ * A normalizer of the words of a text that mix Latin and Cyrillic letters
+ * that look the same, which is a typical error of OCRed Russian texts.
+ * <p>
+ * Each word (a sequence of letters) that contains both Latin and Cyrillic
+ * letters is converted to the script of the majority of its letters: each
+ * letter of the other script that has a look-alike letter in the majority
+ * script is replaced with it, e.g. the Cyrillic word "молоко" with a Latin
+ * letter "o" becomes fully Cyrillic. The words with the same numbers of
+ * Latin and Cyrillic letters are not changed. The letters are converted
+ * using lookup tables in one pass over the text.
+ *
+ * @author Artyom Mameev
+ */
+final class HomoglyphNormalizer {
+
+    private static final char CYRILLIC_START = '\u0400';
+    private static final char CYRILLIC_END = '\u0530';
+
+    /*the pairs of the letters that look the same; the Cyrillic letters are
+    escaped, since they cannot be told from the Latin ones*/
+    private static final String LATIN_LETTERS = "ABCEHKMOPTXYaceopxy";
+    private static final String CYRILLIC_LETTERS = "\u0410\u0412\u0421" +
+            "\u0415\u041D\u041A\u041C\u041E\u0420\u0422\u0425\u0423" +
+            "\u0430\u0441\u0435\u043E\u0440\u0445\u0443";
+
+    private static final char[] LATIN_TO_CYRILLIC = new char[128];
+    private static final char[] CYRILLIC_TO_LATIN =
+            new char[CYRILLIC_END - CYRILLIC_START];
+
+    static {
+        for (int i = 0; i < LATIN_LETTERS.length(); i++) {
+            LATIN_TO_CYRILLIC[LATIN_LETTERS.charAt(i)] =
+                    CYRILLIC_LETTERS.charAt(i);
+            CYRILLIC_TO_LATIN[CYRILLIC_LETTERS.charAt(i) - CYRILLIC_START] =
+                    LATIN_LETTERS.charAt(i);
+        }
+    }
+
+    private HomoglyphNormalizer() {
+    }
+
+    /**
+     * Normalizes the words of a text in place.
+     *
+     * @param text the buffer that contains the text.
+     */
+    static void normalize(StringBuilder text) {
+        int wordStart = 0;
+        int latinCount = 0;
+        int cyrillicCount = 0;
+
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+
+            if (isLatin(c)) {
+                latinCount++;
+
+                continue;
+            }
+
+            if (isCyrillic(c)) {
+                cyrillicCount++;
+
+                continue;
+            }
+
+            if (Character.isLetter(c)) {
+                continue;
+            }
+
+            if (latinCount > 0 && cyrillicCount > 0 &&
+                    latinCount != cyrillicCount) {
+                convertWord(text, wordStart, i, cyrillicCount > latinCount);
+            }
+
+            wordStart = i + 1;
+            latinCount = 0;
+            cyrillicCount = 0;
+        }
+    }
+
+    private static void convertWord(StringBuilder text, int start, int end,
+                                    boolean isToCyrillic) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+
+            char converted = 0;
+
+            if (isToCyrillic && c < LATIN_TO_CYRILLIC.length) {
+                converted = LATIN_TO_CYRILLIC[c];
+            } else if (!isToCyrillic && isCyrillic(c)) {
+                converted = CYRILLIC_TO_LATIN[c - CYRILLIC_START];
+            }
+
+            if (converted != 0) {
+                text.setCharAt(i, converted);
+            }
+        }
+    }
+
+    private static boolean isLatin(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') ||
+                (c >= '\u00C0' && c < '\u0250' && Character.isLetter(c));
+    }
+
+    private static boolean isCyrillic(char c) {
+        return c >= CYRILLIC_START && c < CYRILLIC_END;
+    }
+}
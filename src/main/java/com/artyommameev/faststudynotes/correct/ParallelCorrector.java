@@ -0,0 +1,211 @@
+package com.artyommameev.faststudynotes.correct;
+
+import lombok.val;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A corrector that applies correction passes to parts of a large text in
+ * parallel using the common {@link ForkJoinPool}.
+ * <p>
+ * The text is split only after separator chars (line breaks, punctuation
+ * marks or whitespaces) that do not occur in any expression of the passes.
+ * No match can contain such a char, so the parts are corrected exactly the
+ * same way as they would be in the whole text, and the concatenated result is
+ * equal to the result of the sequential correction.
+ *
+ * @author Artyom Mameev
+ */
+class ParallelCorrector {
+
+    static final int DEFAULT_THRESHOLD = 1 << 16;
+
+    // the chars after which a text is split, in the order of preference
+    private static final String SEPARATORS = "\n.!?;, \t";
+
+    private ParallelCorrector() {
+    }
+
+    /**
+     * Applies a list of passes to a text one after another, correcting the
+     * parts of the text in parallel if the text is large enough.
+     * <p>
+     * The first passes that have common separators to split the text after
+     * are applied to the parts in parallel, and the rest of the passes (e.g.
+     * a pass of regular expressions, which can match any char) are applied
+     * to the whole result sequentially.
+     *
+     * @param text      the text to correct.
+     * @param passes    the passes to apply.
+     * @param threshold the length of the text below which it is corrected
+     *                  sequentially.
+     * @return the corrected text.
+     */
+    static String applyAll(String text, List<CorrectionPass> passes,
+                           int threshold) {
+        return applyAll(text, passes, threshold, null);
+    }
+
+    /**
+     * Works the same as {@link #applyAll(String, List, int)}, but records the
+     * statistics of the applied {@link
+     * com.artyommameev.faststudynotes.domain.Correction}s.
+     *
+     * @param text       the text to correct.
+     * @param passes     the passes to apply.
+     * @param threshold  the length of the text below which it is corrected
+     *                   sequentially.
+     * @param statistics the statistics to record, or null if the statistics
+     *                   should not be recorded.
+     * @return the corrected text.
+     */
+    static String applyAll(String text, List<CorrectionPass> passes,
+                           int threshold, CorrectionStatistics statistics) {
+        if (text.length() < threshold || passes.isEmpty()) {
+            return CorrectionPass.applyAll(text, passes, statistics);
+        }
+
+        int parallelPassesCount = 0;
+
+        char[] separators = new char[0];
+
+        while (parallelPassesCount < passes.size()) {
+            val nextSeparators = findSafeSeparators(passes.subList(0,
+                    parallelPassesCount + 1));
+
+            if (nextSeparators.length == 0) {
+                break;
+            }
+
+            separators = nextSeparators;
+
+            parallelPassesCount++;
+        }
+
+        if (parallelPassesCount == 0) {
+            return CorrectionPass.applyAll(text, passes, statistics);
+        }
+
+        text = ForkJoinPool.commonPool().invoke(new CorrectionTask(text, 0,
+                text.length(), passes.subList(0, parallelPassesCount),
+                separators, threshold, statistics));
+
+        return CorrectionPass.applyAll(text, passes.subList(
+                parallelPassesCount, passes.size()), statistics);
+    }
+
+    private static char[] findSafeSeparators(List<CorrectionPass> passes) {
+        val separators = new StringBuilder();
+
+        for (int i = 0; i < SEPARATORS.length(); i++) {
+            char separator = SEPARATORS.charAt(i);
+
+            boolean isSafe = true;
+
+            for (val pass : passes) {
+                if (pass.isExpressionChar(separator)) {
+                    isSafe = false;
+
+                    break;
+                }
+            }
+
+            if (isSafe) {
+                separators.append(separator);
+            }
+        }
+
+        return separators.toString().toCharArray();
+    }
+
+    private static class CorrectionTask extends RecursiveTask<String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String text;
+        private final int from;
+        private final int to;
+        private final List<CorrectionPass> passes;
+        private final char[] separators;
+        private final int threshold;
+        private final CorrectionStatistics statistics;
+
+        private CorrectionTask(String text, int from, int to,
+                               List<CorrectionPass> passes, char[] separators,
+                               int threshold,
+                               CorrectionStatistics statistics) {
+            this.text = text;
+            this.from = from;
+            this.to = to;
+            this.passes = passes;
+            this.separators = separators;
+            this.threshold = threshold;
+            this.statistics = statistics;
+        }
+
+        @Override
+        protected String compute() {
+            int split = to - from < threshold ? -1 : findSplit();
+
+            if (split == -1) {
+                return CorrectionPass.applyAll(text.substring(from, to),
+                        passes, statistics);
+            }
+
+            val left = new CorrectionTask(text, from, split, passes,
+                    separators, threshold, statistics);
+            val right = new CorrectionTask(text, split, to, passes,
+                    separators, threshold, statistics);
+
+            left.fork();
+
+            val rightResult = right.compute();
+
+            return left.join() + rightResult;
+        }
+
+        /*finds the separator nearest to the middle of the part, preferring
+        the first ones of the separators list*/
+        private int findSplit() {
+            int middle = from + (to - from) / 2;
+
+            // a quarter of the part around the middle
+            int window = (to - from) / 4;
+
+            int nearestSplit = -1;
+
+            for (val separator : separators) {
+                int after = text.indexOf(separator, middle);
+                int before = text.lastIndexOf(separator, middle - 1);
+
+                int split = -1;
+
+                if (after != -1 && after < to - 1) {
+                    split = after + 1;
+                }
+
+                if (before > from && (split == -1 ||
+                        middle - before < split - middle)) {
+                    split = before + 1;
+                }
+
+                if (split == -1) {
+                    continue;
+                }
+
+                if (Math.abs(split - middle) <= window) {
+                    return split;
+                }
+
+                if (nearestSplit == -1 || Math.abs(split - middle) <
+                        Math.abs(nearestSplit - middle)) {
+                    nearestSplit = split;
+                }
+            }
+
+            return nearestSplit;
+        }
+    }
+}
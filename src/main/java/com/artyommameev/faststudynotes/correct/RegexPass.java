@@ -0,0 +1,867 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.NonNull;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A single pass over a text that replaces the matches of a set of regular
+ * expressions with their replacements.
+ * <p>
+ * The expressions are combined into one alternation, so the text is searched
+ * once for all of them instead of once for each of them. The match that
+ * starts first is replaced, and if several expressions match at the same
+ * position, the match of the first of them is replaced. Expressions that
+ * cannot be combined with others (e.g. ones with back references or named
+ * groups, or ones that match an empty string) are searched for separately,
+ * but their matches are chosen by the same rules. Empty matches are ignored.
+ * <p>
+ * A replacement can refer to the groups of its expression as $1, $2 or
+ * ${name}, and a char after a backslash is inserted as is. A reference to a
+ * nonexistent group is inserted as is too. The replacement of a
+ * case-insensitive rule gets the case of the matched text.
+ * <p>
+ * Each expression has a budget of match steps (reads of the chars of the
+ * text) that depends on the length of the searched text. If a search exceeds
+ * the budget, e.g. because of catastrophic backtracking, the expressions that
+ * exceed their budgets alone are disabled, so a single bad expression cannot
+ * freeze the application. The disabled expressions can be obtained with
+ * {@link #getDisabledExpressions()}.
+ *
+ * @author Artyom Mameev
+ */
+class RegexPass implements CorrectionPass {
+
+    static final int STEPS_PER_CHAR = 64;
+    static final int MIN_STEPS = 1 << 16;
+    static final int CONTEXT_LENGTH = 256;
+    static final int MAX_DEFERRED_LENGTH = 4096;
+
+    private static final int NOT_SEARCHED = -2;
+    private static final int NO_MATCH = -1;
+
+    /*back references and named groups would refer to wrong groups of the
+    alternation, and an unclosed quote or a comment would swallow its end*/
+    private static final Pattern NOT_COMBINABLE_EXPRESSION = Pattern.compile(
+            "\\\\(?:[1-9]|k<|Q)|\\(\\?<[a-zA-Z]|#");
+
+    private static final Pattern NAMED_GROUP = Pattern.compile(
+            "\\(\\?<([a-zA-Z][a-zA-Z0-9]*)>");
+
+    // the same chars as Character.isLetterOrDigit(char)
+    private static final String NOT_AFTER_WORD_CHAR = "(?<![\\p{L}\\p{Nd}])";
+    private static final String NOT_BEFORE_WORD_CHAR = "(?![\\p{L}\\p{Nd}])";
+    private static final String AT_LINE_START = "(?<![^\\n\\r])";
+    private static final String AT_LINE_END = "(?![^\\n\\r])";
+
+    private final String[] expressions;
+    private final Pattern[] patterns;
+    private final int[] groupCounts;
+    private final Replacement[] replacements;
+    private final int[] corrections;
+    private final boolean[] caseInsensitivity;
+
+    // guarded by this
+    private final BitSet disabledRules = new BitSet();
+    private final BitSet separateRules = new BitSet();
+
+    private volatile Unit[] units;
+
+    // each rule is searched for separately to measure its matching time
+    private volatile Unit[] separateUnits;
+
+    /**
+     * Instantiates a new Regex Pass.
+     * <p>
+     * If an expression is repeated, only its first rule is used.
+     *
+     * @param expressions  the regular expressions of the rules, in the order
+     *                     of the rules.
+     * @param replacements the replacements of the rules, in the order of the
+     *                     rules.
+     * @param corrections  the indexes of the
+     *                     {@link com.artyommameev.faststudynotes.domain.Correction}s
+     *                     of the rules in the {@link CorrectionStatistics}, in
+     *                     the order of the rules.
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the lists have different sizes or
+     *                                  if any expression is not a valid
+     *                                  regular expression.
+     */
+    RegexPass(@NonNull List<String> expressions,
+              @NonNull List<String> replacements,
+              @NonNull List<Integer> corrections) {
+        this(expressions, replacements, Collections.nCopies(
+                expressions.size(), false), corrections);
+    }
+
+    /**
+     * Instantiates a new Regex Pass with case-insensitive rules.
+     * <p>
+     * The expressions of the case-insensitive rules should already ignore
+     * the case, e.g. be wrapped with {@link #ignoreCase(String)}; the
+     * replacements of such rules get the case of their matches.
+     *
+     * @param expressions       the regular expressions of the rules, in the
+     *                          order of the rules.
+     * @param replacements      the replacements of the rules, in the order of
+     *                          the rules.
+     * @param caseInsensitivity whether each rule is case-insensitive, in the
+     *                          order of the rules.
+     * @param corrections       the indexes of the
+     *                          {@link com.artyommameev.faststudynotes.domain.Correction}s
+     *                          of the rules in the
+     *                          {@link CorrectionStatistics}, in the order of
+     *                          the rules.
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the lists have different sizes or
+     *                                  if any expression is not a valid
+     *                                  regular expression.
+     * @see #RegexPass(List, List, List)
+     */
+    RegexPass(@NonNull List<String> expressions,
+              @NonNull List<String> replacements,
+              @NonNull List<Boolean> caseInsensitivity,
+              @NonNull List<Integer> corrections) {
+        if (expressions.size() != replacements.size() ||
+                expressions.size() != caseInsensitivity.size() ||
+                expressions.size() != corrections.size()) {
+            throw new IllegalArgumentException("Each expression must have " +
+                    "a replacement");
+        }
+
+        val seenExpressions = new HashSet<String>();
+
+        List<String> uniqueExpressions = new ArrayList<>();
+        List<String> uniqueReplacements = new ArrayList<>();
+        List<Integer> uniqueCorrections = new ArrayList<>();
+        List<Boolean> uniqueCaseInsensitivity = new ArrayList<>();
+
+        for (int i = 0; i < expressions.size(); i++) {
+            if (seenExpressions.add(expressions.get(i))) {
+                uniqueExpressions.add(expressions.get(i));
+                uniqueReplacements.add(replacements.get(i));
+                uniqueCorrections.add(corrections.get(i));
+                uniqueCaseInsensitivity.add(caseInsensitivity.get(i));
+            }
+        }
+
+        int rulesCount = uniqueExpressions.size();
+
+        this.expressions = uniqueExpressions.toArray(new String[0]);
+        this.patterns = new Pattern[rulesCount];
+        this.groupCounts = new int[rulesCount];
+        this.replacements = new Replacement[rulesCount];
+        this.corrections = uniqueCorrections.stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+        this.caseInsensitivity = new boolean[rulesCount];
+
+        for (int rule = 0; rule < rulesCount; rule++) {
+            this.caseInsensitivity[rule] = uniqueCaseInsensitivity.get(rule);
+        }
+
+        for (int rule = 0; rule < rulesCount; rule++) {
+            val expression = this.expressions[rule];
+
+            patterns[rule] = Pattern.compile(expression);
+            groupCounts[rule] = patterns[rule].matcher("").groupCount();
+            this.replacements[rule] = new Replacement(
+                    uniqueReplacements.get(rule),
+                    groupCounts[rule], findGroupNames(expression));
+
+            /*an empty match of an alternative would hide the matches of
+            the next alternatives at the same position*/
+            if (NOT_COMBINABLE_EXPRESSION.matcher(expression).find() ||
+                    patterns[rule].matcher("").matches()) {
+                separateRules.set(rule);
+            }
+        }
+
+        synchronized (this) {
+            rebuildUnits();
+        }
+    }
+
+    /**
+     * Replaces all the matches of the expressions of the pass in a text,
+     * recording the hits and the matching times of the rules.
+     * <p>
+     * While the statistics are recorded, each expression is searched for
+     * separately to measure its matching time, which gives the same result,
+     * but is slower if there are many expressions.
+     *
+     * @param text       the text to correct.
+     * @param statistics the statistics to record, or null if the statistics
+     *                   should not be recorded.
+     * @return the corrected text.
+     * @throws NullPointerException if the text is null.
+     */
+    @Override
+    public String apply(@NonNull String text,
+                        CorrectionStatistics statistics) {
+        val output = new StringBuilder(text.length() + 16);
+
+        apply(text, 0, text.length(), true, output, statistics);
+
+        return output.toString();
+    }
+
+    /**
+     * Replaces the matches of the expressions of the pass in a part of a
+     * text that is received in several parts.
+     * <p>
+     * If the part is not the end of the text, a match is replaced only if
+     * the next part cannot change it, unless the match starts more than
+     * {@link #MAX_DEFERRED_LENGTH} chars before the end of the part. The
+     * chars before the start of the part are seen by lookbehinds and word
+     * boundaries, and "^" matches only at the start of the given text.
+     *
+     * @param text       the text that contains the part to correct.
+     * @param from       the start index of the part, inclusive.
+     * @param to         the end index of the part, exclusive.
+     * @param endOfInput whether the part is the end of the text.
+     * @param output     the buffer to write the corrected text to.
+     * @param statistics the statistics to record, or null if the statistics
+     *                   should not be recorded.
+     * @return the index up to which the part was corrected and written to
+     * the output.
+     */
+    @Override
+    public int apply(CharSequence text, int from, int to, boolean endOfInput,
+                     StringBuilder output, CorrectionStatistics statistics) {
+        return new Search(text, to, endOfInput, output, statistics)
+                .run(from);
+    }
+
+    /**
+     * Checks if a char can be a part of a match of the pass.
+     *
+     * @param c the char to check.
+     * @return always true, since a regular expression can match any char.
+     */
+    @Override
+    public boolean isExpressionChar(char c) {
+        return true;
+    }
+
+    /**
+     * Returns the number of the chars of the context the pass needs.
+     *
+     * @return {@link #CONTEXT_LENGTH}, the number of chars the expressions
+     * can look behind their matches in a text that is received in several
+     * parts.
+     */
+    @Override
+    public int getContextLength() {
+        return CONTEXT_LENGTH;
+    }
+
+    /**
+     * Returns the expressions that were disabled because they exceeded their
+     * budgets of match steps.
+     *
+     * @return the list of the disabled expressions, in the order of the rules.
+     */
+    synchronized List<String> getDisabledExpressions() {
+        List<String> disabledExpressions = new ArrayList<>();
+
+        for (int rule = disabledRules.nextSetBit(0); rule >= 0;
+             rule = disabledRules.nextSetBit(rule + 1)) {
+            disabledExpressions.add(expressions[rule]);
+        }
+
+        return disabledExpressions;
+    }
+
+    /**
+     * Returns the indexes of the
+     * {@link com.artyommameev.faststudynotes.domain.Correction}s whose rules
+     * were disabled because they exceeded their budgets of match steps.
+     *
+     * @return the indexes of the disabled
+     * {@link com.artyommameev.faststudynotes.domain.Correction}s in the
+     * {@link CorrectionStatistics}, in the order of the rules.
+     */
+    synchronized int[] getDisabledCorrections() {
+        return disabledRules.stream()
+                .map(rule -> corrections[rule])
+                .toArray();
+    }
+
+    /**
+     * Returns the indexes of the
+     * {@link com.artyommameev.faststudynotes.domain.Correction}s of the rules
+     * of the pass.
+     *
+     * @return the indexes of the
+     * {@link com.artyommameev.faststudynotes.domain.Correction}s in the
+     * {@link CorrectionStatistics}, in the order of the rules.
+     */
+    int[] getCorrections() {
+        return corrections.clone();
+    }
+
+    /**
+     * Adds a condition to a regular expression, so the expression matches
+     * only where the condition is satisfied. The condition is checked by
+     * lookarounds inside the same match, so it takes no extra searches.
+     *
+     * @param expression the regular expression.
+     * @param condition  the condition of the matches of the expression.
+     * @return the expression with the condition, or the same expression if
+     * the condition is {@link Correction.CONDITION#NONE}.
+     */
+    static String addCondition(String expression,
+                               Correction.CONDITION condition) {
+        switch (condition) {
+            case WHOLE_WORD:
+                return NOT_AFTER_WORD_CHAR + "(?:" + expression + ")" +
+                        NOT_BEFORE_WORD_CHAR;
+            case WORD_START:
+                return NOT_AFTER_WORD_CHAR + "(?:" + expression + ")";
+            case WORD_END:
+                return "(?:" + expression + ")" + NOT_BEFORE_WORD_CHAR;
+            case LINE_START:
+                return AT_LINE_START + "(?:" + expression + ")";
+            case LINE_END:
+                return "(?:" + expression + ")" + AT_LINE_END;
+            default:
+                return expression;
+        }
+    }
+
+    /**
+     * Makes a regular expression match its text in any case, including the
+     * case of the non-ASCII letters.
+     *
+     * @param expression the regular expression.
+     * @return the case-insensitive expression.
+     */
+    static String ignoreCase(String expression) {
+        return "(?iu:" + expression + ")";
+    }
+
+    private static Set<String> findGroupNames(String expression) {
+        Set<String> groupNames = new HashSet<>();
+
+        val matcher = NAMED_GROUP.matcher(expression);
+
+        while (matcher.find()) {
+            groupNames.add(matcher.group(1));
+        }
+
+        return groupNames;
+    }
+
+    private static long computeRuleBudget(int length) {
+        return (long) STEPS_PER_CHAR * length + MIN_STEPS;
+    }
+
+    // must be called while holding the lock
+    private void rebuildUnits() {
+        units = buildUnits(false);
+        separateUnits = buildUnits(true);
+    }
+
+    // must be called while holding the lock
+    private Unit[] buildUnits(boolean isEachRuleSeparate) {
+        List<Unit> builtUnits = new ArrayList<>();
+
+        List<Integer> combinedRules = new ArrayList<>();
+
+        for (int rule = 0; rule < expressions.length; rule++) {
+            if (disabledRules.get(rule)) {
+                continue;
+            }
+
+            if (isEachRuleSeparate || separateRules.get(rule) ||
+                    expressions.length == 1) {
+                builtUnits.add(new Unit(patterns[rule], new int[]{rule},
+                        new int[]{0}));
+            } else {
+                combinedRules.add(rule);
+            }
+        }
+
+        if (combinedRules.isEmpty()) {
+            return builtUnits.toArray(new Unit[0]);
+        }
+
+        val alternation = new StringBuilder();
+
+        val rules = new int[combinedRules.size()];
+        val groupOffsets = new int[combinedRules.size()];
+
+        int groupCount = 0;
+
+        for (int i = 0; i < rules.length; i++) {
+            rules[i] = combinedRules.get(i);
+
+            groupOffsets[i] = groupCount + 1;
+            groupCount += groupCounts[rules[i]] + 1;
+
+            if (i > 0) {
+                alternation.append('|');
+            }
+
+            alternation.append('(').append(expressions[rules[i]]).append(')');
+        }
+
+        try {
+            builtUnits.add(new Unit(Pattern.compile(alternation.toString()),
+                    rules, groupOffsets));
+        } catch (PatternSyntaxException e) {
+            for (int rule : rules) {
+                separateRules.set(rule);
+
+                builtUnits.add(new Unit(patterns[rule], new int[]{rule},
+                        new int[]{0}));
+            }
+        }
+
+        return builtUnits.toArray(new Unit[0]);
+    }
+
+    /*disables the rules of a unit that exceed their own budgets, or searches
+    for each rule of the unit separately if none of them does*/
+    private void disableOffenders(Unit unit, BudgetedCharSequence text,
+                                  int from, int to) {
+        val offenders = new BitSet();
+
+        if (unit.rules.length == 1) {
+            offenders.set(unit.rules[0]);
+        } else {
+            for (int rule : unit.rules) {
+                val matcher = createMatcher(patterns[rule], text);
+
+                text.setBudget(computeRuleBudget(to - from));
+
+                try {
+                    findNonEmpty(matcher.region(from, to));
+                } catch (BudgetExceededException e) {
+                    offenders.set(rule);
+                }
+            }
+        }
+
+        synchronized (this) {
+            if (offenders.isEmpty()) {
+                for (int rule : unit.rules) {
+                    separateRules.set(rule);
+                }
+            } else {
+                disabledRules.or(offenders);
+            }
+
+            rebuildUnits();
+        }
+    }
+
+    private static boolean findNonEmpty(Matcher matcher) {
+        boolean isFound = matcher.find();
+
+        while (isFound && matcher.end() == matcher.start()) {
+            isFound = matcher.find();
+        }
+
+        return isFound;
+    }
+
+    private static Matcher createMatcher(Pattern pattern, CharSequence text) {
+        return pattern.matcher(text)
+                .useTransparentBounds(true)
+                .useAnchoringBounds(false);
+    }
+
+    /*a set of rules searched for with one pattern; the groups of a rule are
+    numbered from its group offset*/
+    private static class Unit {
+
+        private final Pattern pattern;
+        private final int[] rules;
+        private final int[] groupOffsets;
+
+        private Unit(Pattern pattern, int[] rules, int[] groupOffsets) {
+            this.pattern = pattern;
+            this.rules = rules;
+            this.groupOffsets = groupOffsets;
+        }
+
+        private int findMatchedRule(Matcher matcher) {
+            if (rules.length == 1) {
+                return 0;
+            }
+
+            for (int i = 0; i < rules.length; i++) {
+                if (matcher.start(groupOffsets[i]) != -1) {
+                    return i;
+                }
+            }
+
+            throw new IllegalStateException("No rule matched");
+        }
+    }
+
+    private class Search {
+
+        private final CharSequence text;
+        private final BudgetedCharSequence budgetedText;
+        private final int to;
+        private final boolean endOfInput;
+        private final StringBuilder output;
+        private final CorrectionStatistics statistics;
+
+        private Unit[] searchedUnits;
+        private Matcher[] matchers;
+
+        // the next match of each unit and where its search started
+        private int[] starts;
+        private int[] ends;
+        private int[] matchedRules;
+        private int[] searchedFrom;
+        private boolean[] hitEnds;
+
+        private Search(CharSequence text, int to, boolean endOfInput,
+                       StringBuilder output, CorrectionStatistics statistics) {
+            this.text = text;
+            this.budgetedText = new BudgetedCharSequence(text);
+            this.to = to;
+            this.endOfInput = endOfInput;
+            this.output = output;
+            this.statistics = statistics;
+        }
+
+        private int run(int from) {
+            int limit = endOfInput ? to :
+                    Math.max(from, to - MAX_DEFERRED_LENGTH);
+
+            int position = from;
+
+            useCurrentUnits();
+
+            while (true) {
+                int best = NO_MATCH;
+                int unresolvedFrom = to;
+
+                boolean isRestarted = false;
+
+                for (int i = 0; i < searchedUnits.length; i++) {
+                    if (searchedFrom[i] == NOT_SEARCHED ||
+                            (starts[i] != NO_MATCH && starts[i] < position)) {
+                        if (!search(i, position)) {
+                            isRestarted = true;
+
+                            break;
+                        }
+                    }
+
+                    /*a search that hit the end could find a match after
+                    its start if more text followed*/
+                    if (!endOfInput && hitEnds[i]) {
+                        unresolvedFrom = Math.min(unresolvedFrom,
+                                Math.max(searchedFrom[i], position));
+                    }
+
+                    if (starts[i] != NO_MATCH && (best == NO_MATCH ||
+                            starts[i] < starts[best] ||
+                            (starts[i] == starts[best] &&
+                                    matchedRules[i] < matchedRules[best]))) {
+                        best = i;
+                    }
+                }
+
+                if (isRestarted) {
+                    continue;
+                }
+
+                int bound = Math.max(unresolvedFrom, limit);
+
+                if (best == NO_MATCH || starts[best] >= bound) {
+                    int resolved = Math.max(position, bound);
+
+                    output.append(text, position, resolved);
+
+                    return resolved;
+                }
+
+                output.append(text, position, starts[best]);
+
+                val unit = searchedUnits[best];
+                int ruleIndex = unit.findMatchedRule(matchers[best]);
+                int replacementStart = output.length();
+
+                replacements[unit.rules[ruleIndex]].appendTo(output, text,
+                        matchers[best], unit.groupOffsets[ruleIndex]);
+
+                if (caseInsensitivity[unit.rules[ruleIndex]]) {
+                    CaseFolding.copyCase(text, starts[best], ends[best],
+                            output, replacementStart);
+                }
+
+                if (statistics != null) {
+                    statistics.recordHit(corrections[unit.rules[ruleIndex]]);
+                }
+
+                position = ends[best];
+            }
+        }
+
+        private void useCurrentUnits() {
+            val units = statistics == null ? RegexPass.this.units :
+                    separateUnits;
+
+            searchedUnits = units;
+            matchers = new Matcher[units.length];
+
+            for (int i = 0; i < units.length; i++) {
+                matchers[i] = createMatcher(units[i].pattern, budgetedText);
+            }
+
+            starts = new int[units.length];
+            ends = new int[units.length];
+            matchedRules = new int[units.length];
+            searchedFrom = new int[units.length];
+            hitEnds = new boolean[units.length];
+
+            Arrays.fill(searchedFrom, NOT_SEARCHED);
+        }
+
+        // returns false if the units were rebuilt and the search must restart
+        private boolean search(int i, int from) {
+            val unit = searchedUnits[i];
+            val matcher = matchers[i];
+
+            budgetedText.setBudget(unit.rules.length *
+                    computeRuleBudget(to - from));
+
+            long startTime = statistics == null ? 0 : System.nanoTime();
+
+            try {
+                boolean isFound = findNonEmpty(matcher.region(from, to));
+
+                searchedFrom[i] = from;
+                hitEnds[i] = matcher.hitEnd();
+
+                if (isFound) {
+                    starts[i] = matcher.start();
+                    ends[i] = matcher.end();
+                    matchedRules[i] = unit.rules[unit.findMatchedRule(
+                            matcher)];
+                } else {
+                    starts[i] = NO_MATCH;
+                }
+
+                return true;
+            } catch (BudgetExceededException e) {
+                disableOffenders(unit, budgetedText, from, to);
+
+                useCurrentUnits();
+
+                return false;
+            } finally {
+                // the units are separate while the statistics are recorded
+                if (statistics != null) {
+                    statistics.recordMatchingTime(corrections[unit.rules[0]],
+                            System.nanoTime() - startTime);
+                }
+            }
+        }
+    }
+
+    // a parsed replacement string with references to groups
+    private static class Replacement {
+
+        private final List<String> literals = new ArrayList<>();
+        private final List<Integer> groups = new ArrayList<>();
+        private final List<String> groupNames = new ArrayList<>();
+
+        private Replacement(String replacement, int groupCount,
+                            Set<String> existingGroupNames) {
+            val literal = new StringBuilder();
+
+            int i = 0;
+
+            while (i < replacement.length()) {
+                char c = replacement.charAt(i);
+
+                if (c == '\\' && i + 1 < replacement.length()) {
+                    literal.append(replacement.charAt(i + 1));
+
+                    i += 2;
+
+                    continue;
+                }
+
+                if (c == '$' && i + 1 < replacement.length()) {
+                    int end = parseGroupName(replacement, i + 1,
+                            existingGroupNames);
+
+                    if (end != -1) {
+                        addReference(literal, -1,
+                                replacement.substring(i + 2, end - 1));
+
+                        i = end;
+
+                        continue;
+                    }
+
+                    end = parseGroupNumber(replacement, i + 1, groupCount);
+
+                    if (end != -1) {
+                        addReference(literal, Integer.parseInt(
+                                replacement.substring(i + 1, end)), null);
+
+                        i = end;
+
+                        continue;
+                    }
+                }
+
+                literal.append(c);
+
+                i++;
+            }
+
+            literals.add(literal.toString());
+        }
+
+        // returns the index after "{name}", or -1 if there is no such group
+        private static int parseGroupName(String replacement, int from,
+                                          Set<String> existingGroupNames) {
+            if (replacement.charAt(from) != '{') {
+                return -1;
+            }
+
+            int end = replacement.indexOf('}', from);
+
+            if (end == -1 || !existingGroupNames.contains(
+                    replacement.substring(from + 1, end))) {
+                return -1;
+            }
+
+            return end + 1;
+        }
+
+        /*returns the index after the longest number of an existing group, or
+        -1 if there is no such group*/
+        private static int parseGroupNumber(String replacement, int from,
+                                            int groupCount) {
+            int number = 0;
+            int end = -1;
+
+            for (int i = from; i < replacement.length(); i++) {
+                int digit = Character.digit(replacement.charAt(i), 10);
+
+                if (digit == -1) {
+                    break;
+                }
+
+                number = number * 10 + digit;
+
+                if (number > groupCount) {
+                    break;
+                }
+
+                end = i + 1;
+            }
+
+            return end;
+        }
+
+        private void addReference(StringBuilder literal, int group,
+                                  String groupName) {
+            literals.add(literal.toString());
+            groups.add(group);
+            groupNames.add(groupName);
+
+            literal.setLength(0);
+        }
+
+        private void appendTo(StringBuilder output, CharSequence text,
+                              Matcher matcher, int groupOffset) {
+            for (int i = 0; i < groups.size(); i++) {
+                output.append(literals.get(i));
+
+                int group = groups.get(i);
+
+                int start = group == -1 ? matcher.start(groupNames.get(i)) :
+                        matcher.start(groupOffset + group);
+                int end = group == -1 ? matcher.end(groupNames.get(i)) :
+                        matcher.end(groupOffset + group);
+
+                // a group that did not participate in the match is empty
+                if (start != -1) {
+                    output.append(text, start, end);
+                }
+            }
+
+            output.append(literals.get(literals.size() - 1));
+        }
+    }
+
+    // a text that throws an exception if too many of its chars are read
+    private static class BudgetedCharSequence implements CharSequence {
+
+        private final CharSequence text;
+
+        private long budget;
+
+        private BudgetedCharSequence(CharSequence text) {
+            this.text = text;
+        }
+
+        private void setBudget(long budget) {
+            this.budget = budget;
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (--budget < 0) {
+                throw BudgetExceededException.INSTANCE;
+            }
+
+            return text.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return text.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+
+    private static class BudgetExceededException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        /*the exception carries no state and no stack trace, so the same
+        instance is thrown every time the budget is exceeded*/
+        private static final BudgetExceededException INSTANCE =
+                new BudgetExceededException();
+
+        private BudgetExceededException() {
+            super(null, null, false, false);
+        }
+    }
+}
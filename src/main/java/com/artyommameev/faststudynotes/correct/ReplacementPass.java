@@ -0,0 +1,714 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.CompactCorrections;
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.NonNull;
+import lombok.val;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A single pass over a text that replaces the matches of a set of literal
+ * expressions with their replacements using an {@link AhoCorasickMatcher}.
+ * <p>
+ * Replacement rules are usually applied one after another, so a rule can
+ * correct the result of a previous rule. To keep this behavior, a list of
+ * rules is split into several passes by {@link #compile(List, List)}: a rule
+ * whose expression can match a text that contains any part of the
+ * replacement of a previous rule is moved to a pass after the pass of that
+ * rule. It is the case if the expression occurs in the replacement, contains
+ * it, starts with its end or ends with its start, or if the replacement is
+ * empty and the expression is long enough to join the chars around it. A
+ * rule is never moved to a pass before the pass of a previous rule, so it
+ * never matches the replacement of a later rule. Usually, all the rules fit
+ * into one pass.
+ * <p>
+ * A rule can have a {@link Correction.CONDITION}, which is checked against
+ * the chars of the text around a match while the text is scanned, so the
+ * conditional rules take no extra passes. If a match does not satisfy the
+ * condition of its rule, the next rule with the same expression is tried,
+ * and then the shorter matches. The conditions are checked against the text
+ * the pass is applied to, not against the replacements of the previous
+ * matches.
+ * <p>
+ * A case-insensitive rule matches its expression in any case, and its
+ * replacement gets the case of the matched text. If a pass has any
+ * case-insensitive rules, its automaton ignores the case, so all the case
+ * variants of an expression cost the same as one, and the case of the
+ * matches of the case-sensitive rules is checked while the text is scanned.
+ * <p>
+ * A pass of a dictionary that is applied to many texts can use a
+ * {@link GeneratedMatcher} that hard-codes its expressions instead of the
+ * automaton, if its rules have no conditions and are case-sensitive and if
+ * there are not too many of them. Both matchers give the same matches.
+ * <p>
+ * The rules and the automaton of a pass can be written to a buffer and read
+ * back (see {@link #writeTo(ByteBuffer)}), so neither the layers of the rules
+ * nor the automaton are computed again. The read pass always uses the
+ * automaton, since a generated matcher cannot be stored.
+ *
+ * @author Artyom Mameev
+ */
+class ReplacementPass implements CorrectionPass {
+
+    private final AhoCorasickMatcher matcher;
+    // null if the matches are found by the automaton
+    private final GeneratedMatcher generatedMatcher;
+    private final String[] expressions;
+    private final String[] replacements;
+    private final int[] corrections;
+    private final Correction.CONDITION[] conditions;
+    private final boolean[] caseInsensitivity;
+    private final BitSet expressionChars = new BitSet();
+    // the folded chars of the case-insensitive expressions
+    private final BitSet foldedExpressionChars = new BitSet();
+
+    private final boolean hasConditions;
+    private final boolean hasLineStartConditions;
+    private final boolean isFilterNeeded;
+
+    private ReplacementPass(List<Rule> rules, boolean isMatcherGenerated) {
+        this(rules, new AhoCorasickMatcher(rules.stream()
+                .map(rule -> rule.expression)
+                .collect(Collectors.toList()), rules.stream()
+                .anyMatch(rule -> rule.isCaseInsensitive)),
+                isMatcherGenerated);
+    }
+
+    private ReplacementPass(List<Rule> rules, AhoCorasickMatcher matcher,
+                            boolean isMatcherGenerated) {
+        this.matcher = matcher;
+        this.expressions = new String[rules.size()];
+        this.replacements = new String[rules.size()];
+        this.corrections = new int[rules.size()];
+        this.conditions = new Correction.CONDITION[rules.size()];
+        this.caseInsensitivity = new boolean[rules.size()];
+
+        boolean hasCaseInsensitiveRules = false;
+
+        for (int i = 0; i < rules.size(); i++) {
+            val rule = rules.get(i);
+
+            expressions[i] = rule.expression;
+            replacements[i] = rule.replacement;
+            corrections[i] = rule.correction;
+            conditions[i] = rule.condition;
+            caseInsensitivity[i] = rule.isCaseInsensitive;
+
+            hasCaseInsensitiveRules |= rule.isCaseInsensitive;
+
+            for (int j = 0; j < rule.expression.length(); j++) {
+                char c = rule.expression.charAt(j);
+
+                expressionChars.set(c);
+
+                if (rule.isCaseInsensitive) {
+                    foldedExpressionChars.set(CaseFolding.fold(c));
+                }
+            }
+        }
+
+        hasConditions = Arrays.stream(conditions)
+                .anyMatch(condition -> condition != Correction.CONDITION.NONE);
+        hasLineStartConditions = Arrays.asList(conditions).contains(
+                Correction.CONDITION.LINE_START);
+        // the case-sensitive matches are checked by the filter
+        isFilterNeeded = hasConditions || hasCaseInsensitiveRules;
+
+        generatedMatcher = isMatcherGenerated && !isFilterNeeded &&
+                expressions.length <= GeneratedMatcher.MAX_PATTERNS ?
+                new GeneratedMatcher(Arrays.asList(expressions)) : null;
+    }
+
+    /**
+     * Compiles a list of case-sensitive replacement rules without conditions
+     * into a sequence of passes.
+     *
+     * @param expressions  the expressions of the rules, in the order of the
+     *                     rules.
+     * @param replacements the replacements of the rules, in the order of the
+     *                     rules.
+     * @param corrections  the indexes of the
+     *                     {@link com.artyommameev.faststudynotes.domain.Correction}s
+     *                     of the rules in the {@link CorrectionStatistics}, in
+     *                     the order of the rules.
+     * @return the list of the passes that should be applied in the given
+     * order; the list is empty if there are no rules.
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the lists have different sizes.
+     */
+    static List<ReplacementPass> compile(@NonNull List<String> expressions,
+                                         @NonNull List<String> replacements,
+                                         @NonNull List<Integer> corrections) {
+        return compile(expressions, replacements, Collections.nCopies(
+                expressions.size(), Correction.CONDITION.NONE),
+                Collections.nCopies(expressions.size(), false), corrections);
+    }
+
+    /**
+     * Compiles a list of replacement rules into a sequence of passes.
+     *
+     * @param expressions       the expressions of the rules, in the order of
+     *                          the rules.
+     * @param replacements      the replacements of the rules, in the order of
+     *                          the rules.
+     * @param conditions        the conditions of the rules, in the order of
+     *                          the rules.
+     * @param caseInsensitivity whether each rule is case-insensitive, in the
+     *                          order of the rules.
+     * @param corrections       the indexes of the
+     *                          {@link com.artyommameev.faststudynotes.domain.Correction}s
+     *                          of the rules in the
+     *                          {@link CorrectionStatistics}, in the order of
+     *                          the rules.
+     * @return the list of the passes that should be applied in the given
+     * order; the list is empty if there are no rules.
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the lists have different sizes.
+     */
+    static List<ReplacementPass> compile(
+            @NonNull List<String> expressions,
+            @NonNull List<String> replacements,
+            @NonNull List<Correction.CONDITION> conditions,
+            @NonNull List<Boolean> caseInsensitivity,
+            @NonNull List<Integer> corrections) {
+        return compile(expressions, replacements, conditions,
+                caseInsensitivity, corrections, false);
+    }
+
+    /**
+     * Works the same as {@link #compile(List, List, List, List, List)}, but
+     * can generate a {@link GeneratedMatcher} for each pass that can use it.
+     * The generation is slower than the construction of an automaton, so it
+     * pays off only if the passes are applied to many texts.
+     *
+     * @param expressions        the expressions of the rules, in the order of
+     *                           the rules.
+     * @param replacements       the replacements of the rules, in the order
+     *                           of the rules.
+     * @param conditions         the conditions of the rules, in the order of
+     *                           the rules.
+     * @param caseInsensitivity  whether each rule is case-insensitive, in the
+     *                           order of the rules.
+     * @param corrections        the indexes of the
+     *                           {@link com.artyommameev.faststudynotes.domain.Correction}s
+     *                           of the rules in the
+     *                           {@link CorrectionStatistics}, in the order of
+     *                           the rules.
+     * @param isMatcherGenerated whether the matchers of the passes should be
+     *                           generated where possible.
+     * @return the list of the passes that should be applied in the given
+     * order; the list is empty if there are no rules.
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the lists have different sizes.
+     */
+    static List<ReplacementPass> compile(
+            @NonNull List<String> expressions,
+            @NonNull List<String> replacements,
+            @NonNull List<Correction.CONDITION> conditions,
+            @NonNull List<Boolean> caseInsensitivity,
+            @NonNull List<Integer> corrections, boolean isMatcherGenerated) {
+        if (expressions.size() != replacements.size() ||
+                expressions.size() != conditions.size() ||
+                expressions.size() != caseInsensitivity.size() ||
+                expressions.size() != corrections.size()) {
+            throw new IllegalArgumentException("Each expression must have " +
+                    "a replacement");
+        }
+
+        List<ReplacementPass> passes = new ArrayList<>();
+
+        /*an expression is already replaced by its first rule without a
+        condition, so the next rules that match the same text never match*/
+        val shadowingKeys = new HashSet<String>();
+        val seenRules = new HashSet<String>();
+
+        List<Rule> rules = new ArrayList<>();
+
+        for (int i = 0; i < expressions.size(); i++) {
+            val rule = new Rule(expressions.get(i), replacements.get(i),
+                    conditions.get(i), caseInsensitivity.get(i),
+                    corrections.get(i));
+
+            val caseInsensitiveKey = "i\0" + CaseFolding.fold(
+                    rule.expression);
+            val caseSensitiveKey = "s\0" + rule.expression;
+
+            if (shadowingKeys.contains(caseInsensitiveKey) ||
+                    (!rule.isCaseInsensitive &&
+                            shadowingKeys.contains(caseSensitiveKey)) ||
+                    !seenRules.add(rule.expression + '\0' + rule.condition +
+                            '\0' + rule.isCaseInsensitive)) {
+                continue;
+            }
+
+            if (rule.condition == Correction.CONDITION.NONE) {
+                shadowingKeys.add(rule.isCaseInsensitive ?
+                        caseInsensitiveKey : caseSensitiveKey);
+            }
+
+            rules.add(rule);
+        }
+
+        if (rules.isEmpty()) {
+            return passes;
+        }
+
+        val layers = computeLayers(rules);
+
+        int layersCount = 0;
+
+        for (int layer : layers) {
+            layersCount = Math.max(layersCount, layer + 1);
+        }
+
+        for (int layer = 0; layer < layersCount; layer++) {
+            List<Rule> layerRules = new ArrayList<>();
+
+            for (int i = 0; i < layers.length; i++) {
+                if (layers[i] == layer) {
+                    layerRules.add(rules.get(i));
+                }
+            }
+
+            passes.add(new ReplacementPass(layerRules, isMatcherGenerated));
+        }
+
+        return passes;
+    }
+
+    /**
+     * Reads the pass written by {@link #writeTo(ByteBuffer)} from the
+     * current position of a buffer, and moves the position to the end of
+     * the pass.
+     * <p>
+     * The rules are stored as the indexes of their {@link Correction}s, so
+     * they are read from the same {@link Correction}s the pass was compiled
+     * from.
+     *
+     * @param buffer      the buffer to read the pass from.
+     * @param corrections the {@link Correction}s the pass was compiled from.
+     * @return the read pass.
+     * @throws IllegalArgumentException if the data of the buffer is not a
+     *                                  valid pass of the {@link Correction}s.
+     */
+    static ReplacementPass readFrom(ByteBuffer buffer,
+                                    CompactCorrections corrections) {
+        int rulesCount = CompiledData.getCount(buffer);
+
+        val ruleCorrections = CompiledData.getInts(buffer, rulesCount);
+
+        List<Rule> rules = new ArrayList<>();
+
+        for (val correction : ruleCorrections) {
+            if (correction < 0 || correction >= corrections.size()) {
+                throw CompiledData.createMalformedDataException("a rule " +
+                        "has an unknown correction");
+            }
+
+            rules.add(new Rule(corrections.getExpression(correction),
+                    corrections.getCorrection(correction),
+                    corrections.getCondition(correction),
+                    corrections.isCaseInsensitive(correction), correction));
+        }
+
+        val matcher = AhoCorasickMatcher.readFrom(buffer);
+
+        if (rules.isEmpty() || matcher.getPatternsCount() != rules.size() ||
+                matcher.isCaseInsensitive() != rules.stream()
+                        .anyMatch(rule -> rule.isCaseInsensitive)) {
+            throw CompiledData.createMalformedDataException("the automaton " +
+                    "does not match the rules");
+        }
+
+        return new ReplacementPass(rules, matcher, false);
+    }
+
+    /**
+     * Returns the number of bytes that the pass takes when it is written by
+     * {@link #writeTo(ByteBuffer)}.
+     *
+     * @return the size of the written pass in bytes.
+     */
+    long getSerializedSize() {
+        return Integer.BYTES + (long) corrections.length * Integer.BYTES +
+                matcher.getSerializedSize();
+    }
+
+    /**
+     * Writes the indexes of the {@link Correction}s of the rules and the
+     * automaton of the pass to a buffer, starting at its current position,
+     * and moves the position to the end of the pass.
+     *
+     * @param buffer the buffer to write the pass to, which has at least
+     *               {@link #getSerializedSize()} bytes remaining.
+     */
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(corrections.length);
+
+        CompiledData.putInts(buffer, corrections);
+
+        matcher.writeTo(buffer);
+    }
+
+    /**
+     * Replaces all the matches of the expressions of the pass in a text,
+     * recording the hits of the applied rules.
+     *
+     * @param text       the text to correct.
+     * @param statistics the statistics to record, or null if the statistics
+     *                   should not be recorded.
+     * @return the corrected text, or the same string if nothing matches.
+     * @throws NullPointerException if the text is null.
+     */
+    @Override
+    public String apply(@NonNull String text,
+                        CorrectionStatistics statistics) {
+        val replacer = new Replacer(text, text.length(), true, null,
+                statistics);
+
+        if (generatedMatcher != null) {
+            generatedMatcher.findAll(text, 0, text.length(), true, replacer);
+        } else if (isFilterNeeded) {
+            matcher.findAll(text, 0, text.length(), true, replacer, replacer);
+        } else {
+            matcher.findAll(text, replacer);
+        }
+
+        if (replacer.output == null) {
+            return text;
+        }
+
+        replacer.copyUpTo(text.length());
+
+        return replacer.output.toString();
+    }
+
+    /**
+     * Replaces the matches of the expressions of the pass in a part of a
+     * text that is received in several parts.
+     * <p>
+     * If the part is not the end of the text, its last chars that could
+     * belong to a match continued in the next part are neither corrected nor
+     * written to the output, so the caller should carry them over to the next
+     * call together with the next part of the text.
+     *
+     * @param text       the text that contains the part to correct.
+     * @param from       the start index of the part, inclusive.
+     * @param to         the end index of the part, exclusive.
+     * @param endOfInput whether the part is the end of the text.
+     * @param output     the buffer to write the corrected text to.
+     * @param statistics the statistics to record, or null if the statistics
+     *                   should not be recorded.
+     * @return the index up to which the part was corrected and written to
+     * the output.
+     */
+    @Override
+    public int apply(CharSequence text, int from, int to, boolean endOfInput,
+                     StringBuilder output, CorrectionStatistics statistics) {
+        val replacer = new Replacer(text, to, endOfInput, output,
+                statistics);
+
+        replacer.copiedUpTo = from;
+
+        int resolved;
+
+        if (generatedMatcher != null) {
+            resolved = generatedMatcher.findAll(text, from, to, endOfInput,
+                    replacer);
+        } else if (isFilterNeeded) {
+            resolved = matcher.findAll(text, from, to, endOfInput, replacer,
+                    replacer);
+        } else {
+            resolved = matcher.findAll(text, from, to, endOfInput, replacer);
+        }
+
+        replacer.copyUpTo(resolved);
+
+        return resolved;
+    }
+
+    /**
+     * Checks if a char occurs in any expression of the pass, in any case for
+     * the case-insensitive expressions.
+     * <p>
+     * A char that does not occur in any expression can never be a part of a
+     * match, so a text can be split after such a char and its parts can be
+     * corrected separately. If any rule must match at the start of a line,
+     * a text can be split only after the line breaks, since the start of a
+     * part is the start of a line for the rule.
+     *
+     * @param c the char to check.
+     * @return true if any expression contains the char, or if the char is
+     * not a line break and any rule must match at the start of a line,
+     * otherwise false.
+     */
+    @Override
+    public boolean isExpressionChar(char c) {
+        return expressionChars.get(c) ||
+                foldedExpressionChars.get(CaseFolding.fold(c)) ||
+                (hasLineStartConditions && c != '\n');
+    }
+
+    /**
+     * Returns the number of the chars of the context the pass needs.
+     *
+     * @return 1 if any rule has a condition, which checks the char before a
+     * match, otherwise 0, since the literal expressions do not depend on the
+     * chars around their matches.
+     */
+    @Override
+    public int getContextLength() {
+        return hasConditions ? 1 : 0;
+    }
+
+    /*a rule is never applied before a previous rule, and must be applied
+    after every previous rule whose replacement can be a part of its match in
+    any case. The rules are ordered, so the bounds that a rule sets for the
+    later rules are final when they are reached*/
+    private static int[] computeLayers(List<Rule> rules) {
+        val matcher = new AhoCorasickMatcher(rules.stream()
+                .map(rule -> rule.expression)
+                .collect(Collectors.toList()), true);
+        val reversedMatcher = new AhoCorasickMatcher(rules.stream()
+                .map(rule -> reverse(rule.expression))
+                .collect(Collectors.toList()), true);
+
+        List<String> distinctReplacements = new ArrayList<>();
+        val replacementIndexes = new HashMap<String, Integer>();
+
+        for (val rule : rules) {
+            if (!rule.replacement.isEmpty()) {
+                replacementIndexes.computeIfAbsent(CaseFolding.fold(
+                        rule.replacement), replacement -> {
+                    distinctReplacements.add(replacement);
+
+                    return distinctReplacements.size() - 1;
+                });
+            }
+        }
+
+        val replacementMatcher = distinctReplacements.isEmpty() ? null :
+                new AhoCorasickMatcher(distinctReplacements, true);
+
+        val layers = new int[rules.size()];
+
+        /*the least layers of the rules whose expressions occur in the
+        replacements, by the first rules of the expressions, which the
+        automaton reports for all the rules that it treats as the same*/
+        val occurrenceBounds = new int[rules.size()];
+        // the least layers of the rules that start with the prefix nodes
+        val prefixBounds = new int[matcher.getNodesCount()];
+        // the least layers of the rules that end with the reversed nodes
+        val suffixBounds = new int[reversedMatcher.getNodesCount()];
+        // the least layers of the rules that contain the replacements
+        val replacementBounds = new int[distinctReplacements.size()];
+        // the least layer of the rules that can join the chars of a deletion
+        int deletionBound = 0;
+
+        val firstRules = new HashMap<String, Integer>();
+
+        for (int i = 0; i < rules.size(); i++) {
+            int rule = i;
+
+            val expression = rules.get(i).expression;
+            val replacement = rules.get(i).replacement;
+
+            firstRules.putIfAbsent(CaseFolding.fold(expression), i);
+
+            layers[rule] = Math.max(rule > 0 ? layers[rule - 1] : 0,
+                    occurrenceBounds[firstRules.get(CaseFolding.fold(
+                            expression))]);
+
+            for (int node : matcher.findPrefixNodes(expression)) {
+                layers[rule] = Math.max(layers[rule], prefixBounds[node]);
+            }
+
+            for (int node : reversedMatcher.findPrefixNodes(
+                    reverse(expression))) {
+                layers[rule] = Math.max(layers[rule], suffixBounds[node]);
+            }
+
+            if (replacementMatcher != null) {
+                replacementMatcher.findOccurrences(expression,
+                        (pattern, start, end) -> layers[rule] = Math.max(
+                                layers[rule], replacementBounds[pattern]));
+            }
+
+            if (expression.length() > 1) {
+                layers[rule] = Math.max(layers[rule], deletionBound);
+            }
+
+            int nextLayer = layers[rule] + 1;
+
+            if (replacement.isEmpty()) {
+                deletionBound = Math.max(deletionBound, nextLayer);
+
+                continue;
+            }
+
+            matcher.findOccurrences(replacement, (pattern, start, end) ->
+                    occurrenceBounds[pattern] = Math.max(
+                            occurrenceBounds[pattern], nextLayer));
+
+            // a match can start inside the replacement and end after it
+            for (int node : matcher.findSuffixNodes(replacement)) {
+                prefixBounds[node] = Math.max(prefixBounds[node], nextLayer);
+            }
+
+            // and start before the replacement and end inside it
+            for (int node : reversedMatcher.findSuffixNodes(
+                    reverse(replacement))) {
+                suffixBounds[node] = Math.max(suffixBounds[node], nextLayer);
+            }
+
+            int replacementIndex = replacementIndexes.get(
+                    CaseFolding.fold(replacement));
+
+            replacementBounds[replacementIndex] = Math.max(
+                    replacementBounds[replacementIndex], nextLayer);
+        }
+
+        return layers;
+    }
+
+    private static String reverse(String text) {
+        return new StringBuilder(text).reverse().toString();
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    private static boolean isLineBreak(char c) {
+        return c == '\n' || c == '\r';
+    }
+
+    private class Replacer implements AhoCorasickMatcher.MatchListener,
+            AhoCorasickMatcher.MatchFilter {
+
+        private final CharSequence text;
+        private final int to;
+        private final boolean endOfInput;
+        private final CorrectionStatistics statistics;
+
+        private StringBuilder output;
+        private int copiedUpTo;
+
+        private Replacer(CharSequence text, int to, boolean endOfInput,
+                         StringBuilder output,
+                         CorrectionStatistics statistics) {
+            this.text = text;
+            this.to = to;
+            this.endOfInput = endOfInput;
+            this.output = output;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public boolean accept(int pattern, int start, int end) {
+            if (!caseInsensitivity[pattern] && matcher.isCaseInsensitive() &&
+                    !isExactMatch(expressions[pattern], start)) {
+                return false;
+            }
+
+            switch (conditions[pattern]) {
+                case WHOLE_WORD:
+                    return isWordStart(start) && isWordEnd(end);
+                case WORD_START:
+                    return isWordStart(start);
+                case WORD_END:
+                    return isWordEnd(end);
+                case LINE_START:
+                    return start == 0 || isLineBreak(text.charAt(start - 1));
+                case LINE_END:
+                    return isUnresolved(end) || end == to ||
+                            isLineBreak(text.charAt(end));
+                default:
+                    return true;
+            }
+        }
+
+        @Override
+        public void onMatch(int pattern, int start, int end) {
+            if (output == null) {
+                output = new StringBuilder(text.length() + 16);
+            }
+
+            copyUpTo(start);
+
+            int replacementStart = output.length();
+
+            output.append(replacements[pattern]);
+
+            if (caseInsensitivity[pattern]) {
+                CaseFolding.copyCase(text, start, end, output,
+                        replacementStart);
+            }
+
+            copiedUpTo = end;
+
+            if (statistics != null) {
+                statistics.recordHit(corrections[pattern]);
+            }
+        }
+
+        private boolean isExactMatch(String expression, int start) {
+            for (int i = 0; i < expression.length(); i++) {
+                if (text.charAt(start + i) != expression.charAt(i)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private boolean isWordStart(int start) {
+            return start == 0 || !isWordChar(text.charAt(start - 1));
+        }
+
+        private boolean isWordEnd(int end) {
+            return isUnresolved(end) || end == to ||
+                    !isWordChar(text.charAt(end));
+        }
+
+        /*the char after the match is in the next part, which the matcher
+        always rescans, so the match is accepted for now*/
+        private boolean isUnresolved(int end) {
+            return end == to && !endOfInput;
+        }
+
+        private void copyUpTo(int end) {
+            output.append(text, copiedUpTo, end);
+
+            copiedUpTo = end;
+        }
+    }
+
+    private static class Rule {
+
+        private final String expression;
+        private final String replacement;
+        private final Correction.CONDITION condition;
+        private final boolean isCaseInsensitive;
+        private final int correction;
+
+        private Rule(String expression, String replacement,
+                     Correction.CONDITION condition, boolean isCaseInsensitive,
+                     int correction) {
+            this.expression = expression;
+            this.replacement = replacement;
+            this.condition = condition;
+            this.isCaseInsensitive = isCaseInsensitive;
+            this.correction = correction;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.val;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.List;
+
+/**
+ * A corrector of text streams that applies the same procedures as
+ * {@link BadOcrCorrector#correct(String, Correction.TYPE, List)}, but reads
+ * the text chunk by chunk and writes the result as soon as it is known.
+ * <p>
+ * The procedures are organized as a chain of stages, and each stage keeps only
+ * the last few chars of the chunk that it cannot decide on yet (e.g. the
+ * beginning of an expression that may be continued in the next chunk), so the
+ * memory usage does not depend on the size of the text.
+ *
+ * @author Artyom Mameev
+ */
+class StreamingCorrector {
+
+    static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private StreamingCorrector() {
+    }
+
+    /**
+     * Corrects a text stream.
+     *
+     * @param reader    the reader of the text to correct.
+     * @param writer    the writer to write the corrected text to.
+     * @param type      the type of the correction.
+     * @param passes    the passes of the given type.
+     * @param chunkSize the number of chars to read at once.
+     * @throws IOException if reading or writing fails.
+     */
+    static void correct(Reader reader, Writer writer, Correction.TYPE type,
+                        List<CorrectionPass> passes, int chunkSize)
+            throws IOException {
+        Stage stage = new WriterStage(writer, chunkSize);
+
+        for (int i = passes.size() - 1; i >= 0; i--) {
+            stage = new ReplacementStage(passes.get(i), stage);
+        }
+
+        if (type.equals(Correction.TYPE.TEXT)) {
+            stage = new NormalizationStage(stage);
+        }
+
+        if (type.equals(Correction.TYPE.CODE)) {
+            stage = new EndWhitespacesStage(stage);
+        }
+
+        val chunk = new char[chunkSize];
+        val chunkView = CharBuffer.wrap(chunk);
+
+        int read;
+
+        while ((read = reader.read(chunk)) != -1) {
+            stage.accept(chunkView, 0, read);
+        }
+
+        stage.finish();
+    }
+
+    private interface Stage {
+
+        void accept(CharSequence text, int from, int to) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static class NormalizationStage implements Stage {
+
+        private final Stage next;
+        private final StringBuilder buffer = new StringBuilder();
+        private final TextNormalizer normalizer =
+                new TextNormalizer(buffer);
+
+        private NormalizationStage(Stage next) {
+            this.next = next;
+        }
+
+        @Override
+        public void accept(CharSequence text, int from, int to)
+                throws IOException {
+            normalizer.append(text, from, to);
+
+            flushBuffer();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            normalizer.finish();
+
+            flushBuffer();
+
+            next.finish();
+        }
+
+        private void flushBuffer() throws IOException {
+            next.accept(buffer, 0, buffer.length());
+
+            buffer.setLength(0);
+        }
+    }
+
+    // keeps the whitespaces until a non-whitespace char follows them
+    private static class EndWhitespacesStage implements Stage {
+
+        private final Stage next;
+        private final StringBuilder whitespaces = new StringBuilder();
+
+        private EndWhitespacesStage(Stage next) {
+            this.next = next;
+        }
+
+        @Override
+        public void accept(CharSequence text, int from, int to)
+                throws IOException {
+            int lastNonWhitespace = to - 1;
+
+            while (lastNonWhitespace >= from &&
+                    TextNormalizer.isWhitespace(text.charAt(
+                            lastNonWhitespace))) {
+                lastNonWhitespace--;
+            }
+
+            if (lastNonWhitespace >= from) {
+                next.accept(whitespaces, 0, whitespaces.length());
+                next.accept(text, from, lastNonWhitespace + 1);
+
+                whitespaces.setLength(0);
+            }
+
+            whitespaces.append(text, lastNonWhitespace + 1, to);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            whitespaces.setLength(0);
+
+            next.finish();
+        }
+    }
+
+    // keeps the chars the pass needs as a context before the unresolved ones
+    private static class ReplacementStage implements Stage {
+
+        private final CorrectionPass pass;
+        private final Stage next;
+        private final StringBuilder carry = new StringBuilder();
+        private final StringBuilder output = new StringBuilder();
+
+        private int contextLength;
+
+        private ReplacementStage(CorrectionPass pass, Stage next) {
+            this.pass = pass;
+            this.next = next;
+        }
+
+        @Override
+        public void accept(CharSequence text, int from, int to)
+                throws IOException {
+            carry.append(text, from, to);
+
+            int resolved = pass.apply(carry, contextLength, carry.length(),
+                    false, output);
+
+            contextLength = Math.min(pass.getContextLength(), resolved);
+
+            carry.delete(0, resolved - contextLength);
+
+            flushOutput();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            pass.apply(carry, contextLength, carry.length(), true, output);
+
+            carry.setLength(0);
+
+            contextLength = 0;
+
+            flushOutput();
+
+            next.finish();
+        }
+
+        private void flushOutput() throws IOException {
+            next.accept(output, 0, output.length());
+
+            output.setLength(0);
+        }
+    }
+
+    private static class WriterStage implements Stage {
+
+        private final Writer writer;
+        private final char[] buffer;
+
+        private WriterStage(Writer writer, int bufferSize) {
+            this.writer = writer;
+            this.buffer = new char[bufferSize];
+        }
+
+        @Override
+        public void accept(CharSequence text, int from, int to)
+                throws IOException {
+            while (from < to) {
+                int length = Math.min(buffer.length, to - from);
+
+                for (int i = 0; i < length; i++) {
+                    buffer[i] = text.charAt(from + i);
+                }
+
+                writer.write(buffer, 0, length);
+
+                from += length;
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.artyommameev.faststudynotes.correct;
+
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * A single-pass normalizer of bad OCRed text.
+ * <p>
+ * The normalizer reads the text char by char and writes the result into one
+ * buffer, doing the following in the same pass:
+ * <p>
+ * 1. Replaces line breaks ("\r\n", "\r" or "\n") with whitespaces;<br>
+ * 2. Removes soft hyphens that are followed by a whitespace together with
+ * the whitespace;<br>
+ * 3. Replaces each pair of whitespaces with one whitespace;<br>
+ * 4. Removes a hyphen that follows a non-whitespace character and is
+ * followed by a whitespace, together with the whitespace (e.g. "pat- tern"
+ * becomes "pattern").
+ * <p>
+ * If the normalizer has the {@link WordFingerprints} of the known words, a
+ * hyphen after a word is removed only if the word joined with the next word
+ * is known and the hyphenated compound of the two words is not, and
+ * otherwise only the whitespace is removed, so a compound that was split at
+ * the end of a line is kept (e.g. "well- known" becomes "well-known"). The
+ * next word is collected in the same pass, and each candidate is checked in
+ * constant time.
+ * <p>
+ * Each of the steps works on the result of the previous one, as if the steps
+ * were separate regular expression replacements applied one after another,
+ * but every step only keeps the few chars it has not decided on yet, so the
+ * whole text is processed in linear time.
+ * <p>
+ * The normalizer can also receive a text in several parts, which allows to
+ * normalize a stream of text chunk by chunk.
+ *
+ * @author Artyom Mameev
+ */
+class TextNormalizer {
+
+    private static final char SOFT_HYPHEN = '\u00AD';
+
+    // the longer words are joined without checking them
+    private static final int MAX_WORD_LENGTH = 64;
+
+    private StringBuilder output;
+    // null if all the hyphenated line breaks are joined
+    private final WordFingerprints knownWords;
+
+    private boolean isAfterCarriageReturn;
+    private boolean isSoftHyphenPending;
+    private boolean isWhitespacePending;
+
+    // the last two chars that can start a hyphenated line break
+    private int hyphenWindowSize;
+    private char hyphenWindowFirst;
+    private char hyphenWindowSecond;
+
+    // the last letters and digits written to the output
+    private final StringBuilder lastWord = new StringBuilder();
+    // the letters and digits after a hyphenated line break
+    private final StringBuilder nextWord = new StringBuilder();
+    private final StringBuilder candidate = new StringBuilder();
+    private boolean isHyphenatedWordPending;
+
+    /**
+     * Instantiates a new Text Normalizer that joins all the hyphenated line
+     * breaks.
+     *
+     * @param output the buffer to write the normalized text to.
+     * @throws NullPointerException if the buffer is null.
+     */
+    TextNormalizer(@NonNull StringBuilder output) {
+        this.output = output;
+        this.knownWords = null;
+    }
+
+    /**
+     * Instantiates a new Text Normalizer that joins the hyphenated line
+     * breaks of the known words only.
+     *
+     * @param output     the buffer to write the normalized text to.
+     * @param knownWords the fingerprints of the known words.
+     * @throws NullPointerException if any parameter is null.
+     */
+    TextNormalizer(@NonNull StringBuilder output,
+                   @NonNull WordFingerprints knownWords) {
+        this.output = output;
+        this.knownWords = knownWords;
+    }
+
+    /**
+     * Normalizes a whole text, writing it to a buffer that replaces the
+     * buffer of the normalizer, so one normalizer can be reused for many
+     * texts.
+     *
+     * @param text   the text to normalize.
+     * @param output the buffer to write the normalized text to.
+     * @throws NullPointerException if any parameter is null.
+     */
+    void normalize(@NonNull CharSequence text,
+                   @NonNull StringBuilder output) {
+        this.output = output;
+
+        append(text, 0, text.length());
+        finish();
+    }
+
+    /**
+     * Normalizes a text.
+     *
+     * @param text the text to normalize.
+     * @return the normalized text.
+     * @throws NullPointerException if the text is null.
+     */
+    static String normalize(@NonNull String text) {
+        // the normalized text is never longer than the original one
+        val output = new StringBuilder(text.length());
+
+        val normalizer = new TextNormalizer(output);
+
+        normalizer.append(text, 0, text.length());
+        normalizer.finish();
+
+        return output.toString();
+    }
+
+    /**
+     * Normalizes a text, joining the hyphenated line breaks of the known
+     * words only.
+     *
+     * @param text       the text to normalize.
+     * @param knownWords the fingerprints of the known words.
+     * @return the normalized text.
+     * @throws NullPointerException if any parameter is null.
+     */
+    static String normalize(@NonNull String text,
+                            @NonNull WordFingerprints knownWords) {
+        val output = new StringBuilder(text.length());
+
+        val normalizer = new TextNormalizer(output, knownWords);
+
+        normalizer.append(text, 0, text.length());
+        normalizer.finish();
+
+        return output.toString();
+    }
+
+    /**
+     * Checks if a char is a whitespace in terms of regular expressions.
+     *
+     * @param c the char to check.
+     * @return true if the char belongs to the \s class of regular
+     * expressions, otherwise false.
+     */
+    static boolean isWhitespace(char c) {
+        return CharClasses.isWhitespace(c);
+    }
+
+    /**
+     * Normalizes a part of a text.
+     * <p>
+     * Some of the last chars may be kept by the normalizer until it receives
+     * the next part of the text or until it is finished.
+     *
+     * @param text the text that contains the part to normalize.
+     * @param from the start index of the part, inclusive.
+     * @param to   the end index of the part, exclusive.
+     */
+    void append(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            foldLineBreaks(text.charAt(i));
+        }
+    }
+
+    /**
+     * Writes all the chars that are kept by the normalizer, since no more
+     * text will be received.
+     */
+    void finish() {
+        if (isSoftHyphenPending) {
+            isSoftHyphenPending = false;
+
+            collapseWhitespaces(SOFT_HYPHEN);
+        }
+
+        if (isWhitespacePending) {
+            isWhitespacePending = false;
+
+            joinHyphenatedLineBreaks(' ');
+        }
+
+        if (isHyphenatedWordPending) {
+            joinHyphenatedWord();
+        }
+
+        if (hyphenWindowSize > 0) {
+            write(hyphenWindowFirst);
+        }
+
+        if (hyphenWindowSize > 1) {
+            write(hyphenWindowSecond);
+        }
+
+        hyphenWindowSize = 0;
+        isAfterCarriageReturn = false;
+        lastWord.setLength(0);
+    }
+
+    // step 1: "\r\n", "\r" and "\n" become a whitespace
+    private void foldLineBreaks(char c) {
+        if (c == '\n' && isAfterCarriageReturn) {
+            isAfterCarriageReturn = false;
+
+            return;
+        }
+
+        isAfterCarriageReturn = c == '\r';
+
+        removeSoftHyphens(c == '\r' || c == '\n' ? ' ' : c);
+    }
+
+    // step 2: a soft hyphen followed by a whitespace is removed
+    private void removeSoftHyphens(char c) {
+        if (isSoftHyphenPending) {
+            isSoftHyphenPending = false;
+
+            if (isWhitespace(c)) {
+                return;
+            }
+
+            collapseWhitespaces(SOFT_HYPHEN);
+        }
+
+        if (c == SOFT_HYPHEN) {
+            isSoftHyphenPending = true;
+
+            return;
+        }
+
+        collapseWhitespaces(c);
+    }
+
+    // step 3: each pair of whitespaces becomes one whitespace
+    private void collapseWhitespaces(char c) {
+        if (c == ' ') {
+            if (isWhitespacePending) {
+                isWhitespacePending = false;
+
+                joinHyphenatedLineBreaks(' ');
+            } else {
+                isWhitespacePending = true;
+            }
+
+            return;
+        }
+
+        if (isWhitespacePending) {
+            isWhitespacePending = false;
+
+            joinHyphenatedLineBreaks(' ');
+        }
+
+        joinHyphenatedLineBreaks(c);
+    }
+
+    // step 4: a hyphen between a non-whitespace and a whitespace is removed
+    private void joinHyphenatedLineBreaks(char c) {
+        if (isHyphenatedWordPending) {
+            if (Character.isLetterOrDigit(c) &&
+                    nextWord.length() < MAX_WORD_LENGTH) {
+                nextWord.append(c);
+
+                return;
+            }
+
+            joinHyphenatedWord();
+        }
+
+        if (hyphenWindowSize < 2) {
+            if (hyphenWindowSize == 0) {
+                hyphenWindowFirst = c;
+            } else {
+                hyphenWindowSecond = c;
+            }
+
+            hyphenWindowSize++;
+
+            return;
+        }
+
+        write(hyphenWindowFirst);
+
+        if (!isWhitespace(hyphenWindowFirst) && hyphenWindowSecond == '-' &&
+                isWhitespace(c)) {
+            hyphenWindowSize = 0;
+
+            // the decision waits for the next word
+            isHyphenatedWordPending = knownWords != null &&
+                    lastWord.length() > 0 &&
+                    lastWord.length() < MAX_WORD_LENGTH;
+
+            return;
+        }
+
+        hyphenWindowFirst = hyphenWindowSecond;
+        hyphenWindowSecond = c;
+    }
+
+    // the hyphen is kept unless only the joined word is known
+    private void joinHyphenatedWord() {
+        isHyphenatedWordPending = false;
+
+        candidate.setLength(0);
+        candidate.append(lastWord).append(nextWord);
+
+        boolean isJoinedWordKnown = knownWords.contains(candidate);
+
+        candidate.setLength(lastWord.length());
+        candidate.append('-').append(nextWord);
+
+        boolean isCompoundKnown = knownWords.contains(candidate);
+
+        // a too long next word cannot be checked, so it is joined
+        if (nextWord.length() > 0 && nextWord.length() < MAX_WORD_LENGTH &&
+                (!isJoinedWordKnown || isCompoundKnown)) {
+            joinHyphenatedLineBreaks('-');
+        }
+
+        for (int i = 0; i < nextWord.length(); i++) {
+            joinHyphenatedLineBreaks(nextWord.charAt(i));
+        }
+
+        nextWord.setLength(0);
+    }
+
+    private void write(char c) {
+        output.append(c);
+
+        if (knownWords == null) {
+            return;
+        }
+
+        if (Character.isLetterOrDigit(c)) {
+            if (lastWord.length() < MAX_WORD_LENGTH) {
+                lastWord.append(c);
+            } else {
+                // the beginning of a too long word cannot be checked
+                lastWord.setLength(MAX_WORD_LENGTH);
+            }
+        } else {
+            lastWord.setLength(0);
+        }
+    }
+}
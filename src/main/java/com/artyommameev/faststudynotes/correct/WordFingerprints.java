@@ -0,0 +1,188 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.suggest.Lexicon;
+import lombok.NonNull;
+import lombok.val;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A compact set of the known words that checks a word in constant time,
+ * which is used to decide how the hyphenated line breaks of a text are
+ * joined (see {@link TextNormalizer}).
+ * <p>
+ * Only a 64-bit fingerprint of each word is kept, in an open addressing
+ * table of primitive longs, so a word takes 16 bytes at most and a check
+ * takes one hash of the word and a few reads of the table. Two different
+ * words can have the same fingerprint, but the probability of it is
+ * negligible even for millions of words.
+ * <p>
+ * The words are compared ignoring case, the same way as by a
+ * {@link Lexicon}.
+ *
+ * @author Artyom Mameev
+ */
+public class WordFingerprints {
+
+    // marks an empty slot; the fingerprint 0 is stored as 1
+    private static final long EMPTY = 0;
+
+    private final long[] table;
+    private final int mask;
+    private final int size;
+
+    /**
+     * Instantiates new Word Fingerprints.
+     *
+     * @param words the known words.
+     * @throws NullPointerException     if the collection or any word is null.
+     * @throws IllegalArgumentException if any word is empty.
+     */
+    public WordFingerprints(@NonNull Collection<String> words) {
+        int capacity = Integer.highestOneBit(Math.max(words.size(), 1) * 2);
+
+        // the table is at most half full, so the probe sequences are short
+        if (capacity < words.size() * 2) {
+            capacity <<= 1;
+        }
+
+        this.table = new long[capacity];
+        this.mask = capacity - 1;
+
+        int size = 0;
+
+        for (val word : words) {
+            if (word.isEmpty()) {
+                throw new IllegalArgumentException("Word cannot be empty");
+            }
+
+            if (add(computeFingerprint(word, 0, word.length()))) {
+                size++;
+            }
+        }
+
+        this.size = size;
+    }
+
+    /**
+     * Reads a word list and creates the fingerprints of its words.
+     * <p>
+     * The word list has the same format as the word list of
+     * {@link Lexicon#read(Reader)}, and the frequencies of the words are
+     * ignored.
+     * <p>
+     * The reader is not closed by this method.
+     *
+     * @param reader the reader of the word list.
+     * @return the fingerprints of the words of the list.
+     * @throws NullPointerException if the reader is null.
+     * @throws IOException          if reading fails or if a line of the word
+     *                              list is malformed.
+     */
+    public static WordFingerprints read(@NonNull Reader reader)
+            throws IOException {
+        List<String> words = new ArrayList<>();
+
+        Lexicon.readWords(reader, (word, frequency) -> words.add(word));
+
+        return new WordFingerprints(words);
+    }
+
+    /**
+     * Returns the number of the known words.
+     *
+     * @return the number of the distinct fingerprints of the words.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the approximate memory usage of the data of the fingerprints.
+     *
+     * @return the number of bytes taken by the table of the fingerprints.
+     */
+    public long getSizeInBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    /**
+     * Checks if a word is known, ignoring case.
+     *
+     * @param word the word to check.
+     * @return true if the word is known, otherwise false.
+     * @throws NullPointerException if the word is null.
+     */
+    public boolean contains(@NonNull CharSequence word) {
+        return contains(word, 0, word.length());
+    }
+
+    /**
+     * Checks if a part of a text is a known word, ignoring case.
+     *
+     * @param text  the text that contains the word.
+     * @param start the start index of the word, inclusive.
+     * @param end   the end index of the word, exclusive.
+     * @return true if the word is known, otherwise false.
+     * @throws NullPointerException      if the text is null.
+     * @throws IndexOutOfBoundsException if the indexes are out of range.
+     */
+    public boolean contains(@NonNull CharSequence text, int start, int end) {
+        if (start < 0 || end > text.length() || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " +
+                    end + ", length " + text.length());
+        }
+
+        if (start == end) {
+            return false;
+        }
+
+        long fingerprint = computeFingerprint(text, start, end);
+
+        for (int slot = (int) fingerprint & mask; table[slot] != EMPTY;
+             slot = (slot + 1) & mask) {
+            if (table[slot] == fingerprint) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean add(long fingerprint) {
+        int slot = (int) fingerprint & mask;
+
+        while (table[slot] != EMPTY) {
+            if (table[slot] == fingerprint) {
+                return false;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        table[slot] = fingerprint;
+
+        return true;
+    }
+
+    // the FNV-1a hash of the lower case chars with a final mix
+    private static long computeFingerprint(CharSequence text, int start,
+                                           int end) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = start; i < end; i++) {
+            hash ^= Character.toLowerCase(text.charAt(i));
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+
+        return hash == EMPTY ? 1 : hash;
+    }
+}
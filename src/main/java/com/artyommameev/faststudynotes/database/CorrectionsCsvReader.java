@@ -0,0 +1,279 @@
+package com.artyommameev.faststudynotes.database;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A reader of {@link Correction}s from a CSV or TSV file, which reads one
+ * {@link Correction} at a time, so a dictionary of any size can be streamed.
+ * <p>
+ * Each record of the file contains the fields of a {@link Correction}:
+ * <p>
+ * expression, correction[, type[, kind[, condition[, ignore case]]]]
+ * <p>
+ * The omitted or empty fields get the {@link Correction.TYPE#TEXT} type,
+ * the {@link Correction.KIND#LITERAL} kind, the
+ * {@link Correction.CONDITION#NONE} condition and the case-sensitive
+ * matching. The names of the type, the kind and the condition are not case
+ * sensitive, and the ignore case field is "true", "false", "1" or "0".
+ * <p>
+ * The fields are separated by tabs if the first line of the file contains a
+ * tab, and by commas otherwise. A field can be enclosed in double quotes, in
+ * which case it can contain separators and line breaks, and a double quote
+ * inside it is written as two double quotes. The whitespaces of the fields
+ * are kept, since they can be a part of an expression. Empty lines are
+ * skipped, and so is the first record if its first field is "expression".
+ *
+ * @author Artyom Mameev
+ */
+public class CorrectionsCsvReader {
+
+    private static final int MIN_FIELDS = 2;
+    private static final int MAX_FIELDS = 6;
+
+    private static final int NO_SEPARATOR = -1;
+    // the longer first line is separated by commas if it has no tab before
+    private static final int MAX_DETECTION_LENGTH = 8192;
+
+    private final BufferedReader reader;
+    private final List<String> fields = new ArrayList<>(MAX_FIELDS);
+    private final StringBuilder field = new StringBuilder();
+
+    private int separator = NO_SEPARATOR;
+    private boolean isFirstRecord = true;
+    // the char that was read after a record, or -1
+    private int nextChar = -1;
+    private boolean isNextCharRead;
+
+    /**
+     * Returns the number of the line the last read record ended on.
+     */
+    @Getter
+    private int lineNumber;
+
+    /**
+     * Instantiates a new Corrections CSV Reader.
+     * <p>
+     * The reader of the file is not closed by the Corrections CSV Reader.
+     *
+     * @param reader the reader of the CSV or TSV file.
+     * @throws NullPointerException if the reader is null.
+     */
+    public CorrectionsCsvReader(@NonNull Reader reader) {
+        this.reader = reader instanceof BufferedReader ?
+                (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    /**
+     * Reads the next {@link Correction} of the file.
+     *
+     * @return the next {@link Correction}, or null if the end of the file
+     * is reached.
+     * @throws IOException if reading fails or if a record of the file is
+     *                     malformed.
+     */
+    public Correction read() throws IOException {
+        while (readRecord()) {
+            if (fields.size() == 1 && fields.get(0).trim().isEmpty()) {
+                continue;
+            }
+
+            if (isFirstRecord) {
+                isFirstRecord = false;
+
+                if (fields.get(0).equalsIgnoreCase("expression")) {
+                    continue;
+                }
+            }
+
+            return createCorrection();
+        }
+
+        return null;
+    }
+
+    private Correction createCorrection() throws IOException {
+        if (fields.size() < MIN_FIELDS || fields.size() > MAX_FIELDS) {
+            throw createMalformedRecordException("expected from " +
+                    MIN_FIELDS + " to " + MAX_FIELDS + " fields");
+        }
+
+        try {
+            return new Correction(fields.get(0), fields.get(1),
+                    parseEnum(Correction.TYPE.class, 2, Correction.TYPE.TEXT),
+                    parseEnum(Correction.KIND.class, 3,
+                            Correction.KIND.LITERAL),
+                    parseEnum(Correction.CONDITION.class, 4,
+                            Correction.CONDITION.NONE),
+                    parseBoolean(5));
+        } catch (IllegalArgumentException e) {
+            throw createMalformedRecordException(e.getMessage());
+        }
+    }
+
+    private <T extends Enum<T>> T parseEnum(Class<T> enumClass, int index,
+                                            T defaultValue) {
+        if (index >= fields.size() || fields.get(index).trim().isEmpty()) {
+            return defaultValue;
+        }
+
+        val name = fields.get(index).trim();
+
+        try {
+            return Enum.valueOf(enumClass, name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " +
+                    enumClass.getSimpleName().toLowerCase(Locale.ROOT) +
+                    " " + name);
+        }
+    }
+
+    private boolean parseBoolean(int index) {
+        if (index >= fields.size()) {
+            return false;
+        }
+
+        switch (fields.get(index).trim().toLowerCase(Locale.ROOT)) {
+            case "":
+            case "0":
+            case "false":
+                return false;
+            case "1":
+            case "true":
+                return true;
+            default:
+                throw new IllegalArgumentException("Ignore case must be " +
+                        "true or false");
+        }
+    }
+
+    // reads the fields of the next record; returns false at the end
+    private boolean readRecord() throws IOException {
+        fields.clear();
+        field.setLength(0);
+
+        int c = readChar();
+
+        if (c == -1) {
+            return false;
+        }
+
+        lineNumber++;
+
+        boolean isQuoted = false;
+        boolean isFieldStart = true;
+
+        while (true) {
+            if (isQuoted) {
+                if (c == -1) {
+                    throw createMalformedRecordException("unclosed quote");
+                }
+
+                if (c == '"') {
+                    c = readChar();
+
+                    // a doubled quote is a quote char of the field
+                    if (c != '"') {
+                        isQuoted = false;
+
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    lineNumber++;
+                }
+
+                field.append((char) c);
+
+                c = readChar();
+
+                continue;
+            }
+
+            if (c == -1 || c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    c = readChar();
+
+                    if (c != '\n') {
+                        unreadChar(c);
+                    }
+                }
+
+                fields.add(field.toString());
+
+                return true;
+            }
+
+            if (separator == NO_SEPARATOR) {
+                detectSeparator(c);
+            }
+
+            if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+
+                isFieldStart = true;
+            } else if (c == '"' && isFieldStart) {
+                isQuoted = true;
+
+                isFieldStart = false;
+            } else {
+                field.append((char) c);
+
+                isFieldStart = false;
+            }
+
+            c = readChar();
+        }
+    }
+
+    // the first line decides the separator of the whole file
+    private void detectSeparator(int firstChar) throws IOException {
+        reader.mark(MAX_DETECTION_LENGTH);
+
+        separator = ',';
+
+        int c = firstChar;
+
+        for (int i = 0; i < MAX_DETECTION_LENGTH && c != -1 && c != '\n' &&
+                c != '\r'; i++) {
+            if (c == '\t') {
+                separator = '\t';
+
+                break;
+            }
+
+            c = reader.read();
+        }
+
+        reader.reset();
+    }
+
+    private int readChar() throws IOException {
+        if (isNextCharRead) {
+            isNextCharRead = false;
+
+            return nextChar;
+        }
+
+        return reader.read();
+    }
+
+    private void unreadChar(int c) {
+        nextChar = c;
+        isNextCharRead = true;
+    }
+
+    private IOException createMalformedRecordException(String reason) {
+        return new IOException("Malformed corrections line " + lineNumber +
+                ": " + reason);
+    }
+}
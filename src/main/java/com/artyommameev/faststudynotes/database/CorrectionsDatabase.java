@@ -1,5 +1,6 @@
 package com.artyommameev.faststudynotes.database;
 
+import com.artyommameev.faststudynotes.domain.CompactCorrections;
 import com.artyommameev.faststudynotes.domain.Correction;
 import lombok.NonNull;
 import lombok.experimental.UtilityClass;
@@ -7,13 +8,37 @@ import lombok.val;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * An abstraction of simple JDBC database for storing, querying, removing
  * and updating {@link Correction}s.
+ * <p>
+ * The database keeps one connection, which is opened by the first call and
+ * is used by all the next ones until {@link #close()} is called, so a call
+ * does not pay for opening the database file. The connection uses the
+ * write-ahead log with the "NORMAL" synchronization, which makes a change
+ * durable without waiting for the disk twice, and reads the database file
+ * through a memory map. Each SQL statement is prepared once and is reused
+ * by the next calls.
+ * <p>
+ * The {@link Correction}s can be queried by pages (see
+ * {@link #query(CorrectionsQuery, long, int)}), so a large dictionary does
+ * not need to be read at once. The columns the {@link Correction}s are
+ * usually sorted and filtered by have their own indexes, and the
+ * expressions and the corrections are indexed by two FTS5 full-text tables:
+ * one of the words for the full-text search and one of the trigrams for the
+ * substring search. The full-text tables keep no copy of the text, and are
+ * kept up to date by triggers.
+ * <p>
+ * The methods are synchronized, since the connection and its statements
+ * are shared.
  *
  * @author Artyom Mameev
  */
@@ -21,30 +46,73 @@ import java.util.List;
 @UtilityClass
 public class CorrectionsDatabase {
 
-    private static final int SQLITE_CONSTRAINT_PRIMARYKEY_ERROR_CODE = 19;
+    private static final int SQLITE_CONSTRAINT_ERROR_CODE = 19;
 
     private static final String DB_NAME = "corrections";
     private static final String DB_URL = "jdbc:sqlite:" +
             System.getProperty("user.dir") + "\\" + DB_NAME + ".db";
 
+    // the size of the database file that can be read through a memory map
+    private static final long MMAP_SIZE = 256L * 1024 * 1024;
+
+    // the trigram index cannot find a shorter text
+    private static final int MIN_TRIGRAM_SEARCH_LENGTH = 3;
+
+    // null until the first call or after the database is closed
+    private static Connection connection;
+    private static final Map<String, PreparedStatement> statements =
+            new HashMap<>();
 
     /**
      * Creates the database if it does not exist.
+     * <p>
+     * The database created by a previous version of the application is
+     * updated to store the kinds and the usage statistics of the
+     * {@link Correction}s, and all its {@link Correction}s get the
+     * {@link Correction.KIND#LITERAL} kind, the
+     * {@link Correction.CONDITION#NONE} condition, the case-sensitive
+     * matching and empty statistics. A database without the id column is
+     * rebuilt to give every {@link Correction} a stable id in the order of
+     * the database. The indexes and the full-text tables of the
+     * {@link Correction}s are created and filled if they do not exist.
      *
      * @throws CorrectionsDatabaseException if the connection with the database
      *                                      fails.
      */
-    public static void init() throws CorrectionsDatabaseException {
-        val createIfNotExistsSql =
-                "CREATE TABLE IF NOT EXISTS " + DB_NAME + " (\n" +
-                        "expression text NOT NULL,\n" +
-                        "correction text NOT NULL,\n" +
-                        "correction_type text NOT NULL,\n" +
-                        "PRIMARY KEY (expression, correction_type)" + ");";
-
-        try (val connection = connect();
-             val preparedStatement = connection.createStatement()) {
-            preparedStatement.execute(createIfNotExistsSql);
+    public static synchronized void init()
+            throws CorrectionsDatabaseException {
+        val connection = connect();
+
+        // the columns of the prepared statements may change
+        closeStatements();
+
+        try (val preparedStatement = connection.createStatement()) {
+            preparedStatement.execute(createTableSql("IF NOT EXISTS " +
+                    DB_NAME));
+
+            addColumnIfNotExists(connection, "correction_kind",
+                    "text NOT NULL DEFAULT 'LITERAL'");
+            addColumnIfNotExists(connection, "condition",
+                    "text NOT NULL DEFAULT 'NONE'");
+            addColumnIfNotExists(connection, "case_insensitive",
+                    "integer NOT NULL DEFAULT 0");
+            addColumnIfNotExists(connection, "hits",
+                    "integer NOT NULL DEFAULT 0");
+            addColumnIfNotExists(connection, "matching_time",
+                    "integer NOT NULL DEFAULT 0");
+
+            addIdColumnIfNotExists(connection);
+
+            // the expressions are already indexed by the unique constraint
+            createIndexIfNotExists(connection, "correction_type");
+            createIndexIfNotExists(connection, "correction");
+            createIndexIfNotExists(connection, "hits");
+            createIndexIfNotExists(connection, "matching_time");
+
+            createSearchTableIfNotExists(connection, DB_NAME + "_words",
+                    "unicode61");
+            createSearchTableIfNotExists(connection, DB_NAME + "_trigrams",
+                    "trigram");
         } catch (SQLException e) {
             throw new CorrectionsDatabaseException(e);
         }
@@ -58,25 +126,31 @@ public class CorrectionsDatabase {
      * @throws CorrectionsDatabaseException if the connection with the database
      *                                      fails.
      */
-    public static void insert(@NonNull Correction correction)
+    public static synchronized void insert(@NonNull Correction correction)
             throws CorrectionsDatabaseException,
             CorrectionAlreadyExistsException {
         val insertSql = "INSERT INTO " + DB_NAME +
-                "(expression,correction,correction_type) VALUES(?,?,?)";
+                "(expression,correction,correction_type,correction_kind," +
+                "condition,case_insensitive) VALUES(?,?,?,?,?,?)";
+
+        try {
+            val preparedStatement = prepare(insertSql);
 
-        try (val connection = connect();
-             val preparedStatement = connection
-                     .prepareStatement(insertSql)) {
             preparedStatement.setString(1,
                     correction.getExpression());
             preparedStatement.setString(2,
                     correction.getCorrection());
             preparedStatement.setString(3,
                     correction.getType().toString());
+            preparedStatement.setString(4,
+                    correction.getKind().toString());
+            preparedStatement.setString(5,
+                    correction.getCondition().toString());
+            preparedStatement.setBoolean(6, correction.isCaseInsensitive());
 
             preparedStatement.executeUpdate();
         } catch (SQLException e) {
-            if (e.getErrorCode() == SQLITE_CONSTRAINT_PRIMARYKEY_ERROR_CODE) {
+            if (e.getErrorCode() == SQLITE_CONSTRAINT_ERROR_CODE) {
                 throw new CorrectionAlreadyExistsException();
             } else throw new CorrectionsDatabaseException(e);
         }
@@ -89,31 +163,142 @@ public class CorrectionsDatabase {
      * @throws CorrectionsDatabaseException if the connection with the database
      *                                      fails.
      */
-    public static List<Correction> getAll() throws CorrectionsDatabaseException {
-        val selectSql = "SELECT expression, correction, correction_type FROM " +
-                DB_NAME;
+    public static synchronized List<Correction> getAll()
+            throws CorrectionsDatabaseException {
+        val selectSql = "SELECT expression, correction, correction_type, " +
+                "correction_kind, condition, case_insensitive, hits, " +
+                "matching_time FROM " + DB_NAME;
 
         List<Correction> corrections = new ArrayList<>();
 
-        try (val connection = connect();
-             val statement = connection.createStatement();
-             val resultSet = statement.executeQuery(selectSql)) {
+        try (val resultSet = prepare(selectSql).executeQuery()) {
+            while (resultSet.next()) {
+                corrections.add(readCorrection(resultSet));
+            }
+        } catch (SQLException e) {
+            throw new CorrectionsDatabaseException(e);
+        }
+
+        return corrections;
+    }
+
+    /**
+     * Queries a page of the {@link Correction}s that match a
+     * {@link CorrectionsQuery} from the database.
+     * <p>
+     * Only the {@link Correction}s of the page are read. The type filter and
+     * the sorting use the indexes of the columns, and the search uses the
+     * full-text tables, except for a substring search of a text shorter than
+     * three chars, which the trigrams cannot find, so the
+     * {@link Correction}s are scanned instead.
+     *
+     * @param query  the query of the {@link Correction}s.
+     * @param offset the number of the matching {@link Correction}s to skip.
+     * @param limit  the maximal number of the {@link Correction}s of the
+     *               page.
+     * @return the page of the matching {@link Correction}s, with the number
+     * of all of them.
+     * @throws NullPointerException         if the query is null.
+     * @throws IllegalArgumentException     if the offset or the limit is
+     *                                      negative.
+     * @throws CorrectionsDatabaseException if the connection with the database
+     *                                      fails.
+     */
+    public static synchronized CorrectionsPage query(
+            @NonNull CorrectionsQuery query, long offset, int limit)
+            throws CorrectionsDatabaseException {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("The offset and the limit " +
+                    "must not be negative");
+        }
+
+        val whereSql = createWhereSql(query);
+
+        val countSql = "SELECT count(*) FROM " + DB_NAME + whereSql;
+
+        val selectSql = "SELECT expression, correction, correction_type, " +
+                "correction_kind, condition, case_insensitive, hits, " +
+                "matching_time FROM " + DB_NAME + whereSql +
+                createOrderSql(query) + " LIMIT ? OFFSET ?";
+
+        try {
+            val countStatement = prepare(countSql);
+
+            bindWhereParameters(countStatement, query);
+
+            long totalCount;
+
+            try (val resultSet = countStatement.executeQuery()) {
+                totalCount = resultSet.next() ? resultSet.getLong(1) : 0;
+            }
+
+            val selectStatement = prepare(selectSql);
+
+            int index = bindWhereParameters(selectStatement, query);
+
+            selectStatement.setInt(index++, limit);
+            selectStatement.setLong(index, offset);
+
+            List<Correction> corrections = new ArrayList<>(limit);
+
+            try (val resultSet = selectStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    corrections.add(readCorrection(resultSet));
+                }
+            }
+
+            return new CorrectionsPage(corrections, offset, totalCount);
+        } catch (SQLException e) {
+            throw new CorrectionsDatabaseException(e);
+        }
+    }
+
+    /**
+     * Queries all {@link Correction}s from the database into
+     * {@link CompactCorrections}, without creating a {@link Correction}
+     * object for each of them.
+     * <p>
+     * Should be preferred to {@link #getAll()} for large dictionaries.
+     *
+     * @param isOffHeap whether the {@link CompactCorrections} should keep
+     *                  their arena off-heap.
+     * @return the list of all {@link Correction}s from the database.
+     * @throws CorrectionsDatabaseException if the connection with the database
+     *                                      fails.
+     */
+    public static synchronized CompactCorrections getAllCompact(
+            boolean isOffHeap)
+            throws CorrectionsDatabaseException {
+        val selectSql = "SELECT expression, correction, correction_type, " +
+                "correction_kind, condition, case_insensitive, hits, " +
+                "matching_time FROM " + DB_NAME;
+
+        val builder = new CompactCorrections.Builder();
+
+        try (val resultSet = prepare(selectSql).executeQuery()) {
             while (resultSet.next()) {
-                corrections.add(new Correction(
-                        resultSet.getString("expression"),
+                builder.add(resultSet.getString("expression"),
                         resultSet.getString("correction"),
                         Correction.TYPE.valueOf(resultSet.getString(
-                                "correction_type"))));
+                                "correction_type")),
+                        Correction.KIND.valueOf(resultSet.getString(
+                                "correction_kind")),
+                        Correction.CONDITION.valueOf(resultSet.getString(
+                                "condition")),
+                        resultSet.getBoolean("case_insensitive"),
+                        resultSet.getLong("hits"),
+                        resultSet.getLong("matching_time"));
             }
         } catch (SQLException e) {
             throw new CorrectionsDatabaseException(e);
         }
 
-        return corrections;
+        return builder.build(isOffHeap);
     }
 
     /**
-     * Removes a {@link Correction} object from the database.
+     * Removes a {@link Correction} object with the same expression and type
+     * from the database.
      *
      * @param correction the {@link Correction} object to remove.
      * @throws NullPointerException         if the {@link Correction} object is
@@ -121,15 +306,18 @@ public class CorrectionsDatabase {
      * @throws CorrectionsDatabaseException if the connection with the database
      *                                      fails.
      */
-    public static void remove(@NonNull Correction correction)
+    public static synchronized void remove(@NonNull Correction correction)
             throws CorrectionsDatabaseException {
-        val removeSql = "DELETE FROM " + DB_NAME + " WHERE expression = ?";
+        val removeSql = "DELETE FROM " + DB_NAME + " WHERE expression = ? " +
+                "AND correction_type = ?";
+
+        try {
+            val preparedStatement = prepare(removeSql);
 
-        try (val connection = connect();
-             val preparedStatement = connection
-                     .prepareStatement(removeSql)) {
             preparedStatement.setString(1,
                     correction.getExpression());
+            preparedStatement.setString(2,
+                    correction.getType().toString());
 
             preparedStatement.executeUpdate();
         } catch (SQLException e) {
@@ -138,7 +326,8 @@ public class CorrectionsDatabase {
     }
 
     /**
-     * Updates a {@link Correction} object in the database.
+     * Updates a {@link Correction} object with the same expression and type
+     * in the database.
      *
      * @param oldCorrection the {@link Correction} object to update.
      * @param newCorrection the updated {@link Correction} object.
@@ -146,16 +335,18 @@ public class CorrectionsDatabase {
      * @throws CorrectionsDatabaseException if the connection with the database
      *                                      fails.
      */
-    public static void update(@NonNull Correction oldCorrection,
-                              @NonNull Correction newCorrection)
+    public static synchronized void update(@NonNull Correction oldCorrection,
+                                           @NonNull Correction newCorrection)
             throws CorrectionsDatabaseException {
         val updateSql = "UPDATE " + DB_NAME + " SET expression = ? , " +
-                "correction = ? , " + "correction_type = ? " +
-                "WHERE expression = ?";
+                "correction = ? , " + "correction_type = ? , " +
+                "correction_kind = ? , " + "condition = ? , " +
+                "case_insensitive = ? " + "WHERE expression = ? " +
+                "AND correction_type = ?";
+
+        try {
+            val preparedStatement = prepare(updateSql);
 
-        try (val connection = connect();
-             val preparedStatement = connection
-                     .prepareStatement(updateSql)) {
             preparedStatement.setString(1,
                     newCorrection.getExpression());
             preparedStatement.setString(2,
@@ -163,7 +354,15 @@ public class CorrectionsDatabase {
             preparedStatement.setString(3,
                     newCorrection.getType().toString());
             preparedStatement.setString(4,
+                    newCorrection.getKind().toString());
+            preparedStatement.setString(5,
+                    newCorrection.getCondition().toString());
+            preparedStatement.setBoolean(6,
+                    newCorrection.isCaseInsensitive());
+            preparedStatement.setString(7,
                     oldCorrection.getExpression());
+            preparedStatement.setString(8,
+                    oldCorrection.getType().toString());
 
             preparedStatement.executeUpdate();
         } catch (SQLException e) {
@@ -171,14 +370,636 @@ public class CorrectionsDatabase {
         }
     }
 
+    /**
+     * Adds the usage statistics of the {@link Correction}s to the statistics
+     * stored in the database.
+     * <p>
+     * The statistics are added in one transaction. The {@link Correction}s
+     * that are no longer in the database are skipped.
+     *
+     * @param corrections   the {@link Correction}s whose statistics to add.
+     * @param hits          how many times each {@link Correction} was applied,
+     *                      in the order of the {@link Correction}s.
+     * @param matchingTimes how much time the expression of each
+     *                      {@link Correction} took to match, in nanoseconds,
+     *                      in the order of the {@link Correction}s.
+     * @throws NullPointerException         if any parameter is null.
+     * @throws IllegalArgumentException     if the arrays have sizes different
+     *                                      from the size of the list.
+     * @throws CorrectionsDatabaseException if the connection with the database
+     *                                      fails.
+     */
+    public static synchronized void addStatistics(
+            @NonNull List<Correction> corrections, @NonNull long[] hits,
+            @NonNull long[] matchingTimes)
+            throws CorrectionsDatabaseException {
+        if (hits.length != corrections.size() ||
+                matchingTimes.length != corrections.size()) {
+            throw new IllegalArgumentException("Each correction must have " +
+                    "its statistics");
+        }
+
+        val updateSql = "UPDATE " + DB_NAME + " SET hits = hits + ? , " +
+                "matching_time = matching_time + ? " +
+                "WHERE expression = ? AND correction_type = ?";
+
+        val connection = connect();
+
+        boolean isOwnTransaction = false;
+
+        try {
+            val preparedStatement = prepare(updateSql);
+
+            // a batch of a failed call is not executed again
+            preparedStatement.clearBatch();
+
+            isOwnTransaction = beginTransaction(connection);
+
+            for (int i = 0; i < corrections.size(); i++) {
+                if (hits[i] == 0 && matchingTimes[i] == 0) {
+                    continue;
+                }
+
+                preparedStatement.setLong(1, hits[i]);
+                preparedStatement.setLong(2, matchingTimes[i]);
+                preparedStatement.setString(3,
+                        corrections.get(i).getExpression());
+                preparedStatement.setString(4,
+                        corrections.get(i).getType().toString());
+
+                preparedStatement.addBatch();
+            }
+
+            preparedStatement.executeBatch();
+
+            if (isOwnTransaction) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            if (isOwnTransaction) {
+                rollback(connection);
+            }
+
+            throw new CorrectionsDatabaseException(e);
+        } finally {
+            if (isOwnTransaction) {
+                endTransaction(connection);
+            }
+        }
+    }
+
+    /**
+     * Inserts several {@link Correction}s into the database in one
+     * transaction.
+     * <p>
+     * A {@link Correction} whose expression and type are already in the
+     * database either replaces the existing {@link Correction}, keeping its
+     * statistics, or is skipped.
+     *
+     * @param corrections         the {@link Correction}s to insert.
+     * @param isReplacingExisting whether the {@link Correction}s replace the
+     *                            existing {@link Correction}s with the same
+     *                            expressions and types.
+     * @return the number of the inserted and replaced {@link Correction}s.
+     * @throws NullPointerException         if the list or any
+     *                                      {@link Correction} is null.
+     * @throws CorrectionsDatabaseException if the connection with the database
+     *                                      fails.
+     */
+    public static synchronized long insertAll(
+            @NonNull List<Correction> corrections,
+            boolean isReplacingExisting)
+            throws CorrectionsDatabaseException {
+        if (corrections.isEmpty()) {
+            return 0;
+        }
+
+        val insertSql = "INSERT INTO " + DB_NAME +
+                "(expression,correction,correction_type,correction_kind," +
+                "condition,case_insensitive) VALUES(?,?,?,?,?,?) " +
+                "ON CONFLICT(expression, correction_type) DO " +
+                (isReplacingExisting ? "UPDATE SET " +
+                        "correction = excluded.correction, " +
+                        "correction_kind = excluded.correction_kind, " +
+                        "condition = excluded.condition, " +
+                        "case_insensitive = excluded.case_insensitive" :
+                        "NOTHING");
+
+        val connection = connect();
+
+        boolean isOwnTransaction = false;
+
+        try {
+            val preparedStatement = prepare(insertSql);
+
+            preparedStatement.clearBatch();
+
+            isOwnTransaction = beginTransaction(connection);
+
+            for (val correction : corrections) {
+                preparedStatement.setString(1, correction.getExpression());
+                preparedStatement.setString(2, correction.getCorrection());
+                preparedStatement.setString(3,
+                        correction.getType().toString());
+                preparedStatement.setString(4,
+                        correction.getKind().toString());
+                preparedStatement.setString(5,
+                        correction.getCondition().toString());
+                preparedStatement.setBoolean(6,
+                        correction.isCaseInsensitive());
+
+                preparedStatement.addBatch();
+            }
+
+            long changedCount = 0;
+
+            // a skipped duplicate changes no rows
+            for (int updateCount : preparedStatement.executeBatch()) {
+                changedCount += updateCount;
+            }
+
+            if (isOwnTransaction) {
+                connection.commit();
+            }
+
+            return changedCount;
+        } catch (SQLException e) {
+            if (isOwnTransaction) {
+                rollback(connection);
+            }
+
+            throw new CorrectionsDatabaseException(e);
+        } finally {
+            if (isOwnTransaction) {
+                endTransaction(connection);
+            }
+        }
+    }
+
+    /**
+     * Runs several calls to the database in one transaction, so their changes
+     * are committed at once, or are all rolled back if any call fails.
+     * <p>
+     * The calls that run their own transactions, such as
+     * {@link #addStatistics(List, long[], long[])}, join the transaction
+     * instead. Other threads cannot call the database until the transaction
+     * ends.
+     *
+     * @param transaction the calls to run.
+     * @throws NullPointerException         if the transaction is null.
+     * @throws CorrectionsDatabaseException if the connection with the
+     *                                      database fails or if a call of the
+     *                                      transaction throws it.
+     * @throws CorrectionAlreadyExistsException if a call of the transaction
+     *                                          throws it.
+     */
+    public static synchronized void runInTransaction(
+            @NonNull Transaction transaction)
+            throws CorrectionsDatabaseException,
+            CorrectionAlreadyExistsException {
+        val connection = connect();
+
+        boolean isOwnTransaction = false;
+
+        try {
+            isOwnTransaction = beginTransaction(connection);
+
+            transaction.run();
+
+            if (isOwnTransaction) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            if (isOwnTransaction) {
+                rollback(connection);
+            }
+
+            throw new CorrectionsDatabaseException(e);
+        } catch (Throwable t) {
+            if (isOwnTransaction) {
+                rollback(connection);
+            }
+
+            throw t;
+        } finally {
+            if (isOwnTransaction) {
+                endTransaction(connection);
+            }
+        }
+    }
+
+    /**
+     * Closes the connection with the database and its prepared statements,
+     * which writes the changes from the write-ahead log to the database file.
+     * <p>
+     * Should be called when the application exits. The next call to the
+     * database opens a new connection.
+     *
+     * @throws CorrectionsDatabaseException if closing the connection fails.
+     */
+    public static synchronized void close()
+            throws CorrectionsDatabaseException {
+        if (connection == null) {
+            return;
+        }
+
+        closeStatements();
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new CorrectionsDatabaseException(e);
+        } finally {
+            connection = null;
+        }
+    }
+
+    /*the id is an alias of the rowid, so it is kept by VACUUM, which can
+    renumber the rowids of a table without an INTEGER PRIMARY KEY*/
+    private static String createTableSql(String name) {
+        return "CREATE TABLE " + name + " (\n" +
+                "id INTEGER PRIMARY KEY,\n" +
+                "expression text NOT NULL,\n" +
+                "correction text NOT NULL,\n" +
+                "correction_type text NOT NULL,\n" +
+                "correction_kind text NOT NULL DEFAULT 'LITERAL',\n" +
+                "condition text NOT NULL DEFAULT 'NONE',\n" +
+                "case_insensitive integer NOT NULL DEFAULT 0,\n" +
+                "hits integer NOT NULL DEFAULT 0,\n" +
+                "matching_time integer NOT NULL DEFAULT 0,\n" +
+                "UNIQUE (expression, correction_type));";
+    }
+
+    private static void addColumnIfNotExists(Connection connection,
+                                             String name, String definition)
+            throws SQLException {
+        if (isColumnExists(connection, name)) {
+            return;
+        }
+
+        try (val statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE " + DB_NAME + " ADD COLUMN " +
+                    name + " " + definition);
+        }
+    }
+
+    private static boolean isColumnExists(Connection connection, String name)
+            throws SQLException {
+        try (val statement = connection.createStatement();
+             val resultSet = statement.executeQuery("PRAGMA table_info(" +
+                     DB_NAME + ")")) {
+            while (resultSet.next()) {
+                if (resultSet.getString("name").equals(name)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /*a primary key cannot be added to an existing table, so the table is
+    copied, and the current rowids become the ids; the full-text tables are
+    indexed by the ids, so they are dropped to be created again*/
+    private static void addIdColumnIfNotExists(Connection connection)
+            throws SQLException {
+        if (isColumnExists(connection, "id")) {
+            return;
+        }
+
+        val columns = "expression, correction, correction_type, " +
+                "correction_kind, condition, case_insensitive, hits, " +
+                "matching_time";
+        val copyName = DB_NAME + "_copy";
+
+        boolean isOwnTransaction = beginTransaction(connection);
+
+        try (val statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + DB_NAME + "_words");
+            statement.execute("DROP TABLE IF EXISTS " + DB_NAME +
+                    "_trigrams");
+
+            statement.execute(createTableSql(copyName));
+            statement.execute("INSERT INTO " + copyName + " (id, " +
+                    columns + ") SELECT rowid, " + columns + " FROM " +
+                    DB_NAME + " ORDER BY rowid");
+
+            // the indexes and the triggers are dropped with the table
+            statement.execute("DROP TABLE " + DB_NAME);
+            statement.execute("ALTER TABLE " + copyName + " RENAME TO " +
+                    DB_NAME);
+
+            if (isOwnTransaction) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            if (isOwnTransaction) {
+                rollback(connection);
+            }
+
+            throw e;
+        } finally {
+            if (isOwnTransaction) {
+                endTransaction(connection);
+            }
+        }
+    }
+
+    private static void createIndexIfNotExists(Connection connection,
+                                               String column)
+            throws SQLException {
+        try (val statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX IF NOT EXISTS " + DB_NAME + "_" +
+                    column + " ON " + DB_NAME + " (" + column + ")");
+        }
+    }
+
+    // the table indexes the rows of the Corrections table by their ids
+    private static void createSearchTableIfNotExists(Connection connection,
+                                                     String name,
+                                                     String tokenizer)
+            throws SQLException {
+        boolean isOwnTransaction = beginTransaction(connection);
+
+        try (val statement = connection.createStatement()) {
+            boolean isCreated;
+
+            try (val resultSet = statement.executeQuery("SELECT name FROM " +
+                    "sqlite_master WHERE type = 'table' AND name = '" +
+                    name + "'")) {
+                isCreated = resultSet.next();
+            }
+
+            if (!isCreated) {
+                statement.execute("CREATE VIRTUAL TABLE " + name +
+                        " USING fts5(expression, correction, content='" +
+                        DB_NAME + "', content_rowid='id', tokenize='" +
+                        tokenizer + "')");
+
+                // the Corrections of an existing database are indexed once
+                statement.execute("INSERT INTO " + name + "(" + name +
+                        ") VALUES('rebuild')");
+            }
+
+            val insertSql = "INSERT INTO " + name + "(rowid, expression, " +
+                    "correction) VALUES(new.id, new.expression, " +
+                    "new.correction);";
+            val deleteSql = "INSERT INTO " + name + "(" + name + ", rowid, " +
+                    "expression, correction) VALUES('delete', old.id, " +
+                    "old.expression, old.correction);";
+
+            statement.execute("CREATE TRIGGER IF NOT EXISTS " + name +
+                    "_insert AFTER INSERT ON " + DB_NAME + " BEGIN " +
+                    insertSql + " END");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS " + name +
+                    "_delete AFTER DELETE ON " + DB_NAME + " BEGIN " +
+                    deleteSql + " END");
+            // the statistics are updated without reindexing the text
+            statement.execute("CREATE TRIGGER IF NOT EXISTS " + name +
+                    "_update AFTER UPDATE OF expression, correction ON " +
+                    DB_NAME + " BEGIN " + deleteSql + " " + insertSql +
+                    " END");
+
+            if (isOwnTransaction) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            if (isOwnTransaction) {
+                rollback(connection);
+            }
+
+            throw e;
+        } finally {
+            if (isOwnTransaction) {
+                endTransaction(connection);
+            }
+        }
+    }
+
+    private static String createWhereSql(CorrectionsQuery query) {
+        List<String> conditions = new ArrayList<>();
+
+        if (query.getType() != null) {
+            conditions.add("correction_type = ?");
+        }
+
+        if (isSearching(query)) {
+            if (query.getSearchMode() ==
+                    CorrectionsQuery.SEARCH_MODE.FULL_TEXT) {
+                conditions.add("id IN (SELECT rowid FROM " + DB_NAME +
+                        "_words WHERE " + DB_NAME + "_words MATCH ?)");
+            } else if (isTrigramSearch(query.getSearchText())) {
+                conditions.add("id IN (SELECT rowid FROM " + DB_NAME +
+                        "_trigrams WHERE " + DB_NAME + "_trigrams MATCH ?)");
+            } else {
+                conditions.add("(expression LIKE ? ESCAPE '\\' OR " +
+                        "correction LIKE ? ESCAPE '\\')");
+            }
+        }
+
+        return conditions.isEmpty() ? "" :
+                " WHERE " + String.join(" AND ", conditions);
+    }
+
+    // the ids keep the order of the database for the equal values
+    private static String createOrderSql(CorrectionsQuery query) {
+        val direction = query.isDescending() ? " DESC" : "";
+
+        if (query.getSortColumn() == null) {
+            return " ORDER BY id" + direction;
+        }
+
+        return " ORDER BY " + query.getSortColumn().getColumnName() +
+                direction + ", id" + direction;
+    }
+
+    // returns the index of the next parameter
+    private static int bindWhereParameters(PreparedStatement preparedStatement,
+                                           CorrectionsQuery query)
+            throws SQLException {
+        int index = 1;
+
+        if (query.getType() != null) {
+            preparedStatement.setString(index++, query.getType().toString());
+        }
+
+        if (!isSearching(query)) {
+            return index;
+        }
+
+        val searchText = query.getSearchText();
+
+        if (query.getSearchMode() == CorrectionsQuery.SEARCH_MODE.FULL_TEXT) {
+            preparedStatement.setString(index++,
+                    createWordsMatchExpression(searchText));
+        } else if (isTrigramSearch(searchText)) {
+            // the trigrams of a phrase follow each other like its chars
+            preparedStatement.setString(index++, quote(searchText));
+        } else {
+            val pattern = "%" + searchText.replace("\\", "\\\\")
+                    .replace("%", "\\%").replace("_", "\\_") + "%";
+
+            preparedStatement.setString(index++, pattern);
+            preparedStatement.setString(index++, pattern);
+        }
+
+        return index;
+    }
+
+    // a full-text search of whitespaces has no words to look for
+    private static boolean isSearching(CorrectionsQuery query) {
+        return query.getSearchMode() ==
+                CorrectionsQuery.SEARCH_MODE.FULL_TEXT ?
+                !query.getSearchText().trim().isEmpty() :
+                !query.getSearchText().isEmpty();
+    }
+
+    private static boolean isTrigramSearch(String searchText) {
+        return searchText.codePointCount(0, searchText.length()) >=
+                MIN_TRIGRAM_SEARCH_LENGTH;
+    }
+
+    // each word of the text is a prefix of a word of the Corrections
+    private static String createWordsMatchExpression(String searchText) {
+        List<String> words = new ArrayList<>();
+
+        for (val word : searchText.trim().split("\\s+")) {
+            words.add(quote(word) + "*");
+        }
+
+        return String.join(" ", words);
+    }
+
+    // the text is a string of FTS5, so its operators are not applied
+    private static String quote(String text) {
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+
+    private static Correction readCorrection(ResultSet resultSet)
+            throws SQLException {
+        return new Correction(resultSet.getString("expression"),
+                resultSet.getString("correction"),
+                Correction.TYPE.valueOf(resultSet.getString(
+                        "correction_type")),
+                Correction.KIND.valueOf(resultSet.getString(
+                        "correction_kind")),
+                Correction.CONDITION.valueOf(resultSet.getString(
+                        "condition")),
+                resultSet.getBoolean("case_insensitive"),
+                resultSet.getLong("hits"),
+                resultSet.getLong("matching_time"));
+    }
+
     private static Connection connect() throws CorrectionsDatabaseException {
+        if (connection != null) {
+            return connection;
+        }
+
         try {
-            return DriverManager.getConnection(DB_URL);
+            connection = DriverManager.getConnection(DB_URL);
+
+            try (val statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode = WAL");
+                statement.execute("PRAGMA synchronous = NORMAL");
+                statement.execute("PRAGMA mmap_size = " + MMAP_SIZE);
+            }
+
+            return connection;
         } catch (SQLException e) {
+            closeConnection();
+
             throw new CorrectionsDatabaseException(e);
         }
     }
 
+    private static PreparedStatement prepare(String sql)
+            throws CorrectionsDatabaseException, SQLException {
+        PreparedStatement preparedStatement = statements.get(sql);
+
+        if (preparedStatement == null) {
+            preparedStatement = connect().prepareStatement(sql);
+
+            statements.put(sql, preparedStatement);
+        }
+
+        return preparedStatement;
+    }
+
+    private static void closeStatements() {
+        for (val preparedStatement : statements.values()) {
+            try {
+                preparedStatement.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+
+        statements.clear();
+    }
+
+    // returns false if the calls are already grouped in a transaction
+    private static boolean beginTransaction(Connection connection)
+            throws SQLException {
+        if (!connection.getAutoCommit()) {
+            return false;
+        }
+
+        connection.setAutoCommit(false);
+
+        return true;
+    }
+
+    private static void endTransaction(Connection connection) {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void rollback(Connection connection) {
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void closeConnection() {
+        if (connection == null) {
+            return;
+        }
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        connection = null;
+    }
+
+    /**
+     * Calls to the database that are run in one transaction by
+     * {@link #runInTransaction(Transaction)}.
+     */
+    @FunctionalInterface
+    public interface Transaction {
+
+        /**
+         * Runs the calls to the database.
+         *
+         * @throws CorrectionsDatabaseException     if a call fails.
+         * @throws CorrectionAlreadyExistsException if a call inserts a
+         *                                          {@link Correction} that
+         *                                          already exists.
+         */
+        void run() throws CorrectionsDatabaseException,
+                CorrectionAlreadyExistsException;
+    }
+
     /**
      * An exception indicating that interaction with the Corrections Database
      * fails.
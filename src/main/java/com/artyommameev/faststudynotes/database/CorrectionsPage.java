@@ -0,0 +1,51 @@
+package com.artyommameev.faststudynotes.database;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of the {@link Correction}s that match a {@link CorrectionsQuery}.
+ *
+ * @author Artyom Mameev
+ */
+public class CorrectionsPage {
+
+    /**
+     * Returns the {@link Correction}s of the page, in the order of the
+     * query.
+     */
+    @Getter
+    private final List<Correction> corrections;
+    /**
+     * Returns the number of the matching {@link Correction}s that precede
+     * the page.
+     */
+    @Getter
+    private final long offset;
+    /**
+     * Returns the number of all the {@link Correction}s that match the
+     * query.
+     */
+    @Getter
+    private final long totalCount;
+
+    /**
+     * Instantiates a new Corrections Page.
+     *
+     * @param corrections the {@link Correction}s of the page.
+     * @param offset      the number of the matching {@link Correction}s that
+     *                    precede the page.
+     * @param totalCount  the number of all the matching {@link Correction}s.
+     * @throws NullPointerException if the list is null.
+     */
+    public CorrectionsPage(@NonNull List<Correction> corrections,
+                           long offset, long totalCount) {
+        this.corrections = Collections.unmodifiableList(corrections);
+        this.offset = offset;
+        this.totalCount = totalCount;
+    }
+}
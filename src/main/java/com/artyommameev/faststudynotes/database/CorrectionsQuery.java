@@ -0,0 +1,159 @@
+package com.artyommameev.faststudynotes.database;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * A query of the {@link Correction}s of the {@link CorrectionsDatabase},
+ * which filters them by their type and by a search text, and sorts them by
+ * a column.
+ * <p>
+ * The search text is looked for in both the expressions and the
+ * corrections, ignoring the case. The query is immutable and is created by
+ * its {@link Builder}.
+ *
+ * @author Artyom Mameev
+ */
+public class CorrectionsQuery {
+
+    /**
+     * Returns the type of the queried {@link Correction}s, or null if the
+     * {@link Correction}s of all types are queried.
+     */
+    @Getter
+    private final Correction.TYPE type;
+    /**
+     * Returns the search text, which is empty if the {@link Correction}s are
+     * not searched.
+     */
+    @Getter
+    private final String searchText;
+    /**
+     * Returns the mode of the search.
+     */
+    @Getter
+    private final SEARCH_MODE searchMode;
+    /**
+     * Returns the column to sort the {@link Correction}s by, or null if they
+     * are kept in the order of the database.
+     */
+    @Getter
+    private final SORT_COLUMN sortColumn;
+    /**
+     * Returns whether the {@link Correction}s are sorted in the descending
+     * order.
+     */
+    @Getter
+    private final boolean descending;
+
+    private CorrectionsQuery(Builder builder) {
+        this.type = builder.type;
+        this.searchText = builder.searchText;
+        this.searchMode = builder.searchMode;
+        this.sortColumn = builder.sortColumn;
+        this.descending = builder.descending;
+    }
+
+    /**
+     * Determines how the search text is looked for.
+     * <p>
+     * <i>SUBSTRING</i> - the {@link Correction}s that contain the search
+     * text.<br>
+     * <i>FULL_TEXT</i> - the {@link Correction}s that contain all the words
+     * of the search text, each of which can be the start of a longer word.
+     * The search text of whitespaces only is not searched for.
+     */
+    public enum SEARCH_MODE {SUBSTRING, FULL_TEXT}
+
+    /**
+     * Determines the column of the {@link Correction}s to sort them by.
+     */
+    public enum SORT_COLUMN {
+        EXPRESSION("expression"),
+        CORRECTION("correction"),
+        TYPE("correction_type"),
+        KIND("correction_kind"),
+        CONDITION("condition"),
+        CASE_INSENSITIVE("case_insensitive"),
+        HITS("hits"),
+        MATCHING_TIME("matching_time");
+
+        @Getter
+        private final String columnName;
+
+        SORT_COLUMN(String columnName) {
+            this.columnName = columnName;
+        }
+    }
+
+    /**
+     * A builder of a {@link CorrectionsQuery}, which by default queries all
+     * the {@link Correction}s in the order of the database.
+     */
+    public static class Builder {
+
+        private Correction.TYPE type;
+        private String searchText = "";
+        private SEARCH_MODE searchMode = SEARCH_MODE.SUBSTRING;
+        private SORT_COLUMN sortColumn;
+        private boolean descending;
+
+        /**
+         * Restricts the query to the {@link Correction}s of a type.
+         *
+         * @param type the type of the {@link Correction}s, or null to query
+         *             the {@link Correction}s of all types.
+         * @return this builder.
+         */
+        public Builder type(Correction.TYPE type) {
+            this.type = type;
+
+            return this;
+        }
+
+        /**
+         * Restricts the query to the {@link Correction}s that contain a
+         * search text.
+         *
+         * @param searchText the search text, or an empty string to query
+         *                   all the {@link Correction}s.
+         * @param searchMode the mode of the search.
+         * @return this builder.
+         * @throws NullPointerException if any parameter is null.
+         */
+        public Builder search(@NonNull String searchText,
+                              @NonNull SEARCH_MODE searchMode) {
+            this.searchText = searchText;
+            this.searchMode = searchMode;
+
+            return this;
+        }
+
+        /**
+         * Sorts the queried {@link Correction}s by a column. The
+         * {@link Correction}s with the same value of the column keep the
+         * order of the database.
+         *
+         * @param sortColumn the column to sort by, or null to keep the order
+         *                   of the database.
+         * @param descending whether the order is descending.
+         * @return this builder.
+         */
+        public Builder sort(SORT_COLUMN sortColumn, boolean descending) {
+            this.sortColumn = sortColumn;
+            this.descending = descending;
+
+            return this;
+        }
+
+        /**
+         * Builds the {@link CorrectionsQuery}.
+         *
+         * @return the {@link CorrectionsQuery}.
+         */
+        public CorrectionsQuery build() {
+            return new CorrectionsQuery(this);
+        }
+    }
+}
@@ -0,0 +1,895 @@
+package com.artyommameev.faststudynotes.database;
+
+import com.artyommameev.faststudynotes.database.CorrectionsDatabase.CorrectionAlreadyExistsException;
+import com.artyommameev.faststudynotes.database.CorrectionsDatabase.CorrectionsDatabaseException;
+import com.artyommameev.faststudynotes.domain.CompactCorrections;
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.NonNull;
+import lombok.val;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An in-memory repository of the {@link Correction}s of the
+ * {@link CorrectionsDatabase}, which is the read view of the dictionary for
+ * the whole application.
+ * <p>
+ * The {@link Correction}s are read from the database once into
+ * {@link CompactCorrections} (see
+ * {@link CorrectionsDatabase#getAllCompact(boolean)}). After that, each
+ * change is applied to the memory at once as a delta over them, which takes
+ * a constant time, and is reported to the {@link Listener}s by the changed
+ * {@link Correction}s, so nobody needs to read the whole dictionary again to
+ * see a change. The deltas are merged into new {@link CompactCorrections}
+ * when all the {@link Correction}s are requested, or when there are too
+ * many of them, so a merge is paid for by many changes. The
+ * {@link Correction}s are kept in the order of the database: a new
+ * {@link Correction} is added to the end, and an updated one keeps its
+ * place.
+ * <p>
+ * The changes are written to the database in the background
+ * (write-behind). The changes that are made while a write is running are
+ * grouped and committed in one transaction, so a burst of small changes
+ * costs one commit. If a write fails, the repository reads its
+ * {@link Correction}s from the database again, since the database stays the
+ * source of truth, and reports the failure to the {@link Listener}s.
+ * <p>
+ * A view that shows only a part of a large dictionary can query a page of
+ * the {@link Correction}s from the database instead (see
+ * {@link #query(CorrectionsQuery, long, int)}). The query runs after the
+ * changes that are made before it are written, so it sees them as well.
+ * <p>
+ * The methods are synchronized. The {@link Listener}s are notified on the
+ * thread that made the change, while the repository is locked, so they
+ * should only schedule their work.
+ *
+ * @author Artyom Mameev
+ */
+public class CorrectionsRepository {
+
+    // the number of the imported Corrections that are committed at once
+    static final int IMPORT_BATCH_SIZE = 10_000;
+
+    // the deltas are merged at least after so many changes
+    private static final int MIN_CHANGES_TO_MERGE = 1024;
+
+    private final boolean isOffHeap;
+
+    /*the Corrections of the last merge; a row of the repository is either
+    the index of one of them, or a number after them for an added one*/
+    private CompactCorrections mergedCorrections =
+            new CompactCorrections.Builder().build();
+    // the merged rows that are removed or updated since the merge
+    private final BitSet changedMergedRows = new BitSet();
+    /*the updated merged rows and the added rows, in the order of the
+    adding, with their current Corrections*/
+    private final Map<Integer, Correction> changedRows =
+            new LinkedHashMap<>();
+    // the changed rows by the types and the expressions of their Corrections
+    private final Map<Correction.TYPE, Map<String, Integer>> changedRowIds =
+            new EnumMap<>(Correction.TYPE.class);
+    private int nextRow;
+    private int changesCount;
+
+    private boolean isLoaded;
+    private long version;
+    // the number of the imports that are running
+    private int importsCount;
+
+    private final List<Listener> listeners = new ArrayList<>();
+
+    // the changes that are not written to the database yet
+    private List<CorrectionsDatabase.Transaction> pendingWrites =
+            new ArrayList<>();
+    private boolean isWriteScheduled;
+
+    private final ExecutorService writer = Executors
+            .newSingleThreadExecutor(runnable -> {
+                val thread = new Thread(runnable, "corrections-writer");
+
+                thread.setDaemon(true);
+
+                return thread;
+            });
+
+    /**
+     * Instantiates a new Corrections Repository that keeps the
+     * {@link CompactCorrections} on the heap.
+     */
+    public CorrectionsRepository() {
+        this(false);
+    }
+
+    /**
+     * Instantiates a new Corrections Repository.
+     *
+     * @param isOffHeap whether the {@link CompactCorrections} of the
+     *                  repository should keep their arena off-heap.
+     */
+    public CorrectionsRepository(boolean isOffHeap) {
+        this.isOffHeap = isOffHeap;
+
+        for (val type : Correction.TYPE.values()) {
+            changedRowIds.put(type, new HashMap<>());
+        }
+    }
+
+    /**
+     * Creates the database if it does not exist (see
+     * {@link CorrectionsDatabase#init()}) and reads its {@link Correction}s
+     * into the repository.
+     * <p>
+     * Is called by the first call that needs the {@link Correction}s, if it
+     * is not called before. The next calls do nothing.
+     *
+     * @throws CorrectionsDatabaseException if the connection with the
+     *                                      database fails.
+     */
+    public synchronized void load() throws CorrectionsDatabaseException {
+        if (isLoaded) {
+            return;
+        }
+
+        CorrectionsDatabase.init();
+
+        read();
+
+        isLoaded = true;
+    }
+
+    /**
+     * Returns a version of the {@link Correction}s of the repository.
+     * <p>
+     * The version is 0 until the first change, and changes every time a
+     * {@link Correction} is inserted, removed or updated, but not when only
+     * the statistics of the {@link Correction}s are changed.
+     *
+     * @return the current version of the {@link Correction}s.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns all the {@link Correction}s of the repository.
+     *
+     * @return a new list of the {@link Correction}s, in the order of the
+     * database.
+     * @throws CorrectionsDatabaseException if the {@link Correction}s are not
+     *                                      loaded yet and the connection with
+     *                                      the database fails.
+     */
+    public synchronized List<Correction> getAll()
+            throws CorrectionsDatabaseException {
+        return new ArrayList<>(getAllCompact());
+    }
+
+    /**
+     * Returns all the {@link Correction}s of the repository as
+     * {@link CompactCorrections}.
+     * <p>
+     * The {@link CompactCorrections} of the repository are returned as they
+     * are, unless the repository is changed after the previous call, in
+     * which case its changes are merged into new ones.
+     *
+     * @return the {@link Correction}s, in the order of the database.
+     * @throws CorrectionsDatabaseException if the {@link Correction}s are not
+     *                                      loaded yet and the connection with
+     *                                      the database fails.
+     */
+    public synchronized CompactCorrections getAllCompact()
+            throws CorrectionsDatabaseException {
+        load();
+
+        merge();
+
+        return mergedCorrections;
+    }
+
+    /**
+     * Queries a page of the {@link Correction}s that match a
+     * {@link CorrectionsQuery} (see
+     * {@link CorrectionsDatabase#query(CorrectionsQuery, long, int)}) in the
+     * background.
+     * <p>
+     * The query runs on the thread that writes the changes, after the
+     * changes that are made before the call, so the page contains them. The
+     * {@link Correction}s of the page are read from the database and are
+     * not the objects of the repository, but they can be updated or removed
+     * through the repository, since a {@link Correction} is found by its
+     * expression and type.
+     *
+     * @param query  the query of the {@link Correction}s.
+     * @param offset the number of the matching {@link Correction}s to skip.
+     * @param limit  the maximal number of the {@link Correction}s of the
+     *               page.
+     * @return the future page of the matching {@link Correction}s, which
+     * completes exceptionally with a {@link CompletionException} caused by a
+     * {@link CorrectionsDatabaseException} if the connection with the
+     * database fails.
+     * @throws NullPointerException     if the query is null.
+     * @throws IllegalArgumentException if the offset or the limit is
+     *                                  negative.
+     */
+    public CompletableFuture<CorrectionsPage> query(
+            @NonNull CorrectionsQuery query, long offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("The offset and the limit " +
+                    "must not be negative");
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                load();
+
+                return CorrectionsDatabase.query(query, offset, limit);
+            } catch (CorrectionsDatabaseException e) {
+                throw new CompletionException(e);
+            }
+        }, writer);
+    }
+
+    /**
+     * Inserts a {@link Correction} into the repository.
+     *
+     * @param correction the {@link Correction} to insert.
+     * @throws NullPointerException             if the {@link Correction} is
+     *                                          null.
+     * @throws CorrectionsDatabaseException     if the {@link Correction}s are
+     *                                          not loaded yet and the
+     *                                          connection with the database
+     *                                          fails.
+     * @throws CorrectionAlreadyExistsException if a {@link Correction} with
+     *                                          the same expression and type
+     *                                          already exists.
+     */
+    public synchronized void insert(@NonNull Correction correction)
+            throws CorrectionsDatabaseException,
+            CorrectionAlreadyExistsException {
+        load();
+
+        if (findRow(correction) != null) {
+            throw new CorrectionAlreadyExistsException();
+        }
+
+        putRow(nextRow++, correction);
+
+        version++;
+
+        write(() -> CorrectionsDatabase.insert(correction));
+
+        for (val listener : listeners) {
+            listener.onAdded(Collections.singletonList(correction));
+        }
+    }
+
+    /**
+     * Updates a {@link Correction} of the repository, keeping its statistics.
+     * <p>
+     * Does nothing if the repository has no {@link Correction} with the
+     * expression and the type of the old {@link Correction}.
+     *
+     * @param oldCorrection the {@link Correction} to update.
+     * @param newCorrection the updated {@link Correction}.
+     * @throws NullPointerException             if any parameter is null.
+     * @throws CorrectionsDatabaseException     if the {@link Correction}s are
+     *                                          not loaded yet and the
+     *                                          connection with the database
+     *                                          fails.
+     * @throws CorrectionAlreadyExistsException if another {@link Correction}
+     *                                          has the same expression and
+     *                                          type as the updated one.
+     */
+    public synchronized void update(@NonNull Correction oldCorrection,
+                                    @NonNull Correction newCorrection)
+            throws CorrectionsDatabaseException,
+            CorrectionAlreadyExistsException {
+        load();
+
+        val row = findRow(oldCorrection);
+
+        if (row == null) {
+            return;
+        }
+
+        val newRow = findRow(newCorrection);
+
+        if (newRow != null && !newRow.equals(row)) {
+            throw new CorrectionAlreadyExistsException();
+        }
+
+        val storedCorrection = getRow(row);
+
+        val updatedCorrection = new Correction(newCorrection.getExpression(),
+                newCorrection.getCorrection(), newCorrection.getType(),
+                newCorrection.getKind(), newCorrection.getCondition(),
+                newCorrection.isCaseInsensitive(),
+                storedCorrection.getHits(),
+                storedCorrection.getMatchingTime());
+
+        putRow(row, updatedCorrection);
+
+        version++;
+
+        write(() -> CorrectionsDatabase.update(storedCorrection,
+                updatedCorrection));
+
+        for (val listener : listeners) {
+            listener.onUpdated(Collections.singletonList(storedCorrection),
+                    Collections.singletonList(updatedCorrection));
+        }
+    }
+
+    /**
+     * Removes a {@link Correction} with the same expression and type from the
+     * repository.
+     * <p>
+     * Does nothing if the repository has no such {@link Correction}.
+     *
+     * @param correction the {@link Correction} to remove.
+     * @throws NullPointerException         if the {@link Correction} is null.
+     * @throws CorrectionsDatabaseException if the {@link Correction}s are not
+     *                                      loaded yet and the connection with
+     *                                      the database fails.
+     */
+    public synchronized void remove(@NonNull Correction correction)
+            throws CorrectionsDatabaseException {
+        load();
+
+        val row = findRow(correction);
+
+        if (row == null) {
+            return;
+        }
+
+        val storedCorrection = getRow(row);
+
+        removeRow(row);
+
+        version++;
+
+        write(() -> CorrectionsDatabase.remove(storedCorrection));
+
+        for (val listener : listeners) {
+            listener.onRemoved(Collections.singletonList(storedCorrection));
+        }
+    }
+
+    /**
+     * Adds the usage statistics of the {@link Correction}s to their
+     * statistics in the repository (see
+     * {@link CorrectionsDatabase#addStatistics(List, long[], long[])}).
+     * <p>
+     * The {@link Correction}s that are no longer in the repository are
+     * skipped. The version of the repository does not change.
+     *
+     * @param corrections   the {@link Correction}s whose statistics to add.
+     * @param hits          how many times each {@link Correction} was applied,
+     *                      in the order of the {@link Correction}s.
+     * @param matchingTimes how much time the expression of each
+     *                      {@link Correction} took to match, in nanoseconds,
+     *                      in the order of the {@link Correction}s.
+     * @throws NullPointerException         if any parameter is null.
+     * @throws IllegalArgumentException     if the arrays have sizes different
+     *                                      from the size of the list.
+     * @throws CorrectionsDatabaseException if the {@link Correction}s are not
+     *                                      loaded yet and the connection with
+     *                                      the database fails.
+     */
+    public synchronized void addStatistics(
+            @NonNull List<Correction> corrections, @NonNull long[] hits,
+            @NonNull long[] matchingTimes)
+            throws CorrectionsDatabaseException {
+        if (hits.length != corrections.size() ||
+                matchingTimes.length != corrections.size()) {
+            throw new IllegalArgumentException("Each correction must have " +
+                    "its statistics");
+        }
+
+        load();
+
+        List<Correction> oldCorrections = new ArrayList<>();
+        List<Correction> newCorrections = new ArrayList<>();
+
+        for (int i = 0; i < corrections.size(); i++) {
+            val row = findRow(corrections.get(i));
+
+            if (row == null || (hits[i] == 0 && matchingTimes[i] == 0)) {
+                continue;
+            }
+
+            val storedCorrection = getRow(row);
+
+            val updatedCorrection = new Correction(
+                    storedCorrection.getExpression(),
+                    storedCorrection.getCorrection(),
+                    storedCorrection.getType(), storedCorrection.getKind(),
+                    storedCorrection.getCondition(),
+                    storedCorrection.isCaseInsensitive(),
+                    storedCorrection.getHits() + hits[i],
+                    storedCorrection.getMatchingTime() + matchingTimes[i]);
+
+            putRow(row, updatedCorrection);
+
+            oldCorrections.add(storedCorrection);
+            newCorrections.add(updatedCorrection);
+        }
+
+        if (oldCorrections.isEmpty()) {
+            return;
+        }
+
+        val addedCorrections = new ArrayList<>(corrections);
+        val addedHits = hits.clone();
+        val addedMatchingTimes = matchingTimes.clone();
+
+        write(() -> CorrectionsDatabase.addStatistics(addedCorrections,
+                addedHits, addedMatchingTimes));
+
+        for (val listener : listeners) {
+            listener.onUpdated(oldCorrections, newCorrections);
+        }
+    }
+
+    /**
+     * Imports the {@link Correction}s from a CSV or TSV file, as described in
+     * {@link CorrectionsCsvReader}, into the repository.
+     * <p>
+     * The file is streamed, and its {@link Correction}s are added by batches,
+     * so other calls to the repository can run between the batches. Each
+     * batch is reported to the {@link Listener}s as a whole, and is written
+     * to the database in one transaction. A {@link Correction} whose
+     * expression and type are already in the repository either replaces the
+     * existing {@link Correction}, keeping its statistics, or is skipped.
+     * <p>
+     * If the import fails or is stopped, the batches that are already added
+     * are kept. The {@link Listener}s are notified when the import ends in
+     * any way (see {@link Listener#onImportFinished()}), so they can wait
+     * for the end of the import instead of reacting to each batch. The
+     * reader is not closed by this method.
+     *
+     * @param reader              the reader of the file.
+     * @param isReplacingExisting whether the {@link Correction}s of the file
+     *                            replace the existing {@link Correction}s
+     *                            with the same expressions and types.
+     * @param listener            the listener of the progress of the import,
+     *                            which is notified after each batch.
+     * @return the number of the added and replaced {@link Correction}s.
+     * @throws NullPointerException         if any object parameter is null.
+     * @throws IOException                  if reading fails or if a record of
+     *                                      the file is malformed.
+     * @throws CorrectionsDatabaseException if the {@link Correction}s are not
+     *                                      loaded yet and the connection with
+     *                                      the database fails.
+     */
+    public long importCorrections(@NonNull Reader reader,
+                                  boolean isReplacingExisting,
+                                  @NonNull ImportListener listener)
+            throws IOException, CorrectionsDatabaseException {
+        val csvReader = new CorrectionsCsvReader(reader);
+
+        long readCount = 0;
+        long importedCount = 0;
+
+        boolean isEndReached = false;
+
+        startImport();
+
+        try {
+            while (!isEndReached) {
+                List<Correction> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+
+                // the file is read while the repository is not locked
+                while (batch.size() < IMPORT_BATCH_SIZE) {
+                    val correction = csvReader.read();
+
+                    if (correction == null) {
+                        isEndReached = true;
+
+                        break;
+                    }
+
+                    batch.add(correction);
+                }
+
+                readCount += batch.size();
+                importedCount += importBatch(batch, isReplacingExisting);
+
+                if (!listener.onProgress(readCount, importedCount)) {
+                    break;
+                }
+            }
+        } finally {
+            finishImport();
+        }
+
+        return importedCount;
+    }
+
+    /**
+     * Checks if any import of {@link Correction}s is running (see
+     * {@link #importCorrections(Reader, boolean, ImportListener)}).
+     *
+     * @return true if an import is running, otherwise false.
+     */
+    public synchronized boolean isImporting() {
+        return importsCount > 0;
+    }
+
+    /**
+     * Waits until all the changes that are made before the call are written
+     * to the database.
+     * <p>
+     * A failed write is reported to the {@link Listener}s, and is not thrown
+     * by this method.
+     *
+     * @throws InterruptedException if the thread is interrupted while it
+     *                              waits.
+     */
+    public void flush() throws InterruptedException {
+        try {
+            // the writes are run one after another
+            writer.submit(() -> {
+            }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes all the changes to the database, stops the background thread
+     * and closes the connection with the database (see
+     * {@link CorrectionsDatabase#close()}).
+     * <p>
+     * Should be called when the application exits. The repository cannot
+     * be changed afterwards, and the next calls do nothing.
+     *
+     * @throws InterruptedException         if the thread is interrupted while
+     *                                      it waits for the writes.
+     * @throws CorrectionsDatabaseException if closing the connection fails.
+     */
+    public void close() throws InterruptedException,
+            CorrectionsDatabaseException {
+        if (writer.isShutdown()) {
+            return;
+        }
+
+        flush();
+
+        writer.shutdown();
+
+        CorrectionsDatabase.close();
+    }
+
+    /**
+     * Adds a {@link Listener} of the changes of the repository.
+     *
+     * @param listener the {@link Listener} to add.
+     * @throws NullPointerException if the {@link Listener} is null.
+     */
+    public synchronized void addListener(@NonNull Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a {@link Listener} of the changes of the repository.
+     *
+     * @param listener the {@link Listener} to remove.
+     * @throws NullPointerException if the {@link Listener} is null.
+     */
+    public synchronized void removeListener(@NonNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private synchronized void startImport() {
+        importsCount++;
+    }
+
+    private synchronized void finishImport() {
+        importsCount--;
+
+        for (val listener : listeners) {
+            listener.onImportFinished();
+        }
+    }
+
+    private synchronized long importBatch(List<Correction> batch,
+                                          boolean isReplacingExisting)
+            throws CorrectionsDatabaseException {
+        load();
+
+        List<Correction> addedCorrections = new ArrayList<>();
+        List<Correction> oldCorrections = new ArrayList<>();
+        List<Correction> newCorrections = new ArrayList<>();
+
+        for (val correction : batch) {
+            val row = findRow(correction);
+
+            if (row == null) {
+                putRow(nextRow++, correction);
+
+                addedCorrections.add(correction);
+
+                continue;
+            }
+
+            if (!isReplacingExisting) {
+                continue;
+            }
+
+            val storedCorrection = getRow(row);
+
+            val updatedCorrection = new Correction(correction.getExpression(),
+                    correction.getCorrection(), correction.getType(),
+                    correction.getKind(), correction.getCondition(),
+                    correction.isCaseInsensitive(),
+                    storedCorrection.getHits(),
+                    storedCorrection.getMatchingTime());
+
+            putRow(row, updatedCorrection);
+
+            oldCorrections.add(storedCorrection);
+            newCorrections.add(updatedCorrection);
+        }
+
+        if (addedCorrections.isEmpty() && oldCorrections.isEmpty()) {
+            return 0;
+        }
+
+        version++;
+
+        write(() -> CorrectionsDatabase.insertAll(batch, isReplacingExisting));
+
+        for (val listener : listeners) {
+            if (!addedCorrections.isEmpty()) {
+                listener.onAdded(addedCorrections);
+            }
+
+            if (!oldCorrections.isEmpty()) {
+                listener.onUpdated(oldCorrections, newCorrections);
+            }
+        }
+
+        return addedCorrections.size() + oldCorrections.size();
+    }
+
+    private void read() throws CorrectionsDatabaseException {
+        mergedCorrections = CorrectionsDatabase.getAllCompact(isOffHeap);
+
+        clearChanges();
+    }
+
+    private Integer findRow(Correction correction) {
+        val changedRow = changedRowIds.get(correction.getType())
+                .get(correction.getExpression());
+
+        if (changedRow != null) {
+            return changedRow;
+        }
+
+        int mergedRow = mergedCorrections.indexOf(correction.getExpression(),
+                correction.getType());
+
+        return mergedRow < 0 || changedMergedRows.get(mergedRow) ? null :
+                mergedRow;
+    }
+
+    private Correction getRow(int row) {
+        val changedCorrection = changedRows.get(row);
+
+        return changedCorrection != null ? changedCorrection :
+                mergedCorrections.get(row);
+    }
+
+    private void putRow(int row, Correction correction) {
+        val oldCorrection = changedRows.put(row, correction);
+
+        if (oldCorrection != null) {
+            changedRowIds.get(oldCorrection.getType())
+                    .remove(oldCorrection.getExpression());
+        }
+
+        changedRowIds.get(correction.getType())
+                .put(correction.getExpression(), row);
+
+        markChanged(row);
+    }
+
+    private void removeRow(int row) {
+        val oldCorrection = changedRows.remove(row);
+
+        if (oldCorrection != null) {
+            changedRowIds.get(oldCorrection.getType())
+                    .remove(oldCorrection.getExpression());
+        }
+
+        markChanged(row);
+    }
+
+    private void markChanged(int row) {
+        if (row < mergedCorrections.size()) {
+            changedMergedRows.set(row);
+        }
+
+        changesCount++;
+
+        // each merge is paid for by the changes of a half of the dictionary
+        if (changesCount > Math.max(MIN_CHANGES_TO_MERGE,
+                mergedCorrections.size() / 2)) {
+            merge();
+        }
+    }
+
+    private void merge() {
+        if (changesCount == 0) {
+            return;
+        }
+
+        val builder = new CompactCorrections.Builder();
+
+        for (int row = 0; row < mergedCorrections.size(); row++) {
+            if (!changedMergedRows.get(row)) {
+                builder.add(mergedCorrections, row);
+            } else if (changedRows.containsKey(row)) {
+                builder.add(changedRows.get(row));
+            }
+        }
+
+        for (val changedRow : changedRows.entrySet()) {
+            if (changedRow.getKey() >= mergedCorrections.size()) {
+                builder.add(changedRow.getValue());
+            }
+        }
+
+        mergedCorrections = builder.build(isOffHeap);
+
+        clearChanges();
+    }
+
+    private void clearChanges() {
+        changedMergedRows.clear();
+        changedRows.clear();
+
+        for (val typeRowIds : changedRowIds.values()) {
+            typeRowIds.clear();
+        }
+
+        nextRow = mergedCorrections.size();
+        changesCount = 0;
+    }
+
+    private void write(CorrectionsDatabase.Transaction write) {
+        pendingWrites.add(write);
+
+        if (!isWriteScheduled) {
+            isWriteScheduled = true;
+
+            writer.execute(this::writePendingChanges);
+        }
+    }
+
+    // runs on the writer thread
+    private void writePendingChanges() {
+        List<CorrectionsDatabase.Transaction> writes;
+
+        synchronized (this) {
+            writes = pendingWrites;
+
+            pendingWrites = new ArrayList<>();
+            isWriteScheduled = false;
+        }
+
+        try {
+            // the changes made during the previous write are committed at once
+            CorrectionsDatabase.runInTransaction(() -> {
+                for (val write : writes) {
+                    write.run();
+                }
+            });
+        } catch (CorrectionsDatabaseException e) {
+            handleWriteFailure(e);
+        } catch (CorrectionAlreadyExistsException | RuntimeException e) {
+            handleWriteFailure(new CorrectionsDatabaseException(e));
+        }
+    }
+
+    private synchronized void handleWriteFailure(
+            CorrectionsDatabaseException exception) {
+        // the next changes were made to the Corrections that are not written
+        pendingWrites.clear();
+
+        try {
+            read();
+
+            version++;
+        } catch (CorrectionsDatabaseException e) {
+            exception.addSuppressed(e);
+        }
+
+        for (val listener : listeners) {
+            listener.onWriteFailed(exception);
+        }
+    }
+
+    /**
+     * A listener of the changes of a {@link CorrectionsRepository}.
+     */
+    public interface Listener {
+
+        /**
+         * Is called after {@link Correction}s are added to the repository.
+         *
+         * @param corrections the added {@link Correction}s.
+         */
+        void onAdded(List<Correction> corrections);
+
+        /**
+         * Is called after {@link Correction}s of the repository are updated,
+         * including their statistics.
+         *
+         * @param oldCorrections the {@link Correction}s before the update.
+         * @param newCorrections the updated {@link Correction}s, in the order
+         *                       of the old ones.
+         */
+        void onUpdated(List<Correction> oldCorrections,
+                       List<Correction> newCorrections);
+
+        /**
+         * Is called after {@link Correction}s are removed from the
+         * repository.
+         *
+         * @param corrections the removed {@link Correction}s.
+         */
+        void onRemoved(List<Correction> corrections);
+
+        /**
+         * Is called after changes of the repository cannot be written to the
+         * database. The repository has read all its {@link Correction}s from
+         * the database again, so the listener should get them anew.
+         *
+         * @param exception the cause of the failure.
+         */
+        void onWriteFailed(CorrectionsDatabaseException exception);
+
+        /**
+         * Is called after an import of {@link Correction}s is finished,
+         * stopped or failed. The batches of the import are reported while it
+         * runs, so a listener whose reaction to a change is slow can skip
+         * the changes while the repository is importing (see
+         * {@link #isImporting()}) and react once to this call.
+         */
+        void onImportFinished();
+    }
+
+    /**
+     * A listener of the progress of an import of {@link Correction}s.
+     */
+    @FunctionalInterface
+    public interface ImportListener {
+
+        /**
+         * Is called after a batch of the {@link Correction}s is imported.
+         *
+         * @param readCount     the number of the {@link Correction}s that are
+         *                      read from the file so far.
+         * @param importedCount the number of the {@link Correction}s that are
+         *                      added or replaced so far.
+         * @return true if the import should continue, false if it should stop.
+         */
+        boolean onProgress(long readCount, long importedCount);
+    }
+}
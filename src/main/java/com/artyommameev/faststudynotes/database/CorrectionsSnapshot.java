@@ -0,0 +1,244 @@
+package com.artyommameev.faststudynotes.database;
+
+import com.artyommameev.faststudynotes.correct.CompiledCorrections;
+import com.artyommameev.faststudynotes.domain.CompactCorrections;
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.NonNull;
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * A binary snapshot of the {@link Correction}s of the
+ * {@link CorrectionsDatabase} and of their {@link CompiledCorrections},
+ * which lets the application start correcting without reading the database
+ * and without compiling the {@link Correction}s.
+ * <p>
+ * The snapshot keeps the {@link CompiledCorrections} in the form written by
+ * {@link CompiledCorrections#writeTo(ByteBuffer)}: the
+ * {@link CompactCorrections} with the string table of the expressions and
+ * the corrections, followed by the flat arrays of the automata and the
+ * tables of the passes. The file is mapped into memory when it is read, so
+ * the strings are not copied to the heap, and the automata are read as they
+ * are instead of being built again.
+ * <p>
+ * The file starts with a header that contains a magic number, the version
+ * of the format, the generation of the snapshot and the CRC32C checksum of
+ * the data, so a truncated, damaged or outdated file is ignored instead of
+ * giving wrong corrections. The database stays the source of truth: the
+ * snapshot is only a cache of its contents and can be deleted at any time.
+ * <p>
+ * The snapshot is kept in two files, which are written in turns. A mapped
+ * file cannot be replaced on some systems until the map is released by the
+ * garbage collector, so only the newer file is mapped if it is valid, and
+ * the file that was read is never written again by the same snapshot.
+ *
+ * @author Artyom Mameev
+ */
+public class CorrectionsSnapshot {
+
+    private static final int MAGIC = 0x46534e53;
+    private static final int FORMAT_VERSION = 2;
+
+    // the magic, the format version, the generation and the checksum
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + 2 * Long.BYTES;
+
+    private static final int NOT_READ = -1;
+    // the generation of a missing file; the written ones start from 1
+    private static final long NO_GENERATION = 0;
+
+    private final Path[] files;
+    private final boolean[] mappedFiles;
+
+    // the index of the file that the Corrections were read from, or NOT_READ
+    private int readFile = NOT_READ;
+
+    /**
+     * Instantiates a new Corrections Snapshot.
+     *
+     * @param directory the directory of the files of the snapshot.
+     * @param name      the name of the snapshot, which starts the names of
+     *                  its files.
+     * @throws NullPointerException if any parameter is null.
+     */
+    public CorrectionsSnapshot(@NonNull Path directory, @NonNull String name) {
+        this.files = new Path[]{
+                directory.resolve(name + ".0.snapshot"),
+                directory.resolve(name + ".1.snapshot")};
+        this.mappedFiles = new boolean[files.length];
+    }
+
+    /**
+     * Maps the newest valid file of the snapshot into memory and reads the
+     * {@link CompiledCorrections} from it.
+     * <p>
+     * The missing or invalid files are skipped, since the
+     * {@link Correction}s can always be read from the database and compiled
+     * instead.
+     *
+     * @param version the version of the dictionary to give the read
+     *                {@link CompiledCorrections}.
+     * @return the {@link CompiledCorrections} of the snapshot, whose
+     * {@link Correction}s keep their arena in the mapped file, or null if
+     * there is no valid file.
+     * @throws IOException if a file of the snapshot cannot be read.
+     */
+    public synchronized CompiledCorrections read(long version)
+            throws IOException {
+        long[] generations = {readGeneration(files[0]),
+                readGeneration(files[1])};
+
+        // the older file is mapped only if the newer one is damaged
+        int newerFile = generations[1] > generations[0] ? 1 : 0;
+
+        for (val i : new int[]{newerFile, 1 - newerFile}) {
+            if (generations[i] == NO_GENERATION) {
+                continue;
+            }
+
+            val data = map(files[i]);
+
+            mappedFiles[i] = true;
+
+            if (!isValid(data)) {
+                continue;
+            }
+
+            try {
+                val corrections = CompiledCorrections.readFrom(
+                        data.position(HEADER_SIZE), version);
+
+                readFile = i;
+
+                return corrections;
+            } catch (IllegalArgumentException e) {
+                // the checksum matches, but the format does not
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Writes the {@link CompiledCorrections} to the snapshot, replacing its
+     * previous contents.
+     * <p>
+     * The data is written to a temporary file first, which is moved over
+     * the file of the snapshot when it is complete, so the snapshot is never
+     * left half-written.
+     *
+     * @param corrections the {@link CompiledCorrections} to write.
+     * @throws NullPointerException if the {@link CompiledCorrections} are
+     *                              null.
+     * @throws IOException          if the snapshot cannot be written or if
+     *                              the {@link CompiledCorrections} are too
+     *                              large for a snapshot.
+     */
+    public synchronized void write(@NonNull CompiledCorrections corrections)
+            throws IOException {
+        long size = HEADER_SIZE + corrections.getSerializedSize();
+
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("The dictionary is too large for a " +
+                    "snapshot");
+        }
+
+        val data = ByteBuffer.allocate((int) size)
+                .order(ByteOrder.nativeOrder());
+
+        corrections.writeTo(data.position(HEADER_SIZE));
+
+        val file = files[selectFileToWrite()];
+
+        long generation = Math.max(readGeneration(files[0]),
+                readGeneration(files[1])) + 1;
+
+        data.putInt(0, MAGIC);
+        data.putInt(Integer.BYTES, FORMAT_VERSION);
+        data.putLong(2 * Integer.BYTES, generation);
+        data.putLong(2 * Integer.BYTES + Long.BYTES,
+                computeChecksum(data.duplicate()));
+
+        val temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (val channel = FileChannel.open(temporaryFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            data.rewind();
+
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+
+            // the file should not be replaced by an unwritten one on a crash
+            channel.force(false);
+        }
+
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // the file that was read or mapped may not be replaceable
+    private int selectFileToWrite() {
+        if (readFile != NOT_READ) {
+            return 1 - readFile;
+        }
+
+        return mappedFiles[0] && !mappedFiles[1] ? 1 : 0;
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (val channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the map stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size()).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    // reads only the header, so the file is not mapped
+    private static long readGeneration(Path file) throws IOException {
+        val header = ByteBuffer.allocate(HEADER_SIZE)
+                .order(ByteOrder.nativeOrder());
+
+        try (val channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) != -1) {
+                // reads until the header is full or the file ends
+            }
+        } catch (NoSuchFileException e) {
+            return NO_GENERATION;
+        }
+
+        if (header.hasRemaining() || header.getInt(0) != MAGIC ||
+                header.getInt(Integer.BYTES) != FORMAT_VERSION) {
+            return NO_GENERATION;
+        }
+
+        return Math.max(header.getLong(2 * Integer.BYTES), NO_GENERATION);
+    }
+
+    private static boolean isValid(ByteBuffer data) {
+        return data.capacity() >= HEADER_SIZE &&
+                data.getInt(0) == MAGIC &&
+                data.getInt(Integer.BYTES) == FORMAT_VERSION &&
+                data.getLong(2 * Integer.BYTES + Long.BYTES) ==
+                        computeChecksum(data.duplicate());
+    }
+
+    // the checksum of the data after the header
+    private static long computeChecksum(ByteBuffer data) {
+        val checksum = new CRC32C();
+
+        checksum.update(data.position(HEADER_SIZE));
+
+        return checksum.getValue();
+    }
+}
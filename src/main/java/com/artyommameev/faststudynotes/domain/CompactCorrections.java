@@ -0,0 +1,807 @@
+package com.artyommameev.faststudynotes.domain;
+
+import lombok.NonNull;
+import lombok.val;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of {@link Correction}s that keeps them in a compact form
+ * for large dictionaries.
+ * <p>
+ * The expressions and the corrections of all the {@link Correction}s are
+ * packed one after another into a single char arena, and the rest of their
+ * fields are kept in primitive arrays, so a dictionary takes a few objects
+ * instead of several objects per {@link Correction}. The arena can be kept
+ * off-heap in a direct buffer, so a large dictionary does not increase the
+ * heap size and the garbage collection time.
+ * <p>
+ * The {@link Correction} objects are created lazily each time an element of
+ * the list is requested, so they should not be compared by identity, and the
+ * fields of a single {@link Correction} can be read without creating it at
+ * all using the indexed getters.
+ * <p>
+ * A {@link Correction} can be found by its expression and type (see
+ * {@link #indexOf(String, Correction.TYPE)}) through a hash table of the
+ * indexes, which is built by the first search.
+ * <p>
+ * The list can be written to a byte buffer and read back from it (see
+ * {@link #writeTo(ByteBuffer)}), and if the buffer is direct or mapped from a
+ * file, the read list uses the chars of the buffer as its arena without
+ * copying them.
+ *
+ * @author Artyom Mameev
+ * @see Builder
+ */
+public class CompactCorrections extends AbstractList<Correction>
+        implements RandomAccess {
+
+    private static final Correction.TYPE[] TYPES = Correction.TYPE.values();
+    private static final Correction.KIND[] KINDS = Correction.KIND.values();
+    private static final Correction.CONDITION[] CONDITIONS =
+            Correction.CONDITION.values();
+
+    // the size and the arena length
+    private static final int SERIALIZED_HEADER_SIZE = 2 * Integer.BYTES;
+    // an offset, a type, a kind, a condition, a case flag, hits and time
+    private static final int SERIALIZED_CORRECTION_SIZE = 2 * Integer.BYTES +
+            4 + 2 * Long.BYTES;
+
+    private final int size;
+
+    // the chars of the expression and the correction of each Correction
+    private final CharBuffer arena;
+    /*the expression of the i-th Correction starts at offsets[2 * i], its
+    correction starts at offsets[2 * i + 1] and ends at offsets[2 * i + 2]*/
+    private final int[] offsets;
+    private final byte[] types;
+    private final byte[] kinds;
+    private final byte[] conditions;
+    private final boolean[] caseInsensitivity;
+    private final long[] hits;
+    private final long[] matchingTimes;
+
+    /*the indexes of the Corrections plus one in the slots of the hashes of
+    their expressions and types, with linear probing; null until the first
+    search, and a race only builds the same table twice*/
+    private volatile int[] keyTable;
+
+    private CompactCorrections(Builder builder, boolean isOffHeap) {
+        this.size = builder.size;
+
+        if (isOffHeap) {
+            arena = ByteBuffer.allocateDirect(builder.arenaLength *
+                    Character.BYTES).asCharBuffer();
+
+            arena.put(builder.arena, 0, builder.arenaLength);
+            arena.flip();
+        } else {
+            arena = CharBuffer.wrap(Arrays.copyOf(builder.arena,
+                    builder.arenaLength));
+        }
+
+        this.offsets = Arrays.copyOf(builder.offsets, 2 * size + 1);
+        this.types = Arrays.copyOf(builder.types, size);
+        this.kinds = Arrays.copyOf(builder.kinds, size);
+        this.conditions = Arrays.copyOf(builder.conditions, size);
+        this.caseInsensitivity = Arrays.copyOf(builder.caseInsensitivity,
+                size);
+        this.hits = Arrays.copyOf(builder.hits, size);
+        this.matchingTimes = Arrays.copyOf(builder.matchingTimes, size);
+    }
+
+    private CompactCorrections(int size, CharBuffer arena, int[] offsets,
+                               byte[] types, byte[] kinds, byte[] conditions,
+                               boolean[] caseInsensitivity, long[] hits,
+                               long[] matchingTimes) {
+        this.size = size;
+        this.arena = arena;
+        this.offsets = offsets;
+        this.types = types;
+        this.kinds = kinds;
+        this.conditions = conditions;
+        this.caseInsensitivity = caseInsensitivity;
+        this.hits = hits;
+        this.matchingTimes = matchingTimes;
+    }
+
+    /**
+     * Reads the list written by {@link #writeTo(ByteBuffer)} from the
+     * current position of a buffer, and moves the position to the end of
+     * the list.
+     * <p>
+     * The chars of the expressions and the corrections are not copied: the
+     * read list keeps a view of the buffer as its arena, so the content of
+     * the buffer must not be changed while the list is used. The list is
+     * off-heap if the buffer is direct.
+     *
+     * @param buffer the buffer to read the list from.
+     * @return the read list.
+     * @throws NullPointerException     if the buffer is null.
+     * @throws IllegalArgumentException if the data of the buffer is not a
+     *                                  valid list.
+     */
+    public static CompactCorrections readFrom(@NonNull ByteBuffer buffer) {
+        val source = buffer.slice().order(buffer.order());
+
+        if (source.remaining() < SERIALIZED_HEADER_SIZE) {
+            throw createMalformedDataException("the header is truncated");
+        }
+
+        int size = source.getInt();
+        int arenaLength = source.getInt();
+
+        if (size < 0 || arenaLength < 0 || (long) size *
+                SERIALIZED_CORRECTION_SIZE + Integer.BYTES +
+                (long) arenaLength * Character.BYTES > source.remaining()) {
+            throw createMalformedDataException("the data is truncated");
+        }
+
+        val offsets = new int[2 * size + 1];
+
+        source.asIntBuffer().get(offsets);
+        source.position(source.position() + offsets.length * Integer.BYTES);
+
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) {
+                throw createMalformedDataException("the offsets are " +
+                        "not sorted");
+            }
+
+            if (i % 2 == 1 && offsets[i] == offsets[i - 1]) {
+                throw createMalformedDataException("an expression is empty");
+            }
+        }
+
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != arenaLength) {
+            throw createMalformedDataException("the offsets do not match " +
+                    "the arena");
+        }
+
+        val types = readOrdinals(source, size, TYPES.length);
+        val kinds = readOrdinals(source, size, KINDS.length);
+        val conditions = readOrdinals(source, size, CONDITIONS.length);
+        val caseInsensitivity = new boolean[size];
+
+        for (int i = 0; i < size; i++) {
+            caseInsensitivity[i] = source.get() != 0;
+        }
+
+        val hits = new long[size];
+        val matchingTimes = new long[size];
+
+        source.asLongBuffer().get(hits);
+        source.position(source.position() + size * Long.BYTES);
+        source.asLongBuffer().get(matchingTimes);
+        source.position(source.position() + size * Long.BYTES);
+
+        for (int i = 0; i < size; i++) {
+            if (hits[i] < 0 || matchingTimes[i] < 0) {
+                throw createMalformedDataException("the statistics are " +
+                        "negative");
+            }
+        }
+
+        val arena = source.asCharBuffer();
+
+        arena.limit(arenaLength);
+
+        buffer.position(buffer.position() + source.position() +
+                arenaLength * Character.BYTES);
+
+        return new CompactCorrections(size, arena, offsets, types, kinds,
+                conditions, caseInsensitivity, hits, matchingTimes);
+    }
+
+    /**
+     * Creates a {@link Correction} object from the data of the list.
+     *
+     * @param index the index of the {@link Correction}.
+     * @return a new {@link Correction} object.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    @Override
+    public Correction get(int index) {
+        checkIndex(index);
+
+        // the Correction was validated when it was added
+        return new Correction(getExpression(index), getCorrection(index),
+                TYPES[types[index]], KINDS[kinds[index]],
+                CONDITIONS[conditions[index]], caseInsensitivity[index],
+                hits[index], matchingTimes[index], false);
+    }
+
+    /**
+     * Returns the number of the {@link Correction}s in the list.
+     *
+     * @return the number of the {@link Correction}s.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the expression of a {@link Correction}.
+     *
+     * @param index the index of the {@link Correction}.
+     * @return the expression of the {@link Correction}.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public String getExpression(int index) {
+        checkIndex(index);
+
+        return readArena(offsets[2 * index], offsets[2 * index + 1]);
+    }
+
+    /**
+     * Returns the correction of a {@link Correction}.
+     *
+     * @param index the index of the {@link Correction}.
+     * @return the correction of the {@link Correction}.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public String getCorrection(int index) {
+        checkIndex(index);
+
+        return readArena(offsets[2 * index + 1], offsets[2 * index + 2]);
+    }
+
+    /**
+     * Returns the type of a {@link Correction}.
+     *
+     * @param index the index of the {@link Correction}.
+     * @return the type of the {@link Correction}.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public Correction.TYPE getType(int index) {
+        checkIndex(index);
+
+        return TYPES[types[index]];
+    }
+
+    /**
+     * Returns the kind of a {@link Correction}.
+     *
+     * @param index the index of the {@link Correction}.
+     * @return the kind of the {@link Correction}.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public Correction.KIND getKind(int index) {
+        checkIndex(index);
+
+        return KINDS[kinds[index]];
+    }
+
+    /**
+     * Returns the condition of a {@link Correction}.
+     *
+     * @param index the index of the {@link Correction}.
+     * @return the condition of the {@link Correction}.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public Correction.CONDITION getCondition(int index) {
+        checkIndex(index);
+
+        return CONDITIONS[conditions[index]];
+    }
+
+    /**
+     * Checks if a {@link Correction} is case-insensitive.
+     *
+     * @param index the index of the {@link Correction}.
+     * @return true if the expression of the {@link Correction} matches
+     * regardless of its case, otherwise false.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public boolean isCaseInsensitive(int index) {
+        checkIndex(index);
+
+        return caseInsensitivity[index];
+    }
+
+    /**
+     * Finds the {@link Correction} with an expression and a type without
+     * creating any objects.
+     * <p>
+     * The first call builds a hash table of the indexes of the
+     * {@link Correction}s, which takes a few ints per {@link Correction}, so
+     * each next call takes a constant time on average.
+     *
+     * @param expression the expression of the {@link Correction}.
+     * @param type       the type of the {@link Correction}.
+     * @return the index of the first such {@link Correction}, or -1 if the
+     * list has no such {@link Correction}.
+     * @throws NullPointerException if any parameter is null.
+     */
+    public int indexOf(@NonNull String expression,
+                       @NonNull Correction.TYPE type) {
+        val table = getKeyTable();
+
+        int mask = table.length - 1;
+
+        for (int slot = hashKey(expression, type) & mask; table[slot] != 0;
+             slot = (slot + 1) & mask) {
+            int index = table[slot] - 1;
+
+            if (isKeyAt(index, expression, type)) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Checks if the arena of the list is kept off-heap.
+     *
+     * @return true if the arena is kept in a direct buffer, otherwise false.
+     */
+    public boolean isOffHeap() {
+        return arena.isDirect();
+    }
+
+    /**
+     * Returns the number of bytes that the list takes when it is written by
+     * {@link #writeTo(ByteBuffer)}.
+     *
+     * @return the size of the written list in bytes.
+     */
+    public long getSerializedSize() {
+        return SERIALIZED_HEADER_SIZE + Integer.BYTES +
+                (long) size * SERIALIZED_CORRECTION_SIZE +
+                (long) arena.limit() * Character.BYTES;
+    }
+
+    /**
+     * Writes the list to a buffer, starting at its current position, and
+     * moves the position to the end of the list.
+     * <p>
+     * The list is written in the byte order of the buffer, and can be read
+     * back by {@link #readFrom(ByteBuffer)} from a buffer of the same order.
+     *
+     * @param buffer the buffer to write the list to.
+     * @throws NullPointerException    if the buffer is null.
+     * @throws BufferOverflowException if the buffer has less space remaining
+     *                                 than {@link #getSerializedSize()}.
+     */
+    public void writeTo(@NonNull ByteBuffer buffer) {
+        if (buffer.remaining() < getSerializedSize()) {
+            throw new BufferOverflowException();
+        }
+
+        buffer.putInt(size);
+        buffer.putInt(arena.limit());
+
+        for (val offset : offsets) {
+            buffer.putInt(offset);
+        }
+
+        buffer.put(types);
+        buffer.put(kinds);
+        buffer.put(conditions);
+
+        for (val isCaseInsensitive : caseInsensitivity) {
+            buffer.put((byte) (isCaseInsensitive ? 1 : 0));
+        }
+
+        for (val hitsCount : hits) {
+            buffer.putLong(hitsCount);
+        }
+
+        for (val matchingTime : matchingTimes) {
+            buffer.putLong(matchingTime);
+        }
+
+        val chars = buffer.asCharBuffer();
+
+        chars.put(arena.duplicate());
+
+        buffer.position(buffer.position() + chars.position() *
+                Character.BYTES);
+    }
+
+    /**
+     * Checks if the list contains the same {@link Correction}s as another
+     * list, with the same fields and in the same order.
+     * <p>
+     * Unlike {@link #equals(Object)}, which compares the lazily created
+     * {@link Correction} objects, the method compares the packed data of the
+     * lists without creating any objects.
+     *
+     * @param other the list to compare with.
+     * @return true if the lists contain the same {@link Correction}s,
+     * otherwise false.
+     * @throws NullPointerException if the other list is null.
+     */
+    public boolean hasSameContents(@NonNull CompactCorrections other) {
+        return size == other.size &&
+                Arrays.equals(offsets, other.offsets) &&
+                Arrays.equals(types, other.types) &&
+                Arrays.equals(kinds, other.kinds) &&
+                Arrays.equals(conditions, other.conditions) &&
+                Arrays.equals(caseInsensitivity, other.caseInsensitivity) &&
+                Arrays.equals(hits, other.hits) &&
+                Arrays.equals(matchingTimes, other.matchingTimes) &&
+                arena.equals(other.arena);
+    }
+
+    private int[] getKeyTable() {
+        int[] table = keyTable;
+
+        if (table != null) {
+            return table;
+        }
+
+        // at most a half of the slots is taken
+        table = new int[(int) Math.min(1 << 30,
+                Long.highestOneBit(Math.max(1, size)) << 2)];
+
+        int mask = table.length - 1;
+
+        for (int index = 0; index < size; index++) {
+            int slot = hashKeyAt(index) & mask;
+
+            // the first of the equal keys is probed first
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+
+            table[slot] = index + 1;
+        }
+
+        keyTable = table;
+
+        return table;
+    }
+
+    private static int hashKey(String expression, Correction.TYPE type) {
+        int hash = type.ordinal();
+
+        for (int i = 0; i < expression.length(); i++) {
+            hash = 31 * hash + expression.charAt(i);
+        }
+
+        return spread(hash);
+    }
+
+    private int hashKeyAt(int index) {
+        int hash = types[index];
+
+        for (int i = offsets[2 * index]; i < offsets[2 * index + 1]; i++) {
+            hash = 31 * hash + arena.get(i);
+        }
+
+        return spread(hash);
+    }
+
+    // the similar expressions differ in the last bits of their hashes
+    private static int spread(int hash) {
+        hash *= 0x9E3779B9;
+
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean isKeyAt(int index, String expression,
+                            Correction.TYPE type) {
+        int from = offsets[2 * index];
+
+        if (types[index] != type.ordinal() ||
+                offsets[2 * index + 1] - from != expression.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < expression.length(); i++) {
+            if (arena.get(from + i) != expression.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private String readArena(int from, int to) {
+        val chars = new char[to - from];
+
+        // an absolute bulk read, which is thread-safe
+        arena.duplicate().position(from).get(chars);
+
+        return new String(chars);
+    }
+
+    private static byte[] readOrdinals(ByteBuffer source, int size,
+                                       int valuesCount) {
+        val ordinals = new byte[size];
+
+        source.get(ordinals);
+
+        for (val ordinal : ordinals) {
+            if (ordinal < 0 || ordinal >= valuesCount) {
+                throw createMalformedDataException("an unknown field value " +
+                        ordinal);
+            }
+        }
+
+        return ordinals;
+    }
+
+    private static IllegalArgumentException createMalformedDataException(
+            String reason) {
+        return new IllegalArgumentException("Malformed corrections data: " +
+                reason);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index +
+                    ", Size: " + size);
+        }
+    }
+
+    /**
+     * A builder of {@link CompactCorrections}, which packs the
+     * {@link Correction}s as they are added, without creating
+     * {@link Correction} objects.
+     */
+    public static class Builder {
+
+        private char[] arena = new char[1024];
+        private int arenaLength;
+        private int[] offsets = new int[33];
+        private byte[] types = new byte[16];
+        private byte[] kinds = new byte[16];
+        private byte[] conditions = new byte[16];
+        private boolean[] caseInsensitivity = new boolean[16];
+        private long[] hits = new long[16];
+        private long[] matchingTimes = new long[16];
+        private int size;
+
+        /**
+         * Adds a {@link Correction} to the list.
+         *
+         * @param correction the {@link Correction} to add.
+         * @return this builder.
+         * @throws NullPointerException  if the {@link Correction} is null.
+         * @throws IllegalStateException if the list is too large to add the
+         *                               {@link Correction}.
+         */
+        public Builder add(@NonNull Correction correction) {
+            return add(correction.getExpression(), correction.getCorrection(),
+                    correction.getType(), correction.getKind(),
+                    correction.getCondition(), correction.isCaseInsensitive(),
+                    correction.getHits(), correction.getMatchingTime());
+        }
+
+        /**
+         * Adds a {@link Correction} with the given fields to the list.
+         *
+         * @param expression   an expression that should be corrected.
+         * @param correction   a correction of the expression.
+         * @param type         a type of the correction.
+         * @param kind         a kind of the expression.
+         * @param hits         how many times the correction was applied.
+         * @param matchingTime how much time the expression took to match, in
+         *                     nanoseconds.
+         * @return this builder.
+         * @throws NullPointerException     if any object parameter is null.
+         * @throws IllegalArgumentException if the fields are not valid for a
+         *                                  {@link Correction} (see
+         *                                  {@link Correction#Correction(
+         *                                  String, String, Correction.TYPE,
+         *                                  Correction.KIND, long, long)}).
+         * @throws IllegalStateException    if the list is too large to add
+         *                                  the {@link Correction}.
+         */
+        public Builder add(@NonNull String expression,
+                           @NonNull String correction,
+                           @NonNull Correction.TYPE type,
+                           @NonNull Correction.KIND kind, long hits,
+                           long matchingTime) {
+            return add(expression, correction, type, kind,
+                    Correction.CONDITION.NONE, hits, matchingTime);
+        }
+
+        /**
+         * Adds a conditional {@link Correction} with the given fields to the
+         * list.
+         *
+         * @param expression   an expression that should be corrected.
+         * @param correction   a correction of the expression.
+         * @param type         a type of the correction.
+         * @param kind         a kind of the expression.
+         * @param condition    a condition of the matches of the expression.
+         * @param hits         how many times the correction was applied.
+         * @param matchingTime how much time the expression took to match, in
+         *                     nanoseconds.
+         * @return this builder.
+         * @throws NullPointerException     if any object parameter is null.
+         * @throws IllegalArgumentException if the fields are not valid for a
+         *                                  {@link Correction} (see
+         *                                  {@link Correction#Correction(
+         *                                  String, String, Correction.TYPE,
+         *                                  Correction.KIND, long, long)}).
+         * @throws IllegalStateException    if the list is too large to add
+         *                                  the {@link Correction}.
+         */
+        public Builder add(@NonNull String expression,
+                           @NonNull String correction,
+                           @NonNull Correction.TYPE type,
+                           @NonNull Correction.KIND kind,
+                           @NonNull Correction.CONDITION condition, long hits,
+                           long matchingTime) {
+            return add(expression, correction, type, kind, condition, false,
+                    hits, matchingTime);
+        }
+
+        /**
+         * Adds a {@link Correction} with all the given fields to the list.
+         *
+         * @param expression      an expression that should be corrected.
+         * @param correction      a correction of the expression.
+         * @param type            a type of the correction.
+         * @param kind            a kind of the expression.
+         * @param condition       a condition of the matches of the
+         *                        expression.
+         * @param caseInsensitive whether the expression matches regardless
+         *                        of its case.
+         * @param hits            how many times the correction was applied.
+         * @param matchingTime    how much time the expression took to match,
+         *                        in nanoseconds.
+         * @return this builder.
+         * @throws NullPointerException     if any object parameter is null.
+         * @throws IllegalArgumentException if the fields are not valid for a
+         *                                  {@link Correction} (see
+         *                                  {@link Correction#Correction(
+         *                                  String, String, Correction.TYPE,
+         *                                  Correction.KIND, long, long)}).
+         * @throws IllegalStateException    if the list is too large to add
+         *                                  the {@link Correction}.
+         */
+        public Builder add(@NonNull String expression,
+                           @NonNull String correction,
+                           @NonNull Correction.TYPE type,
+                           @NonNull Correction.KIND kind,
+                           @NonNull Correction.CONDITION condition,
+                           boolean caseInsensitive, long hits,
+                           long matchingTime) {
+            Correction.validate(expression, kind, hits, matchingTime);
+
+            long newArenaLength = (long) arenaLength + expression.length() +
+                    correction.length();
+
+            // the offsets are ints, and the direct buffer is limited by bytes
+            if (newArenaLength > Integer.MAX_VALUE / Character.BYTES ||
+                    size == (Integer.MAX_VALUE - 1) / 2) {
+                throw new IllegalStateException("The dictionary is too " +
+                        "large");
+            }
+
+            ensureCapacity((int) newArenaLength);
+
+            expression.getChars(0, expression.length(), arena, arenaLength);
+
+            arenaLength += expression.length();
+
+            offsets[2 * size + 1] = arenaLength;
+
+            correction.getChars(0, correction.length(), arena, arenaLength);
+
+            arenaLength += correction.length();
+
+            offsets[2 * size + 2] = arenaLength;
+
+            types[size] = (byte) type.ordinal();
+            kinds[size] = (byte) kind.ordinal();
+            conditions[size] = (byte) condition.ordinal();
+            caseInsensitivity[size] = caseInsensitive;
+            this.hits[size] = hits;
+            this.matchingTimes[size] = matchingTime;
+
+            size++;
+
+            return this;
+        }
+
+        /**
+         * Adds a {@link Correction} of other {@link CompactCorrections} to
+         * the list, copying its packed data without creating any objects.
+         *
+         * @param corrections the {@link CompactCorrections} that contain the
+         *                    {@link Correction}.
+         * @param index       the index of the {@link Correction}.
+         * @return this builder.
+         * @throws NullPointerException      if the {@link CompactCorrections}
+         *                                   are null.
+         * @throws IndexOutOfBoundsException if the index is out of range.
+         * @throws IllegalStateException     if the list is too large to add
+         *                                   the {@link Correction}.
+         */
+        public Builder add(@NonNull CompactCorrections corrections,
+                           int index) {
+            corrections.checkIndex(index);
+
+            int from = corrections.offsets[2 * index];
+            int middle = corrections.offsets[2 * index + 1];
+            int to = corrections.offsets[2 * index + 2];
+
+            long newArenaLength = (long) arenaLength + to - from;
+
+            if (newArenaLength > Integer.MAX_VALUE / Character.BYTES ||
+                    size == (Integer.MAX_VALUE - 1) / 2) {
+                throw new IllegalStateException("The dictionary is too " +
+                        "large");
+            }
+
+            ensureCapacity((int) newArenaLength);
+
+            // the Correction was validated when it was added to the other list
+            for (int i = from; i < to; i++) {
+                arena[arenaLength + i - from] = corrections.arena.get(i);
+            }
+
+            offsets[2 * size + 1] = arenaLength + middle - from;
+            offsets[2 * size + 2] = arenaLength + to - from;
+
+            arenaLength += to - from;
+
+            types[size] = corrections.types[index];
+            kinds[size] = corrections.kinds[index];
+            conditions[size] = corrections.conditions[index];
+            caseInsensitivity[size] = corrections.caseInsensitivity[index];
+            hits[size] = corrections.hits[index];
+            matchingTimes[size] = corrections.matchingTimes[index];
+
+            size++;
+
+            return this;
+        }
+
+        /**
+         * Builds the {@link CompactCorrections} that keep their arena on the
+         * heap.
+         *
+         * @return the list of the added {@link Correction}s.
+         */
+        public CompactCorrections build() {
+            return build(false);
+        }
+
+        /**
+         * Builds the {@link CompactCorrections}.
+         *
+         * @param isOffHeap whether the arena should be kept off-heap in a
+         *                  direct buffer.
+         * @return the list of the added {@link Correction}s.
+         */
+        public CompactCorrections build(boolean isOffHeap) {
+            return new CompactCorrections(this, isOffHeap);
+        }
+
+        private void ensureCapacity(int newArenaLength) {
+            if (newArenaLength > arena.length) {
+                arena = Arrays.copyOf(arena, (int) Math.min(
+                        Integer.MAX_VALUE / Character.BYTES,
+                        Math.max(newArenaLength, 2L * arena.length)));
+            }
+
+            if (size == types.length) {
+                int newCapacity = (int) Math.min((Integer.MAX_VALUE - 1) / 2,
+                        2L * types.length);
+
+                offsets = Arrays.copyOf(offsets, 2 * newCapacity + 1);
+                types = Arrays.copyOf(types, newCapacity);
+                kinds = Arrays.copyOf(kinds, newCapacity);
+                conditions = Arrays.copyOf(conditions, newCapacity);
+                caseInsensitivity = Arrays.copyOf(caseInsensitivity,
+                        newCapacity);
+                hits = Arrays.copyOf(hits, newCapacity);
+                matchingTimes = Arrays.copyOf(matchingTimes, newCapacity);
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import lombok.Getter;
 import lombok.NonNull;
 
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 /**
  * Encapsulates a correction of bad OCRed text.
@@ -18,9 +19,19 @@ public class Correction {
     private final String correction;
     @Getter
     private final TYPE type;
+    @Getter
+    private final KIND kind;
+    @Getter
+    private final CONDITION condition;
+    @Getter
+    private final boolean caseInsensitive;
+    @Getter
+    private final long hits;
+    @Getter
+    private final long matchingTime;
 
     /**
-     * Instantiates a new Correction object.
+     * Instantiates a new literal Correction object.
      *
      * @param expression an expression that should be corrected.
      * @param correction a correction of the expression.
@@ -30,13 +41,199 @@ public class Correction {
      */
     public Correction(@NonNull String expression, @NonNull String correction,
                       @NonNull Correction.TYPE type) {
-        if (expression.isEmpty()) {
-            throw new IllegalArgumentException("Expression cannot be empty!");
+        this(expression, correction, type, KIND.LITERAL);
+    }
+
+    /**
+     * Instantiates a new Correction object.
+     *
+     * @param expression an expression that should be corrected.
+     * @param correction a correction of the expression.
+     * @param type       a type of the correction.
+     * @param kind       a kind of the expression.
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the expression is empty, or if the
+     *                                  kind is {@link KIND#REGEX} and the
+     *                                  expression is not a valid regular
+     *                                  expression.
+     */
+    public Correction(@NonNull String expression, @NonNull String correction,
+                      @NonNull Correction.TYPE type,
+                      @NonNull Correction.KIND kind) {
+        this(expression, correction, type, kind, CONDITION.NONE);
+    }
+
+    /**
+     * Instantiates a new Correction object that is applied only to the
+     * matches that satisfy a condition.
+     *
+     * @param expression an expression that should be corrected.
+     * @param correction a correction of the expression.
+     * @param type       a type of the correction.
+     * @param kind       a kind of the expression.
+     * @param condition  a condition of the matches of the expression.
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the expression is empty, or if the
+     *                                  kind is {@link KIND#REGEX} and the
+     *                                  expression is not a valid regular
+     *                                  expression.
+     */
+    public Correction(@NonNull String expression, @NonNull String correction,
+                      @NonNull Correction.TYPE type,
+                      @NonNull Correction.KIND kind,
+                      @NonNull Correction.CONDITION condition) {
+        this(expression, correction, type, kind, condition, false);
+    }
+
+    /**
+     * Instantiates a new conditional Correction object that can match the
+     * expression regardless of its case.
+     * <p>
+     * The case-insensitive correction replaces the expression in any case,
+     * and the replacement gets the case of the replaced text, e.g. the
+     * "teh" -{@literal >} "the" correction replaces "Teh" with "The" and
+     * "TEH" with "THE".
+     *
+     * @param expression      an expression that should be corrected.
+     * @param correction      a correction of the expression.
+     * @param type            a type of the correction.
+     * @param kind            a kind of the expression.
+     * @param condition       a condition of the matches of the expression.
+     * @param caseInsensitive whether the expression matches regardless of
+     *                        its case.
+     * @throws NullPointerException     if any object parameter is null.
+     * @throws IllegalArgumentException if the expression is empty, or if the
+     *                                  kind is {@link KIND#REGEX} and the
+     *                                  expression is not a valid regular
+     *                                  expression.
+     */
+    public Correction(@NonNull String expression, @NonNull String correction,
+                      @NonNull Correction.TYPE type,
+                      @NonNull Correction.KIND kind,
+                      @NonNull Correction.CONDITION condition,
+                      boolean caseInsensitive) {
+        this(expression, correction, type, kind, condition, caseInsensitive,
+                0, 0);
+    }
+
+    /**
+     * Instantiates a new Correction object with its usage statistics.
+     *
+     * @param expression   an expression that should be corrected.
+     * @param correction   a correction of the expression.
+     * @param type         a type of the correction.
+     * @param kind         a kind of the expression.
+     * @param hits         how many times the correction was applied.
+     * @param matchingTime how much time the expression took to match, in
+     *                     nanoseconds.
+     * @throws NullPointerException     if any object parameter is null.
+     * @throws IllegalArgumentException if the expression is empty, if the
+     *                                  kind is {@link KIND#REGEX} and the
+     *                                  expression is not a valid regular
+     *                                  expression, or if the hits or the
+     *                                  matching time is negative.
+     */
+    public Correction(@NonNull String expression, @NonNull String correction,
+                      @NonNull Correction.TYPE type,
+                      @NonNull Correction.KIND kind, long hits,
+                      long matchingTime) {
+        this(expression, correction, type, kind, CONDITION.NONE, hits,
+                matchingTime);
+    }
+
+    /**
+     * Instantiates a new conditional Correction object with its usage
+     * statistics.
+     *
+     * @param expression   an expression that should be corrected.
+     * @param correction   a correction of the expression.
+     * @param type         a type of the correction.
+     * @param kind         a kind of the expression.
+     * @param condition    a condition of the matches of the expression.
+     * @param hits         how many times the correction was applied.
+     * @param matchingTime how much time the expression took to match, in
+     *                     nanoseconds.
+     * @throws NullPointerException     if any object parameter is null.
+     * @throws IllegalArgumentException if the expression is empty, if the
+     *                                  kind is {@link KIND#REGEX} and the
+     *                                  expression is not a valid regular
+     *                                  expression, or if the hits or the
+     *                                  matching time is negative.
+     */
+    public Correction(@NonNull String expression, @NonNull String correction,
+                      @NonNull Correction.TYPE type,
+                      @NonNull Correction.KIND kind,
+                      @NonNull Correction.CONDITION condition, long hits,
+                      long matchingTime) {
+        this(expression, correction, type, kind, condition, false, hits,
+                matchingTime);
+    }
+
+    /**
+     * Instantiates a new Correction object with all its fields.
+     *
+     * @param expression      an expression that should be corrected.
+     * @param correction      a correction of the expression.
+     * @param type            a type of the correction.
+     * @param kind            a kind of the expression.
+     * @param condition       a condition of the matches of the expression.
+     * @param caseInsensitive whether the expression matches regardless of
+     *                        its case.
+     * @param hits            how many times the correction was applied.
+     * @param matchingTime    how much time the expression took to match, in
+     *                        nanoseconds.
+     * @throws NullPointerException     if any object parameter is null.
+     * @throws IllegalArgumentException if the expression is empty, if the
+     *                                  kind is {@link KIND#REGEX} and the
+     *                                  expression is not a valid regular
+     *                                  expression, or if the hits or the
+     *                                  matching time is negative.
+     */
+    public Correction(@NonNull String expression, @NonNull String correction,
+                      @NonNull Correction.TYPE type,
+                      @NonNull Correction.KIND kind,
+                      @NonNull Correction.CONDITION condition,
+                      boolean caseInsensitive, long hits,
+                      long matchingTime) {
+        this(expression, correction, type, kind, condition, caseInsensitive,
+                hits, matchingTime, true);
+    }
+
+    // used to recreate the Corrections that were already validated
+    Correction(@NonNull String expression, @NonNull String correction,
+               @NonNull Correction.TYPE type, @NonNull Correction.KIND kind,
+               @NonNull Correction.CONDITION condition,
+               boolean caseInsensitive, long hits, long matchingTime,
+               boolean isValidationNeeded) {
+        if (isValidationNeeded) {
+            validate(expression, kind, hits, matchingTime);
         }
 
         this.expression = expression;
         this.correction = correction;
         this.type = type;
+        this.kind = kind;
+        this.condition = condition;
+        this.caseInsensitive = caseInsensitive;
+        this.hits = hits;
+        this.matchingTime = matchingTime;
+    }
+
+    static void validate(String expression, Correction.KIND kind, long hits,
+                         long matchingTime) {
+        if (expression.isEmpty()) {
+            throw new IllegalArgumentException("Expression cannot be empty!");
+        }
+
+        if (hits < 0 || matchingTime < 0) {
+            throw new IllegalArgumentException("Statistics cannot be " +
+                    "negative!");
+        }
+
+        if (kind.equals(KIND.REGEX)) {
+            // throws PatternSyntaxException, which is IllegalArgumentException
+            Pattern.compile(expression);
+        }
     }
 
     /**
@@ -45,12 +242,28 @@ public class Correction {
      * @return the string representation of the object in the following format:
      * <p>
      * "expression" -{@literal >} "correction" (type)
+     * <p>
+     * or, if the kind of the expression is {@link KIND#REGEX}:
+     * <p>
+     * "expression" -{@literal >} "correction" (type, REGEX)
+     * <p>
+     * If the {@link Correction} has a condition, it is added after the type
+     * and the kind, e.g.:
+     * <p>
+     * "expression" -{@literal >} "correction" (type, WHOLE_WORD)
+     * <p>
+     * The case-insensitive {@link Correction} is marked after them, e.g.:
+     * <p>
+     * "expression" -{@literal >} "correction" (type, IGNORE_CASE)
      */
     @Override
     public String toString() {
         return "\"" + Objects.requireNonNull(expression) + "\" -> \"" +
                 Objects.requireNonNull(correction) + "\" (" +
-                Objects.requireNonNull(type) + ")";
+                Objects.requireNonNull(type) +
+                (kind.equals(KIND.REGEX) ? ", " + kind : "") +
+                (condition.equals(CONDITION.NONE) ? "" : ", " + condition) +
+                (caseInsensitive ? ", IGNORE_CASE" : "") + ")";
     }
 
     /**
@@ -60,4 +273,33 @@ public class Correction {
      * <i>CODE</i> - correction of a code text.
      */
     public enum TYPE {TEXT, CODE}
+
+    /**
+     * Determines the kind of the expression of correction.
+     * <p>
+     * <i>LITERAL</i> - the expression is a plain text.<br>
+     * <i>REGEX</i> - the expression is a regular expression, and the
+     * correction can refer to its groups as $1, $2 or ${name}.
+     */
+    public enum KIND {LITERAL, REGEX}
+
+    /**
+     * Determines the condition of the matches of the expression of
+     * correction, which is checked against the chars around a match. A word
+     * char is a letter or a digit, and the start and the end of a text are
+     * the boundaries of a word and of a line.
+     * <p>
+     * <i>NONE</i> - every match is corrected.<br>
+     * <i>WHOLE_WORD</i> - a match is corrected only if it is not preceded or
+     * followed by a word char.<br>
+     * <i>WORD_START</i> - a match is corrected only if it is not preceded by
+     * a word char.<br>
+     * <i>WORD_END</i> - a match is corrected only if it is not followed by a
+     * word char.<br>
+     * <i>LINE_START</i> - a match is corrected only if it starts a line.<br>
+     * <i>LINE_END</i> - a match is corrected only if it ends a line.
+     */
+    public enum CONDITION {
+        NONE, WHOLE_WORD, WORD_START, WORD_END, LINE_START, LINE_END
+    }
 }
\ No newline at end of file
@@ -0,0 +1,296 @@
+package com.artyommameev.faststudynotes.suggest;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A miner of the corrections that the user makes by hand.
+ * <p>
+ * The miner compares a text as it was pasted with the part of it that the
+ * user has edited and added, and counts each word that was replaced with a
+ * similar word. The counts are kept in a {@link CountMinSketch} of a fixed
+ * size, so the miner takes the same memory however many words are edited,
+ * and the replacements that are counted at least the threshold number of
+ * times are proposed as {@link Suggestion}s, whose frequencies are the
+ * counts of the replacements.
+ * <p>
+ * The texts are compared in a single background thread, so submitting a
+ * text never blocks the caller.
+ *
+ * @author Artyom Mameev
+ */
+public class CorrectionMiner {
+
+    /**
+     * The default number of times a replacement should be made to be
+     * proposed.
+     */
+    public static final int DEFAULT_THRESHOLD = 3;
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 1 << 14;
+    private static final int MAX_CANDIDATES_COUNT = 100;
+    // the longer texts are not compared, since the alignment takes a cell each
+    private static final long MAX_ALIGNMENT_CELLS = 1 << 24;
+
+    private static final byte DIAGONAL = 0;
+    private static final byte UP = 1;
+    private static final byte LEFT = 2;
+
+    @Getter
+    private final int threshold;
+
+    private final CountMinSketch sketch = new CountMinSketch(SKETCH_DEPTH,
+            SKETCH_WIDTH);
+    // the most recently counted replacements that reached the threshold
+    private final Map<String, Suggestion> candidates = new LinkedHashMap<>(
+            16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(
+                Map.Entry<String, Suggestion> eldest) {
+            return size() > MAX_CANDIDATES_COUNT;
+        }
+    };
+    private final Set<String> dismissedKeys = new HashSet<>();
+
+    private final ExecutorService executor = Executors
+            .newSingleThreadExecutor(runnable -> {
+                val thread = new Thread(runnable, "correction-miner");
+
+                thread.setDaemon(true);
+
+                return thread;
+            });
+
+    /**
+     * Instantiates a new Correction Miner.
+     *
+     * @param threshold the number of times a replacement should be made to be
+     *                  proposed.
+     * @throws IllegalArgumentException if the threshold is less than 1.
+     */
+    public CorrectionMiner(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Invalid threshold: " +
+                    threshold);
+        }
+
+        this.threshold = threshold;
+    }
+
+    /**
+     * Submits a text for comparison in the background.
+     *
+     * @param originalText the text as it was pasted.
+     * @param editedText   the part of the text as it was edited by the user.
+     * @throws NullPointerException if any parameter is null.
+     */
+    public void submit(@NonNull String originalText,
+                       @NonNull String editedText) {
+        // the text was not edited
+        if (originalText.contains(editedText)) {
+            return;
+        }
+
+        executor.execute(() -> mine(originalText, editedText));
+    }
+
+    /**
+     * Returns the proposed replacements.
+     *
+     * @return the {@link Suggestion}s of the replacements that were made at
+     * least the threshold number of times and were not dismissed, the most
+     * frequent first.
+     */
+    public synchronized List<Suggestion> getCandidates() {
+        List<Suggestion> sortedCandidates = new ArrayList<>(
+                candidates.values());
+
+        sortedCandidates.sort(Comparator.comparingLong(
+                Suggestion::getFrequency).reversed());
+
+        return sortedCandidates;
+    }
+
+    /**
+     * Stops proposing a replacement, for example, since it was turned into a
+     * correction.
+     *
+     * @param suggestion the {@link Suggestion} of the replacement.
+     * @throws NullPointerException if the {@link Suggestion} is null.
+     */
+    public synchronized void dismiss(@NonNull Suggestion suggestion) {
+        val key = createKey(suggestion.getToken(), suggestion.getWord());
+
+        dismissedKeys.add(key);
+        candidates.remove(key);
+    }
+
+    /**
+     * Stops the background thread. The texts that are submitted afterwards
+     * are ignored.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Compares a text with its edited part and counts the replacements.
+     *
+     * @param originalText the text as it was pasted.
+     * @param editedText   the part of the text as it was edited by the user.
+     */
+    void mine(String originalText, String editedText) {
+        val originalTokens = tokenize(originalText);
+        val editedTokens = tokenize(editedText);
+
+        if (originalTokens.isEmpty() || editedTokens.isEmpty() ||
+                (long) originalTokens.size() * editedTokens.size() >
+                        MAX_ALIGNMENT_CELLS) {
+            return;
+        }
+
+        val costs = new int[originalTokens.size() + 1];
+
+        val directions = align(originalTokens, editedTokens, costs);
+
+        int i = editedTokens.size();
+        // the end of the part of the original tokens that was edited
+        int j = 1;
+
+        for (int k = 2; k < costs.length; k++) {
+            if (costs[k] < costs[j]) {
+                j = k;
+            }
+        }
+
+        while (i > 0 && j > 0) {
+            byte direction = directions[(i - 1) * originalTokens.size() +
+                    j - 1];
+
+            if (direction == DIAGONAL) {
+                count(originalTokens.get(j - 1), editedTokens.get(i - 1));
+
+                i--;
+                j--;
+            } else if (direction == UP) {
+                i--;
+            } else {
+                j--;
+            }
+        }
+    }
+
+    private void count(String originalToken, String editedToken) {
+        if (originalToken.equals(editedToken)) {
+            return;
+        }
+
+        // the other words were not corrected, but rewritten
+        int distance = SuggestionIndex.computeDistance(originalToken,
+                editedToken, SuggestionIndex.DEFAULT_MAX_EDIT_DISTANCE);
+
+        if (distance == -1) {
+            return;
+        }
+
+        val key = createKey(originalToken, editedToken);
+
+        int count = sketch.add(key);
+
+        if (count < threshold) {
+            return;
+        }
+
+        synchronized (this) {
+            if (!dismissedKeys.contains(key)) {
+                candidates.put(key, new Suggestion(originalToken, editedToken,
+                        distance, count));
+            }
+        }
+    }
+
+    /*the edit distance alignment of the edited tokens with any part of the
+    original tokens, so the text around the edited part costs nothing; returns
+    the directions of the optimal steps into each cell and puts the costs of
+    the alignments that end at each original token into the last row*/
+    private static byte[] align(List<String> originalTokens,
+                                List<String> editedTokens, int[] lastRow) {
+        int columns = originalTokens.size();
+
+        val directions = new byte[editedTokens.size() * columns];
+
+        int[] previousRow = new int[columns + 1];
+        int[] row = new int[columns + 1];
+
+        for (int i = 1; i <= editedTokens.size(); i++) {
+            row[0] = i;
+
+            for (int j = 1; j <= columns; j++) {
+                int diagonal = previousRow[j - 1] + (originalTokens.get(j - 1)
+                        .equals(editedTokens.get(i - 1)) ? 0 : 1);
+                int up = previousRow[j] + 1;
+                int left = row[j - 1] + 1;
+
+                int cell = (i - 1) * columns + j - 1;
+
+                if (diagonal <= up && diagonal <= left) {
+                    row[j] = diagonal;
+                    directions[cell] = DIAGONAL;
+                } else if (up <= left) {
+                    row[j] = up;
+                    directions[cell] = UP;
+                } else {
+                    row[j] = left;
+                    directions[cell] = LEFT;
+                }
+            }
+
+            val swappedRow = previousRow;
+
+            previousRow = row;
+            row = swappedRow;
+        }
+
+        System.arraycopy(previousRow, 0, lastRow, 0, lastRow.length);
+
+        return directions;
+    }
+
+    // the sequences of letters and digits
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+
+        int start = -1;
+
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isTokenChar = i < text.length() &&
+                    Character.isLetterOrDigit(text.charAt(i));
+
+            if (isTokenChar && start == -1) {
+                start = i;
+            } else if (!isTokenChar && start != -1) {
+                tokens.add(text.substring(start, i));
+
+                start = -1;
+            }
+        }
+
+        return tokens;
+    }
+
+    private static String createKey(String originalToken, String editedToken) {
+        return originalToken + '\0' + editedToken;
+    }
+}
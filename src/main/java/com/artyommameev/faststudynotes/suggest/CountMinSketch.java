@@ -0,0 +1,101 @@
+package com.artyommameev.faststudynotes.suggest;
+
+/**
+ * A Count-Min sketch that counts the occurrences of strings in a fixed amount
+ * of memory.
+ * <p>
+ * Each string increments one counter in each row of the sketch, and its count
+ * is estimated as the minimum of its counters, so the estimate is never less
+ * than the real count and exceeds it only if all the counters of the string
+ * are shared with other strings. Only the counters that equal the minimum are
+ * incremented (the conservative update), which makes the overestimation
+ * smaller.
+ *
+ * @author Artyom Mameev
+ */
+class CountMinSketch {
+
+    private final int depth;
+    private final int widthMask;
+    private final int[] counters;
+
+    /**
+     * Instantiates a new Count-Min Sketch.
+     *
+     * @param depth the number of the rows of the sketch.
+     * @param width the number of the counters in each row, which is rounded
+     *              up to a power of two.
+     * @throws IllegalArgumentException if the depth or the width is less than
+     *                                  1, or if the sketch is too large.
+     */
+    CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 1 || width > 1 << 30 ||
+                (long) depth * width > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid sketch size: " +
+                    depth + "x" + width);
+        }
+
+        int roundedWidth = Integer.highestOneBit(width) == width ? width :
+                Integer.highestOneBit(width) << 1;
+
+        this.depth = depth;
+        this.widthMask = roundedWidth - 1;
+        this.counters = new int[depth * roundedWidth];
+    }
+
+    /**
+     * Counts an occurrence of a string.
+     *
+     * @param key the string.
+     * @return the estimated count of the string after the occurrence.
+     */
+    int add(String key) {
+        int hash = key.hashCode();
+
+        int estimate = estimate(hash);
+
+        if (estimate == Integer.MAX_VALUE) {
+            return estimate;
+        }
+
+        for (int row = 0; row < depth; row++) {
+            int index = getIndex(hash, row);
+
+            if (counters[index] == estimate) {
+                counters[index]++;
+            }
+        }
+
+        return estimate + 1;
+    }
+
+    /**
+     * Estimates the count of a string.
+     *
+     * @param key the string.
+     * @return the estimated count, which is not less than the real count.
+     */
+    int estimate(String key) {
+        return estimate(key.hashCode());
+    }
+
+    private int estimate(int hash) {
+        int estimate = Integer.MAX_VALUE;
+
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[getIndex(hash, row)]);
+        }
+
+        return estimate;
+    }
+
+    // an independent position of the string in each row
+    private int getIndex(int hash, int row) {
+        long mixed = (hash ^ (row + 1) * 0x9e3779b97f4a7c15L) *
+                0xff51afd7ed558ccdL;
+
+        mixed ^= mixed >>> 33;
+
+        return row * (widthMask + 1) + ((int) mixed & widthMask);
+    }
+}
@@ -0,0 +1,439 @@
+package com.artyommameev.faststudynotes.suggest;
+
+import lombok.NonNull;
+import lombok.val;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * A compact set of the known words that finds the unknown tokens of a text,
+ * which are probably OCR errors.
+ * <p>
+ * The words are sorted and packed into a single char arena in blocks of 16
+ * words, and each word of a block is stored as the length of the prefix it
+ * shares with the previous word and the rest of its chars, so a large word
+ * list takes a few bytes per word instead of several objects per word. A
+ * token is checked by a Bloom filter first, which rejects most of the unknown
+ * tokens at once, and then by a binary search of the blocks and a scan of one
+ * block. Checking a text allocates nothing but the result.
+ * <p>
+ * The words are compared ignoring case. A token of a text is a sequence of
+ * letters and digits that contains at least one letter.
+ *
+ * @author Artyom Mameev
+ */
+public class Lexicon {
+
+    private static final int BLOCK_SIZE = 16;
+    // about 1% of false positives
+    private static final int BLOOM_BITS_PER_WORD = 10;
+    private static final int BLOOM_HASHES_COUNT = 7;
+
+    private final int size;
+    private final char[] arena;
+    // the offset of the first word of each block in the arena
+    private final int[] blockOffsets;
+    private final long[] bloomBits;
+    private final long bloomBitsCount;
+
+    /**
+     * Instantiates a new Lexicon.
+     *
+     * @param words the known words.
+     * @throws NullPointerException     if the collection or any word is null.
+     * @throws IllegalArgumentException if any word is empty or longer than
+     *                                  {@link Character#MAX_VALUE} chars.
+     */
+    public Lexicon(@NonNull Collection<String> words) {
+        val sortedWords = new String[words.size()];
+
+        int index = 0;
+
+        for (val word : words) {
+            if (word.isEmpty() || word.length() > Character.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid word: \"" + word +
+                        "\"");
+            }
+
+            sortedWords[index++] = toLowerCase(word);
+        }
+
+        Arrays.sort(sortedWords);
+
+        List<String> uniqueWords = new ArrayList<>(sortedWords.length);
+
+        for (val word : sortedWords) {
+            if (uniqueWords.isEmpty() ||
+                    !uniqueWords.get(uniqueWords.size() - 1).equals(word)) {
+                uniqueWords.add(word);
+            }
+        }
+
+        this.size = uniqueWords.size();
+        this.blockOffsets = new int[(size + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        this.bloomBitsCount = Math.max(64L, (long) size *
+                BLOOM_BITS_PER_WORD);
+        this.bloomBits = new long[(int) ((bloomBitsCount + 63) / 64)];
+
+        val arenaBuilder = new StringBuilder();
+
+        for (int i = 0; i < size; i++) {
+            val word = uniqueWords.get(i);
+
+            if (i % BLOCK_SIZE == 0) {
+                blockOffsets[i / BLOCK_SIZE] = arenaBuilder.length();
+
+                arenaBuilder.append((char) word.length()).append(word);
+            } else {
+                int sharedLength = computeSharedLength(uniqueWords.get(i - 1),
+                        word);
+
+                arenaBuilder.append((char) sharedLength)
+                        .append((char) (word.length() - sharedLength))
+                        .append(word, sharedLength, word.length());
+            }
+
+            addToBloomFilter(computeHash(word, 0, word.length()));
+        }
+
+        this.arena = new char[arenaBuilder.length()];
+
+        arenaBuilder.getChars(0, arenaBuilder.length(), arena, 0);
+    }
+
+    /**
+     * Reads a word list and creates a Lexicon of its words.
+     * <p>
+     * The word list has the same format as the lexicon of
+     * {@link SuggestionIndex#read(Reader, int)}, and the frequencies of the
+     * words are ignored.
+     * <p>
+     * The reader is not closed by this method.
+     *
+     * @param reader the reader of the word list.
+     * @return the Lexicon of the words of the list.
+     * @throws NullPointerException if the reader is null.
+     * @throws IOException          if reading fails or if a line of the word
+     *                              list is malformed.
+     */
+    public static Lexicon read(@NonNull Reader reader) throws IOException {
+        List<String> words = new ArrayList<>();
+
+        readWords(reader, (word, frequency) -> words.add(word));
+
+        return new Lexicon(words);
+    }
+
+    /**
+     * Reads the words of a word list with their frequencies. Each line of
+     * the list contains a word, optionally followed by a whitespace and the
+     * frequency of the word, which is 1 by default. Empty lines and lines
+     * that start with '#' are skipped.
+     *
+     * @param reader   the reader of the word list.
+     * @param consumer the consumer of the words and their frequencies.
+     * @throws NullPointerException if any parameter is null.
+     * @throws IOException          if reading fails or if a line is
+     *                              malformed.
+     */
+    public static void readWords(@NonNull Reader reader,
+                                 @NonNull ObjLongConsumer<String> consumer)
+            throws IOException {
+        val bufferedReader = new BufferedReader(reader);
+
+        String line;
+        int lineNumber = 0;
+
+        while ((line = bufferedReader.readLine()) != null) {
+            lineNumber++;
+
+            line = line.trim();
+
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            val fields = line.split("\\s+");
+
+            long frequency = 1;
+
+            try {
+                if (fields.length == 2) {
+                    frequency = Long.parseLong(fields[1]);
+                }
+            } catch (NumberFormatException e) {
+                frequency = -1;
+            }
+
+            if (fields.length > 2 || frequency < 0) {
+                throw new IOException("Malformed lexicon line " + lineNumber +
+                        ": " + line);
+            }
+
+            consumer.accept(fields[0], frequency);
+        }
+    }
+
+    /**
+     * Returns the number of the known words.
+     *
+     * @return the number of the distinct words, ignoring case.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the approximate memory usage of the data of the Lexicon.
+     *
+     * @return the number of bytes taken by the arrays of the Lexicon.
+     */
+    public long getSizeInBytes() {
+        return (long) arena.length * Character.BYTES +
+                (long) blockOffsets.length * Integer.BYTES +
+                (long) bloomBits.length * Long.BYTES;
+    }
+
+    /**
+     * Checks if a word is known, ignoring case.
+     *
+     * @param word the word to check.
+     * @return true if the word is known, otherwise false.
+     * @throws NullPointerException if the word is null.
+     */
+    public boolean contains(@NonNull CharSequence word) {
+        return contains(word, 0, word.length());
+    }
+
+    /**
+     * Checks if a part of a text is a known word, ignoring case.
+     *
+     * @param text  the text that contains the word.
+     * @param start the start index of the word, inclusive.
+     * @param end   the end index of the word, exclusive.
+     * @return true if the word is known, otherwise false.
+     * @throws NullPointerException      if the text is null.
+     * @throws IndexOutOfBoundsException if the indexes are out of range.
+     */
+    public boolean contains(@NonNull CharSequence text, int start, int end) {
+        if (start < 0 || end > text.length() || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " +
+                    end + ", length " + text.length());
+        }
+
+        if (size == 0 || start == end || end - start > Character.MAX_VALUE) {
+            return false;
+        }
+
+        if (!mightContain(computeHash(text, start, end))) {
+            return false;
+        }
+
+        int low = 0;
+        int high = blockOffsets.length - 1;
+
+        // the last block whose first word is less than the word
+        int block = -1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+
+            int comparison = compareFirstWord(middle, text, start, end);
+
+            if (comparison == 0) {
+                return true;
+            }
+
+            if (comparison < 0) {
+                block = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return block != -1 && isInBlock(block, text, start, end);
+    }
+
+    /**
+     * Finds the tokens of a text that are not known words.
+     *
+     * @param text the text to check.
+     * @return the start and the end indexes of the unknown tokens, one after
+     * another: the start of the first token, the end of the first token, the
+     * start of the second token and so on.
+     * @throws NullPointerException if the text is null.
+     */
+    public int[] findUnknownTokens(@NonNull CharSequence text) {
+        int[] offsets = new int[16];
+        int offsetsCount = 0;
+
+        val scanner = new TokenScanner(text);
+
+        while (scanner.next()) {
+            if (contains(text, scanner.getStart(), scanner.getEnd())) {
+                continue;
+            }
+
+            if (offsetsCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+
+            offsets[offsetsCount++] = scanner.getStart();
+            offsets[offsetsCount++] = scanner.getEnd();
+        }
+
+        return Arrays.copyOf(offsets, offsetsCount);
+    }
+
+    // compares the first word of a block with a word of a text
+    private int compareFirstWord(int block, CharSequence text, int start,
+                                 int end) {
+        int offset = blockOffsets[block];
+        int length = arena[offset++];
+
+        int textLength = end - start;
+
+        for (int i = 0; i < Math.min(length, textLength); i++) {
+            char textChar = Character.toLowerCase(text.charAt(start + i));
+
+            if (arena[offset + i] != textChar) {
+                return arena[offset + i] - textChar;
+            }
+        }
+
+        return length - textLength;
+    }
+
+    /*scans a block whose first word is less than the word of a text, keeping
+    the length of the prefix that the word shares with the previous word of
+    the block*/
+    private boolean isInBlock(int block, CharSequence text, int start,
+                              int end) {
+        int textLength = end - start;
+
+        int offset = blockOffsets[block];
+        int length = arena[offset++];
+
+        int matchedLength = 0;
+
+        while (matchedLength < Math.min(length, textLength) &&
+                arena[offset + matchedLength] == Character.toLowerCase(
+                        text.charAt(start + matchedLength))) {
+            matchedLength++;
+        }
+
+        offset += length;
+
+        int wordsCount = Math.min(BLOCK_SIZE, size - block * BLOCK_SIZE);
+
+        for (int i = 1; i < wordsCount; i++) {
+            int sharedLength = arena[offset++];
+            int suffixLength = arena[offset++];
+
+            // the word differs from the previous one where it matched
+            if (sharedLength < matchedLength) {
+                return false;
+            }
+
+            if (sharedLength == matchedLength) {
+                int j = 0;
+
+                while (j < suffixLength && matchedLength < textLength &&
+                        arena[offset + j] == Character.toLowerCase(
+                                text.charAt(start + matchedLength))) {
+                    j++;
+                    matchedLength++;
+                }
+
+                if (matchedLength == textLength) {
+                    // otherwise the word is longer than the word of the text
+                    return j == suffixLength;
+                }
+
+                if (j < suffixLength && arena[offset + j] >
+                        Character.toLowerCase(text.charAt(
+                                start + matchedLength))) {
+                    return false;
+                }
+            }
+
+            offset += suffixLength;
+        }
+
+        return false;
+    }
+
+    private void addToBloomFilter(long hash) {
+        long combinedHash = hash;
+
+        for (int i = 0; i < BLOOM_HASHES_COUNT; i++) {
+            long bit = Long.remainderUnsigned(combinedHash, bloomBitsCount);
+
+            bloomBits[(int) (bit >>> 6)] |= 1L << bit;
+
+            combinedHash += hash >>> 32 | 1;
+        }
+    }
+
+    private boolean mightContain(long hash) {
+        long combinedHash = hash;
+
+        for (int i = 0; i < BLOOM_HASHES_COUNT; i++) {
+            long bit = Long.remainderUnsigned(combinedHash, bloomBitsCount);
+
+            if ((bloomBits[(int) (bit >>> 6)] & 1L << bit) == 0) {
+                return false;
+            }
+
+            combinedHash += hash >>> 32 | 1;
+        }
+
+        return true;
+    }
+
+    // the FNV-1a hash of the lower case chars with a final mix
+    private static long computeHash(CharSequence text, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = start; i < end; i++) {
+            hash ^= Character.toLowerCase(text.charAt(i));
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+
+    private static int computeSharedLength(String first, String second) {
+        int length = 0;
+
+        while (length < Math.min(first.length(), second.length()) &&
+                first.charAt(length) == second.charAt(length)) {
+            length++;
+        }
+
+        return length;
+    }
+
+    // lower case of each char, the same as the words of a text are compared
+    private static String toLowerCase(String word) {
+        val chars = word.toCharArray();
+
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+
+        return new String(chars);
+    }
+}
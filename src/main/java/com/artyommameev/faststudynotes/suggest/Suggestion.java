@@ -0,0 +1,69 @@
+package com.artyommameev.faststudynotes.suggest;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * A word of a lexicon that is suggested as the intended word of an unknown
+ * token of a text.
+ *
+ * @author Artyom Mameev
+ * @see SuggestionIndex
+ */
+public class Suggestion {
+
+    @Getter
+    private final String token;
+    @Getter
+    private final String word;
+    @Getter
+    private final int distance;
+    @Getter
+    private final long frequency;
+
+    /**
+     * Instantiates a new Suggestion.
+     *
+     * @param token     the unknown token of a text.
+     * @param word      the suggested word.
+     * @param distance  the edit distance between the token and the word.
+     * @param frequency the frequency of the word in the lexicon, or the
+     *                  number of times the token was replaced with the word.
+     * @throws NullPointerException if the token or the word is null.
+     */
+    public Suggestion(@NonNull String token, @NonNull String word,
+                      int distance, long frequency) {
+        this.token = token;
+        this.word = word;
+        this.distance = distance;
+        this.frequency = frequency;
+    }
+
+    /**
+     * Creates a {@link Correction} that replaces the token with the suggested
+     * word.
+     * <p>
+     * The {@link Correction} has the {@link Correction.CONDITION#WHOLE_WORD}
+     * condition, so it does not change the words that contain the token.
+     *
+     * @return the literal {@link Correction} of the
+     * {@link Correction.TYPE#TEXT} type.
+     */
+    public Correction toCorrection() {
+        return new Correction(token, word, Correction.TYPE.TEXT,
+                Correction.KIND.LITERAL, Correction.CONDITION.WHOLE_WORD);
+    }
+
+    /**
+     * Returns a string representation of the object.
+     *
+     * @return the string representation of the object in the following format:
+     * <p>
+     * token -{@literal >} word
+     */
+    @Override
+    public String toString() {
+        return token + " -> " + word;
+    }
+}
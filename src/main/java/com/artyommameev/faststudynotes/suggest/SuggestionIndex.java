@@ -0,0 +1,417 @@
+package com.artyommameev.faststudynotes.suggest;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * An index of the words of a lexicon that suggests the most likely intended
+ * words for the unknown tokens of a text.
+ * <p>
+ * The index uses the symmetric delete algorithm: all the strings that can be
+ * obtained by deleting up to the maximum edit distance chars from the
+ * beginning of each word of the lexicon are precomputed, so a lookup only
+ * generates the deletes of the token and checks the words that share them,
+ * instead of computing the edit distance to every word of the lexicon. The
+ * time of a lookup does not depend on the size of the lexicon.
+ * <p>
+ * The distance between a token and a word is the number of inserted, deleted
+ * or replaced chars and swapped adjacent chars (the optimal string alignment
+ * distance). If several words are at the same distance, the most frequent one
+ * is suggested. The words are compared ignoring case.
+ *
+ * @author Artyom Mameev
+ */
+public class SuggestionIndex {
+
+    /**
+     * The default maximum edit distance between a token and a suggested word.
+     */
+    public static final int DEFAULT_MAX_EDIT_DISTANCE = 2;
+
+    /*only the beginnings of the words are indexed, which limits the number of
+    the deletes of long words, but still finds the words whose beginnings are
+    misspelled*/
+    private static final int PREFIX_LENGTH = 7;
+
+    @Getter
+    private final int maxEditDistance;
+
+    private final Map<String, Integer> wordIndexes = new HashMap<>();
+    private final String[] words;
+    private final long[] frequencies;
+    // the words that have each delete of their prefixes
+    private final Map<String, int[]> deletes = new HashMap<>();
+
+    /**
+     * Instantiates a new Suggestion Index.
+     *
+     * @param frequencies     the words of the lexicon with their frequencies,
+     *                        which are summed for the words that differ only
+     *                        in case.
+     * @param maxEditDistance the maximum edit distance between a token and a
+     *                        suggested word.
+     * @throws NullPointerException     if the map, any word or any frequency
+     *                                  is null.
+     * @throws IllegalArgumentException if any word is empty, if any
+     *                                  frequency is negative, or if the
+     *                                  maximum edit distance is less than 1 or
+     *                                  not less than the length of the
+     *                                  indexed prefixes of the words.
+     */
+    public SuggestionIndex(@NonNull Map<String, Long> frequencies,
+                           int maxEditDistance) {
+        if (maxEditDistance < 1 || maxEditDistance >= PREFIX_LENGTH) {
+            throw new IllegalArgumentException("Invalid maximum edit " +
+                    "distance: " + maxEditDistance);
+        }
+
+        this.maxEditDistance = maxEditDistance;
+
+        Map<String, Long> lowerCaseFrequencies = new LinkedHashMap<>();
+
+        for (val entry : frequencies.entrySet()) {
+            val word = Objects.requireNonNull(entry.getKey());
+            val frequency = Objects.requireNonNull(entry.getValue());
+
+            if (word.isEmpty() || frequency < 0) {
+                throw new IllegalArgumentException("Invalid word: \"" + word +
+                        "\" " + frequency);
+            }
+
+            lowerCaseFrequencies.merge(word.toLowerCase(Locale.ROOT),
+                    frequency, Long::sum);
+        }
+
+        this.words = new String[lowerCaseFrequencies.size()];
+        this.frequencies = new long[lowerCaseFrequencies.size()];
+
+        int index = 0;
+
+        for (val entry : lowerCaseFrequencies.entrySet()) {
+            words[index] = entry.getKey();
+            this.frequencies[index] = entry.getValue();
+
+            wordIndexes.put(entry.getKey(), index);
+
+            addDeletes(index);
+
+            index++;
+        }
+
+        for (val entry : deletes.entrySet()) {
+            val wordsOfDelete = entry.getValue();
+
+            // the first element is the number of the words
+            entry.setValue(Arrays.copyOfRange(wordsOfDelete, 1,
+                    wordsOfDelete[0] + 1));
+        }
+    }
+
+    /**
+     * Reads a lexicon and creates a Suggestion Index of its words.
+     * <p>
+     * Each line of the lexicon contains a word, optionally followed by a
+     * whitespace and the frequency of the word, which is 1 by default. Empty
+     * lines and lines that start with '#' are skipped.
+     * <p>
+     * The reader is not closed by this method.
+     *
+     * @param reader          the reader of the lexicon.
+     * @param maxEditDistance the maximum edit distance between a token and a
+     *                        suggested word.
+     * @return the Suggestion Index of the words of the lexicon.
+     * @throws NullPointerException     if the reader is null.
+     * @throws IllegalArgumentException if the maximum edit distance is
+     *                                  invalid (see {@link
+     *                                  #SuggestionIndex(Map, int)}).
+     * @throws IOException              if reading fails or if a line of the
+     *                                  lexicon is malformed.
+     */
+    public static SuggestionIndex read(@NonNull Reader reader,
+                                       int maxEditDistance)
+            throws IOException {
+        Map<String, Long> frequencies = new LinkedHashMap<>();
+
+        Lexicon.readWords(reader, (word, frequency) ->
+                frequencies.merge(word, frequency, Long::sum));
+
+        return new SuggestionIndex(frequencies, maxEditDistance);
+    }
+
+    /**
+     * Returns the number of the words of the lexicon.
+     *
+     * @return the number of the distinct words, ignoring case.
+     */
+    public int size() {
+        return words.length;
+    }
+
+    /**
+     * Checks if a word is in the lexicon, ignoring case.
+     *
+     * @param word the word to check.
+     * @return true if the word is in the lexicon, otherwise false.
+     * @throws NullPointerException if the word is null.
+     */
+    public boolean contains(@NonNull String word) {
+        return wordIndexes.containsKey(word.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Finds the most likely intended word for a token.
+     * <p>
+     * The suggested word is the word of the lexicon with the least edit
+     * distance to the token, or the most frequent one of such words. The word
+     * is returned in the case of the token: in upper case if the token is in
+     * upper case, capitalized if the token is capitalized, or as it is in the
+     * lexicon otherwise.
+     *
+     * @param token the token to find the word for.
+     * @return the suggestion of the word, which has the 0 distance if the
+     * token is in the lexicon, or an empty optional if no word is within the
+     * maximum edit distance.
+     * @throws NullPointerException if the token is null.
+     */
+    public Optional<Suggestion> lookup(@NonNull String token) {
+        val input = token.toLowerCase(Locale.ROOT);
+
+        val knownIndex = wordIndexes.get(input);
+
+        if (knownIndex != null) {
+            return Optional.of(new Suggestion(token, token, 0,
+                    frequencies[knownIndex]));
+        }
+
+        int best = -1;
+        int bestDistance = maxEditDistance;
+
+        val inputPrefix = getPrefix(input);
+
+        val candidates = new ArrayDeque<String>();
+        Set<String> seenCandidates = new HashSet<>();
+
+        candidates.add(inputPrefix);
+
+        // the longest candidates are checked first
+        while (!candidates.isEmpty()) {
+            val candidate = candidates.poll();
+
+            int lengthDifference = inputPrefix.length() - candidate.length();
+
+            if (lengthDifference > bestDistance) {
+                break;
+            }
+
+            val wordsOfCandidate = deletes.get(candidate);
+
+            if (wordsOfCandidate != null) {
+                for (int index : wordsOfCandidate) {
+                    int distance = computeDistance(input, words[index],
+                            bestDistance);
+
+                    if (distance == -1) {
+                        continue;
+                    }
+
+                    if (best == -1 || distance < bestDistance ||
+                            (distance == bestDistance &&
+                                    frequencies[index] > frequencies[best])) {
+                        best = index;
+                        bestDistance = distance;
+                    }
+                }
+            }
+
+            if (lengthDifference < maxEditDistance) {
+                for (int i = 0; i < candidate.length(); i++) {
+                    val delete = candidate.substring(0, i) +
+                            candidate.substring(i + 1);
+
+                    if (seenCandidates.add(delete)) {
+                        candidates.add(delete);
+                    }
+                }
+            }
+        }
+
+        if (best == -1) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new Suggestion(token, adaptCase(token,
+                words[best]), bestDistance, frequencies[best]));
+    }
+
+    /**
+     * Finds the most likely intended words for the unknown tokens of a text.
+     * <p>
+     * The tokens are the sequences of letters and digits that contain at
+     * least one letter. The tokens that are not longer than the maximum edit
+     * distance are skipped, since almost any word can be suggested for them.
+     *
+     * @param text the text to find the unknown tokens in.
+     * @return the suggestions for the distinct unknown tokens that have any,
+     * in the order of the tokens in the text.
+     * @throws NullPointerException if the text is null.
+     */
+    public List<Suggestion> suggest(@NonNull String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+
+        val scanner = new TokenScanner(text);
+
+        while (scanner.next()) {
+            if (scanner.getEnd() - scanner.getStart() > maxEditDistance) {
+                tokens.add(text.substring(scanner.getStart(),
+                        scanner.getEnd()));
+            }
+        }
+
+        List<Suggestion> suggestions = new ArrayList<>();
+
+        for (val token : tokens) {
+            lookup(token)
+                    .filter(suggestion -> suggestion.getDistance() > 0)
+                    .ifPresent(suggestions::add);
+        }
+
+        return suggestions;
+    }
+
+    /**
+     * Computes the optimal string alignment distance between two strings.
+     *
+     * @param first       the first string.
+     * @param second      the second string.
+     * @param maxDistance the maximum distance to compute.
+     * @return the distance, or -1 if the distance is greater than the
+     * maximum.
+     */
+    static int computeDistance(String first, String second,
+                               int maxDistance) {
+        if (Math.abs(first.length() - second.length()) > maxDistance) {
+            return -1;
+        }
+
+        int[] beforePreviousRow = new int[second.length() + 1];
+        int[] previousRow = new int[second.length() + 1];
+        int[] row = new int[second.length() + 1];
+
+        for (int j = 0; j <= second.length(); j++) {
+            previousRow[j] = j;
+        }
+
+        for (int i = 1; i <= first.length(); i++) {
+            row[0] = i;
+
+            int rowMinimum = i;
+
+            for (int j = 1; j <= second.length(); j++) {
+                int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+
+                int distance = Math.min(Math.min(previousRow[j] + 1,
+                        row[j - 1] + 1), previousRow[j - 1] + cost);
+
+                // a swap of adjacent chars
+                if (i > 1 && j > 1 &&
+                        first.charAt(i - 1) == second.charAt(j - 2) &&
+                        first.charAt(i - 2) == second.charAt(j - 1)) {
+                    distance = Math.min(distance,
+                            beforePreviousRow[j - 2] + 1);
+                }
+
+                row[j] = distance;
+
+                rowMinimum = Math.min(rowMinimum, distance);
+            }
+
+            // the distance can only grow in the next rows
+            if (rowMinimum > maxDistance) {
+                return -1;
+            }
+
+            val oldRow = beforePreviousRow;
+
+            beforePreviousRow = previousRow;
+            previousRow = row;
+            row = oldRow;
+        }
+
+        int distance = previousRow[second.length()];
+
+        return distance <= maxDistance ? distance : -1;
+    }
+
+    private void addDeletes(int index) {
+        Set<String> wordDeletes = new HashSet<>();
+
+        val prefix = getPrefix(words[index]);
+
+        wordDeletes.add(prefix);
+
+        collectDeletes(prefix, 1, wordDeletes);
+
+        for (val delete : wordDeletes) {
+            int[] wordsOfDelete = deletes.get(delete);
+
+            if (wordsOfDelete == null) {
+                wordsOfDelete = new int[2];
+
+                deletes.put(delete, wordsOfDelete);
+            } else if (wordsOfDelete[0] + 1 == wordsOfDelete.length) {
+                wordsOfDelete = Arrays.copyOf(wordsOfDelete,
+                        wordsOfDelete.length * 2);
+
+                deletes.put(delete, wordsOfDelete);
+            }
+
+            wordsOfDelete[++wordsOfDelete[0]] = index;
+        }
+    }
+
+    private void collectDeletes(String string, int distance,
+                                Set<String> wordDeletes) {
+        for (int i = 0; i < string.length(); i++) {
+            val delete = string.substring(0, i) + string.substring(i + 1);
+
+            if (wordDeletes.add(delete) && distance < maxEditDistance) {
+                collectDeletes(delete, distance + 1, wordDeletes);
+            }
+        }
+    }
+
+    private static String getPrefix(String word) {
+        return word.length() > PREFIX_LENGTH ?
+                word.substring(0, PREFIX_LENGTH) : word;
+    }
+
+    private static String adaptCase(String token, String word) {
+        if (token.length() > 1 && token.equals(token.toUpperCase(Locale.ROOT))
+                && !token.equals(token.toLowerCase(Locale.ROOT))) {
+            return word.toUpperCase(Locale.ROOT);
+        }
+
+        if (Character.isUpperCase(token.charAt(0))) {
+            return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+        }
+
+        return word;
+    }
+}
@@ -0,0 +1,77 @@
+package com.artyommameev.faststudynotes.suggest;
+
+/**
+ * A scanner of the tokens of a text that may be words: the sequences of
+ * letters and digits that contain at least one letter.
+ *
+ * @author Artyom Mameev
+ */
+class TokenScanner {
+
+    private final CharSequence text;
+    private int position;
+
+    private int tokenStart;
+    private int tokenEnd;
+
+    /**
+     * Instantiates a new Token Scanner.
+     *
+     * @param text the text to scan.
+     */
+    TokenScanner(CharSequence text) {
+        this.text = text;
+    }
+
+    /**
+     * Advances to the next token of the text.
+     *
+     * @return true if the next token is found, false if the end of the text
+     * is reached.
+     */
+    boolean next() {
+        while (position < text.length()) {
+            while (position < text.length() &&
+                    !Character.isLetterOrDigit(text.charAt(position))) {
+                position++;
+            }
+
+            int start = position;
+            boolean hasLetter = false;
+
+            while (position < text.length() &&
+                    Character.isLetterOrDigit(text.charAt(position))) {
+                hasLetter |= Character.isLetter(text.charAt(position));
+
+                position++;
+            }
+
+            if (hasLetter) {
+                tokenStart = start;
+                tokenEnd = position;
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the start index of the current token.
+     *
+     * @return the index of the first char of the token.
+     */
+    int getStart() {
+        return tokenStart;
+    }
+
+    /**
+     * Returns the end index of the current token.
+     *
+     * @return the index after the last char of the token.
+     */
+    int getEnd() {
+        return tokenEnd;
+    }
+}
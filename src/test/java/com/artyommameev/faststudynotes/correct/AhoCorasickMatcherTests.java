@@ -0,0 +1,239 @@
+package com.artyommameev.faststudynotes.correct;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SuppressWarnings("ConstantConditions")
+public class AhoCorasickMatcherTests {
+
+    private static List<String> findAll(AhoCorasickMatcher matcher,
+                                        String text) {
+        List<String> matches = new ArrayList<>();
+
+        matcher.findAll(text, (pattern, start, end) ->
+                matches.add(pattern + ":" + start + "-" + end));
+
+        return matches;
+    }
+
+    @Test
+    void constructorThrowsNullPointerExceptionIfPatternsIsNull() {
+        assertThrows(NullPointerException.class, () ->
+                new AhoCorasickMatcher(null));
+    }
+
+    @Test
+    void constructorThrowsIllegalArgumentExceptionIfPatternIsEmpty() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new AhoCorasickMatcher(Collections.singletonList("")));
+    }
+
+    @Test
+    void findAllFindsAllPatterns() {
+        val matcher = new AhoCorasickMatcher(Arrays.asList("he", "she",
+                "his", "hers"));
+
+        assertEquals(Arrays.asList("1:0-3", "2:3-6"),
+                findAll(matcher, "shehis"));
+        assertEquals(Arrays.asList("0:0-2", "0:3-5"),
+                findAll(matcher, "he he"));
+    }
+
+    @Test
+    void findAllIgnoresCaseIfMatcherIsCaseInsensitive() {
+        val matcher = new AhoCorasickMatcher(Arrays.asList("Teh", "rn"),
+                true);
+
+        assertEquals(Arrays.asList("0:0-3", "1:4-6", "0:7-10"),
+                findAll(matcher, "tEH RN teh"));
+        assertEquals(Collections.emptyList(),
+                findAll(new AhoCorasickMatcher(Arrays.asList("Teh", "rn")),
+                        "tEH RN teh"));
+    }
+
+    @Test
+    void findAllPrefersLeftmostMatch() {
+        val matcher = new AhoCorasickMatcher(Arrays.asList("bcd", "ab"));
+
+        assertEquals(Collections.singletonList("1:0-2"),
+                findAll(matcher, "abcd"));
+    }
+
+    @Test
+    void findAllPrefersLongestMatchAtTheSamePosition() {
+        val matcher = new AhoCorasickMatcher(Arrays.asList("ab", "abcd",
+                "abc"));
+
+        assertEquals(Collections.singletonList("1:0-4"),
+                findAll(matcher, "abcd"));
+        assertEquals(Arrays.asList("2:0-3", "0:4-6"),
+                findAll(matcher, "abcxab"));
+    }
+
+    @Test
+    void findAllDoesNotReportOverlappingMatches() {
+        val matcher = new AhoCorasickMatcher(Collections.singletonList(
+                "aa"));
+
+        assertEquals(Collections.singletonList("0:0-2"),
+                findAll(matcher, "aaa"));
+        assertEquals(Arrays.asList("0:0-2", "0:2-4"),
+                findAll(matcher, "aaaa"));
+    }
+
+    @Test
+    void findAllFindsShorterMatchAfterFailedLongerOne() {
+        val matcher = new AhoCorasickMatcher(Arrays.asList("abcde", "bc",
+                "d"));
+
+        assertEquals(Arrays.asList("1:1-3", "2:3-4"),
+                findAll(matcher, "abcdx"));
+    }
+
+    @Test
+    void findAllReportsOnlyFirstOfDuplicatedPatterns() {
+        val matcher = new AhoCorasickMatcher(Arrays.asList("ab", "ab"));
+
+        assertEquals(Collections.singletonList("0:0-2"),
+                findAll(matcher, "ab"));
+    }
+
+    @Test
+    void findAllReportsOnlyAcceptedMatches() {
+        val matcher = new AhoCorasickMatcher(Arrays.asList("abc", "ab", "c"));
+
+        List<String> matches = new ArrayList<>();
+
+        matcher.findAll("abcabc", 0, 6, true,
+                (pattern, start, end) -> pattern != 0 || start > 0,
+                (pattern, start, end) ->
+                        matches.add(pattern + ":" + start + "-" + end));
+
+        assertEquals(Arrays.asList("1:0-2", "2:2-3", "0:3-6"), matches);
+    }
+
+    @Test
+    void findAllReportsFirstAcceptedOfDuplicatedPatterns() {
+        val matcher = new AhoCorasickMatcher(Arrays.asList("ab", "x", "ab",
+                "ab"));
+
+        List<String> matches = new ArrayList<>();
+
+        matcher.findAll("ab", 0, 2, true,
+                (pattern, start, end) -> pattern == 3,
+                (pattern, start, end) ->
+                        matches.add(pattern + ":" + start + "-" + end));
+
+        assertEquals(Collections.singletonList("3:0-2"), matches);
+    }
+
+    @Test
+    void findAllReportsNothingIfNoMatchIsAccepted() {
+        val matcher = new AhoCorasickMatcher(Arrays.asList("a", "ab"));
+
+        List<String> matches = new ArrayList<>();
+
+        int resolved = matcher.findAll("abab", 0, 4, true,
+                (pattern, start, end) -> false,
+                (pattern, start, end) ->
+                        matches.add(pattern + ":" + start + "-" + end));
+
+        assertEquals(4, resolved);
+        assertEquals(Collections.emptyList(), matches);
+    }
+
+    @Test
+    void findAllReturnsUnresolvedPositionIfRegionIsNotEndOfInput() {
+        val matcher = new AhoCorasickMatcher(Arrays.asList("abc", "x"));
+
+        List<String> matches = new ArrayList<>();
+
+        int resolved = matcher.findAll("x ab", 0, 4, false,
+                (pattern, start, end) ->
+                        matches.add(pattern + ":" + start + "-" + end));
+
+        assertEquals(2, resolved);
+        assertEquals(Collections.singletonList("1:0-1"), matches);
+    }
+
+    @Test
+    void findAllThrowsIndexOutOfBoundsExceptionIfRegionIsInvalid() {
+        val matcher = new AhoCorasickMatcher(Collections.singletonList("a"));
+
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                matcher.findAll("abc", 2, 1, true,
+                        (pattern, start, end) -> {
+                        }));
+
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                matcher.findAll("abc", 0, 4, true,
+                        (pattern, start, end) -> {
+                        }));
+    }
+
+    @Test
+    void findOccurrencesFindsOverlappingOccurrences() {
+        val matcher = new AhoCorasickMatcher(Arrays.asList("he", "she",
+                "hers"));
+
+        List<String> occurrences = new ArrayList<>();
+
+        matcher.findOccurrences("shers", (pattern, start, end) ->
+                occurrences.add(pattern + ":" + start + "-" + end));
+
+        assertEquals(Arrays.asList("1:0-3", "0:1-3", "2:1-5"), occurrences);
+    }
+
+    @Test
+    void readFromReadsMatcherWrittenByWriteTo() {
+        val matcher = new AhoCorasickMatcher(Arrays.asList("he", "She",
+                "his", "hers", "he"), true);
+
+        val buffer = ByteBuffer.allocate((int) matcher.getSerializedSize());
+
+        matcher.writeTo(buffer);
+
+        assertEquals(0, buffer.remaining());
+
+        val readMatcher = AhoCorasickMatcher.readFrom(buffer.flip());
+
+        assertEquals(5, readMatcher.getPatternsCount());
+        assertEquals(true, readMatcher.isCaseInsensitive());
+        assertEquals(findAll(matcher, "sHEhis hers"),
+                findAll(readMatcher, "sHEhis hers"));
+        assertEquals(Arrays.asList("1:0-3", "2:3-6"),
+                findAll(readMatcher, "shehis"));
+    }
+
+    @Test
+    void readFromThrowsIllegalArgumentExceptionIfDataIsMalformed() {
+        val matcher = new AhoCorasickMatcher(Arrays.asList("ab", "b"));
+
+        val buffer = ByteBuffer.allocate((int) matcher.getSerializedSize());
+
+        matcher.writeTo(buffer);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                AhoCorasickMatcher.readFrom(ByteBuffer.wrap(buffer.array(),
+                        0, buffer.capacity() - 1)));
+
+        // the failure link of the last node leads to itself
+        int lastFailureLink = 3 * Integer.BYTES + 1 +
+                5 * Integer.BYTES + 3 * Character.BYTES +
+                3 * Integer.BYTES + 3 * Integer.BYTES;
+
+        buffer.putInt(lastFailureLink, 3);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                AhoCorasickMatcher.readFrom(buffer.flip()));
+    }
+}
@@ -6,8 +6,11 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SuppressWarnings("ConstantConditions")
@@ -25,7 +28,7 @@ public class BadOcrCorrectorTests {
 
         assertThrows(NullPointerException.class, () ->
                 BadOcrCorrector.correct("null",
-                        Correction.TYPE.TEXT, null));
+                        Correction.TYPE.TEXT, (List<Correction>) null));
     }
 
     @Test
@@ -140,6 +143,253 @@ public class BadOcrCorrectorTests {
         assertEquals("Correction", correctedString);
     }
 
+    @Test
+    void correctCorrectsMatchThatStartsInPreviousCorrection() {
+        val corrections = new ArrayList<>(Arrays.asList(
+                new Correction("x", "a", Correction.TYPE.TEXT),
+                new Correction("ab", "Z", Correction.TYPE.TEXT)));
+
+        val correctedString = BadOcrCorrector.correct("xb",
+                Correction.TYPE.TEXT, corrections);
+
+        assertEquals("Z", correctedString);
+    }
+
+    @Test
+    void correctCorrectsMatchThatEndsInPreviousCorrection() {
+        val corrections = new ArrayList<>(Arrays.asList(
+                new Correction("xy", "bc", Correction.TYPE.TEXT),
+                new Correction("ab", "Z", Correction.TYPE.TEXT)));
+
+        val correctedString = BadOcrCorrector.correct("axy",
+                Correction.TYPE.TEXT, corrections);
+
+        assertEquals("Zc", correctedString);
+    }
+
+    @Test
+    void correctCorrectsMatchThatContainsPreviousCorrection() {
+        val corrections = new ArrayList<>(Arrays.asList(
+                new Correction("x", "b", Correction.TYPE.TEXT),
+                new Correction("abc", "Z", Correction.TYPE.TEXT)));
+
+        val correctedString = BadOcrCorrector.correct("axc",
+                Correction.TYPE.TEXT, corrections);
+
+        assertEquals("Z", correctedString);
+    }
+
+    @Test
+    void correctCorrectsMatchThatJoinsCharsAroundPreviousDeletion() {
+        val corrections = new ArrayList<>(Arrays.asList(
+                new Correction("x", "", Correction.TYPE.TEXT),
+                new Correction("ab", "Z", Correction.TYPE.TEXT)));
+
+        val correctedString = BadOcrCorrector.correct("axb",
+                Correction.TYPE.TEXT, corrections);
+
+        assertEquals("Z", correctedString);
+    }
+
+    @Test
+    void correctDoesNotCorrectMatchThatOnlyLaterCorrectionMakes() {
+        val corrections = new ArrayList<>(Arrays.asList(
+                new Correction("-", "", Correction.TYPE.TEXT),
+                new Correction("ab", "x", Correction.TYPE.TEXT),
+                new Correction("q", "a", Correction.TYPE.TEXT)));
+
+        val correctedString = BadOcrCorrector.correct("qb",
+                Correction.TYPE.TEXT, corrections);
+
+        assertEquals("ab", correctedString);
+    }
+
+    @Test
+    void correctCorrectsMatchOfPreviousCorrectionWithRepeatedExpression() {
+        val corrections = new ArrayList<>(Arrays.asList(
+                new Correction("ab", "Q", Correction.TYPE.TEXT,
+                        Correction.KIND.LITERAL,
+                        Correction.CONDITION.WORD_START),
+                new Correction("x", "a", Correction.TYPE.TEXT),
+                new Correction("ab", "Z", Correction.TYPE.TEXT)));
+
+        val correctedString = BadOcrCorrector.correct("-xb",
+                Correction.TYPE.TEXT, corrections);
+
+        assertEquals("-Z", correctedString);
+    }
+
+    @Test
+    void correctReplacesLongestExpressionIfSeveralExpressionsMatch() {
+        val shortTestCorrection = new Correction("rn", "m",
+                Correction.TYPE.TEXT);
+
+        val longTestCorrection = new Correction("rnodern",
+                "modern", Correction.TYPE.TEXT);
+
+        val corrections = new ArrayList<>(Arrays.asList(
+                shortTestCorrection, longTestCorrection));
+
+        val testString = "rnodern corn";
+        val correctedString = BadOcrCorrector.correct(testString,
+                Correction.TYPE.TEXT, corrections);
+
+        assertEquals("modern com", correctedString);
+    }
+
+    @Test
+    void correctIgnoresCorrectionsOfOtherType() {
+        val textTestCorrection = new Correction("uoid", "void",
+                Correction.TYPE.TEXT);
+
+        val corrections = new ArrayList<>(Collections.singletonList(
+                textTestCorrection));
+
+        val correctedString = BadOcrCorrector.correct("uoid",
+                Correction.TYPE.CODE, corrections);
+
+        assertEquals("uoid", correctedString);
+    }
+
+    @Test
+    void correctAppliesRegexCorrectionsAfterLiteralOnes() {
+        val corrections = new ArrayList<>(Arrays.asList(
+                new Correction("(\\d)O(\\d)", "$10$2", Correction.TYPE.TEXT,
+                        Correction.KIND.REGEX),
+                new Correction("l9", "19", Correction.TYPE.TEXT)));
+
+        val correctedString = BadOcrCorrector.correct("l9O5 and 1O1",
+                Correction.TYPE.TEXT, corrections);
+
+        assertEquals("1905 and 101", correctedString);
+    }
+
+    @Test
+    void correctAppliesWholeWordCorrectionsOnlyToWholeWords() {
+        val corrections = Collections.singletonList(new Correction("l", "I",
+                Correction.TYPE.TEXT, Correction.KIND.LITERAL,
+                Correction.CONDITION.WHOLE_WORD));
+
+        val correctedString = BadOcrCorrector.correct("l am all ls, l",
+                Correction.TYPE.TEXT, corrections);
+
+        assertEquals("I am all ls, I", correctedString);
+    }
+
+    @Test
+    void correctAppliesWordStartAndWordEndCorrections() {
+        val corrections = Arrays.asList(
+                new Correction("rn", "m", Correction.TYPE.TEXT,
+                        Correction.KIND.LITERAL,
+                        Correction.CONDITION.WORD_START),
+                new Correction("cl", "d", Correction.TYPE.TEXT,
+                        Correction.KIND.LITERAL,
+                        Correction.CONDITION.WORD_END));
+
+        val correctedString = BadOcrCorrector.correct("rnodern bacl clam",
+                Correction.TYPE.TEXT, corrections);
+
+        assertEquals("modern bad clam", correctedString);
+    }
+
+    @Test
+    void correctAppliesLineStartAndLineEndCorrections() {
+        val corrections = Arrays.asList(
+                new Correction("#", "//", Correction.TYPE.CODE,
+                        Correction.KIND.LITERAL,
+                        Correction.CONDITION.LINE_START),
+                new Correction(";;", ";", Correction.TYPE.CODE,
+                        Correction.KIND.LITERAL,
+                        Correction.CONDITION.LINE_END));
+
+        val correctedString = BadOcrCorrector.correct(
+                "# a;; b;;\r\nx # c;;\n#;;", Correction.TYPE.CODE,
+                corrections);
+
+        assertEquals("// a;; b;\r\nx # c;\n//;", correctedString);
+    }
+
+    @Test
+    void correctAppliesNextCorrectionWithTheSameExpressionIfConditionFails() {
+        val corrections = Arrays.asList(
+                new Correction("0", "O", Correction.TYPE.TEXT,
+                        Correction.KIND.LITERAL,
+                        Correction.CONDITION.WORD_START),
+                new Correction("0", "o", Correction.TYPE.TEXT));
+
+        val correctedString = BadOcrCorrector.correct("0ld c0de",
+                Correction.TYPE.TEXT, corrections);
+
+        assertEquals("Old code", correctedString);
+    }
+
+    @Test
+    void correctAppliesShorterExpressionIfLongerOneFailsCondition() {
+        val corrections = Arrays.asList(
+                new Correction("rnap", "nap", Correction.TYPE.TEXT,
+                        Correction.KIND.LITERAL,
+                        Correction.CONDITION.WHOLE_WORD),
+                new Correction("rn", "m", Correction.TYPE.TEXT));
+
+        val correctedString = BadOcrCorrector.correct("rnaps rnap",
+                Correction.TYPE.TEXT, corrections);
+
+        assertEquals("maps nap", correctedString);
+    }
+
+    @Test
+    void correctAppliesConditionsOfRegexCorrections() {
+        val corrections = Collections.singletonList(new Correction("\\d+",
+                "N", Correction.TYPE.TEXT, Correction.KIND.REGEX,
+                Correction.CONDITION.WHOLE_WORD));
+
+        val correctedString = BadOcrCorrector.correct("a1 22 3b 4",
+                Correction.TYPE.TEXT, corrections);
+
+        assertEquals("a1 N 3b N", correctedString);
+    }
+
+    @Test
+    void correctAppliesCaseInsensitiveCorrectionsPreservingCase() {
+        val corrections = Collections.singletonList(new Correction("teh",
+                "the", Correction.TYPE.TEXT, Correction.KIND.LITERAL,
+                Correction.CONDITION.NONE, true));
+
+        val correctedString = BadOcrCorrector.correct("teh Teh TEH tEh",
+                Correction.TYPE.TEXT, corrections);
+
+        assertEquals("the The THE the", correctedString);
+    }
+
+    @Test
+    void correctDoesNotIgnoreCaseOfCaseSensitiveCorrections() {
+        val corrections = Arrays.asList(
+                new Correction("Teh", "Tea", Correction.TYPE.TEXT),
+                new Correction("teh", "the", Correction.TYPE.TEXT,
+                        Correction.KIND.LITERAL, Correction.CONDITION.NONE,
+                        true),
+                new Correction("rn", "m", Correction.TYPE.TEXT));
+
+        val correctedString = BadOcrCorrector.correct("Teh teh TEH rn RN",
+                Correction.TYPE.TEXT, corrections);
+
+        assertEquals("Tea the THE m RN", correctedString);
+    }
+
+    @Test
+    void correctAppliesCaseInsensitiveRegexCorrectionsPreservingCase() {
+        val corrections = Collections.singletonList(new Correction(
+                "colou?r", "color", Correction.TYPE.TEXT,
+                Correction.KIND.REGEX, Correction.CONDITION.WHOLE_WORD,
+                true));
+
+        val correctedString = BadOcrCorrector.correct(
+                "Colour COLOUR colour colours", Correction.TYPE.TEXT,
+                corrections);
+
+        assertEquals("Color COLOR color colours", correctedString);
+    }
+
     @Test
     void capitalizeWorksProperly() {
         String testString = BadOcrCorrector.capitalize("t");
@@ -186,6 +436,31 @@ public class BadOcrCorrectorTests {
         assertEquals("«test».", testString);
     }
 
+    @Test
+    void normalizeHomoglyphsConvertsWordsToMajorityScript() {
+        // "молоко" with two Latin "o" and "Model" with a Cyrillic "о"
+        val testString = BadOcrCorrector.normalizeHomoglyphs(
+                "\u043Co\u043B\u043E\u043Ao, M\u043Edel");
+
+        assertEquals("\u043C\u043E\u043B\u043E\u043A\u043E, Model",
+                testString);
+    }
+
+    @Test
+    void normalizeHomoglyphsDoesNotChangeWordsWithoutMajorityScript() {
+        val testString = "a\u0431 Text \u0442\u0435\u043A\u0441\u0442";
+
+        assertSame(testString, BadOcrCorrector.normalizeHomoglyphs(
+                testString));
+    }
+
+    @Test
+    void indentCodeRebuildsIndentationFromBrackets() {
+        assertEquals("for (x : y) {\n    if (x)\n        print(x);\n}",
+                BadOcrCorrector.indentCode(
+                        "for (x : y) {\nif (x)\n   print(x);\n }"));
+    }
+
     @Test()
     void addPointAtTheEndThrowsNullPointerExceptionIfParametersIsNull() {
         assertThrows(NullPointerException.class, () ->
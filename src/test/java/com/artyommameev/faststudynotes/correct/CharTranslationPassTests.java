@@ -0,0 +1,237 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("ConstantConditions")
+public class CharTranslationPassTests {
+
+    private final List<String> expressions = new ArrayList<>();
+    private final List<String> replacements = new ArrayList<>();
+    private final List<Integer> corrections = new ArrayList<>();
+
+    private CharTranslationPass extract(String... rules) {
+        for (int i = 0; i < rules.length; i += 2) {
+            expressions.add(rules[i]);
+            replacements.add(rules[i + 1]);
+            corrections.add(i / 2);
+        }
+
+        return CharTranslationPass.extract(expressions, replacements,
+                corrections);
+    }
+
+    @Test
+    void extractThrowsIllegalArgumentExceptionIfSizesAreDifferent() {
+        assertThrows(IllegalArgumentException.class, () ->
+                CharTranslationPass.extract(new ArrayList<>(Arrays.asList(
+                        "a", "b")), new ArrayList<>(Collections.singletonList(
+                        "c")), new ArrayList<>(Arrays.asList(0, 1))));
+    }
+
+    @Test
+    void extractReturnsNullIfNoRuleIsSingleChar() {
+        assertNull(extract("rn", "m", "c1", "cl"));
+        assertEquals(Arrays.asList("rn", "c1"), expressions);
+    }
+
+    @Test
+    void extractMovesOnlyIndependentSingleCharRules() {
+        val pass = extract(
+                "0", "O",
+                // "l" occurs in the replacement of the next rule
+                "l", "I",
+                "c1", "cl",
+                // "m" is the replacement of the next rule
+                "m", "n",
+                "rn", "m",
+                // "1" occurs in another expression
+                "1", "i",
+                // "a" would become "b", which starts another expression
+                "a", "b",
+                "bc", "d",
+                "0", "o");
+
+        assertEquals(Arrays.asList("l", "c1", "m", "rn", "1", "a", "bc"),
+                expressions);
+        assertEquals(Arrays.asList("I", "cl", "n", "m", "i", "b", "d"),
+                replacements);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7), corrections);
+
+        assertEquals("O1l", pass.apply("01l"));
+        assertTrue(pass.isExpressionChar('0'));
+    }
+
+    @Test
+    void extractDoesNotMoveConditionalRules() {
+        expressions.addAll(Arrays.asList("l", "0", "0"));
+        replacements.addAll(Arrays.asList("I", "O", "o"));
+        corrections.addAll(Arrays.asList(0, 1, 2));
+
+        val conditions = new ArrayList<>(Arrays.asList(
+                Correction.CONDITION.WHOLE_WORD, Correction.CONDITION.NONE,
+                Correction.CONDITION.NONE));
+
+        val pass = CharTranslationPass.extract(expressions, replacements,
+                conditions, new ArrayList<>(Collections.nCopies(3, false)),
+                corrections);
+
+        assertEquals(Collections.singletonList("l"), expressions);
+        assertEquals(Collections.singletonList(
+                Correction.CONDITION.WHOLE_WORD), conditions);
+        assertEquals(Collections.singletonList(0), corrections);
+        assertEquals("Ol", pass.apply("0l"));
+    }
+
+    @Test
+    void extractDoesNotMoveCaseInsensitiveRulesAndRulesOfTheirChars() {
+        expressions.addAll(Arrays.asList("a", "A", "0"));
+        replacements.addAll(Arrays.asList("e", "E", "O"));
+        corrections.addAll(Arrays.asList(0, 1, 2));
+
+        val conditions = new ArrayList<>(Collections.nCopies(3,
+                Correction.CONDITION.NONE));
+        val caseInsensitivity = new ArrayList<>(Arrays.asList(true, false,
+                false));
+
+        val pass = CharTranslationPass.extract(expressions, replacements,
+                conditions, caseInsensitivity, corrections);
+
+        assertEquals(Arrays.asList("a", "A"), expressions);
+        assertEquals(Arrays.asList(true, false), caseInsensitivity);
+        assertEquals(Arrays.asList(0, 1), corrections);
+        assertEquals("aAO", pass.apply("aA0"));
+    }
+
+    @Test
+    void extractChecksCharsLargerThanTranslatedChars() {
+        expressions.addAll(Arrays.asList("0", "a", "\uFB01x", "\u00C9",
+                "\u00E9"));
+        replacements.addAll(Arrays.asList("O", "\uFB01", "fix", "E", "e"));
+        corrections.addAll(Arrays.asList(0, 1, 2, 3, 4));
+
+        val conditions = new ArrayList<>(Collections.nCopies(5,
+                Correction.CONDITION.NONE));
+        val caseInsensitivity = new ArrayList<>(Arrays.asList(false, false,
+                false, true, false));
+
+        val pass = CharTranslationPass.extract(expressions, replacements,
+                conditions, caseInsensitivity, corrections);
+
+        // "a" becomes the start of "\uFB01x", and "\u00E9" is folded "\u00C9"
+        assertEquals(Arrays.asList("a", "\uFB01x", "\u00C9", "\u00E9"),
+                expressions);
+        assertEquals(Arrays.asList(1, 2, 3, 4), corrections);
+        assertEquals("Oa\u00E9", pass.apply("0a\u00E9"));
+    }
+
+    @Test
+    void applyReturnsSameStringIfNothingIsTranslated() {
+        val pass = extract("0", "O");
+
+        val text = "no zeros";
+
+        assertSame(text, pass.apply(text));
+    }
+
+    @Test
+    void applyTranslatesPartOfText() {
+        val pass = extract("0", "O", "|", "I");
+
+        val output = new StringBuilder("x");
+
+        assertEquals(7, pass.apply("00|0|00", 2, 7, false, output));
+        assertEquals("xIOIOO", output.toString());
+    }
+
+    @Test
+    void applyRecordsHits() {
+        val pass = extract("0", "O", "|", "I");
+
+        val statistics = new CorrectionStatistics(new CompiledCorrections(
+                Arrays.asList(new Correction("0", "O", Correction.TYPE.TEXT),
+                        new Correction("|", "I", Correction.TYPE.TEXT)), 0));
+
+        pass.apply("0|00", statistics);
+
+        assertEquals(3, statistics.getHits(0));
+        assertEquals(1, statistics.getHits(1));
+    }
+
+    @Test
+    void compiledCorrectionsGiveSameResultsWithAndWithoutTranslation() {
+        val random = new Random(42);
+        val alphabet = "abcdrnm01l ";
+
+        for (int dictionary = 0; dictionary < 200; dictionary++) {
+            List<String> dictionaryExpressions = new ArrayList<>();
+            List<String> dictionaryReplacements = new ArrayList<>();
+            List<Integer> dictionaryCorrections = new ArrayList<>();
+
+            for (int i = 0; i < 6; i++) {
+                dictionaryExpressions.add(createString(random, alphabet,
+                        1 + random.nextInt(2)));
+                dictionaryReplacements.add(createString(random, alphabet,
+                        random.nextInt(3)));
+                dictionaryCorrections.add(i);
+            }
+
+            val expected = ReplacementPass.compile(dictionaryExpressions,
+                    dictionaryReplacements, dictionaryCorrections);
+
+            List<CorrectionPass> actual = new ArrayList<>();
+
+            expressions.clear();
+            replacements.clear();
+            corrections.clear();
+
+            expressions.addAll(dictionaryExpressions);
+            replacements.addAll(dictionaryReplacements);
+            corrections.addAll(dictionaryCorrections);
+
+            val pass = CharTranslationPass.extract(expressions,
+                    replacements, corrections);
+
+            if (pass != null) {
+                actual.add(pass);
+            }
+
+            actual.addAll(ReplacementPass.compile(expressions, replacements,
+                    corrections));
+
+            for (int i = 0; i < 10; i++) {
+                val text = createString(random, alphabet, 30);
+
+                assertEquals(CorrectionPass.applyAll(text,
+                        new ArrayList<>(expected)),
+                        CorrectionPass.applyAll(text, actual),
+                        dictionaryExpressions + " -> " +
+                                dictionaryReplacements + ": " + text);
+            }
+        }
+    }
+
+    private static String createString(Random random, String alphabet,
+                                       int length) {
+        val string = new StringBuilder(length);
+
+        for (int i = 0; i < length; i++) {
+            string.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+
+        return string.toString();
+    }
+}
@@ -0,0 +1,220 @@
+package com.artyommameev.faststudynotes.correct;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SuppressWarnings("ConstantConditions")
+public class CodeIndenterTests {
+
+    private static String lines(String... lines) {
+        return String.join("\n", lines);
+    }
+
+    @Test
+    void indentThrowsNullPointerExceptionIfCodeIsNull() {
+        assertThrows(NullPointerException.class, () ->
+                CodeIndenter.indent(null));
+    }
+
+    @Test
+    void indentRebuildsIndentationFromBraces() {
+        val code = lines(
+                "class A {",
+                "void f(int a,",
+                "int b) {",
+                "  int[] c = {",
+                "1, 2",
+                "};",
+                "   }",
+                "",
+                "}");
+
+        assertEquals(lines(
+                "class A {",
+                "    void f(int a,",
+                "        int b) {",
+                "        int[] c = {",
+                "            1, 2",
+                "        };",
+                "    }",
+                "",
+                "}"), CodeIndenter.indent(code));
+    }
+
+    @Test
+    void indentIgnoresBracketsInStringsAndComments() {
+        val code = lines(
+                "void f() {",
+                "String s = \"{(\" + '}'; // }",
+                "/* {",
+                "* }",
+                "*/",
+                "# {",
+                "#define A(x) (x)",
+                "}",
+                "g();");
+
+        assertEquals(lines(
+                "void f() {",
+                "    String s = \"{(\" + '}'; // }",
+                "    /* {",
+                "     * }",
+                "     */",
+                "    # {",
+                "    #define A(x) (x)",
+                "}",
+                "g();"), CodeIndenter.indent(code));
+    }
+
+    @Test
+    void indentIndentsSingleStatementsAfterHeadersWithoutBraces() {
+        val code = lines(
+                "if (a)",
+                "b();",
+                "else if (c)",
+                "// comment",
+                "d();",
+                "else",
+                "while (e)",
+                "f();",
+                "if (g) h();",
+                "if (i)",
+                "{",
+                "j();",
+                "}");
+
+        assertEquals(lines(
+                "if (a)",
+                "    b();",
+                "else if (c)",
+                "    // comment",
+                "    d();",
+                "else",
+                "    while (e)",
+                "        f();",
+                "if (g) h();",
+                "if (i)",
+                "{",
+                "    j();",
+                "}"), CodeIndenter.indent(code));
+    }
+
+    @Test
+    void indentIndentsCaseLabels() {
+        val code = lines(
+                "switch (a) {",
+                "case 1:",
+                "case 2:",
+                "b();",
+                "break;",
+                "default:",
+                "c();",
+                "}",
+                "d();");
+
+        assertEquals(lines(
+                "switch (a) {",
+                "    case 1:",
+                "    case 2:",
+                "        b();",
+                "        break;",
+                "    default:",
+                "        c();",
+                "}",
+                "d();"), CodeIndenter.indent(code));
+    }
+
+    @Test
+    void indentQuantizesIndentationOfBlocksAfterColons() {
+        val code = lines(
+                "def f(a):",
+                "  if a:",
+                "     return [1,",
+                "2]",
+                " \treturn 3",
+                "x = {'a': 1}");
+
+        assertEquals(lines(
+                "def f(a):",
+                "    if a:",
+                "        return [1,",
+                "            2]",
+                "    return 3",
+                "x = {'a': 1}"), CodeIndenter.indent(code));
+    }
+
+    @Test
+    void indentRestoresLostIndentationOfBlocksAfterColons() {
+        val code = lines(
+                "for x in y:",
+                "if x:",
+                "a()",
+                "elif z:",
+                "b()",
+                "else:",
+                "c()");
+
+        assertEquals(lines(
+                "for x in y:",
+                "    if x:",
+                "        a()",
+                "    elif z:",
+                "        b()",
+                "    else:",
+                "        c()"), CodeIndenter.indent(code));
+    }
+
+    @Test
+    void indentKeepsLinesOfMultiLineStrings() {
+        val code = lines(
+                "def f():",
+                "  s = \"\"\"a {",
+                "   b:",
+                "\"\"\"",
+                "  return s");
+
+        assertEquals(lines(
+                "def f():",
+                "    s = \"\"\"a {",
+                "   b:",
+                "\"\"\"",
+                "    return s"), CodeIndenter.indent(code));
+    }
+
+    @Test
+    void indentKeepsLineBreaksAndRemovesTrailingWhitespaces() {
+        assertEquals("{\r\n    a;\n\r}",
+                CodeIndenter.indent("{ \r\na; \n\r }"));
+    }
+
+    @Test
+    void appendGivesTheSameResultForAnySplitOfTheCode() {
+        val code = lines(
+                "class A {\r",
+                "void f() {",
+                "if (a)",
+                "b(\"}\"); /* {",
+                "*/ }",
+                "}",
+                "def g():",
+                "return '''x",
+                "'''");
+
+        val expected = CodeIndenter.indent(code);
+
+        for (int split = 0; split <= code.length(); split++) {
+            val output = new StringBuilder();
+
+            val indenter = new CodeIndenter(output);
+
+            indenter.append(code, 0, split);
+            indenter.append(code, split, code.length());
+            indenter.finish();
+
+            assertEquals(expected, output.toString(), "Split: " + split);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.CompactCorrections;
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("ConstantConditions")
+public class CompiledCorrectionsTests {
+
+    @Test
+    void constructorThrowsNullPointerExceptionIfCorrectionsIsNull() {
+        assertThrows(NullPointerException.class, () ->
+                new CompiledCorrections(null, 0));
+    }
+
+    @Test
+    void constructorProperlyConstructs() {
+        val corrections = new ArrayList<>(Arrays.asList(
+                new Correction("1", "2", Correction.TYPE.TEXT),
+                new Correction("3", "4", Correction.TYPE.CODE)));
+
+        val compiledCorrections = new CompiledCorrections(corrections, 42);
+
+        assertEquals(42, compiledCorrections.getVersion());
+        assertEquals(2, compiledCorrections.getSize());
+    }
+
+    @Test
+    void correctAppliesCompiledCorrectionsOfTheGivenType() {
+        val corrections = new ArrayList<>(Arrays.asList(
+                new Correction("Objeots", "Objects", Correction.TYPE.TEXT),
+                new Correction("uoid", "void", Correction.TYPE.CODE)));
+
+        val compiledCorrections = new CompiledCorrections(corrections, 0);
+
+        assertEquals("Objects uoid", BadOcrCorrector.correct(
+                "Objeots uoid", Correction.TYPE.TEXT, compiledCorrections));
+        assertEquals("Objeots void", BadOcrCorrector.correct(
+                "Objeots uoid", Correction.TYPE.CODE, compiledCorrections));
+    }
+
+    @Test
+    void correctGivesTheSameResultAsWithCorrectionsList() {
+        val corrections = new ArrayList<>(Arrays.asList(
+                new Correction("Cor3ction", "Corection",
+                        Correction.TYPE.TEXT),
+                new Correction("Corection", "Correction",
+                        Correction.TYPE.TEXT),
+                new Correction("rn", "m", Correction.TYPE.TEXT)));
+
+        val compiledCorrections = new CompiledCorrections(corrections, 0);
+
+        val testString = "Cor3ction Co-\nrection rnodern";
+
+        assertEquals(BadOcrCorrector.correct(testString,
+                        Correction.TYPE.TEXT, corrections),
+                BadOcrCorrector.correct(testString, Correction.TYPE.TEXT,
+                        compiledCorrections));
+    }
+
+    @Test
+    void readFromReadsCompiledCorrectionsWrittenByWriteTo() {
+        val corrections = new ArrayList<>(Arrays.asList(
+                new Correction("0", "O", Correction.TYPE.TEXT),
+                new Correction("Cor3ction", "Corection",
+                        Correction.TYPE.TEXT),
+                new Correction("Corection", "Correction",
+                        Correction.TYPE.TEXT),
+                new Correction("rn", "m", Correction.TYPE.TEXT,
+                        Correction.KIND.LITERAL,
+                        Correction.CONDITION.WORD_START, true),
+                new Correction("(\\w)\\s+,", "$1,", Correction.TYPE.TEXT,
+                        Correction.KIND.REGEX),
+                new Correction("uoid", "void", Correction.TYPE.CODE)));
+
+        val compiledCorrections = new CompiledCorrections(corrections, 0);
+
+        val buffer = ByteBuffer.allocate(
+                (int) compiledCorrections.getSerializedSize());
+
+        compiledCorrections.writeTo(buffer);
+
+        assertEquals(0, buffer.remaining());
+
+        val readCorrections = CompiledCorrections.readFrom(buffer.flip(),
+                42);
+
+        assertEquals(42, readCorrections.getVersion());
+        assertEquals(6, readCorrections.getSize());
+        assertTrue(readCorrections.hasSameCorrections(
+                CompactCorrections.readFrom(buffer.rewind())));
+
+        val testString = "C0rner Cor3ction , RNodern uoid";
+
+        for (val type : Correction.TYPE.values()) {
+            assertEquals(BadOcrCorrector.correct(testString, type,
+                    compiledCorrections),
+                    BadOcrCorrector.correct(testString, type,
+                            readCorrections));
+        }
+
+        assertEquals("COrner Correction, Modern uoid",
+                BadOcrCorrector.correct(testString, Correction.TYPE.TEXT,
+                        readCorrections));
+    }
+
+    @Test
+    void readFromThrowsIllegalArgumentExceptionIfDataIsMalformed() {
+        val compiledCorrections = new CompiledCorrections(
+                Collections.singletonList(new Correction("uoid", "void",
+                        Correction.TYPE.CODE)), 0);
+
+        val buffer = ByteBuffer.allocate(
+                (int) compiledCorrections.getSerializedSize());
+
+        compiledCorrections.writeTo(buffer);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                CompiledCorrections.readFrom(ByteBuffer.wrap(buffer.array(),
+                        0, buffer.capacity() - 1), 0));
+
+        // the tag of the replacement pass of the code corrections
+        int passTag = (int) new CompactCorrections.Builder()
+                .add(new Correction("uoid", "void", Correction.TYPE.CODE))
+                .build()
+                .getSerializedSize() + 2 * Integer.BYTES;
+
+        buffer.put(passTag, (byte) 42);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                CompiledCorrections.readFrom(buffer.flip(), 0));
+    }
+
+    @Test
+    void correctThrowsNullPointerExceptionIfCompiledCorrectionsIsNull() {
+        assertThrows(NullPointerException.class, () ->
+                BadOcrCorrector.correct("null", Correction.TYPE.TEXT,
+                        (CompiledCorrections) null));
+    }
+
+    @Test
+    void getDisabledCorrectionsReturnsCorrectionsThatExceededTheirBudgets() {
+        val badCorrection = new Correction("(.*,){11}P", "c",
+                Correction.TYPE.TEXT, Correction.KIND.REGEX);
+
+        val corrections = new ArrayList<>(Arrays.asList(
+                new Correction("x", "y", Correction.TYPE.TEXT,
+                        Correction.KIND.REGEX), badCorrection));
+
+        val compiledCorrections = new CompiledCorrections(corrections, 0);
+
+        assertEquals(Collections.emptyList(),
+                compiledCorrections.getDisabledCorrections());
+
+        assertEquals(",,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,y",
+                BadOcrCorrector.correct(
+                        ",,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,,x",
+                        Correction.TYPE.TEXT, compiledCorrections));
+
+        assertEquals(Collections.singletonList(badCorrection),
+                compiledCorrections.getDisabledCorrections());
+    }
+}
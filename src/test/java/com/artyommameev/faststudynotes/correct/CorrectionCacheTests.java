@@ -0,0 +1,126 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SuppressWarnings("ConstantConditions")
+public class CorrectionCacheTests {
+
+    private static CompiledCorrections createCompiledCorrections(
+            long version) {
+        return new CompiledCorrections(Collections.singletonList(
+                new Correction("rn", "m", Correction.TYPE.TEXT)), version);
+    }
+
+    @Test
+    void constructorThrowsIllegalArgumentExceptionIfCapacityIsNegative() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new CorrectionCache(-1));
+    }
+
+    @Test
+    void correctThrowsNullPointerExceptionIfAnyParameterIsNull() {
+        val cache = new CorrectionCache(100);
+
+        assertThrows(NullPointerException.class, () ->
+                cache.correct(null, Correction.TYPE.TEXT,
+                        createCompiledCorrections(0)));
+
+        assertThrows(NullPointerException.class, () ->
+                cache.correct("rn", null, createCompiledCorrections(0)));
+
+        assertThrows(NullPointerException.class, () ->
+                cache.correct("rn", Correction.TYPE.TEXT, null));
+    }
+
+    @Test
+    void correctReturnsCachedTextIfTextIsCorrectedAgain() {
+        val cache = new CorrectionCache(100);
+
+        val compiledCorrections = createCompiledCorrections(0);
+
+        val correctedText = cache.correct("rnodel", Correction.TYPE.TEXT,
+                compiledCorrections);
+
+        assertEquals("model", correctedText);
+        assertSame(correctedText, cache.correct("rnodel",
+                Correction.TYPE.TEXT, compiledCorrections));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getCount());
+        assertEquals(11, cache.getSize());
+    }
+
+    @Test
+    void correctDistinguishesTypesAndVersions() {
+        val cache = new CorrectionCache(100);
+
+        assertEquals("model", cache.correct("rnodel", Correction.TYPE.TEXT,
+                createCompiledCorrections(0)));
+        assertEquals("rnodel", cache.correct("rnodel", Correction.TYPE.CODE,
+                createCompiledCorrections(0)));
+        assertEquals("model", cache.correct("rnodel", Correction.TYPE.TEXT,
+                createCompiledCorrections(1)));
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    void correctEvictsLeastRecentlyUsedTexts() {
+        // fits two texts of 4 + 4 chars
+        val cache = new CorrectionCache(16);
+
+        val compiledCorrections = createCompiledCorrections(0);
+
+        cache.correct("aaaa", Correction.TYPE.TEXT, compiledCorrections);
+        cache.correct("bbbb", Correction.TYPE.TEXT, compiledCorrections);
+        cache.correct("aaaa", Correction.TYPE.TEXT, compiledCorrections);
+        cache.correct("cccc", Correction.TYPE.TEXT, compiledCorrections);
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.getCount());
+        assertEquals(16, cache.getSize());
+
+        cache.correct("aaaa", Correction.TYPE.TEXT, compiledCorrections);
+        cache.correct("bbbb", Correction.TYPE.TEXT, compiledCorrections);
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    void correctDoesNotCacheTextLargerThanCapacity() {
+        val cache = new CorrectionCache(4);
+
+        assertEquals("model", cache.correct("rnodel", Correction.TYPE.TEXT,
+                createCompiledCorrections(0)));
+
+        assertEquals(0, cache.getCount());
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    void clearRemovesAllTexts() {
+        val cache = new CorrectionCache(100);
+
+        val compiledCorrections = createCompiledCorrections(0);
+
+        cache.correct("rnodel", Correction.TYPE.TEXT, compiledCorrections);
+        cache.clear();
+        cache.correct("rnodel", Correction.TYPE.TEXT, compiledCorrections);
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getCount());
+    }
+}
@@ -0,0 +1,170 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SuppressWarnings("ConstantConditions")
+public class CorrectionPipelineTests {
+
+    private static List<Correction> createCorrections() {
+        return Arrays.asList(
+                new Correction("rn", "m", Correction.TYPE.TEXT),
+                new Correction("c1ear", "clear", Correction.TYPE.TEXT),
+                // a pass after the previous one, since it fixes its result
+                new Correction("clear", "clean", Correction.TYPE.TEXT),
+                new Correction("(\\d)O", "$10", Correction.TYPE.TEXT,
+                        Correction.KIND.REGEX),
+                new Correction("pri nt", "print", Correction.TYPE.CODE));
+    }
+
+    private static CorrectionPipeline createPipeline(
+            CompiledCorrections compiledCorrections, Correction.TYPE type) {
+        return new CorrectionPipeline.Builder()
+                .normalize(type)
+                .correct(compiledCorrections, type)
+                .capitalize()
+                .addPeriodAtTheEnd()
+                .build();
+    }
+
+    @Test
+    void applyThrowsExceptionIfTextIsNullOrEmpty() {
+        val pipeline = new CorrectionPipeline.Builder().build();
+
+        assertThrows(NullPointerException.class, () ->
+                pipeline.apply(null));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                pipeline.apply(""));
+    }
+
+    @Test
+    void builderThrowsExceptionIfStatisticsAreOfOtherCorrections() {
+        val compiledCorrections = new CompiledCorrections(
+                createCorrections(), 0);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                new CorrectionPipeline.Builder().correct(compiledCorrections,
+                        Correction.TYPE.TEXT, new CorrectionStatistics(
+                                new CompiledCorrections(
+                                        Collections.emptyList(), 0))));
+    }
+
+    @Test
+    void applyGivesSameResultAsChainedMethods() {
+        val compiledCorrections = new CompiledCorrections(
+                createCorrections(), 0);
+
+        val pipeline = createPipeline(compiledCorrections,
+                Correction.TYPE.TEXT);
+
+        for (val text : Arrays.asList("the rnarnrn has 1O com-\nrnents",
+                "c1ear and clear",
+                "a", "ß", "Is it?", "(so)", "«cite»", "  pad  \r\n",
+                "soft\u00AD rnap")) {
+            assertEquals(BadOcrCorrector.addPeriodAtTheEnd(
+                    BadOcrCorrector.capitalize(BadOcrCorrector.correct(text,
+                            Correction.TYPE.TEXT, compiledCorrections))),
+                    pipeline.apply(text));
+        }
+    }
+
+    @Test
+    void applyReusesBuffersForManyTexts() {
+        val pipeline = createPipeline(new CompiledCorrections(
+                createCorrections(), 0), Correction.TYPE.TEXT);
+
+        assertEquals("The model of 10 clean parts.",
+                pipeline.apply("the rnodel of 1O c1ear parts"));
+        assertEquals("A.", pipeline.apply("a"));
+        assertEquals("Long line of a text.", pipeline.apply("long\nline " +
+                "of a text."));
+    }
+
+    @Test
+    void normalizeRemovesEndWhitespacesOfCode() {
+        val pipeline = new CorrectionPipeline.Builder()
+                .normalize(Correction.TYPE.CODE)
+                .correct(new CompiledCorrections(createCorrections(), 0),
+                        Correction.TYPE.CODE)
+                .build();
+
+        assertEquals("  print(x)\n  print(y)",
+                pipeline.apply("  pri nt(x)\n  pri nt(y) \n\t"));
+        assertEquals("rn", pipeline.apply("rn\n"));
+    }
+
+    @Test
+    void indentCodeRebuildsIndentationOfCorrectedCode() {
+        val pipeline = new CorrectionPipeline.Builder()
+                .normalize(Correction.TYPE.CODE)
+                .correct(new CompiledCorrections(createCorrections(), 0),
+                        Correction.TYPE.CODE)
+                .indentCode()
+                .build();
+
+        assertEquals("if (a) {\n    print(x);\n}",
+                pipeline.apply("if (a) {\n pri nt(x);\n  } \n"));
+    }
+
+    @Test
+    void indentCodeDoesNotCarryStateBetweenCodes() {
+        val pipeline = new CorrectionPipeline.Builder()
+                .indentCode()
+                .build();
+
+        assertEquals("if (a) {\n    if (b) {",
+                pipeline.apply("if (a) {\nif (b) {"));
+        assertEquals("print(x);\nprint(y);",
+                pipeline.apply("  print(x);\n print(y);"));
+    }
+
+    @Test
+    void applyRecordsStatistics() {
+        val compiledCorrections = new CompiledCorrections(
+                createCorrections(), 0);
+        val statistics = new CorrectionStatistics(compiledCorrections);
+
+        val pipeline = new CorrectionPipeline.Builder()
+                .correct(compiledCorrections, Correction.TYPE.TEXT,
+                        statistics)
+                .build();
+
+        assertEquals("mm clean 10 20", pipeline.apply("rnrn c1ear 1O 2O"));
+
+        val hits = statistics.drainHits();
+
+        assertEquals(2, hits[0]);
+        assertEquals(1, hits[1]);
+        assertEquals(1, hits[2]);
+        assertEquals(2, hits[3]);
+    }
+
+    @Test
+    void applyAppliesCustomStagesInOrder() {
+        val pipeline = new CorrectionPipeline.Builder()
+                .add((text, output) -> {
+                    output.append(text).reverse();
+
+                    return true;
+                })
+                .capitalize()
+                .add((text, output) -> {
+                    text.append('!');
+
+                    return false;
+                })
+                .addPeriodAtTheEnd()
+                .build();
+
+        assertEquals("Cba!", pipeline.apply("abc"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("ConstantConditions")
+public class CorrectionStatisticsTests {
+
+    private static CompiledCorrections createCompiledCorrections() {
+        return new CompiledCorrections(Arrays.asList(
+                new Correction("rn", "m", Correction.TYPE.TEXT),
+                new Correction("uoid", "void", Correction.TYPE.CODE),
+                new Correction("(\\d)O", "$10", Correction.TYPE.TEXT,
+                        Correction.KIND.REGEX),
+                new Correction("l(\\d)", "1$1", Correction.TYPE.TEXT,
+                        Correction.KIND.REGEX)), 0);
+    }
+
+    @Test
+    void constructorThrowsNullPointerExceptionIfCorrectionsIsNull() {
+        assertThrows(NullPointerException.class, () ->
+                new CorrectionStatistics(null));
+    }
+
+    @Test
+    void getHitsThrowsIndexOutOfBoundsExceptionIfIndexIsOutOfRange() {
+        val statistics = new CorrectionStatistics(
+                createCompiledCorrections());
+
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                statistics.getHits(-1));
+
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                statistics.getHits(4));
+    }
+
+    @Test
+    void correctRecordsHitsOfAppliedCorrections() {
+        val compiledCorrections = createCompiledCorrections();
+
+        val statistics = new CorrectionStatistics(compiledCorrections);
+
+        assertEquals("model 10 11 xO", BadOcrCorrector.correct(
+                "rnodel 1O l1 xO", Correction.TYPE.TEXT,
+                compiledCorrections, statistics));
+
+        assertEquals(1, statistics.getHits(0));
+        assertEquals(0, statistics.getHits(1));
+        assertEquals(1, statistics.getHits(2));
+        assertEquals(1, statistics.getHits(3));
+    }
+
+    @Test
+    void correctRecordsMatchingTimeOfRegexCorrectionsOnly() {
+        val compiledCorrections = createCompiledCorrections();
+
+        val statistics = new CorrectionStatistics(compiledCorrections);
+
+        BadOcrCorrector.correct("rnodel 1O l1",
+                Correction.TYPE.TEXT, compiledCorrections, statistics);
+
+        assertEquals(0, statistics.getMatchingTime(0));
+        assertTrue(statistics.getMatchingTime(2) > 0);
+        assertTrue(statistics.getMatchingTime(3) > 0);
+    }
+
+    @Test
+    void correctInParallelRecordsTheSameHitsAsCorrect() {
+        val compiledCorrections = createCompiledCorrections();
+
+        val statistics = new CorrectionStatistics(compiledCorrections);
+        val parallelStatistics = new CorrectionStatistics(
+                compiledCorrections);
+
+        val text = String.join(" ", Collections.nCopies(50000,
+                "rnodel 1O"));
+
+        assertEquals(BadOcrCorrector.correct(text, Correction.TYPE.TEXT,
+                        compiledCorrections, statistics),
+                BadOcrCorrector.correctInParallel(text, Correction.TYPE.TEXT,
+                        compiledCorrections, parallelStatistics));
+
+        assertArrayEquals(new long[]{50000, 0, 50000, 0},
+                statistics.drainHits());
+        assertArrayEquals(new long[]{50000, 0, 50000, 0},
+                parallelStatistics.drainHits());
+    }
+
+    @Test
+    void drainHitsResetsHits() {
+        val compiledCorrections = createCompiledCorrections();
+
+        val statistics = new CorrectionStatistics(compiledCorrections);
+
+        BadOcrCorrector.correct("rn", Correction.TYPE.TEXT,
+                compiledCorrections, statistics);
+
+        assertArrayEquals(new long[]{1, 0, 0, 0}, statistics.drainHits());
+        assertArrayEquals(new long[]{0, 0, 0, 0}, statistics.drainHits());
+        assertEquals(0, statistics.getHits(0));
+    }
+
+    @Test
+    void correctThrowsIllegalArgumentExceptionIfStatisticsAreOfOtherCorrections() {
+        val statistics = new CorrectionStatistics(new CompiledCorrections(
+                Collections.emptyList(), 0));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                BadOcrCorrector.correct("rn", Correction.TYPE.TEXT,
+                        createCompiledCorrections(), statistics));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                BadOcrCorrector.correctInParallel("rn", Correction.TYPE.TEXT,
+                        createCompiledCorrections(), statistics));
+    }
+}
@@ -0,0 +1,196 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SuppressWarnings("ConstantConditions")
+public class GeneratedMatcherTests {
+
+    private static List<String> findAll(GeneratedMatcher matcher,
+                                        String text) {
+        List<String> matches = new ArrayList<>();
+
+        matcher.findAll(text, 0, text.length(), true, (pattern, start, end) ->
+                matches.add(pattern + ":" + start + "-" + end));
+
+        return matches;
+    }
+
+    private static List<String> findAll(AhoCorasickMatcher matcher,
+                                        String text) {
+        List<String> matches = new ArrayList<>();
+
+        matcher.findAll(text, (pattern, start, end) ->
+                matches.add(pattern + ":" + start + "-" + end));
+
+        return matches;
+    }
+
+    private static String correctStream(String text,
+                                        List<CorrectionPass> passes,
+                                        int chunkSize) throws Exception {
+        val writer = new StringWriter();
+
+        StreamingCorrector.correct(new StringReader(text), writer,
+                Correction.TYPE.TEXT, passes, chunkSize);
+
+        return writer.toString();
+    }
+
+    private static String createString(Random random, String alphabet,
+                                       int maxLength) {
+        val string = new StringBuilder();
+
+        int length = 1 + random.nextInt(maxLength);
+
+        for (int i = 0; i < length; i++) {
+            string.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+
+        return string.toString();
+    }
+
+    @Test
+    void constructorThrowsIllegalArgumentExceptionIfPatternIsEmpty() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new GeneratedMatcher(Collections.singletonList("")));
+    }
+
+    @Test
+    void constructorThrowsExceptionIfThereAreTooManyPatterns() {
+        List<String> patterns = new ArrayList<>();
+
+        for (int i = 0; i <= GeneratedMatcher.MAX_PATTERNS; i++) {
+            patterns.add(String.valueOf(i));
+        }
+
+        assertThrows(IllegalArgumentException.class, () ->
+                new GeneratedMatcher(patterns));
+    }
+
+    @Test
+    void findAllFindsLeftmostLongestMatches() {
+        val matcher = new GeneratedMatcher(Arrays.asList("he", "she", "his",
+                "hers", "h"));
+
+        assertEquals(Arrays.asList("1:0-3", "2:3-6", "3:7-11", "4:11-12"),
+                findAll(matcher, "shehis hersh"));
+    }
+
+    @Test
+    void findAllReportsOnlyFirstOfDuplicatedPatterns() {
+        val matcher = new GeneratedMatcher(Arrays.asList("rn", "rn"));
+
+        assertEquals(Collections.singletonList("0:1-3"),
+                findAll(matcher, "arn"));
+    }
+
+    @Test
+    void findAllFindsNothingIfThereAreNoPatterns() {
+        val matcher = new GeneratedMatcher(Collections.emptyList());
+
+        assertEquals(Collections.emptyList(), findAll(matcher, "text"));
+        assertEquals(4, matcher.findAll("text", 0, 4, false,
+                (pattern, start, end) -> {
+                }));
+    }
+
+    @Test
+    void findAllDoesNotResolveRegionEndThatCouldStartLongestPattern() {
+        val matcher = new GeneratedMatcher(Arrays.asList("abc", "x"));
+
+        List<String> matches = new ArrayList<>();
+
+        int resolved = matcher.findAll("xxab", 0, 4, false,
+                (pattern, start, end) ->
+                        matches.add(pattern + ":" + start + "-" + end));
+
+        assertEquals(2, resolved);
+        assertEquals(Arrays.asList("1:0-1", "1:1-2"), matches);
+    }
+
+    @Test
+    void findAllThrowsIndexOutOfBoundsExceptionIfRegionIsOutOfText() {
+        val matcher = new GeneratedMatcher(Collections.singletonList("a"));
+
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                matcher.findAll("abc", 0, 4, true, (pattern, start, end) -> {
+                }));
+    }
+
+    @Test
+    void findAllGivesTheSameMatchesAsAutomaton() {
+        val random = new Random(42);
+
+        for (int i = 0; i < 200; i++) {
+            List<String> patterns = new ArrayList<>();
+
+            int patternsCount = 1 + random.nextInt(40);
+
+            for (int j = 0; j < patternsCount; j++) {
+                patterns.add(createString(random, "abcd", 6));
+            }
+
+            val generatedMatcher = new GeneratedMatcher(patterns);
+            val automaton = new AhoCorasickMatcher(patterns);
+
+            for (int j = 0; j < 20; j++) {
+                val text = createString(random, "abcde", 60);
+
+                assertEquals(findAll(automaton, text),
+                        findAll(generatedMatcher, text),
+                        "Patterns: " + patterns + ", text: " + text);
+            }
+        }
+    }
+
+    @Test
+    void compiledCorrectionsGiveTheSameResultAsInterpretedCorrections()
+            throws Exception {
+        val random = new Random(42);
+
+        for (int i = 0; i < 100; i++) {
+            List<Correction> corrections = new ArrayList<>();
+
+            int correctionsCount = 1 + random.nextInt(30);
+
+            for (int j = 0; j < correctionsCount; j++) {
+                corrections.add(new Correction(createString(random, "abc",
+                        4), createString(random, "abcd", 4),
+                        Correction.TYPE.TEXT));
+            }
+
+            val interpreted = CompiledCorrections.compile(corrections,
+                    Correction.TYPE.TEXT, false);
+            val generated = CompiledCorrections.compile(corrections,
+                    Correction.TYPE.TEXT, true);
+
+            for (int j = 0; j < 10; j++) {
+                val text = createString(random, "abcd ", 60);
+
+                assertEquals(CorrectionPass.applyAll(text, interpreted),
+                        CorrectionPass.applyAll(text, generated),
+                        "Corrections: " + corrections + ", text: " + text);
+
+                for (int chunkSize = 1; chunkSize <= 8; chunkSize *= 2) {
+                    assertEquals(correctStream(text, interpreted, chunkSize),
+                            correctStream(text, generated, chunkSize),
+                            "Corrections: " + corrections + ", text: " +
+                                    text);
+                }
+            }
+        }
+    }
+}
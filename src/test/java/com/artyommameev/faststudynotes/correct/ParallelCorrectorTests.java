@@ -0,0 +1,141 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SuppressWarnings("ConstantConditions")
+public class ParallelCorrectorTests {
+
+    private static final List<Correction> CORRECTIONS = new ArrayList<>(
+            Arrays.asList(
+                    new Correction("Cor3ction", "Corection",
+                            Correction.TYPE.TEXT),
+                    new Correction("Corection", "Correction",
+                            Correction.TYPE.TEXT),
+                    new Correction("rn", "m", Correction.TYPE.TEXT),
+                    new Correction("e. g.", "e.g.", Correction.TYPE.TEXT),
+                    new Correction("uoid", "void", Correction.TYPE.CODE)));
+
+    private static final List<Correction> CONDITIONAL_CORRECTIONS =
+            new ArrayList<>(Arrays.asList(
+                    new Correction("l", "I", Correction.TYPE.TEXT,
+                            Correction.KIND.LITERAL,
+                            Correction.CONDITION.WHOLE_WORD),
+                    new Correction("rn", "m", Correction.TYPE.TEXT,
+                            Correction.KIND.LITERAL,
+                            Correction.CONDITION.WORD_START),
+                    new Correction("O", "0", Correction.TYPE.TEXT,
+                            Correction.KIND.LITERAL,
+                            Correction.CONDITION.LINE_END),
+                    new Correction("o", "0", Correction.TYPE.TEXT,
+                            Correction.KIND.LITERAL,
+                            Correction.CONDITION.NONE, true),
+                    new Correction("a", "A", Correction.TYPE.CODE,
+                            Correction.KIND.LITERAL,
+                            Correction.CONDITION.LINE_START),
+                    new Correction("uoid", "void", Correction.TYPE.CODE),
+                    new Correction("u[o0]id", "void", Correction.TYPE.CODE,
+                            Correction.KIND.REGEX, Correction.CONDITION.NONE,
+                            true)));
+
+    private static String createRandomText(Random random, int length) {
+        val fragments = new String[]{"Cor3ction", "Corection", "rn", "e. g.",
+                "uoid", "1", "O", "l", " ", "\n", ".", ", ", "a", "rnodern",
+                "UOID", "U0id"};
+
+        val text = new StringBuilder();
+
+        while (text.length() < length) {
+            text.append(fragments[random.nextInt(fragments.length)]);
+        }
+
+        return text.toString();
+    }
+
+    @Test
+    void correctInParallelThrowsNullPointerExceptionIfParametersIsNull() {
+        val compiledCorrections = new CompiledCorrections(CORRECTIONS, 0);
+
+        assertThrows(NullPointerException.class, () ->
+                BadOcrCorrector.correctInParallel(null,
+                        Correction.TYPE.TEXT, compiledCorrections));
+
+        assertThrows(NullPointerException.class, () ->
+                BadOcrCorrector.correctInParallel("null", null,
+                        compiledCorrections));
+
+        assertThrows(NullPointerException.class, () ->
+                BadOcrCorrector.correctInParallel("null",
+                        Correction.TYPE.TEXT, null));
+    }
+
+    @Test
+    void correctInParallelThrowsIllegalArgumentExceptionIfTextIsEmpty() {
+        assertThrows(IllegalArgumentException.class, () ->
+                BadOcrCorrector.correctInParallel("", Correction.TYPE.TEXT,
+                        new CompiledCorrections(CORRECTIONS, 0)));
+    }
+
+    @Test
+    void correctInParallelGivesTheSameResultAsSequentialCorrection() {
+        val compiledCorrections = new CompiledCorrections(CORRECTIONS, 0);
+
+        val text = createRandomText(new Random(42),
+                ParallelCorrector.DEFAULT_THRESHOLD * 4);
+
+        for (val type : Correction.TYPE.values()) {
+            assertEquals(BadOcrCorrector.correct(text, type,
+                            compiledCorrections),
+                    BadOcrCorrector.correctInParallel(text, type,
+                            compiledCorrections));
+        }
+    }
+
+    @Test
+    void applyAllGivesTheSameResultForSmallThresholds() {
+        val random = new Random(42);
+
+        for (val type : Correction.TYPE.values()) {
+            val passes = CompiledCorrections.compile(CORRECTIONS, type);
+
+            for (int i = 0; i < 200; i++) {
+                val text = createRandomText(random, 1 + random.nextInt(200));
+
+                for (int threshold = 2; threshold <= 32; threshold *= 2) {
+                    assertEquals(CorrectionPass.applyAll(text, passes),
+                            ParallelCorrector.applyAll(text, passes,
+                                    threshold), "Text: " + text);
+                }
+            }
+        }
+    }
+
+    @Test
+    void applyAllGivesTheSameResultForConditionalCorrections() {
+        val random = new Random(42);
+
+        for (val type : Correction.TYPE.values()) {
+            val passes = CompiledCorrections.compile(CONDITIONAL_CORRECTIONS,
+                    type);
+
+            for (int i = 0; i < 200; i++) {
+                val text = createRandomText(random, 1 + random.nextInt(200));
+
+                for (int threshold = 2; threshold <= 32; threshold *= 2) {
+                    assertEquals(CorrectionPass.applyAll(text, passes),
+                            ParallelCorrector.applyAll(text, passes,
+                                    threshold), "Text: " + text);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.artyommameev.faststudynotes.correct;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+@SuppressWarnings("ConstantConditions")
+public class RegexPassTests {
+
+    private static RegexPass createPass(String... rules) {
+        List<String> expressions = new ArrayList<>();
+        List<String> replacements = new ArrayList<>();
+        List<Integer> corrections = new ArrayList<>();
+
+        for (int i = 0; i < rules.length; i += 2) {
+            expressions.add(rules[i]);
+            replacements.add(rules[i + 1]);
+            corrections.add(i / 2);
+        }
+
+        return new RegexPass(expressions, replacements, corrections);
+    }
+
+    @Test
+    void constructorThrowsNullPointerExceptionIfParametersIsNull() {
+        assertThrows(NullPointerException.class, () ->
+                new RegexPass(null, Collections.emptyList(),
+                        Collections.emptyList()));
+
+        assertThrows(NullPointerException.class, () ->
+                new RegexPass(Collections.emptyList(), null,
+                        Collections.emptyList()));
+
+        assertThrows(NullPointerException.class, () ->
+                new RegexPass(Collections.emptyList(),
+                        Collections.emptyList(), null));
+    }
+
+    @Test
+    void constructorThrowsIllegalArgumentExceptionIfExpressionIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () ->
+                createPass("(a", "b"));
+    }
+
+    @Test
+    void constructorThrowsIllegalArgumentExceptionIfSizesAreDifferent() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new RegexPass(Arrays.asList("a", "b"),
+                        Collections.singletonList("c"), Arrays.asList(0, 1)));
+    }
+
+    @Test
+    void applyReplacesMatchesUsingGroups() {
+        val pass = createPass("(\\d)O(\\d)", "$10$2",
+                "(\\d)l(\\d)", "$11$2");
+
+        assertEquals("102 and 314, 1O", pass.apply("1O2 and 3l4, 1O"));
+    }
+
+    @Test
+    void applyPrefersLeftmostMatchAndThenFirstRule() {
+        val pass = createPass("bc", "1", "abc", "2", "ab", "3");
+
+        assertEquals("2 1", pass.apply("abc bc"));
+
+        assertEquals("3c", createPass("ab", "3", "abc", "2")
+                .apply("abc"));
+    }
+
+    @Test
+    void applyCombinesSeparateAndCombinedExpressions() {
+        val pass = createPass("b+", "B", "(a)\\1", "X",
+                "(?<digit>\\d)O", "${digit}0");
+
+        assertEquals("XB 10 a", pass.apply("aabbb 1O a"));
+    }
+
+    @Test
+    void applyInsertsEscapedCharsAndNonexistentGroupsAsIs() {
+        val pass = createPass("(a)", "\\$1$2${name}$");
+
+        assertEquals("$1$2${name}$", pass.apply("a"));
+    }
+
+    @Test
+    void applyKeepsInlineFlagsInsideTheirExpressions() {
+        val pass = createPass("(?i)abc", "1", "d", "2");
+
+        assertEquals("1 1 D 2", pass.apply("ABC abc D d"));
+    }
+
+    @Test
+    void applyIgnoresEmptyMatches() {
+        val pass = createPass("x*", "y", "b", "c");
+
+        assertEquals("ayc", pass.apply("axxb"));
+    }
+
+    @Test
+    void applyDisablesExpressionThatExceedsItsBudget() {
+        val pass = createPass("x", "y", "(.*,){11}P", "c");
+
+        val text = String.join("", Collections.nCopies(40, ",")) + "x";
+
+        val result = assertTimeoutPreemptively(
+                Duration.ofSeconds(10), () -> pass.apply(text));
+
+        assertEquals(text.replace("x", "y"), result);
+        assertEquals(Collections.singletonList("(.*,){11}P"),
+                pass.getDisabledExpressions());
+        assertArrayEquals(new int[]{1}, pass.getDisabledCorrections());
+
+        assertEquals("y", pass.apply("x"));
+        assertEquals(",,,,,,,,,,,P", pass.apply(",,,,,,,,,,,P"));
+    }
+
+    @Test
+    void applyOfPartDefersMatchThatCanBeContinued() {
+        val pass = createPass("\\d+", "N");
+
+        val output = new StringBuilder();
+
+        int resolved = pass.apply("a 12", 0, 4, false, output);
+
+        assertEquals(0, resolved);
+        assertEquals("", output.toString());
+
+        resolved = pass.apply("a 12 b", 0, 6, false, output);
+
+        assertEquals(4, resolved);
+        assertEquals("a N", output.toString());
+    }
+
+    @Test
+    void applyOfPartUsesContextBeforePart() {
+        val pass = createPass("(?<=\\d)O", "0");
+
+        val output = new StringBuilder();
+
+        int resolved = pass.apply("1O", 1, 2, true, output);
+
+        assertEquals(2, resolved);
+        assertEquals("0", output.toString());
+    }
+}
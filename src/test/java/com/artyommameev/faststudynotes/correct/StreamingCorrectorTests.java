@@ -0,0 +1,185 @@
+package com.artyommameev.faststudynotes.correct;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SuppressWarnings("ConstantConditions")
+public class StreamingCorrectorTests {
+
+    private static final List<Correction> CORRECTIONS = new ArrayList<>(
+            Arrays.asList(
+                    new Correction("Cor3ction", "Corection",
+                            Correction.TYPE.TEXT),
+                    new Correction("Corection", "Correction",
+                            Correction.TYPE.TEXT),
+                    new Correction("rn", "m", Correction.TYPE.TEXT),
+                    new Correction("rnodern", "modern", Correction.TYPE.TEXT),
+                    new Correction("(\\d)O(\\d)", "$10$2",
+                            Correction.TYPE.TEXT, Correction.KIND.REGEX),
+                    new Correction("(?<=\\d)l|l(?=\\d)", "1",
+                            Correction.TYPE.CODE, Correction.KIND.REGEX),
+                    new Correction("uoid", "void", Correction.TYPE.CODE),
+                    new Correction("puЬlic", "public", Correction.TYPE.CODE)));
+
+    private static final List<Correction> CONDITIONAL_CORRECTIONS =
+            new ArrayList<>(Arrays.asList(
+                    new Correction("l", "I", Correction.TYPE.TEXT,
+                            Correction.KIND.LITERAL,
+                            Correction.CONDITION.WHOLE_WORD),
+                    new Correction("rn", "m", Correction.TYPE.TEXT,
+                            Correction.KIND.LITERAL,
+                            Correction.CONDITION.WORD_START),
+                    new Correction("rn", "nn", Correction.TYPE.TEXT),
+                    new Correction("rn", "m", Correction.TYPE.TEXT,
+                            Correction.KIND.LITERAL,
+                            Correction.CONDITION.NONE, true),
+                    new Correction("O", "0", Correction.TYPE.TEXT,
+                            Correction.KIND.LITERAL,
+                            Correction.CONDITION.WORD_END),
+                    new Correction("#", "//", Correction.TYPE.CODE,
+                            Correction.KIND.LITERAL,
+                            Correction.CONDITION.LINE_START),
+                    new Correction("l", ";", Correction.TYPE.CODE,
+                            Correction.KIND.LITERAL,
+                            Correction.CONDITION.LINE_END),
+                    new Correction("\\d", "N", Correction.TYPE.CODE,
+                            Correction.KIND.REGEX,
+                            Correction.CONDITION.WHOLE_WORD)));
+
+    private static String correctStream(String text, Correction.TYPE type,
+                                        int chunkSize) throws Exception {
+        return correctStream(text, type, CORRECTIONS, chunkSize);
+    }
+
+    private static String correctStream(String text, Correction.TYPE type,
+                                        List<Correction> corrections,
+                                        int chunkSize) throws Exception {
+        val writer = new StringWriter();
+
+        StreamingCorrector.correct(new StringReader(text), writer, type,
+                CompiledCorrections.compile(corrections, type), chunkSize);
+
+        return writer.toString();
+    }
+
+    @Test
+    void correctThrowsNullPointerExceptionIfParametersIsNull() {
+        assertThrows(NullPointerException.class, () ->
+                BadOcrCorrector.correct(null, new StringWriter(),
+                        Correction.TYPE.TEXT, CORRECTIONS));
+
+        assertThrows(NullPointerException.class, () ->
+                BadOcrCorrector.correct(new StringReader("null"), null,
+                        Correction.TYPE.TEXT, CORRECTIONS));
+
+        assertThrows(NullPointerException.class, () ->
+                BadOcrCorrector.correct(new StringReader("null"),
+                        new StringWriter(), null, CORRECTIONS));
+
+        assertThrows(NullPointerException.class, () ->
+                BadOcrCorrector.correct(new StringReader("null"),
+                        new StringWriter(), Correction.TYPE.TEXT,
+                        (List<Correction>) null));
+    }
+
+    @Test
+    void correctWritesNothingIfStreamIsEmpty() throws Exception {
+        val writer = new StringWriter();
+
+        BadOcrCorrector.correct(new StringReader(""), writer,
+                Correction.TYPE.TEXT, CORRECTIONS);
+
+        assertEquals("", writer.toString());
+    }
+
+    @Test
+    void correctProperlyCorrectsTextStream() throws Exception {
+        val writer = new StringWriter();
+
+        BadOcrCorrector.correct(new StringReader(
+                        "Cor3ction  rnodern Co-\nrection"), writer,
+                Correction.TYPE.TEXT, new CompiledCorrections(CORRECTIONS,
+                        0));
+
+        assertEquals("Correction modern Correction", writer.toString());
+    }
+
+    @Test
+    void correctProperlyCorrectsCodeStream() throws Exception {
+        val writer = new StringWriter();
+
+        BadOcrCorrector.correct(new StringReader("   puЬlic uoid  \n "),
+                writer, Correction.TYPE.CODE, CORRECTIONS);
+
+        assertEquals("   public void", writer.toString());
+    }
+
+    @Test
+    void correctGivesTheSameResultAsStringCorrectionForAnyChunkSize()
+            throws Exception {
+        val random = new Random(42);
+        val fragments = new String[]{"Cor3ction", "Corection", "rn", "odern",
+                "uoid", "puЬlic", "1", "O", "l", " ", "  ", "-", "\n", "\r\n",
+                "­", "a"};
+
+        for (int i = 0; i < 500; i++) {
+            val text = new StringBuilder();
+
+            int length = 1 + random.nextInt(12);
+
+            for (int j = 0; j < length; j++) {
+                text.append(fragments[random.nextInt(fragments.length)]);
+            }
+
+            for (val type : Correction.TYPE.values()) {
+                val expected = BadOcrCorrector.correct(text.toString(), type,
+                        CORRECTIONS);
+
+                for (int chunkSize = 1; chunkSize <= 8; chunkSize++) {
+                    assertEquals(expected, correctStream(text.toString(),
+                            type, chunkSize), "Text: " + text);
+                }
+            }
+        }
+    }
+
+    @Test
+    void correctGivesTheSameResultForConditionalCorrectionsForAnyChunkSize()
+            throws Exception {
+        val random = new Random(42);
+        val fragments = new String[]{"l", "rn", "O", "#", "1", "a", " ",
+                "\n", "\r\n", "-", "RN", "Rn"};
+
+        for (int i = 0; i < 500; i++) {
+            val text = new StringBuilder();
+
+            int length = 1 + random.nextInt(12);
+
+            for (int j = 0; j < length; j++) {
+                text.append(fragments[random.nextInt(fragments.length)]);
+            }
+
+            for (val type : Correction.TYPE.values()) {
+                val expected = BadOcrCorrector.correct(text.toString(), type,
+                        CONDITIONAL_CORRECTIONS);
+
+                for (int chunkSize = 1; chunkSize <= 8; chunkSize++) {
+                    assertEquals(expected, correctStream(text.toString(),
+                            type, CONDITIONAL_CORRECTIONS, chunkSize),
+                            "Text: " + text);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.artyommameev.faststudynotes.correct;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SuppressWarnings("ConstantConditions")
+public class TextNormalizerTests {
+
+    // the chain of regular expressions that the normalizer replaces
+    private static String normalizeWithRegularExpressions(String text) {
+        return text
+                .replaceAll("\\r\\n|\\r|\\n", " ")
+                .replaceAll("­\\s", "")
+                .replaceAll(" {2}", " ")
+                .replaceAll("(\\S)-\\s", "$1");
+    }
+
+    @Test
+    void normalizeThrowsNullPointerExceptionIfTextIsNull() {
+        assertThrows(NullPointerException.class, () ->
+                TextNormalizer.normalize(null));
+    }
+
+    @Test
+    void normalizeFoldsLineBreaks() {
+        assertEquals("a b c d", TextNormalizer.normalize("a\r\nb\rc\nd"));
+    }
+
+    @Test
+    void normalizeReplacesPairsOfWhitespaces() {
+        assertEquals("a b", TextNormalizer.normalize("a  b"));
+        assertEquals("a  b", TextNormalizer.normalize("a   b"));
+        assertEquals("a  b", TextNormalizer.normalize("a    b"));
+    }
+
+    @Test
+    void normalizeRemovesSoftHyphens() {
+        assertEquals("Soft Hyphen", TextNormalizer.normalize(
+                "Soft Hy­\nphen"));
+        assertEquals("a­b", TextNormalizer.normalize("a­b"));
+        assertEquals("a­", TextNormalizer.normalize("a­"));
+    }
+
+    @Test
+    void normalizeRemovesAllHyphenatedLineBreaks() {
+        assertEquals("ab cd ef", TextNormalizer.normalize(
+                "a- b c- d e-\nf"));
+        assertEquals(" - b", TextNormalizer.normalize(" - b"));
+        assertEquals("--", TextNormalizer.normalize("--- "));
+    }
+
+    @Test
+    void normalizeJoinsHyphenatedLineBreaksOnlyIfJoinedWordIsKnown() {
+        val knownWords = new WordFingerprints(Arrays.asList("pattern",
+                "well-known", "known", "co-operate", "cooperate"));
+
+        assertEquals("pattern well-known co-operate foo-bar PatTern",
+                TextNormalizer.normalize("pat- tern well- known co- " +
+                        "operate foo-\r\nbar Pat-\nTern", knownWords));
+        assertEquals("a, -b 1-2", TextNormalizer.normalize(
+                "a- , -b 1- 2", knownWords));
+        assertEquals("ab", TextNormalizer.normalize("ab- ", knownWords));
+    }
+
+    @Test
+    void normalizeGivesTheSameResultAsRegularExpressions() {
+        val random = new Random(42);
+        val alphabet = "ab-- \n\r\t­";
+
+        for (int i = 0; i < 10000; i++) {
+            val text = new StringBuilder();
+
+            int length = random.nextInt(16);
+
+            for (int j = 0; j < length; j++) {
+                text.append(alphabet.charAt(random.nextInt(
+                        alphabet.length())));
+            }
+
+            assertEquals(normalizeWithRegularExpressions(text.toString()),
+                    TextNormalizer.normalize(text.toString()),
+                    "Text: " + text);
+        }
+    }
+
+    @Test
+    void appendGivesTheSameResultForAnySplitOfTheText() {
+        val text = "Correo-\r\ntion  Ob­\njeots ­\n- \n";
+        val expected = TextNormalizer.normalize(text);
+
+        for (int split = 0; split <= text.length(); split++) {
+            val output = new StringBuilder();
+            val normalizer = new TextNormalizer(output);
+
+            normalizer.append(text, 0, split);
+            normalizer.append(text, split, text.length());
+            normalizer.finish();
+
+            assertEquals(expected, output.toString());
+        }
+    }
+
+    @Test
+    void appendWithKnownWordsGivesTheSameResultForAnySplitOfTheText() {
+        val knownWords = new WordFingerprints(Arrays.asList("correction",
+                "well-known"));
+        val text = "Correc-\r\ntion well- known Ob­\njeots- ­\n- \n";
+        val expected = TextNormalizer.normalize(text, knownWords);
+
+        assertEquals("Correction well-known Objeots- ", expected);
+
+        for (int split = 0; split <= text.length(); split++) {
+            val output = new StringBuilder();
+            val normalizer = new TextNormalizer(output, knownWords);
+
+            normalizer.append(text, 0, split);
+            normalizer.append(text, split, text.length());
+            normalizer.finish();
+
+            assertEquals(expected, output.toString());
+        }
+    }
+}
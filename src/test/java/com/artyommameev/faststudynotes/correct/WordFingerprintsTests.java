@@ -0,0 +1,90 @@
+package com.artyommameev.faststudynotes.correct;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("ConstantConditions")
+public class WordFingerprintsTests {
+
+    @Test
+    void constructorThrowsNullPointerExceptionIfWordsIsNull() {
+        assertThrows(NullPointerException.class, () ->
+                new WordFingerprints(null));
+    }
+
+    @Test
+    void constructorThrowsIllegalArgumentExceptionIfWordIsEmpty() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new WordFingerprints(Collections.singletonList("")));
+    }
+
+    @Test
+    void sizeCountsDistinctWordsIgnoringCase() {
+        val fingerprints = new WordFingerprints(Arrays.asList("word",
+                "Word", "well-known"));
+
+        assertEquals(2, fingerprints.size());
+    }
+
+    @Test
+    void containsChecksWordsIgnoringCase() {
+        val fingerprints = new WordFingerprints(Arrays.asList("Pattern",
+                "well-known"));
+
+        assertTrue(fingerprints.contains("pattern"));
+        assertTrue(fingerprints.contains("PATTERN"));
+        assertTrue(fingerprints.contains("a well-known b", 2, 12));
+        assertFalse(fingerprints.contains("patterns"));
+        assertFalse(fingerprints.contains("wellknown"));
+        assertFalse(fingerprints.contains(""));
+    }
+
+    @Test
+    void containsThrowsIndexOutOfBoundsExceptionIfIndexesAreOutOfRange() {
+        val fingerprints = new WordFingerprints(Collections.singletonList(
+                "word"));
+
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                fingerprints.contains("word", 0, 5));
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                fingerprints.contains("word", 3, 2));
+    }
+
+    @Test
+    void containsFindsAllWordsOfLargeSet() {
+        List<String> words = new ArrayList<>();
+
+        for (int i = 0; i < 10000; i++) {
+            words.add("word" + i);
+        }
+
+        val fingerprints = new WordFingerprints(words);
+
+        for (val word : words) {
+            assertTrue(fingerprints.contains(word));
+        }
+
+        assertFalse(fingerprints.contains("word10000"));
+        assertEquals(words.size(), fingerprints.size());
+    }
+
+    @Test
+    void readReadsWordList() throws Exception {
+        val fingerprints = WordFingerprints.read(new StringReader(
+                "# known words\nwell-known 5\n\npattern\n"));
+
+        assertEquals(2, fingerprints.size());
+        assertTrue(fingerprints.contains("Well-Known"));
+    }
+}
@@ -0,0 +1,97 @@
+package com.artyommameev.faststudynotes.database;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("ConstantConditions")
+public class CorrectionsCsvReaderTests {
+
+    private static List<Correction> readAll(String file) throws IOException {
+        val reader = new CorrectionsCsvReader(new StringReader(file));
+
+        List<Correction> corrections = new ArrayList<>();
+
+        Correction correction;
+
+        while ((correction = reader.read()) != null) {
+            corrections.add(correction);
+        }
+
+        return corrections;
+    }
+
+    @Test
+    void constructorThrowsNullPointerExceptionIfReaderIsNull() {
+        assertThrows(NullPointerException.class, () ->
+                new CorrectionsCsvReader(null));
+    }
+
+    @Test
+    void readReadsCommaSeparatedCorrectionsWithDefaults() throws Throwable {
+        val corrections = readAll("Expression,Correction,Type\r\n" +
+                "rn,m\r\n" +
+                "\n" +
+                "pri nt,print,code\n" +
+                "(\\d)O,$10,TEXT,regex,whole_word,true");
+
+        assertEquals(3, corrections.size());
+        assertEquals("\"rn\" -> \"m\" (TEXT)",
+                corrections.get(0).toString());
+        assertEquals("\"pri nt\" -> \"print\" (CODE)",
+                corrections.get(1).toString());
+        assertEquals("\"(\\d)O\" -> \"$10\" (TEXT, REGEX, WHOLE_WORD, " +
+                "IGNORE_CASE)", corrections.get(2).toString());
+    }
+
+    @Test
+    void readReadsTabSeparatedCorrections() throws Throwable {
+        val corrections = readAll("a,b\tc\n d \t e\tTEXT\t\t\t1\n");
+
+        assertEquals(2, corrections.size());
+        assertEquals("a,b", corrections.get(0).getExpression());
+        assertEquals("c", corrections.get(0).getCorrection());
+        assertEquals(" d ", corrections.get(1).getExpression());
+        assertEquals(" e", corrections.get(1).getCorrection());
+        assertTrue(corrections.get(1).isCaseInsensitive());
+    }
+
+    @Test
+    void readReadsQuotedFields() throws Throwable {
+        val corrections = readAll("\"a,\"\"b\"\"\",\"c\nd\"\n");
+
+        assertEquals(1, corrections.size());
+        assertEquals("a,\"b\"", corrections.get(0).getExpression());
+        assertEquals("c\nd", corrections.get(0).getCorrection());
+    }
+
+    @Test
+    void readReturnsNullIfFileIsEmpty() throws Throwable {
+        assertNull(new CorrectionsCsvReader(new StringReader("")).read());
+    }
+
+    @Test
+    void readThrowsIOExceptionWithLineNumberIfRecordIsMalformed() {
+        val exception = assertThrows(IOException.class, () ->
+                readAll("a,b\n\nc,d,SOUND"));
+
+        assertEquals("Malformed corrections line 3: Unknown type SOUND",
+                exception.getMessage());
+
+        assertThrows(IOException.class, () -> readAll("a"));
+        assertThrows(IOException.class, () -> readAll("a,b,,,,,"));
+        assertThrows(IOException.class, () -> readAll("\"a,b"));
+        assertThrows(IOException.class, () -> readAll("a,b,,,,yes"));
+        assertThrows(IOException.class, () -> readAll("(,b,,regex"));
+    }
+}
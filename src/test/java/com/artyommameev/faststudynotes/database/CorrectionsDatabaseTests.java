@@ -10,10 +10,17 @@ import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import static com.artyommameev.faststudynotes.database.CorrectionsDatabase.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SuppressWarnings({"ConstantConditions", "SqlDialectInspection",
         "SqlNoDataSourceInspection"})
@@ -34,11 +41,15 @@ public class CorrectionsDatabaseTests {
     }
 
     @SuppressWarnings("ResultOfMethodCallIgnored")
-    private static void deleteDbFile() {
+    static void deleteDbFile() {
         val dbFile = new File(System.getProperty("user.dir") + "\\" +
                 "test.db");
 
         dbFile.delete();
+
+        // the write-ahead log files
+        new File(dbFile.getPath() + "-wal").delete();
+        new File(dbFile.getPath() + "-shm").delete();
     }
 
     static void setFinalStatic(Field field, Object newValue) throws Exception {
@@ -55,7 +66,9 @@ public class CorrectionsDatabaseTests {
     }
 
     @AfterEach
-    void deleteDb() {
+    void deleteDb() throws Throwable {
+        close();
+
         deleteDbFile();
     }
 
@@ -196,10 +209,561 @@ public class CorrectionsDatabaseTests {
         assertEquals(correction.getType(), corrections.get(0).getType());
     }
 
+    @Test
+    void insertAndUpdatePersistCorrectionKind() throws Throwable {
+        val correction = new Correction("(\\d)O", "$10",
+                Correction.TYPE.TEXT, Correction.KIND.REGEX);
+
+        val correction2 = new Correction("(\\d)O", "$10",
+                Correction.TYPE.TEXT, Correction.KIND.LITERAL);
+
+        insert(correction);
+
+        assertEquals(Correction.KIND.REGEX, getAll().get(0).getKind());
+
+        update(correction, correction2);
+
+        assertEquals(Correction.KIND.LITERAL, getAll().get(0).getKind());
+    }
+
+    @Test
+    void insertAndUpdatePersistCorrectionCondition() throws Throwable {
+        val correction = new Correction("l", "I", Correction.TYPE.TEXT,
+                Correction.KIND.LITERAL, Correction.CONDITION.WHOLE_WORD);
+
+        val correction2 = new Correction("l", "I", Correction.TYPE.TEXT,
+                Correction.KIND.LITERAL, Correction.CONDITION.LINE_END);
+
+        insert(correction);
+
+        assertEquals(Correction.CONDITION.WHOLE_WORD,
+                getAll().get(0).getCondition());
+        assertEquals(Correction.CONDITION.WHOLE_WORD,
+                getAllCompact(false).getCondition(0));
+
+        update(correction, correction2);
+
+        assertEquals(Correction.CONDITION.LINE_END,
+                getAll().get(0).getCondition());
+    }
+
+    @Test
+    void insertAndUpdatePersistCorrectionCaseInsensitivity()
+            throws Throwable {
+        val correction = new Correction("teh", "the", Correction.TYPE.TEXT,
+                Correction.KIND.LITERAL, Correction.CONDITION.NONE, true);
+
+        val correction2 = new Correction("teh", "the", Correction.TYPE.TEXT,
+                Correction.KIND.LITERAL, Correction.CONDITION.NONE, false);
+
+        insert(correction);
+
+        assertTrue(getAll().get(0).isCaseInsensitive());
+        assertTrue(getAllCompact(false).isCaseInsensitive(0));
+
+        update(correction, correction2);
+
+        assertFalse(getAll().get(0).isCaseInsensitive());
+    }
+
+    @Test
+    void initAddsKindColumnToOldDatabase() throws Throwable {
+        val dbUrlField = CorrectionsDatabase.class
+                .getDeclaredField("DB_URL");
+
+        dbUrlField.setAccessible(true);
+
+        try (val connection = DriverManager.getConnection(
+                (String) dbUrlField.get(null));
+             val statement = connection.createStatement()) {
+            String tableName;
+
+            try (val resultSet = statement.executeQuery("SELECT name " +
+                    "FROM sqlite_master WHERE type = 'table'")) {
+                resultSet.next();
+
+                tableName = resultSet.getString("name");
+            }
+
+            statement.execute("DROP TABLE " + tableName);
+            statement.execute("CREATE TABLE " + tableName + " (\n" +
+                    "expression text NOT NULL,\n" +
+                    "correction text NOT NULL,\n" +
+                    "correction_type text NOT NULL,\n" +
+                    "PRIMARY KEY (expression, correction_type));");
+            statement.execute("INSERT INTO " + tableName +
+                    " VALUES ('1', '2', 'TEXT')");
+        }
+
+        init();
+
+        val corrections = getAll();
+
+        assertEquals(1, corrections.size());
+        assertEquals("1", corrections.get(0).getExpression());
+        assertEquals(Correction.KIND.LITERAL, corrections.get(0).getKind());
+        assertEquals(0, corrections.get(0).getHits());
+        assertEquals(0, corrections.get(0).getMatchingTime());
+    }
+
+    @Test
+    void addStatisticsAddsToStoredStatistics() throws Throwable {
+        val correction = new Correction("1", "2",
+                Correction.TYPE.TEXT);
+
+        val correction2 = new Correction("1", "2",
+                Correction.TYPE.CODE);
+
+        insert(correction);
+        insert(correction2);
+
+        val corrections = Arrays.asList(correction, correction2);
+
+        addStatistics(corrections, new long[]{3, 0}, new long[]{100, 0});
+        addStatistics(corrections, new long[]{2, 1}, new long[]{50, 7});
+
+        val storedCorrections = getAll();
+
+        assertEquals(5, storedCorrections.get(0).getHits());
+        assertEquals(150, storedCorrections.get(0).getMatchingTime());
+        assertEquals(1, storedCorrections.get(1).getHits());
+        assertEquals(7, storedCorrections.get(1).getMatchingTime());
+    }
+
+    @Test
+    void addStatisticsThrowsIllegalArgumentExceptionIfSizesAreDifferent() {
+        assertThrows(IllegalArgumentException.class, () ->
+                addStatistics(Collections.singletonList(new Correction(
+                                "1", "2", Correction.TYPE.TEXT)),
+                        new long[]{1, 2}, new long[]{1}));
+    }
+
+    @Test
+    void updateKeepsStatistics() throws Throwable {
+        val correction = new Correction("1", "2",
+                Correction.TYPE.TEXT);
+
+        insert(correction);
+
+        addStatistics(Collections.singletonList(correction),
+                new long[]{4}, new long[]{10});
+
+        update(correction, new Correction("1", "3",
+                Correction.TYPE.TEXT));
+
+        assertEquals(4, getAll().get(0).getHits());
+    }
+
+    @Test
+    void getAllCompactGetsTheSameCorrectionsAsGetAll() throws Throwable {
+        insert(new Correction("1", "2", Correction.TYPE.TEXT));
+        insert(new Correction("(\\d)O", "$10", Correction.TYPE.CODE,
+                Correction.KIND.REGEX));
+
+        val corrections = getAll();
+
+        for (val isOffHeap : new boolean[]{false, true}) {
+            val compactCorrections = getAllCompact(isOffHeap);
+
+            assertEquals(corrections.size(), compactCorrections.size());
+
+            for (int i = 0; i < corrections.size(); i++) {
+                assertEquals(corrections.get(i).toString(),
+                        compactCorrections.get(i).toString());
+            }
+        }
+    }
+
     @Test
     void getAllReturnsEmptyListIfDatabaseIsEmpty() throws Throwable {
         val corrections = getAll();
 
         assertEquals(0, corrections.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void initEnablesWriteAheadLog() throws Throwable {
+        val dbUrlField = CorrectionsDatabase.class
+                .getDeclaredField("DB_URL");
+
+        dbUrlField.setAccessible(true);
+
+        try (val connection = DriverManager.getConnection(
+                (String) dbUrlField.get(null));
+             val statement = connection.createStatement();
+             val resultSet = statement.executeQuery("PRAGMA journal_mode")) {
+            resultSet.next();
+
+            assertEquals("wal", resultSet.getString(1));
+        }
+    }
+
+    @Test
+    void closeKeepsCorrectionsForNextConnection() throws Throwable {
+        val correction = new Correction("1", "2", Correction.TYPE.TEXT);
+        val correction2 = new Correction("3", "4", Correction.TYPE.CODE);
+
+        insert(correction);
+
+        close();
+        close();
+
+        insert(correction2);
+
+        assertEquals(2, getAll().size());
+
+        close();
+
+        val corrections = getAll();
+
+        assertEquals(2, corrections.size());
+        assertEquals("1", corrections.get(0).getExpression());
+        assertEquals(Correction.TYPE.CODE, corrections.get(1).getType());
+    }
+
+    @Test
+    void preparedStatementsAreReusedByManyCalls() throws Throwable {
+        for (int i = 0; i < 100; i++) {
+            insert(new Correction(String.valueOf(i), "x",
+                    Correction.TYPE.TEXT));
+        }
+
+        val correction = new Correction("0", "x", Correction.TYPE.TEXT);
+
+        update(correction, new Correction("0", "y", Correction.TYPE.TEXT));
+        remove(new Correction("1", "x", Correction.TYPE.TEXT));
+
+        val corrections = getAll();
+
+        assertEquals(99, corrections.size());
+        assertEquals("y", corrections.get(0).getCorrection());
+        assertEquals(99, getAllCompact(false).size());
+    }
+
+    @Test
+    void insertAllSkipsOrReplacesExistingCorrections() throws Throwable {
+        insert(new Correction("rn", "n", Correction.TYPE.TEXT));
+
+        long inserted = insertAll(Arrays.asList(
+                new Correction("rn", "m", Correction.TYPE.TEXT),
+                new Correction("rn", "m", Correction.TYPE.CODE),
+                new Correction("c1", "cl", Correction.TYPE.TEXT)), false);
+
+        assertEquals(2, inserted);
+
+        val corrections = getAll();
+
+        assertEquals(3, corrections.size());
+        assertEquals("n", corrections.get(0).getCorrection());
+        assertEquals("cl", corrections.get(2).getCorrection());
+
+        inserted = insertAll(Collections.singletonList(new Correction("rn",
+                "m", Correction.TYPE.TEXT, Correction.KIND.LITERAL,
+                Correction.CONDITION.WHOLE_WORD)), true);
+
+        assertEquals(1, inserted);
+        assertEquals("m", getAll().get(0).getCorrection());
+        assertEquals(Correction.CONDITION.WHOLE_WORD,
+                getAll().get(0).getCondition());
+    }
+
+    @Test
+    void removeAndUpdateChangeOnlyCorrectionOfTheSameType()
+            throws Throwable {
+        insert(new Correction("1", "2", Correction.TYPE.TEXT));
+        insert(new Correction("1", "3", Correction.TYPE.CODE));
+
+        update(new Correction("1", "", Correction.TYPE.TEXT),
+                new Correction("1", "4", Correction.TYPE.TEXT));
+        remove(new Correction("1", "", Correction.TYPE.CODE));
+
+        val corrections = getAll();
+
+        assertEquals(1, corrections.size());
+        assertEquals("4", corrections.get(0).getCorrection());
+        assertEquals(Correction.TYPE.TEXT, corrections.get(0).getType());
+    }
+
+    @Test
+    void runInTransactionRollsBackAllCallsIfOneFails() throws Throwable {
+        insert(new Correction("1", "2", Correction.TYPE.TEXT));
+
+        assertThrows(CorrectionAlreadyExistsException.class, () ->
+                runInTransaction(() -> {
+                    insert(new Correction("3", "4", Correction.TYPE.TEXT));
+                    addStatistics(Collections.singletonList(new Correction(
+                                    "3", "4", Correction.TYPE.TEXT)),
+                            new long[]{1}, new long[]{1});
+                    insert(new Correction("1", "2", Correction.TYPE.TEXT));
+                }));
+
+        assertEquals(1, getAll().size());
+
+        runInTransaction(() -> {
+            insert(new Correction("3", "4", Correction.TYPE.TEXT));
+            addStatistics(Collections.singletonList(new Correction("3", "4",
+                    Correction.TYPE.TEXT)), new long[]{1}, new long[]{1});
+        });
+
+        assertEquals(2, getAll().size());
+        assertEquals(1, getAll().get(1).getHits());
+    }
+
+    private static List<String> queryExpressions(CorrectionsQuery query,
+                                                 long offset, int limit)
+            throws Throwable {
+        List<String> expressions = new ArrayList<>();
+
+        for (val correction : query(query, offset, limit).getCorrections()) {
+            expressions.add(correction.getExpression());
+        }
+
+        return expressions;
+    }
+
+    private static CorrectionsQuery createSearchQuery(
+            String searchText, CorrectionsQuery.SEARCH_MODE searchMode) {
+        return new CorrectionsQuery.Builder()
+                .search(searchText, searchMode)
+                .build();
+    }
+
+    @Test
+    void queryReturnsPageOfCorrectionsOfTypeInDatabaseOrder()
+            throws Throwable {
+        for (int i = 0; i < 10; i++) {
+            insert(new Correction("e" + i, "c", i % 2 == 0 ?
+                    Correction.TYPE.TEXT : Correction.TYPE.CODE));
+        }
+
+        val query = new CorrectionsQuery.Builder()
+                .type(Correction.TYPE.TEXT)
+                .build();
+
+        val page = query(query, 1, 3);
+
+        assertEquals(1, page.getOffset());
+        assertEquals(5, page.getTotalCount());
+        assertEquals(Arrays.asList("e2", "e4", "e6"),
+                queryExpressions(query, 1, 3));
+        assertEquals(Arrays.asList("e8"), queryExpressions(query, 4, 3));
+        assertEquals(10, query(new CorrectionsQuery.Builder().build(), 20,
+                3).getTotalCount());
+    }
+
+    @Test
+    void querySortsByColumnAndKeepsDatabaseOrderOfEqualValues()
+            throws Throwable {
+        val correction1 = new Correction("1", "a", Correction.TYPE.TEXT);
+        val correction2 = new Correction("2", "b", Correction.TYPE.TEXT);
+        val correction3 = new Correction("3", "c", Correction.TYPE.TEXT);
+
+        insert(correction1);
+        insert(correction2);
+        insert(correction3);
+
+        addStatistics(Arrays.asList(correction1, correction3),
+                new long[]{5, 5}, new long[]{0, 0});
+
+        assertEquals(Arrays.asList("2", "1", "3"), queryExpressions(
+                new CorrectionsQuery.Builder()
+                        .sort(CorrectionsQuery.SORT_COLUMN.HITS, false)
+                        .build(), 0, 10));
+        assertEquals(Arrays.asList("3", "1", "2"), queryExpressions(
+                new CorrectionsQuery.Builder()
+                        .sort(CorrectionsQuery.SORT_COLUMN.HITS, true)
+                        .build(), 0, 10));
+        assertEquals(Arrays.asList("3", "2", "1"), queryExpressions(
+                new CorrectionsQuery.Builder()
+                        .sort(null, true)
+                        .build(), 0, 10));
+    }
+
+    @Test
+    void querySearchesSubstringOfExpressionsAndCorrections()
+            throws Throwable {
+        insert(new Correction("Hello world", "x", Correction.TYPE.TEXT));
+        insert(new Correction("y", "a_b \"quoted\"", Correction.TYPE.TEXT));
+        insert(new Correction("axb", "100%", Correction.TYPE.CODE));
+
+        val mode = CorrectionsQuery.SEARCH_MODE.SUBSTRING;
+
+        assertEquals(Arrays.asList("Hello world"), queryExpressions(
+                createSearchQuery("LO WO", mode), 0, 10));
+        assertEquals(Arrays.asList("y"), queryExpressions(
+                createSearchQuery("\"quo", mode), 0, 10));
+        assertEquals(Arrays.asList("y", "axb"), queryExpressions(
+                createSearchQuery("a", mode), 0, 10));
+        // the short text is not a pattern
+        assertEquals(Arrays.asList("y"), queryExpressions(
+                createSearchQuery("_", mode), 0, 10));
+        assertEquals(Arrays.asList("axb"), queryExpressions(
+                createSearchQuery("0%", mode), 0, 10));
+        assertEquals(Collections.emptyList(), queryExpressions(
+                createSearchQuery("world!", mode), 0, 10));
+    }
+
+    @Test
+    void queryFullTextSearchFindsWordsByTheirStarts() throws Throwable {
+        insert(new Correction("Hello world", "x", Correction.TYPE.TEXT));
+        insert(new Correction("world", "hello there", Correction.TYPE.CODE));
+        insert(new Correction("helloworld", "x", Correction.TYPE.TEXT));
+
+        val mode = CorrectionsQuery.SEARCH_MODE.FULL_TEXT;
+
+        assertEquals(Arrays.asList("Hello world", "world"), queryExpressions(
+                createSearchQuery("wor hel", mode), 0, 10));
+        assertEquals(Arrays.asList("world"), queryExpressions(
+                createSearchQuery("THERE", mode), 0, 10));
+        assertEquals(Collections.emptyList(), queryExpressions(
+                createSearchQuery("orld", mode), 0, 10));
+        // the operators of the search text are searched for as words
+        assertEquals(Collections.emptyList(), queryExpressions(
+                createSearchQuery("hello NOT world", mode), 0, 10));
+        assertEquals(3, query(createSearchQuery("  ", mode), 0, 10)
+                .getTotalCount());
+    }
+
+    @Test
+    void querySearchFollowsChangesOfCorrections() throws Throwable {
+        val correction = new Correction("first", "x", Correction.TYPE.TEXT);
+
+        insert(correction);
+
+        val updatedCorrection = new Correction("second", "x",
+                Correction.TYPE.TEXT);
+
+        update(correction, updatedCorrection);
+        addStatistics(Collections.singletonList(updatedCorrection),
+                new long[]{1}, new long[]{1});
+
+        for (val mode : CorrectionsQuery.SEARCH_MODE.values()) {
+            assertEquals(0, query(createSearchQuery("first", mode), 0, 10)
+                    .getTotalCount());
+            assertEquals(1, query(createSearchQuery("second", mode), 0, 10)
+                    .getTotalCount());
+        }
+
+        insertAll(Collections.singletonList(new Correction("second",
+                "third", Correction.TYPE.TEXT)), true);
+
+        assertEquals(Arrays.asList("second"), queryExpressions(
+                createSearchQuery("third",
+                        CorrectionsQuery.SEARCH_MODE.FULL_TEXT), 0, 10));
+
+        remove(updatedCorrection);
+
+        assertEquals(0, query(createSearchQuery("second",
+                CorrectionsQuery.SEARCH_MODE.SUBSTRING), 0, 10)
+                .getTotalCount());
+    }
+
+    @Test
+    void initIndexesCorrectionsOfDatabaseWithoutSearchTables()
+            throws Throwable {
+        close();
+
+        val dbUrlField = CorrectionsDatabase.class
+                .getDeclaredField("DB_URL");
+
+        dbUrlField.setAccessible(true);
+
+        try (val connection = DriverManager.getConnection(
+                (String) dbUrlField.get(null));
+             val statement = connection.createStatement()) {
+            String tableName;
+
+            try (val resultSet = statement.executeQuery("SELECT name " +
+                    "FROM sqlite_master WHERE type = 'table'")) {
+                resultSet.next();
+
+                tableName = resultSet.getString("name");
+            }
+
+            // the triggers of the table are dropped with it
+            statement.execute("DROP TABLE " + tableName);
+            statement.execute("DROP TABLE " + tableName + "_words");
+            statement.execute("DROP TABLE " + tableName + "_trigrams");
+            statement.execute("CREATE TABLE " + tableName + " (\n" +
+                    "expression text NOT NULL,\n" +
+                    "correction text NOT NULL,\n" +
+                    "correction_type text NOT NULL,\n" +
+                    "PRIMARY KEY (expression, correction_type));");
+            statement.execute("INSERT INTO " + tableName +
+                    " VALUES ('hello', 'world', 'TEXT')");
+        }
+
+        init();
+
+        for (val mode : CorrectionsQuery.SEARCH_MODE.values()) {
+            assertEquals(Arrays.asList("hello"), queryExpressions(
+                    createSearchQuery("world", mode), 0, 10));
+        }
+    }
+
+    @Test
+    void initGivesIdsToCorrectionsOfDatabaseWithoutIdsInTheirOrder()
+            throws Throwable {
+        close();
+
+        val dbUrlField = CorrectionsDatabase.class
+                .getDeclaredField("DB_URL");
+
+        dbUrlField.setAccessible(true);
+
+        try (val connection = DriverManager.getConnection(
+                (String) dbUrlField.get(null));
+             val statement = connection.createStatement()) {
+            statement.execute("DROP TABLE corrections");
+            statement.execute("CREATE TABLE corrections (\n" +
+                    "expression text NOT NULL,\n" +
+                    "correction text NOT NULL,\n" +
+                    "correction_type text NOT NULL,\n" +
+                    "PRIMARY KEY (expression, correction_type));");
+            statement.execute("INSERT INTO corrections VALUES " +
+                    "('c', 'first', 'TEXT'), ('b', 'second', 'TEXT'), " +
+                    "('a', 'third', 'TEXT')");
+            statement.execute("DELETE FROM corrections WHERE " +
+                    "expression = 'b'");
+        }
+
+        init();
+
+        assertEquals(Arrays.asList("c", "a"), queryExpressions(
+                new CorrectionsQuery.Builder().build(), 0, 10));
+        assertEquals(Arrays.asList("a"), queryExpressions(createSearchQuery(
+                "third", CorrectionsQuery.SEARCH_MODE.FULL_TEXT), 0, 10));
+
+        // the ids are kept instead of being renumbered
+        try (val connection = DriverManager.getConnection(
+                (String) dbUrlField.get(null));
+             val statement = connection.createStatement()) {
+            statement.execute("VACUUM");
+
+            try (val resultSet = statement.executeQuery("SELECT id FROM " +
+                    "corrections WHERE expression = 'a'")) {
+                resultSet.next();
+
+                assertEquals(3, resultSet.getLong("id"));
+            }
+        }
+
+        insert(new Correction("d", "fourth", Correction.TYPE.TEXT));
+
+        assertEquals(Arrays.asList("c", "a", "d"), queryExpressions(
+                new CorrectionsQuery.Builder().build(), 0, 10));
+        assertEquals(Arrays.asList("d"), queryExpressions(createSearchQuery(
+                "fourth", CorrectionsQuery.SEARCH_MODE.SUBSTRING), 0, 10));
+    }
+
+    @Test
+    void queryThrowsIllegalArgumentExceptionIfOffsetOrLimitIsNegative() {
+        val query = new CorrectionsQuery.Builder().build();
+
+        assertThrows(IllegalArgumentException.class, () ->
+                query(query, -1, 10));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                query(query, 0, -1));
+    }
+}
@@ -0,0 +1,325 @@
+package com.artyommameev.faststudynotes.database;
+
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("ConstantConditions")
+public class CorrectionsRepositoryTests {
+
+    private CorrectionsRepository repository;
+    private final List<String> events = new ArrayList<>();
+
+    @BeforeAll
+    static void setUpTestDbName() throws Throwable {
+        CorrectionsDatabaseTests.setUpTestDbName();
+    }
+
+    private static String toString(List<Correction> corrections) {
+        return corrections.stream()
+                .map(correction -> correction.getExpression() + "->" +
+                        correction.getCorrection() + ":" +
+                        correction.getHits())
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    @BeforeEach
+    void createRepository() {
+        repository = new CorrectionsRepository();
+
+        repository.addListener(new CorrectionsRepository.Listener() {
+            @Override
+            public void onAdded(List<Correction> corrections) {
+                events.add("added " + CorrectionsRepositoryTests.toString(
+                        corrections));
+            }
+
+            @Override
+            public void onUpdated(List<Correction> oldCorrections,
+                                  List<Correction> newCorrections) {
+                events.add("updated " + CorrectionsRepositoryTests.toString(
+                        oldCorrections) + " to " +
+                        CorrectionsRepositoryTests.toString(newCorrections));
+            }
+
+            @Override
+            public void onRemoved(List<Correction> corrections) {
+                events.add("removed " + CorrectionsRepositoryTests.toString(
+                        corrections));
+            }
+
+            @Override
+            public void onWriteFailed(
+                    CorrectionsDatabase.CorrectionsDatabaseException e) {
+                events.add("failed");
+            }
+
+            @Override
+            public void onImportFinished() {
+                events.add("import finished");
+            }
+        });
+    }
+
+    @AfterEach
+    void deleteDb() throws Throwable {
+        repository.close();
+
+        CorrectionsDatabaseTests.deleteDbFile();
+    }
+
+    @Test
+    void loadReadsCorrectionsOfDatabase() throws Throwable {
+        CorrectionsDatabase.init();
+        CorrectionsDatabase.insert(new Correction("rn", "m",
+                Correction.TYPE.TEXT));
+
+        assertEquals("[rn->m:0]", toString(repository.getAll()));
+        assertEquals(0, repository.getVersion());
+    }
+
+    @Test
+    void insertAddsCorrectionAndWritesItInBackground() throws Throwable {
+        val correction = new Correction("rn", "m", Correction.TYPE.TEXT);
+
+        repository.insert(correction);
+
+        assertEquals("[rn->m:0]", toString(repository.getAll()));
+        assertEquals(1, repository.getVersion());
+        assertEquals(Collections.singletonList("added [rn->m:0]"), events);
+
+        repository.flush();
+
+        assertEquals("[rn->m:0]", toString(CorrectionsDatabase.getAll()));
+    }
+
+    @Test
+    void insertThrowsCorrectionAlreadyExistsExceptionIfCorrectionExists()
+            throws Throwable {
+        repository.insert(new Correction("rn", "m", Correction.TYPE.TEXT));
+        repository.insert(new Correction("rn", "m", Correction.TYPE.CODE));
+
+        assertThrows(CorrectionsDatabase.CorrectionAlreadyExistsException
+                .class, () -> repository.insert(new Correction("rn", "n",
+                Correction.TYPE.TEXT)));
+    }
+
+    @Test
+    void updateKeepsOrderAndStatisticsOfCorrection() throws Throwable {
+        val correction = new Correction("rn", "m", Correction.TYPE.TEXT);
+
+        repository.insert(correction);
+        repository.insert(new Correction("cl", "d", Correction.TYPE.TEXT));
+        repository.addStatistics(Collections.singletonList(correction),
+                new long[]{2}, new long[]{0});
+
+        repository.update(correction, new Correction("m", "rn",
+                Correction.TYPE.TEXT));
+
+        assertEquals("[m->rn:2, cl->d:0]", toString(repository.getAll()));
+        assertEquals("updated [rn->m:2] to [m->rn:2]", events.get(3));
+
+        repository.flush();
+
+        assertEquals(toString(repository.getAll()),
+                toString(CorrectionsDatabase.getAll()));
+    }
+
+    @Test
+    void updateThrowsCorrectionAlreadyExistsExceptionIfKeyIsTaken()
+            throws Throwable {
+        val correction = new Correction("rn", "m", Correction.TYPE.TEXT);
+
+        repository.insert(correction);
+        repository.insert(new Correction("cl", "d", Correction.TYPE.TEXT));
+
+        assertThrows(CorrectionsDatabase.CorrectionAlreadyExistsException
+                .class, () -> repository.update(correction, new Correction(
+                "cl", "x", Correction.TYPE.TEXT)));
+    }
+
+    @Test
+    void removeRemovesOnlyCorrectionOfTheSameType() throws Throwable {
+        repository.insert(new Correction("rn", "m", Correction.TYPE.TEXT));
+        repository.insert(new Correction("rn", "n", Correction.TYPE.CODE));
+
+        repository.remove(new Correction("rn", "x", Correction.TYPE.CODE));
+
+        assertEquals("[rn->m:0]", toString(repository.getAll()));
+        assertEquals("removed [rn->n:0]", events.get(2));
+
+        repository.flush();
+
+        assertEquals("[rn->m:0]", toString(CorrectionsDatabase.getAll()));
+    }
+
+    @Test
+    void addStatisticsDoesNotChangeVersion() throws Throwable {
+        val correction = new Correction("rn", "m", Correction.TYPE.TEXT);
+
+        repository.insert(correction);
+        repository.addStatistics(Arrays.asList(correction,
+                new Correction("cl", "d", Correction.TYPE.TEXT)),
+                new long[]{3, 1}, new long[]{5, 1});
+
+        assertEquals(1, repository.getVersion());
+        assertEquals(5, repository.getAll().get(0).getMatchingTime());
+        assertEquals("updated [rn->m:0] to [rn->m:3]", events.get(1));
+
+        repository.flush();
+
+        assertEquals("[rn->m:3]", toString(CorrectionsDatabase.getAll()));
+    }
+
+    @Test
+    void changesOfLoadedCorrectionsKeepTheirOrderAcrossMerges()
+            throws Throwable {
+        CorrectionsDatabase.init();
+
+        for (val expression : Arrays.asList("a", "b", "c")) {
+            CorrectionsDatabase.insert(new Correction(expression, "x",
+                    Correction.TYPE.TEXT));
+        }
+
+        repository.update(new Correction("a", "", Correction.TYPE.TEXT),
+                new Correction("c2", "y", Correction.TYPE.TEXT));
+        repository.remove(new Correction("c", "", Correction.TYPE.TEXT));
+        repository.insert(new Correction("c", "z", Correction.TYPE.TEXT));
+        repository.update(new Correction("c2", "", Correction.TYPE.TEXT),
+                new Correction("a", "w", Correction.TYPE.TEXT));
+
+        assertEquals("[a->w:0, b->x:0, c->z:0]",
+                toString(repository.getAll()));
+
+        // the deltas are merged several times
+        for (int i = 0; i < 3000; i++) {
+            repository.insert(new Correction("e" + i, "x",
+                    Correction.TYPE.TEXT));
+        }
+
+        repository.remove(new Correction("b", "", Correction.TYPE.TEXT));
+        repository.update(new Correction("e0", "", Correction.TYPE.TEXT),
+                new Correction("b", "v", Correction.TYPE.TEXT));
+
+        val corrections = repository.getAll();
+
+        assertEquals(3002, corrections.size());
+        assertEquals("[a->w:0, c->z:0, b->v:0, e1->x:0]",
+                toString(corrections.subList(0, 4)));
+        assertThrows(CorrectionsDatabase.CorrectionAlreadyExistsException
+                .class, () -> repository.insert(new Correction("e2999", "x",
+                Correction.TYPE.TEXT)));
+
+        repository.flush();
+
+        assertEquals(toString(corrections),
+                toString(CorrectionsDatabase.getAll()));
+    }
+
+    @Test
+    void importCorrectionsReportsEachBatch() throws Throwable {
+        repository.insert(new Correction("rn", "m", Correction.TYPE.TEXT));
+
+        val file = "rn,n\ncl,d\ncl,x\n";
+
+        assertEquals(3, repository.importCorrections(new StringReader(file),
+                true, (readCount, importedCount) -> true));
+
+        assertEquals("[rn->n:0, cl->x:0]", toString(repository.getAll()));
+        assertEquals(Arrays.asList("added [rn->m:0]",
+                "added [cl->d:0]", "updated [rn->m:0, cl->d:0] to " +
+                        "[rn->n:0, cl->x:0]", "import finished"), events);
+
+        repository.flush();
+
+        assertEquals(toString(repository.getAll()),
+                toString(CorrectionsDatabase.getAll()));
+    }
+
+    @Test
+    void importCorrectionsReportsProgressAndCanBeStopped() throws Throwable {
+        val file = new StringBuilder();
+
+        for (int i = 0; i < 25_000; i++) {
+            file.append(i).append(",x\n");
+        }
+
+        List<Long> readCounts = new ArrayList<>();
+
+        long imported = repository.importCorrections(new StringReader(
+                file.toString()), false, (readCount, importedCount) -> {
+            readCounts.add(readCount);
+
+            assertTrue(repository.isImporting());
+
+            return readCount < 20_000;
+        });
+
+        assertFalse(repository.isImporting());
+        assertEquals(20_000, imported);
+        assertEquals(Arrays.asList(10_000L, 20_000L), readCounts);
+        assertEquals(20_000, repository.getAllCompact().size());
+
+        repository.flush();
+
+        assertEquals(20_000, CorrectionsDatabase.getAllCompact(false).size());
+    }
+
+    @Test
+    void importCorrectionsKeepsAddedBatchesIfRecordIsMalformed()
+            throws Throwable {
+        assertThrows(IOException.class, () -> repository.importCorrections(
+                new StringReader("a,b\nc"), false,
+                (readCount, importedCount) -> true));
+
+        assertEquals(0, repository.getAll().size());
+        assertFalse(repository.isImporting());
+        assertEquals(Collections.singletonList("import finished"), events);
+    }
+
+    @Test
+    void failedWriteReloadsCorrectionsFromDatabase() throws Throwable {
+        repository.load();
+
+        // the repository does not know about the stored Correction
+        CorrectionsDatabase.insert(new Correction("rn", "n",
+                Correction.TYPE.TEXT));
+
+        repository.insert(new Correction("rn", "m", Correction.TYPE.TEXT));
+
+        repository.flush();
+
+        assertEquals("failed", events.get(1));
+        assertEquals("[rn->n:0]", toString(repository.getAll()));
+        assertEquals(2, repository.getVersion());
+    }
+
+    @Test
+    void queryReturnsPageWithChangesMadeBeforeIt() throws Throwable {
+        repository.insert(new Correction("rn", "m", Correction.TYPE.TEXT));
+        repository.insert(new Correction("cl", "d", Correction.TYPE.TEXT));
+
+        val page = repository.query(new CorrectionsQuery.Builder()
+                .search("cl", CorrectionsQuery.SEARCH_MODE.SUBSTRING)
+                .build(), 0, 10).get();
+
+        assertEquals(1, page.getTotalCount());
+        assertEquals("[cl->d:0]", toString(page.getCorrections()));
+    }
+}
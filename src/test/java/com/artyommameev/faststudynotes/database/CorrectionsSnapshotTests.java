@@ -0,0 +1,139 @@
+package com.artyommameev.faststudynotes.database;
+
+import com.artyommameev.faststudynotes.correct.BadOcrCorrector;
+import com.artyommameev.faststudynotes.correct.CompiledCorrections;
+import com.artyommameev.faststudynotes.domain.CompactCorrections;
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("ConstantConditions")
+public class CorrectionsSnapshotTests {
+
+    @TempDir
+    Path directory;
+
+    private static CompactCorrections createCompactCorrections(
+            String correction) {
+        return new CompactCorrections.Builder()
+                .add(new Correction("rn", correction, Correction.TYPE.TEXT))
+                .add("(\\d)O", "$10", Correction.TYPE.CODE,
+                        Correction.KIND.REGEX, 5, 42)
+                .build();
+    }
+
+    private static CompiledCorrections createCompiledCorrections(
+            String correction) {
+        return new CompiledCorrections(createCompactCorrections(correction),
+                0);
+    }
+
+    private static String getFirstCorrection(
+            CompiledCorrections corrections) {
+        return corrections.getCorrections().get(0).getCorrection();
+    }
+
+    @Test
+    void constructorThrowsNullPointerExceptionIfAnyParameterIsNull() {
+        assertThrows(NullPointerException.class, () ->
+                new CorrectionsSnapshot(null, "corrections"));
+
+        assertThrows(NullPointerException.class, () ->
+                new CorrectionsSnapshot(directory, null));
+    }
+
+    @Test
+    void readReturnsNullIfThereIsNoSnapshot() throws Exception {
+        assertNull(new CorrectionsSnapshot(directory, "corrections")
+                .read(0));
+    }
+
+    @Test
+    void readMapsWrittenCorrections() throws Exception {
+        val corrections = createCompactCorrections("m");
+
+        new CorrectionsSnapshot(directory, "corrections").write(
+                new CompiledCorrections(corrections, 0));
+
+        val readCorrections = new CorrectionsSnapshot(directory,
+                "corrections").read(7);
+
+        assertTrue(readCorrections.isOffHeap());
+        assertTrue(readCorrections.hasSameCorrections(corrections));
+        assertEquals(corrections.toString(),
+                readCorrections.getCorrections().toString());
+        assertEquals(7, readCorrections.getVersion());
+    }
+
+    @Test
+    void readRestoresPassesOfWrittenCorrections() throws Exception {
+        new CorrectionsSnapshot(directory, "corrections").write(
+                createCompiledCorrections("m"));
+
+        val readCorrections = new CorrectionsSnapshot(directory,
+                "corrections").read(0);
+
+        assertEquals("modem", BadOcrCorrector.correct("modern",
+                Correction.TYPE.TEXT, readCorrections));
+        assertEquals("mode", BadOcrCorrector.correct("rnode",
+                Correction.TYPE.TEXT, readCorrections));
+        assertEquals("int x = 10;", BadOcrCorrector.correct("int x = 1O;",
+                Correction.TYPE.CODE, readCorrections));
+    }
+
+    @Test
+    void readReturnsLastWrittenCorrections() throws Exception {
+        val snapshot = new CorrectionsSnapshot(directory, "corrections");
+
+        snapshot.write(createCompiledCorrections("a"));
+        snapshot.write(createCompiledCorrections("b"));
+
+        val nextSnapshot = new CorrectionsSnapshot(directory, "corrections");
+
+        assertEquals("b", getFirstCorrection(nextSnapshot.read(0)));
+
+        // the mapped file is kept, and the other one is written
+        nextSnapshot.write(createCompiledCorrections("c"));
+
+        assertTrue(Files.exists(directory.resolve("corrections.1.snapshot")));
+        assertEquals("c", getFirstCorrection(new CorrectionsSnapshot(
+                directory, "corrections").read(0)));
+    }
+
+    @Test
+    void readIgnoresDamagedFiles() throws Exception {
+        new CorrectionsSnapshot(directory, "corrections")
+                .write(createCompiledCorrections("a"));
+
+        val snapshot = new CorrectionsSnapshot(directory, "corrections");
+
+        snapshot.read(0);
+        snapshot.write(createCompiledCorrections("b"));
+
+        val file = directory.resolve("corrections.1.snapshot");
+        val data = Files.readAllBytes(file);
+
+        data[data.length - 1] ^= 1;
+
+        Files.write(file, data);
+
+        // the older file is read instead
+        assertEquals("a", getFirstCorrection(new CorrectionsSnapshot(
+                directory, "corrections").read(0)));
+
+        Files.write(directory.resolve("corrections.0.snapshot"),
+                new byte[]{1, 2, 3});
+
+        assertNull(new CorrectionsSnapshot(directory, "corrections")
+                .read(0));
+    }
+}
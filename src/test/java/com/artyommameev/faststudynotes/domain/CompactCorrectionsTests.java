@@ -0,0 +1,306 @@
+package com.artyommameev.faststudynotes.domain;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("ConstantConditions")
+public class CompactCorrectionsTests {
+
+    private static CompactCorrections createCompactCorrections(
+            boolean isOffHeap) {
+        return new CompactCorrections.Builder()
+                .add(new Correction("rn", "m", Correction.TYPE.TEXT))
+                .add("uoid", "", Correction.TYPE.CODE,
+                        Correction.KIND.LITERAL, 3, 0)
+                .add("(\\d)O", "$10", Correction.TYPE.TEXT,
+                        Correction.KIND.REGEX, 5, 42)
+                .build(isOffHeap);
+    }
+
+    @Test
+    void addThrowsNullPointerExceptionIfAnyParameterIsNull() {
+        val builder = new CompactCorrections.Builder();
+
+        assertThrows(NullPointerException.class, () ->
+                builder.add(null));
+
+        assertThrows(NullPointerException.class, () ->
+                builder.add(null, "", Correction.TYPE.TEXT,
+                        Correction.KIND.LITERAL, 0, 0));
+
+        assertThrows(NullPointerException.class, () ->
+                builder.add("a", null, Correction.TYPE.TEXT,
+                        Correction.KIND.LITERAL, 0, 0));
+
+        assertThrows(NullPointerException.class, () ->
+                builder.add("a", "", null, Correction.KIND.LITERAL, 0, 0));
+
+        assertThrows(NullPointerException.class, () ->
+                builder.add("a", "", Correction.TYPE.TEXT, null, 0, 0));
+    }
+
+    @Test
+    void addThrowsIllegalArgumentExceptionIfCorrectionIsInvalid() {
+        val builder = new CompactCorrections.Builder();
+
+        assertThrows(IllegalArgumentException.class, () ->
+                builder.add("", "", Correction.TYPE.TEXT,
+                        Correction.KIND.LITERAL, 0, 0));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                builder.add("(a", "", Correction.TYPE.TEXT,
+                        Correction.KIND.REGEX, 0, 0));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                builder.add("a", "", Correction.TYPE.TEXT,
+                        Correction.KIND.LITERAL, -1, 0));
+    }
+
+    @Test
+    void getCreatesCorrectionsWithAddedFields() {
+        for (val isOffHeap : new boolean[]{false, true}) {
+            val corrections = createCompactCorrections(isOffHeap);
+
+            assertEquals(isOffHeap, corrections.isOffHeap());
+            assertEquals(3, corrections.size());
+
+            val correction = corrections.get(2);
+
+            assertEquals("(\\d)O", correction.getExpression());
+            assertEquals("$10", correction.getCorrection());
+            assertEquals(Correction.TYPE.TEXT, correction.getType());
+            assertEquals(Correction.KIND.REGEX, correction.getKind());
+            assertEquals(5, correction.getHits());
+            assertEquals(42, correction.getMatchingTime());
+
+            assertEquals("uoid", corrections.getExpression(1));
+            assertEquals("", corrections.getCorrection(1));
+            assertEquals(Correction.TYPE.CODE, corrections.getType(1));
+            assertEquals(Correction.KIND.LITERAL, corrections.getKind(1));
+
+            assertEquals("\"rn\" -> \"m\" (TEXT)",
+                    corrections.get(0).toString());
+        }
+    }
+
+    @Test
+    void getCreatesCorrectionsWithAddedConditions() {
+        val corrections = new CompactCorrections.Builder()
+                .add(new Correction("l", "I", Correction.TYPE.TEXT,
+                        Correction.KIND.LITERAL,
+                        Correction.CONDITION.WHOLE_WORD))
+                .add("#", "//", Correction.TYPE.CODE, Correction.KIND.LITERAL,
+                        Correction.CONDITION.LINE_START, 1, 2)
+                .add("rn", "m", Correction.TYPE.TEXT, Correction.KIND.LITERAL,
+                        0, 0)
+                .build(true);
+
+        assertEquals(Correction.CONDITION.WHOLE_WORD,
+                corrections.get(0).getCondition());
+        assertEquals(Correction.CONDITION.LINE_START,
+                corrections.getCondition(1));
+        assertEquals(Correction.CONDITION.NONE, corrections.getCondition(2));
+        assertEquals(1, corrections.get(1).getHits());
+    }
+
+    @Test
+    void getCreatesCorrectionsWithAddedCaseInsensitivity() {
+        val corrections = new CompactCorrections.Builder()
+                .add(new Correction("teh", "the", Correction.TYPE.TEXT,
+                        Correction.KIND.LITERAL, Correction.CONDITION.NONE,
+                        true))
+                .add("#", "//", Correction.TYPE.CODE, Correction.KIND.LITERAL,
+                        Correction.CONDITION.LINE_START, 1, 2)
+                .build(true);
+
+        assertTrue(corrections.get(0).isCaseInsensitive());
+        assertTrue(corrections.isCaseInsensitive(0));
+        assertFalse(corrections.isCaseInsensitive(1));
+    }
+
+    @Test
+    void getThrowsIndexOutOfBoundsExceptionIfIndexIsOutOfRange() {
+        val corrections = createCompactCorrections(false);
+
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                corrections.get(-1));
+
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                corrections.get(3));
+
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                corrections.getExpression(3));
+    }
+
+    @Test
+    void listIsImmutable() {
+        val corrections = createCompactCorrections(false);
+
+        assertThrows(UnsupportedOperationException.class, () ->
+                corrections.add(new Correction("a", "b",
+                        Correction.TYPE.TEXT)));
+
+        assertThrows(UnsupportedOperationException.class, () ->
+                corrections.remove(0));
+    }
+
+    @Test
+    void builderGrowsArenaForManyCorrections() {
+        val builder = new CompactCorrections.Builder();
+
+        for (int i = 0; i < 10000; i++) {
+            builder.add("expression" + i, "correction" + i,
+                    Correction.TYPE.TEXT, Correction.KIND.LITERAL, i, 0);
+        }
+
+        val corrections = builder.build();
+
+        assertFalse(corrections.isOffHeap());
+        assertEquals(10000, corrections.size());
+        assertEquals("expression9999", corrections.getExpression(9999));
+        assertEquals("correction5000", corrections.getCorrection(5000));
+        assertEquals(1234, corrections.get(1234).getHits());
+    }
+
+    @Test
+    void indexOfFindsCorrectionByExpressionAndType() {
+        for (val isOffHeap : new boolean[]{false, true}) {
+            val corrections = createCompactCorrections(isOffHeap);
+
+            assertEquals(0, corrections.indexOf("rn", Correction.TYPE.TEXT));
+            assertEquals(1, corrections.indexOf("uoid",
+                    Correction.TYPE.CODE));
+            assertEquals(2, corrections.indexOf("(\\d)O",
+                    Correction.TYPE.TEXT));
+            assertEquals(-1, corrections.indexOf("rn",
+                    Correction.TYPE.CODE));
+            assertEquals(-1, corrections.indexOf("r", Correction.TYPE.TEXT));
+        }
+
+        val builder = new CompactCorrections.Builder();
+
+        for (int i = 0; i < 10000; i++) {
+            builder.add("expression" + i, "", Correction.TYPE.TEXT,
+                    Correction.KIND.LITERAL, 0, 0);
+        }
+
+        val corrections = builder.build();
+
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, corrections.indexOf("expression" + i,
+                    Correction.TYPE.TEXT));
+        }
+
+        assertEquals(-1, new CompactCorrections.Builder().build()
+                .indexOf("rn", Correction.TYPE.TEXT));
+    }
+
+    @Test
+    void builderAddsCorrectionsOfOtherList() {
+        val corrections = createCompactCorrections(true);
+
+        val builder = new CompactCorrections.Builder()
+                .add(new Correction("a", "b", Correction.TYPE.TEXT));
+        val expectedBuilder = new CompactCorrections.Builder()
+                .add(new Correction("a", "b", Correction.TYPE.TEXT));
+
+        for (int i = corrections.size() - 1; i >= 0; i--) {
+            builder.add(corrections, i);
+            expectedBuilder.add(corrections.get(i));
+        }
+
+        assertTrue(builder.build().hasSameContents(expectedBuilder.build()));
+
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                builder.add(corrections, 3));
+    }
+
+    @Test
+    void readFromReadsListWrittenByWriteTo() {
+        val corrections = new CompactCorrections.Builder()
+                .add("rn", "m", Correction.TYPE.TEXT,
+                        Correction.KIND.LITERAL,
+                        Correction.CONDITION.WHOLE_WORD, true, 7, 9)
+                .add("uoid", "", Correction.TYPE.CODE,
+                        Correction.KIND.LITERAL, 3, 0)
+                .build();
+
+        val buffer = ByteBuffer.allocateDirect(
+                (int) corrections.getSerializedSize() + 2);
+
+        buffer.put((byte) 1);
+
+        corrections.writeTo(buffer);
+
+        assertEquals(buffer.capacity() - 1, buffer.position());
+
+        buffer.flip().position(1);
+
+        val readCorrections = CompactCorrections.readFrom(buffer);
+
+        assertEquals(buffer.limit(), buffer.position());
+        assertTrue(readCorrections.isOffHeap());
+        assertTrue(readCorrections.hasSameContents(corrections));
+        assertEquals(corrections.toString(), readCorrections.toString());
+        assertEquals(Correction.CONDITION.WHOLE_WORD,
+                readCorrections.getCondition(0));
+        assertTrue(readCorrections.isCaseInsensitive(0));
+        assertEquals(9, readCorrections.get(0).getMatchingTime());
+        assertEquals("", readCorrections.getCorrection(1));
+    }
+
+    @Test
+    void writeToThrowsBufferOverflowExceptionIfBufferIsTooSmall() {
+        val corrections = createCompactCorrections(false);
+
+        assertThrows(BufferOverflowException.class, () ->
+                corrections.writeTo(ByteBuffer.allocate(
+                        (int) corrections.getSerializedSize() - 1)));
+    }
+
+    @Test
+    void readFromThrowsIllegalArgumentExceptionIfDataIsMalformed() {
+        val corrections = createCompactCorrections(false);
+
+        val buffer = ByteBuffer.allocate(
+                (int) corrections.getSerializedSize());
+
+        corrections.writeTo(buffer);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                CompactCorrections.readFrom(ByteBuffer.wrap(buffer.array(),
+                        0, buffer.capacity() - 1)));
+
+        // the first offset
+        buffer.putInt(2 * Integer.BYTES, 1);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                CompactCorrections.readFrom(buffer.rewind()));
+    }
+
+    @Test
+    void hasSameContentsComparesAllFields() {
+        val corrections = createCompactCorrections(true);
+
+        assertTrue(corrections.hasSameContents(
+                createCompactCorrections(false)));
+
+        val otherCorrections = new CompactCorrections.Builder()
+                .add(new Correction("rn", "m", Correction.TYPE.TEXT))
+                .add("uoid", "", Correction.TYPE.CODE,
+                        Correction.KIND.LITERAL, 3, 0)
+                .add("(\\d)O", "$10", Correction.TYPE.TEXT,
+                        Correction.KIND.REGEX, 5, 43)
+                .build();
+
+        assertFalse(corrections.hasSameContents(otherCorrections));
+    }
+}
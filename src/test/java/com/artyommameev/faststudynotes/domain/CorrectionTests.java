@@ -4,6 +4,7 @@ import lombok.val;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SuppressWarnings("ConstantConditions")
@@ -48,6 +49,48 @@ public class CorrectionTests {
         assertEquals(correction.getType(), Correction.TYPE.TEXT);
     }
 
+    @Test
+    public void constructorThrowsNullPointerExceptionIfKindIsNull() {
+        assertThrows(NullPointerException.class, () ->
+                new Correction("expression", "condition",
+                        Correction.TYPE.TEXT, null));
+    }
+
+    @Test
+    public void constructorThrowsIllegalArgumentExceptionIfRegexIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new Correction("(expression", "correction",
+                        Correction.TYPE.TEXT, Correction.KIND.REGEX));
+    }
+
+    @Test
+    public void constructorConstructsLiteralCorrectionByDefault() {
+        val correction = new Correction("(expression",
+                "correction", Correction.TYPE.TEXT);
+
+        assertEquals(correction.getKind(), Correction.KIND.LITERAL);
+    }
+
+    @Test
+    public void constructorConstructsCorrectionWithEmptyStatisticsByDefault() {
+        val correction = new Correction("expression",
+                "correction", Correction.TYPE.TEXT, Correction.KIND.REGEX);
+
+        assertEquals(correction.getHits(), 0);
+        assertEquals(correction.getMatchingTime(), 0);
+    }
+
+    @Test
+    public void constructorThrowsIllegalArgumentExceptionIfStatisticsAreNegative() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new Correction("expression", "correction",
+                        Correction.TYPE.TEXT, Correction.KIND.LITERAL, -1, 0));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                new Correction("expression", "correction",
+                        Correction.TYPE.TEXT, Correction.KIND.LITERAL, 0, -1));
+    }
+
     @Test
     public void toStringWorksProperly() {
         val correction = new Correction("expression",
@@ -56,4 +99,57 @@ public class CorrectionTests {
         assertEquals(correction.toString(), "\"expression\" -> " +
                 "\"correction\" (TEXT)");
     }
+
+    @Test
+    public void toStringWorksProperlyForRegexCorrection() {
+        val correction = new Correction("expression",
+                "correction", Correction.TYPE.TEXT, Correction.KIND.REGEX);
+
+        assertEquals(correction.toString(), "\"expression\" -> " +
+                "\"correction\" (TEXT, REGEX)");
+    }
+
+    @Test
+    public void constructorConstructsCorrectionWithoutConditionByDefault() {
+        val correction = new Correction("expression",
+                "correction", Correction.TYPE.TEXT, Correction.KIND.REGEX);
+
+        assertEquals(Correction.CONDITION.NONE, correction.getCondition());
+    }
+
+    @Test
+    public void constructorThrowsNullPointerExceptionIfConditionIsNull() {
+        assertThrows(NullPointerException.class, () ->
+                new Correction("expression", "correction",
+                        Correction.TYPE.TEXT, Correction.KIND.LITERAL, null));
+    }
+
+    @Test
+    public void toStringWorksProperlyForConditionalCorrection() {
+        val correction = new Correction("expression", "correction",
+                Correction.TYPE.CODE, Correction.KIND.REGEX,
+                Correction.CONDITION.LINE_START);
+
+        assertEquals(correction.toString(), "\"expression\" -> " +
+                "\"correction\" (CODE, REGEX, LINE_START)");
+    }
+
+    @Test
+    public void constructorConstructsCaseSensitiveCorrectionByDefault() {
+        val correction = new Correction("expression", "correction",
+                Correction.TYPE.TEXT, Correction.KIND.LITERAL,
+                Correction.CONDITION.NONE);
+
+        assertFalse(correction.isCaseInsensitive());
+    }
+
+    @Test
+    public void toStringWorksProperlyForCaseInsensitiveCorrection() {
+        val correction = new Correction("expression", "correction",
+                Correction.TYPE.TEXT, Correction.KIND.LITERAL,
+                Correction.CONDITION.NONE, true);
+
+        assertEquals(correction.toString(), "\"expression\" -> " +
+                "\"correction\" (TEXT, IGNORE_CASE)");
+    }
 }
@@ -0,0 +1,102 @@
+package com.artyommameev.faststudynotes.suggest;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("ConstantConditions")
+public class CorrectionMinerTests {
+
+    private static String toString(CorrectionMiner correctionMiner) {
+        return correctionMiner.getCandidates().stream()
+                .map(suggestion -> suggestion + " " +
+                        suggestion.getFrequency())
+                .collect(Collectors.joining(", "));
+    }
+
+    @Test
+    void constructorThrowsIllegalArgumentExceptionIfThresholdIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new CorrectionMiner(0));
+    }
+
+    @Test
+    void submitThrowsNullPointerExceptionIfAnyParameterIsNull() {
+        val correctionMiner = new CorrectionMiner(1);
+
+        assertThrows(NullPointerException.class, () ->
+                correctionMiner.submit(null, "text"));
+
+        assertThrows(NullPointerException.class, () ->
+                correctionMiner.submit("text", null));
+    }
+
+    @Test
+    void mineProposesReplacementsThatReachThreshold() {
+        val correctionMiner = new CorrectionMiner(2);
+
+        correctionMiner.mine("The rnodel has 1O parts.",
+                "The model has 10 parts.");
+
+        assertEquals("", toString(correctionMiner));
+
+        correctionMiner.mine("A rnodel of a ship.", "A model of a ship.");
+
+        assertEquals("rnodel -> model 2", toString(correctionMiner));
+    }
+
+    @Test
+    void mineComparesEditedPartWithPartOfOriginalText() {
+        val correctionMiner = new CorrectionMiner(1);
+
+        correctionMiner.mine("First line.\nThe rnodel has 1O parts.\n" +
+                "Last line.", "rnodel has 10 parts");
+
+        assertEquals("1O -> 10 1", toString(correctionMiner));
+    }
+
+    @Test
+    void mineIgnoresInsertedRemovedAndRewrittenWords() {
+        val correctionMiner = new CorrectionMiner(1);
+
+        correctionMiner.mine("The model has ten parts.",
+                "The new model has parts and wheels.");
+
+        correctionMiner.mine("The model has ten parts.",
+                "The model has several parts.");
+
+        assertEquals("", toString(correctionMiner));
+    }
+
+    @Test
+    void minePrefersMostFrequentReplacements() {
+        val correctionMiner = new CorrectionMiner(1);
+
+        for (int i = 0; i < 3; i++) {
+            correctionMiner.mine("rnodel", "model");
+        }
+
+        correctionMiner.mine("l1ne", "line");
+
+        assertEquals("rnodel -> model 3, l1ne -> line 1",
+                toString(correctionMiner));
+    }
+
+    @Test
+    void dismissStopsProposingReplacement() {
+        val correctionMiner = new CorrectionMiner(1);
+
+        correctionMiner.mine("rnodel", "model");
+
+        correctionMiner.dismiss(correctionMiner.getCandidates().get(0));
+
+        correctionMiner.mine("rnodel", "model");
+
+        assertTrue(correctionMiner.getCandidates().isEmpty());
+    }
+}
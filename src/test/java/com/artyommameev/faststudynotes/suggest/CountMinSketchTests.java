@@ -0,0 +1,53 @@
+package com.artyommameev.faststudynotes.suggest;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("ConstantConditions")
+public class CountMinSketchTests {
+
+    @Test
+    void constructorThrowsIllegalArgumentExceptionIfSizeIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new CountMinSketch(0, 16));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                new CountMinSketch(4, 0));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                new CountMinSketch(4, 1 << 30));
+    }
+
+    @Test
+    void addReturnsExactCountsOfFewStrings() {
+        val sketch = new CountMinSketch(4, 1024);
+
+        assertEquals(1, sketch.add("rn"));
+        assertEquals(2, sketch.add("rn"));
+        assertEquals(1, sketch.add("1O"));
+        assertEquals(3, sketch.add("rn"));
+
+        assertEquals(3, sketch.estimate("rn"));
+        assertEquals(1, sketch.estimate("1O"));
+        assertEquals(0, sketch.estimate("l1"));
+    }
+
+    @Test
+    void estimateIsNotLessThanCountIfSketchIsOverfilled() {
+        val sketch = new CountMinSketch(2, 8);
+
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j <= i % 5; j++) {
+                sketch.add("word" + i);
+            }
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(sketch.estimate("word" + i) >= i % 5 + 1);
+        }
+    }
+}
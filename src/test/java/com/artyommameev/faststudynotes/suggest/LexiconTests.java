@@ -0,0 +1,146 @@
+package com.artyommameev.faststudynotes.suggest;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("ConstantConditions")
+public class LexiconTests {
+
+    @Test
+    void constructorThrowsNullPointerExceptionIfWordsIsNull() {
+        assertThrows(NullPointerException.class, () ->
+                new Lexicon(null));
+
+        assertThrows(NullPointerException.class, () ->
+                new Lexicon(Collections.singletonList(null)));
+    }
+
+    @Test
+    void constructorThrowsIllegalArgumentExceptionIfWordIsEmpty() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new Lexicon(Collections.singletonList("")));
+    }
+
+    @Test
+    void containsFindsWordsIgnoringCase() {
+        val lexicon = new Lexicon(Arrays.asList("the", "The", "then",
+                "theory", "apple", "Zoo"));
+
+        assertEquals(5, lexicon.size());
+
+        assertTrue(lexicon.contains("the"));
+        assertTrue(lexicon.contains("THEN"));
+        assertTrue(lexicon.contains("theory"));
+        assertTrue(lexicon.contains("zoo"));
+        assertTrue(lexicon.contains("xx apple xx", 3, 8));
+
+        assertFalse(lexicon.contains("th"));
+        assertFalse(lexicon.contains("thex"));
+        assertFalse(lexicon.contains("theor"));
+        assertFalse(lexicon.contains("a"));
+        assertFalse(lexicon.contains("zoos"));
+        assertFalse(lexicon.contains(""));
+    }
+
+    @Test
+    void containsThrowsIndexOutOfBoundsExceptionIfIndexesAreInvalid() {
+        val lexicon = new Lexicon(Collections.singletonList("the"));
+
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                lexicon.contains("the", 2, 1));
+
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                lexicon.contains("the", 0, 4));
+    }
+
+    @Test
+    void containsGivesTheSameResultAsHashSet() {
+        val random = new Random(42);
+
+        val words = new ArrayList<String>();
+
+        for (int i = 0; i < 20000; i++) {
+            words.add(createRandomWord(random));
+        }
+
+        val lexicon = new Lexicon(words);
+        val wordSet = new HashSet<>(words);
+
+        assertEquals(wordSet.size(), lexicon.size());
+
+        for (val word : words) {
+            assertTrue(lexicon.contains(word), word);
+        }
+
+        for (int i = 0; i < 20000; i++) {
+            val word = createRandomWord(random);
+
+            assertEquals(wordSet.contains(word), lexicon.contains(word),
+                    word);
+        }
+    }
+
+    @Test
+    void findUnknownTokensReturnsOffsetsOfUnknownTokens() {
+        val lexicon = new Lexicon(Arrays.asList("the", "model", "is"));
+
+        val text = "The rnodel is 42, the m0del!";
+
+        assertArrayEquals(new int[]{4, 10, 22, 27},
+                lexicon.findUnknownTokens(text));
+
+        assertArrayEquals(new int[0], lexicon.findUnknownTokens("the 42"));
+    }
+
+    @Test
+    void readReadsWordsOfWordList() throws IOException {
+        val lexicon = Lexicon.read(new StringReader("# words\nthe 10\n\n" +
+                "model\n"));
+
+        assertEquals(2, lexicon.size());
+        assertTrue(lexicon.contains("model"));
+
+        assertThrows(IOException.class, () ->
+                Lexicon.read(new StringReader("the ten")));
+    }
+
+    @Test
+    void lexiconIsSmallerThanItsWords() {
+        val words = new ArrayList<String>();
+
+        for (int i = 0; i < 100000; i++) {
+            words.add("word" + i);
+        }
+
+        val lexicon = new Lexicon(words);
+
+        // about 7 chars per word as strings, without the object overhead
+        assertTrue(lexicon.getSizeInBytes() < 100000 * 7 * 2);
+    }
+
+    private static String createRandomWord(Random random) {
+        val word = new StringBuilder();
+
+        int length = 1 + random.nextInt(8);
+
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(4)));
+        }
+
+        return word.toString();
+    }
+}
@@ -0,0 +1,174 @@
+package com.artyommameev.faststudynotes.suggest;
+
+import com.artyommameev.faststudynotes.correct.BadOcrCorrector;
+import com.artyommameev.faststudynotes.domain.Correction;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("ConstantConditions")
+public class SuggestionIndexTests {
+
+    private static SuggestionIndex createIndex() throws IOException {
+        return SuggestionIndex.read(new StringReader("# words\n" +
+                "the 1000\n" +
+                "they 300\n" +
+                "then 200\n" +
+                "correction 50\n" +
+                "international 10\n" +
+                "\n" +
+                "model 20\n"), 2);
+    }
+
+    @Test
+    void constructorThrowsIllegalArgumentExceptionIfDistanceIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new SuggestionIndex(Collections.emptyMap(), 0));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                new SuggestionIndex(Collections.emptyMap(), 7));
+    }
+
+    @Test
+    void constructorThrowsIllegalArgumentExceptionIfWordIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new SuggestionIndex(Collections.singletonMap("", 1L), 2));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                new SuggestionIndex(Collections.singletonMap("a", -1L), 2));
+    }
+
+    @Test
+    void constructorThrowsNullPointerExceptionIfWordIsNull() {
+        Map<String, Long> frequencies = new HashMap<>();
+
+        frequencies.put(null, 1L);
+
+        assertThrows(NullPointerException.class, () ->
+                new SuggestionIndex(frequencies, 2));
+
+        assertThrows(NullPointerException.class, () ->
+                new SuggestionIndex(null, 2));
+    }
+
+    @Test
+    void readThrowsIOExceptionIfLineIsMalformed() {
+        assertThrows(IOException.class, () ->
+                SuggestionIndex.read(new StringReader("the x"), 2));
+
+        assertThrows(IOException.class, () ->
+                SuggestionIndex.read(new StringReader("the 1 2"), 2));
+    }
+
+    @Test
+    void readMergesWordsThatDifferInCase() throws IOException {
+        val index = SuggestionIndex.read(new StringReader("The 2\nthe\n" +
+                "cat"), 1);
+
+        assertEquals(2, index.size());
+        assertTrue(index.contains("THE"));
+        assertEquals(3, index.lookup("the").get().getFrequency());
+    }
+
+    @Test
+    void lookupFindsWordsWithinMaxEditDistance() throws IOException {
+        val index = createIndex();
+
+        assertEquals("correction", index.lookup("corection").get()
+                .getWord());
+        assertEquals("correction", index.lookup("c0rrectoin").get()
+                .getWord());
+        assertEquals(2, index.lookup("c0rrectoin").get().getDistance());
+        assertEquals("international", index.lookup("lnternatlonal").get()
+                .getWord());
+        assertEquals("model", index.lookup("rnodel").get().getWord());
+
+        assertEquals(Optional.empty(), index.lookup("xyzzy"));
+    }
+
+    @Test
+    void lookupFindsWordsWithMisspelledEndsBeyondIndexedPrefix()
+            throws IOException {
+        val index = createIndex();
+
+        assertEquals("international", index.lookup("internationl").get()
+                .getWord());
+        assertEquals("international", index.lookup("internationaal").get()
+                .getWord());
+    }
+
+    @Test
+    void lookupPrefersNearestAndThenMostFrequentWord() throws IOException {
+        val index = createIndex();
+
+        // "the", "they" and "then" are all 1 edit away
+        assertEquals("the", index.lookup("tho").get().getWord());
+        assertEquals("they", index.lookup("thay").get().getWord());
+    }
+
+    @Test
+    void lookupReturnsZeroDistanceForKnownWord() throws IOException {
+        val suggestion = createIndex().lookup("Model").get();
+
+        assertEquals("Model", suggestion.getWord());
+        assertEquals(0, suggestion.getDistance());
+    }
+
+    @Test
+    void lookupKeepsCaseOfToken() throws IOException {
+        val index = createIndex();
+
+        assertEquals("Correction", index.lookup("Corection").get()
+                .getWord());
+        assertEquals("CORRECTION", index.lookup("CORECTION").get()
+                .getWord());
+    }
+
+    @Test
+    void suggestReturnsSuggestionsForDistinctUnknownTokens()
+            throws IOException {
+        val suggestions = createIndex().suggest("The rnodel, the rnodel " +
+                "and 1O a corection 2021");
+
+        assertEquals("rnodel -> model, corection -> correction",
+                suggestions.stream()
+                        .map(Suggestion::toString)
+                        .collect(Collectors.joining(", ")));
+    }
+
+    @Test
+    void computeDistanceCountsSwapsAsOneEdit() {
+        assertEquals(1, SuggestionIndex.computeDistance("ab", "ba", 2));
+        assertEquals(2, SuggestionIndex.computeDistance("kitten", "sittin",
+                2));
+        assertEquals(-1, SuggestionIndex.computeDistance("kitten",
+                "sitting", 2));
+        assertEquals(0, SuggestionIndex.computeDistance("", "", 2));
+    }
+
+    @Test
+    void toCorrectionCreatesCorrectionOfWholeToken() {
+        val correction = new Suggestion("teh", "the", 1, 1)
+                .toCorrection();
+
+        assertEquals(Correction.KIND.LITERAL, correction.getKind());
+        assertEquals(Correction.CONDITION.WHOLE_WORD,
+                correction.getCondition());
+        assertEquals(Correction.TYPE.TEXT, correction.getType());
+        assertEquals("teh", correction.getExpression());
+        assertEquals("the", correction.getCorrection());
+        assertEquals("the tehran", BadOcrCorrector.correct("teh tehran",
+                Correction.TYPE.TEXT, Collections.singletonList(correction)));
+    }
+}